@@ -0,0 +1,63 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.build.gradle.api.tasks.querycatalog
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.ConventionTask
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Compiles catalogs of named HQL queries (properties files mapping query names to query strings) into a binary catalog
+ * file, to be loaded at runtime via {@code org.hibernate.hql.catalog.QueryCatalog}. All queries are parsed, and the
+ * build fails if any of them is invalid.
+ *
+ * <pre>
+ * task precompileQueries(type: QueryCatalogTask) {
+ *     compilerClasspath = configurations.hqlParser
+ *     catalogFiles = fileTree( 'src/main/queries' ) { include '**&#47;*.properties' }
+ *     outputFile = file( "$buildDir/resources/main/queries.hqlc" )
+ * }
+ * </pre>
+ */
+class QueryCatalogTask extends ConventionTask {
+    /**
+     * Class path holding the HQL parser and its dependencies.
+     */
+    @InputFiles
+    FileCollection compilerClasspath
+    @InputFiles
+    FileCollection catalogFiles
+    @OutputFile
+    File outputFile
+
+    final private static String MAIN = "org.hibernate.hql.catalog.QueryCatalogCompiler"
+
+    @TaskAction
+    public void compile() {
+        project.javaexec {
+            main = MAIN
+            classpath = getCompilerClasspath()
+            args = [getOutputFile().absolutePath] + getCatalogFiles().files.collect { it.absolutePath }
+        }
+    }
+}
@@ -24,25 +24,24 @@
 import java.util.Iterator;
 import java.util.Map;
 
-import org.apache.lucene.search.Query;
+import org.hibernate.hql.QueryLimits;
 import org.hibernate.hql.ast.spi.AstProcessingChain;
 import org.hibernate.hql.ast.spi.AstProcessor;
 import org.hibernate.hql.ast.spi.EntityNamesResolver;
 import org.hibernate.hql.ast.spi.QueryRendererProcessor;
 import org.hibernate.hql.ast.spi.QueryResolverProcessor;
-import org.hibernate.hql.ast.spi.SingleEntityQueryBuilder;
-import org.hibernate.hql.lucene.internal.ClassBasedLuceneQueryResolverDelegate;
 import org.hibernate.hql.lucene.internal.LuceneQueryRendererDelegate;
-import org.hibernate.hql.lucene.internal.UntypedLuceneQueryResolverDelegate;
 import org.hibernate.hql.lucene.internal.builder.ClassBasedLucenePropertyHelper;
 import org.hibernate.hql.lucene.internal.builder.FieldBridgeProviderBasedLucenePropertyHelper;
-import org.hibernate.hql.lucene.internal.builder.LucenePropertyHelper;
-import org.hibernate.hql.lucene.internal.builder.predicate.LucenePredicateFactory;
+import org.hibernate.hql.lucene.internal.builder.predicate.ClauseCostModel;
 import org.hibernate.hql.lucene.spi.FieldBridgeProvider;
+import org.hibernate.hql.lucene.spi.IndexStatisticsProvider;
 import org.hibernate.search.spi.SearchIntegrator;
 
 /**
- * AST processing chain for creating Lucene queries from HQL queries.
+ * AST processing chain for creating Lucene queries from HQL queries. A processing chain holds the state of one parsing
+ * run and thus must not be re-used; use a {@link LuceneProcessingChainFactory} for creating processing chains
+ * efficiently.
  *
  * @author Gunnar Morling
  */
@@ -53,7 +52,7 @@ public class LuceneProcessingChain implements AstProcessingChain<LuceneQueryPars
 	private final LuceneQueryRendererDelegate rendererDelegate;
 
 	/**
-	 * Builds new {@link LuceneProcessingChain}s.
+	 * Builds new {@link LuceneProcessingChain}s and {@link LuceneProcessingChainFactory}s.
 	 *
 	 * @author Gunnar Morling
 	 */
@@ -62,6 +61,9 @@ public static class Builder {
 		private final SearchIntegrator searchFactory;
 		private final EntityNamesResolver entityNames;
 		private Map<String, Object> namedParameters;
+		private ClauseCostModel clauseCostModel;
+		private boolean filterOnly;
+		private QueryLimits limits = QueryLimits.NONE;
 
 		public Builder(SearchIntegrator searchFactory, EntityNamesResolver entityNames) {
 			this.searchFactory = searchFactory;
@@ -73,6 +75,57 @@ public Builder namedParameters(Map<String, Object> namedParameters) {
 			return this;
 		}
 
+		/**
+		 * Enables the ordering of the clauses of conjunctions by their estimated selectivity, based on heuristics.
+		 *
+		 * @return this builder
+		 * @see #orderClausesBySelectivity(IndexStatisticsProvider)
+		 */
+		public Builder orderClausesBySelectivity() {
+			return orderClausesBySelectivity( null );
+		}
+
+		/**
+		 * Enables the ordering of the clauses of conjunctions by their estimated selectivity. Cheap and selective term
+		 * clauses will be put ahead of range and wildcard clauses, and clauses not contributing to the score will be
+		 * added as {@code FILTER} rather than {@code MUST} clauses. The matched documents are the same as without
+		 * ordering, but their scores may differ.
+		 *
+		 * @param statisticsProvider provides the index statistics for estimating the selectivity of clauses; may be
+		 * {@code null}, in which case heuristics only will be applied
+		 * @return this builder
+		 */
+		public Builder orderClausesBySelectivity(IndexStatisticsProvider statisticsProvider) {
+			this.clauseCostModel = new ClauseCostModel( statisticsProvider );
+			return this;
+		}
+
+		/**
+		 * Enables the filter-only rendering mode. As HQL queries have boolean semantics, the created queries then won't
+		 * compute any relevance scores: conjunctions are made up of {@code FILTER} clauses and the complete query is
+		 * wrapped into a {@code ConstantScoreQuery}. This saves the scoring work and makes the queries eligible for
+		 * Lucene's query cache. The matched documents are the same as without this mode, but all have the same score.
+		 *
+		 * @return this builder
+		 */
+		public Builder filterOnly() {
+			this.filterOnly = true;
+			return this;
+		}
+
+		/**
+		 * Sets the limits to be enforced while building the Lucene query. The number of predicates and the number of
+		 * elements of {@code IN} lists are checked here, the token-related limits are enforced by
+		 * {@link org.hibernate.hql.QueryParser}.
+		 *
+		 * @param limits the limits to enforce
+		 * @return this builder
+		 */
+		public Builder limits(QueryLimits limits) {
+			this.limits = limits;
+			return this;
+		}
+
 		/**
 		 * Builds a processing chain for parsing queries targeted at dynamic entities, i.e. entity types which are not
 		 * backed by an actual Java class.
@@ -81,19 +134,7 @@ public Builder namedParameters(Map<String, Object> namedParameters) {
 		 * @return a Lucene processing chain for parsing queries targeted at dynamic entities
 		 */
 		public LuceneProcessingChain buildProcessingChainForDynamicEntities(FieldBridgeProvider fieldBridgeProvider) {
-			QueryResolverProcessor resolverProcessor = new QueryResolverProcessor( new UntypedLuceneQueryResolverDelegate( ) );
-
-			LuceneQueryRendererDelegate rendererDelegate = getRendererDelegate(
-					searchFactory,
-					fieldBridgeProvider,
-					entityNames,
-					namedParameters,
-					new FieldBridgeProviderBasedLucenePropertyHelper( fieldBridgeProvider )
-					);
-
-			QueryRendererProcessor rendererProcessor = new QueryRendererProcessor( rendererDelegate );
-
-			return new LuceneProcessingChain( resolverProcessor, rendererProcessor, rendererDelegate );
+			return buildProcessingChainFactoryForDynamicEntities( fieldBridgeProvider ).createProcessingChain( namedParameters );
 		}
 
 		/**
@@ -112,35 +153,61 @@ public LuceneProcessingChain buildProcessingChainForClassBasedEntities() {
 		 * @return a Lucene processing chain for parsing queries targeted at Java class-based entities
 		 */
 		public LuceneProcessingChain buildProcessingChainForClassBasedEntities(FieldBridgeProvider fieldBridgeProvider) {
-			ClassBasedLucenePropertyHelper propertyHelper = new ClassBasedLucenePropertyHelper( searchFactory, entityNames, fieldBridgeProvider );
+			return buildProcessingChainFactoryForClassBasedEntities( fieldBridgeProvider ).createProcessingChain( namedParameters );
+		}
 
-			QueryResolverProcessor resolverProcessor = new QueryResolverProcessor(
-					new ClassBasedLuceneQueryResolverDelegate( propertyHelper, entityNames )
+		/**
+		 * Builds a thread-safe factory for processing chains for parsing queries targeted at dynamic entities. Named
+		 * parameters set on this builder are ignored, they are to be passed for each created processing chain instead.
+		 *
+		 * @param fieldBridgeProvider the field bridge provider to use for querying the targeted dynamic entity type
+		 * @return a factory for Lucene processing chains for parsing queries targeted at dynamic entities
+		 */
+		public LuceneProcessingChainFactory buildProcessingChainFactoryForDynamicEntities(FieldBridgeProvider fieldBridgeProvider) {
+			return new LuceneProcessingChainFactory(
+					entityNames,
+					searchFactory.buildQueryBuilder(),
+					new FieldBridgeProviderBasedLucenePropertyHelper( fieldBridgeProvider ),
+					fieldBridgeProvider,
+					clauseCostModel,
+					filterOnly,
+					limits
 					);
-
-			LuceneQueryRendererDelegate rendererDelegate = getRendererDelegate( searchFactory, fieldBridgeProvider, entityNames, namedParameters, propertyHelper );
-
-			QueryRendererProcessor rendererProcessor = new QueryRendererProcessor( rendererDelegate );
-
-			return new LuceneProcessingChain( resolverProcessor, rendererProcessor, rendererDelegate );
 		}
 
-		private static LuceneQueryRendererDelegate getRendererDelegate(SearchIntegrator searchFactory, FieldBridgeProvider fieldBridgeProvider, EntityNamesResolver entityNames, Map<String, Object> namedParameters, LucenePropertyHelper propertyHelper) {
-			SingleEntityQueryBuilder<Query> queryBuilder = SingleEntityQueryBuilder.getInstance(
-					new LucenePredicateFactory( searchFactory.buildQueryBuilder(), entityNames, fieldBridgeProvider ),
-					propertyHelper
-					);
+		/**
+		 * Builds a thread-safe factory for processing chains for parsing queries targeted at Java class-based entities.
+		 * Named parameters set on this builder are ignored, they are to be passed for each created processing chain
+		 * instead.
+		 *
+		 * @return a factory for Lucene processing chains for parsing queries targeted at Java class-based entities
+		 */
+		public LuceneProcessingChainFactory buildProcessingChainFactoryForClassBasedEntities() {
+			return buildProcessingChainFactoryForClassBasedEntities( null );
+		}
 
-			return new LuceneQueryRendererDelegate(
+		/**
+		 * Builds a thread-safe factory for processing chains for parsing queries targeted at Java class-based entities.
+		 * Named parameters set on this builder are ignored, they are to be passed for each created processing chain
+		 * instead.
+		 *
+		 * @param fieldBridgeProvider a custom FieldBridgeProvider to be used instead of the defaults
+		 * @return a factory for Lucene processing chains for parsing queries targeted at Java class-based entities
+		 */
+		public LuceneProcessingChainFactory buildProcessingChainFactoryForClassBasedEntities(FieldBridgeProvider fieldBridgeProvider) {
+			return new LuceneProcessingChainFactory(
 					entityNames,
-					queryBuilder,
-					namedParameters,
-					propertyHelper
+					searchFactory.buildQueryBuilder(),
+					new ClassBasedLucenePropertyHelper( searchFactory, entityNames, fieldBridgeProvider ),
+					fieldBridgeProvider,
+					clauseCostModel,
+					filterOnly,
+					limits
 					);
 		}
 	}
 
-	private LuceneProcessingChain(QueryResolverProcessor resolverProcessor, QueryRendererProcessor rendererProcessor,
+	LuceneProcessingChain(QueryResolverProcessor resolverProcessor, QueryRendererProcessor rendererProcessor,
 			LuceneQueryRendererDelegate rendererDelegate) {
 		this.resolverProcessor = resolverProcessor;
 		this.rendererProcessor = rendererProcessor;
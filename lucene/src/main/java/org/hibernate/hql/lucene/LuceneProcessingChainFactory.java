@@ -0,0 +1,117 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene;
+
+import java.util.Map;
+
+import org.apache.lucene.search.Query;
+import org.hibernate.hql.QueryLimits;
+import org.hibernate.hql.ast.spi.EntityNamesResolver;
+import org.hibernate.hql.ast.spi.QueryRendererProcessor;
+import org.hibernate.hql.ast.spi.QueryResolverDelegate;
+import org.hibernate.hql.ast.spi.QueryResolverProcessor;
+import org.hibernate.hql.ast.spi.SingleEntityQueryBuilder;
+import org.hibernate.hql.lucene.internal.ClassBasedLuceneQueryResolverDelegate;
+import org.hibernate.hql.lucene.internal.LuceneQueryRendererDelegate;
+import org.hibernate.hql.lucene.internal.UntypedLuceneQueryResolverDelegate;
+import org.hibernate.hql.lucene.internal.builder.ClassBasedLucenePropertyHelper;
+import org.hibernate.hql.lucene.internal.builder.LucenePropertyHelper;
+import org.hibernate.hql.lucene.internal.builder.predicate.ClauseCostModel;
+import org.hibernate.hql.lucene.internal.builder.predicate.LucenePredicateFactory;
+import org.hibernate.hql.lucene.spi.FieldBridgeProvider;
+import org.hibernate.search.query.dsl.QueryContextBuilder;
+
+/**
+ * Creates {@link LuceneProcessingChain}s for parsing single queries.
+ * <p>
+ * A factory holds all the state which can be shared between queries (entity names resolver, property helper, query
+ * context builder etc.), so creating a processing chain from it only allocates the objects holding the state of one
+ * parsing run. Factories are thread-safe and are meant to be created once and then be used for all queries; the
+ * processing chains created by them are not thread-safe and must be used for one query only.
+ * <p>
+ * Factories are obtained via {@link LuceneProcessingChain.Builder}.
+ */
+public final class LuceneProcessingChainFactory {
+
+	private final EntityNamesResolver entityNames;
+	private final QueryContextBuilder queryContextBuilder;
+	private final LucenePropertyHelper propertyHelper;
+	private final FieldBridgeProvider fieldBridgeProvider;
+	private final ClauseCostModel clauseCostModel;
+	private final boolean filterOnly;
+	private final QueryLimits limits;
+
+	LuceneProcessingChainFactory(EntityNamesResolver entityNames, QueryContextBuilder queryContextBuilder, LucenePropertyHelper propertyHelper,
+			FieldBridgeProvider fieldBridgeProvider, ClauseCostModel clauseCostModel, boolean filterOnly, QueryLimits limits) {
+		this.entityNames = entityNames;
+		this.queryContextBuilder = queryContextBuilder;
+		this.propertyHelper = propertyHelper;
+		this.fieldBridgeProvider = fieldBridgeProvider;
+		this.clauseCostModel = clauseCostModel;
+		this.filterOnly = filterOnly;
+		this.limits = limits;
+	}
+
+	/**
+	 * Creates a processing chain for parsing one query.
+	 *
+	 * @return a new processing chain
+	 */
+	public LuceneProcessingChain createProcessingChain() {
+		return createProcessingChain( null );
+	}
+
+	/**
+	 * Creates a processing chain for parsing one query.
+	 *
+	 * @param namedParameters the values of the named parameters of the query to parse; may be {@code null}
+	 * @return a new processing chain
+	 */
+	public LuceneProcessingChain createProcessingChain(Map<String, Object> namedParameters) {
+		QueryResolverProcessor resolverProcessor = new QueryResolverProcessor( getResolverDelegate() );
+
+		SingleEntityQueryBuilder<Query> queryBuilder = SingleEntityQueryBuilder.getInstance(
+				new LucenePredicateFactory( queryContextBuilder, entityNames, fieldBridgeProvider, clauseCostModel, filterOnly ),
+				propertyHelper,
+				limits
+				);
+
+		LuceneQueryRendererDelegate rendererDelegate = new LuceneQueryRendererDelegate(
+				entityNames,
+				queryBuilder,
+				namedParameters,
+				propertyHelper
+				);
+
+		QueryRendererProcessor rendererProcessor = new QueryRendererProcessor( rendererDelegate );
+
+		return new LuceneProcessingChain( resolverProcessor, rendererProcessor, rendererDelegate );
+	}
+
+	private QueryResolverDelegate getResolverDelegate() {
+		if ( propertyHelper instanceof ClassBasedLucenePropertyHelper ) {
+			return new ClassBasedLuceneQueryResolverDelegate( (ClassBasedLucenePropertyHelper) propertyHelper, entityNames );
+		}
+		else {
+			return new UntypedLuceneQueryResolverDelegate();
+		}
+	}
+}
@@ -0,0 +1,481 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.NumericUtils;
+import org.hibernate.hql.lucene.internal.logging.Log;
+import org.hibernate.hql.lucene.internal.logging.LoggerFactory;
+
+/**
+ * Executes the query of a {@link LuceneQueryParsingResult} with projections, reading the projected values from doc
+ * values where available rather than from stored documents. Stored fields are only read for projections which have no
+ * doc values in a segment; if all projections have doc values, no stored documents need to be decompressed at all.
+ * <p>
+ * The rows are passed to a {@link ProjectionRowHandler} in index order or, if the query specifies an order, in the
+ * requested order. Only the first value of multi-valued fields is read. Numeric doc values of {@code float} and
+ * {@code double} fields, as given by {@link LuceneQueryParsingResult#getProjectionTypes()}, are decoded into floating
+ * point values; numbers read from stored fields are exposed in the same way. The searcher is expected to search the index
+ * of the queried entity type, the query is not restricted to that type. Instances are not thread-safe.
+ * <p>
+ * Sorted queries can be read page by page: if the parsing result has a {@link LuceneQueryParsingResult#getSearchAfter()
+ * search-after cursor}, only the hits following that cursor are read, and {@link #getLastCursor()} provides the cursor
+ * for the next page.
+ */
+public class LuceneProjectionExecutor {
+
+	private static final Log log = LoggerFactory.make();
+
+	/**
+	 * The maximum number of hits collected by one search of a sorted query; further hits are obtained by searching
+	 * after the last hit, so the size of the priority queue doesn't depend on the size of the index
+	 */
+	private static final int SORTED_BATCH_SIZE = 1024;
+
+	private final IndexSearcher searcher;
+	private final Query query;
+	private final Sort sort;
+	private final List<String> projections;
+	private final List<SortField.Type> projectionTypes;
+	private final FieldDoc searchAfter;
+	private ScoreDoc lastHit;
+
+	public LuceneProjectionExecutor(IndexSearcher searcher, LuceneQueryParsingResult parsingResult) {
+		if ( parsingResult.getProjections().isEmpty() ) {
+			throw log.getNoProjectionsException( parsingResult.getTargetEntityName() );
+		}
+
+		this.searcher = searcher;
+		this.query = parsingResult.getQuery();
+		this.sort = parsingResult.getSort();
+		this.projections = parsingResult.getProjections();
+		this.projectionTypes = parsingResult.getProjectionTypes();
+		this.searchAfter = parsingResult.getSearchAfter() != null ? parsingResult.getSearchAfter().toFieldDoc() : null;
+	}
+
+	/**
+	 * Reads the rows of all matching documents.
+	 *
+	 * @param handler receives the rows
+	 * @return the number of rows passed to the handler
+	 * @throws IOException if the index can't be read
+	 */
+	public int execute(ProjectionRowHandler handler) throws IOException {
+		return execute( Integer.MAX_VALUE, handler );
+	}
+
+	/**
+	 * Reads the rows of up to the given number of matching documents.
+	 *
+	 * @param maxRows the maximum number of rows to read
+	 * @param handler receives the rows
+	 * @return the number of rows passed to the handler
+	 * @throws IOException if the index can't be read
+	 */
+	public int execute(int maxRows, ProjectionRowHandler handler) throws IOException {
+		lastHit = null;
+
+		if ( maxRows <= 0 ) {
+			return 0;
+		}
+
+		RowReader rowReader = new RowReader( projections, projectionTypes );
+
+		if ( sort == null ) {
+			RowCollector collector = new RowCollector( rowReader, maxRows, handler );
+			searcher.search( query, collector );
+			return collector.rowCount;
+		}
+		else {
+			return executeSorted( rowReader, maxRows, handler );
+		}
+	}
+
+	private int executeSorted(RowReader rowReader, int maxRows, ProjectionRowHandler handler) throws IOException {
+		List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+		FieldDoc after = searchAfter;
+		int currentLeaf = -1;
+		int rowCount = 0;
+
+		while ( rowCount < maxRows ) {
+			int numHits = Math.min( maxRows - rowCount, SORTED_BATCH_SIZE );
+			TopDocs topDocs = searcher.searchAfter( after, query, numHits, sort );
+
+			for ( ScoreDoc scoreDoc : topDocs.scoreDocs ) {
+				int leaf = ReaderUtil.subIndex( scoreDoc.doc, leaves );
+				if ( leaf != currentLeaf ) {
+					rowReader.setLeaf( leaves.get( leaf ) );
+					currentLeaf = leaf;
+				}
+
+				rowCount++;
+				lastHit = scoreDoc;
+				if ( !handler.handleRow( rowReader.read( scoreDoc.doc - leaves.get( leaf ).docBase ) ) ) {
+					return rowCount;
+				}
+			}
+
+			if ( topDocs.scoreDocs.length < numHits ) {
+				break;
+			}
+
+			after = (FieldDoc) lastHit;
+		}
+
+		return rowCount;
+	}
+
+	/**
+	 * Returns the cursor pointing to the last row read by the previous execution of a sorted query. The next page is
+	 * read by executing the query of {@code parsingResult.searchAfter( executor.getLastCursor() )}.
+	 *
+	 * @return the cursor pointing to the last row read or {@code null} if the query is not sorted or no row has been
+	 * read
+	 */
+	public SearchAfterCursor getLastCursor() {
+		return lastHit != null ? SearchAfterCursor.fromHit( lastHit ) : null;
+	}
+
+	/**
+	 * Collects the rows of matching documents in index order, without computing scores.
+	 */
+	private static class RowCollector extends SimpleCollector {
+
+		private final RowReader rowReader;
+		private final int maxRows;
+		private final ProjectionRowHandler handler;
+		private int rowCount;
+		private boolean done;
+
+		private RowCollector(RowReader rowReader, int maxRows, ProjectionRowHandler handler) {
+			this.rowReader = rowReader;
+			this.maxRows = maxRows;
+			this.handler = handler;
+		}
+
+		@Override
+		protected void doSetNextReader(LeafReaderContext context) throws IOException {
+			// skips the remaining segments
+			if ( done ) {
+				throw new CollectionTerminatedException();
+			}
+
+			rowReader.setLeaf( context );
+		}
+
+		@Override
+		public void collect(int doc) throws IOException {
+			rowCount++;
+			if ( !handler.handleRow( rowReader.read( doc ) ) || rowCount >= maxRows ) {
+				done = true;
+				throw new CollectionTerminatedException();
+			}
+		}
+
+		@Override
+		public boolean needsScores() {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the projected values of documents of one segment at a time into a re-used row.
+	 */
+	private static class RowReader {
+
+		private final List<String> projections;
+		private final List<SortField.Type> projectionTypes;
+		private final ProjectionRow row;
+		private final ColumnReader[] columnReaders;
+		private final Set<String> storedFields = new HashSet<String>();
+		private LeafReader reader;
+		private int docBase;
+
+		private RowReader(List<String> projections, List<SortField.Type> projectionTypes) {
+			this.projections = projections;
+			this.projectionTypes = projectionTypes;
+			this.row = new ProjectionRow( projections );
+			this.columnReaders = new ColumnReader[projections.size()];
+		}
+
+		private void setLeaf(LeafReaderContext context) throws IOException {
+			reader = context.reader();
+			docBase = context.docBase;
+			storedFields.clear();
+
+			for ( int i = 0; i < columnReaders.length; i++ ) {
+				String field = projections.get( i );
+				FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo( field );
+
+				columnReaders[i] = getColumnReader( reader, field, fieldInfo, getProjectionType( i ) );
+				if ( columnReaders[i] == null && fieldInfo != null ) {
+					storedFields.add( field );
+				}
+			}
+		}
+
+		private SortField.Type getProjectionType(int column) {
+			return column < projectionTypes.size() ? projectionTypes.get( column ) : SortField.Type.STRING;
+		}
+
+		private ColumnReader getColumnReader(LeafReader reader, String field, FieldInfo fieldInfo, SortField.Type type) throws IOException {
+			DocValuesType docValuesType = fieldInfo != null ? fieldInfo.getDocValuesType() : DocValuesType.NONE;
+
+			switch ( docValuesType ) {
+				case NUMERIC:
+					return new NumericColumnReader( reader.getNumericDocValues( field ), reader.getDocsWithField( field ), type );
+				case BINARY:
+					return new BinaryColumnReader( reader.getBinaryDocValues( field ), reader.getDocsWithField( field ) );
+				case SORTED:
+					return new SortedColumnReader( reader.getSortedDocValues( field ) );
+				case SORTED_NUMERIC:
+					return new SortedNumericColumnReader( reader.getSortedNumericDocValues( field ), type );
+				case SORTED_SET:
+					return new SortedSetColumnReader( reader.getSortedSetDocValues( field ) );
+				default:
+					// either stored or not present in this segment at all
+					return fieldInfo == null ? NullColumnReader.INSTANCE : null;
+			}
+		}
+
+		private ProjectionRow read(int doc) throws IOException {
+			row.startRow( docBase + doc );
+
+			for ( int i = 0; i < columnReaders.length; i++ ) {
+				if ( columnReaders[i] != null ) {
+					columnReaders[i].read( doc, row, i );
+				}
+			}
+
+			if ( !storedFields.isEmpty() ) {
+				readStoredFields( doc );
+			}
+
+			return row;
+		}
+
+		private void readStoredFields(int doc) throws IOException {
+			DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor( storedFields );
+			reader.document( doc, visitor );
+			Document document = visitor.getDocument();
+
+			for ( int i = 0; i < columnReaders.length; i++ ) {
+				if ( columnReaders[i] == null ) {
+					setValue( i, document.getField( projections.get( i ) ) );
+				}
+			}
+		}
+
+		private void setValue(int column, IndexableField field) {
+			if ( field == null ) {
+				row.setNull( column );
+			}
+			else if ( field.numericValue() != null ) {
+				// exposed like values read from doc values
+				Number value = field.numericValue();
+				if ( value instanceof Double || value instanceof Float ) {
+					row.setDouble( column, value.doubleValue() );
+				}
+				else {
+					row.setLong( column, value.longValue() );
+				}
+			}
+			else if ( field.stringValue() != null ) {
+				row.setObject( column, field.stringValue() );
+			}
+			else {
+				row.setObject( column, field.binaryValue() );
+			}
+		}
+	}
+
+	private abstract static class ColumnReader {
+
+		abstract void read(int doc, ProjectionRow row, int column) throws IOException;
+	}
+
+	private static class NullColumnReader extends ColumnReader {
+
+		private static final NullColumnReader INSTANCE = new NullColumnReader();
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			row.setNull( column );
+		}
+	}
+
+	/**
+	 * Reads numeric doc values. Floating point values are encoded as raw bits, as by {@code DoubleDocValuesField} and
+	 * {@code FloatDocValuesField}.
+	 */
+	private static class NumericColumnReader extends ColumnReader {
+
+		private final NumericDocValues values;
+		private final Bits docsWithField;
+		private final SortField.Type type;
+
+		private NumericColumnReader(NumericDocValues values, Bits docsWithField, SortField.Type type) {
+			this.values = values;
+			this.docsWithField = docsWithField;
+			this.type = type;
+		}
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			if ( !docsWithField.get( doc ) ) {
+				row.setNull( column );
+			}
+			else if ( type == SortField.Type.DOUBLE ) {
+				row.setDouble( column, Double.longBitsToDouble( values.get( doc ) ) );
+			}
+			else if ( type == SortField.Type.FLOAT ) {
+				row.setDouble( column, Float.intBitsToFloat( (int) values.get( doc ) ) );
+			}
+			else {
+				row.setLong( column, values.get( doc ) );
+			}
+		}
+	}
+
+	private static class BinaryColumnReader extends ColumnReader {
+
+		private final BinaryDocValues values;
+		private final Bits docsWithField;
+
+		private BinaryColumnReader(BinaryDocValues values, Bits docsWithField) {
+			this.values = values;
+			this.docsWithField = docsWithField;
+		}
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			if ( docsWithField.get( doc ) ) {
+				row.setBytes( column, values.get( doc ) );
+			}
+			else {
+				row.setNull( column );
+			}
+		}
+	}
+
+	private static class SortedColumnReader extends ColumnReader {
+
+		private final SortedDocValues values;
+
+		private SortedColumnReader(SortedDocValues values) {
+			this.values = values;
+		}
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			int ord = values.getOrd( doc );
+
+			if ( ord >= 0 ) {
+				row.setBytes( column, values.lookupOrd( ord ) );
+			}
+			else {
+				row.setNull( column );
+			}
+		}
+	}
+
+	/**
+	 * Reads sorted numeric doc values. Floating point values are encoded as sortable bits, as by
+	 * {@code SortedNumericSortField}.
+	 */
+	private static class SortedNumericColumnReader extends ColumnReader {
+
+		private final SortedNumericDocValues values;
+		private final SortField.Type type;
+
+		private SortedNumericColumnReader(SortedNumericDocValues values, SortField.Type type) {
+			this.values = values;
+			this.type = type;
+		}
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			values.setDocument( doc );
+
+			if ( values.count() == 0 ) {
+				row.setNull( column );
+			}
+			else if ( type == SortField.Type.DOUBLE ) {
+				row.setDouble( column, NumericUtils.sortableLongToDouble( values.valueAt( 0 ) ) );
+			}
+			else if ( type == SortField.Type.FLOAT ) {
+				row.setDouble( column, NumericUtils.sortableIntToFloat( (int) values.valueAt( 0 ) ) );
+			}
+			else {
+				row.setLong( column, values.valueAt( 0 ) );
+			}
+		}
+	}
+
+	private static class SortedSetColumnReader extends ColumnReader {
+
+		private final SortedSetDocValues values;
+
+		private SortedSetColumnReader(SortedSetDocValues values) {
+			this.values = values;
+		}
+
+		@Override
+		void read(int doc, ProjectionRow row, int column) {
+			values.setDocument( doc );
+			long ord = values.nextOrd();
+
+			if ( ord != SortedSetDocValues.NO_MORE_ORDS ) {
+				row.setBytes( column, values.lookupOrd( ord ) );
+			}
+			else {
+				row.setNull( column );
+			}
+		}
+	}
+}
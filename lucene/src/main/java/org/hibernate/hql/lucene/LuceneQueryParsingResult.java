@@ -24,8 +24,13 @@
 import java.util.List;
 
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
 import org.hibernate.hql.ast.spi.EntityNamesResolver;
+import org.hibernate.hql.lucene.internal.logging.Log;
+import org.hibernate.hql.lucene.internal.logging.LoggerFactory;
 
 /**
  * The result of walking a query parse tree, representing an equivalent Lucene query.
@@ -34,18 +39,32 @@
  */
 public class LuceneQueryParsingResult {
 
+	private static final Log log = LoggerFactory.make();
+
 	private final Query query;
 	private final String targetEntityName;
 	private final Class<?> targetEntity;
 	private final List<String> projections;
+	private final List<SortField.Type> projectionTypes;
 	private final Sort sort;
+	private final SearchAfterCursor searchAfter;
 
 	public LuceneQueryParsingResult(Query query, String targetEntityName, Class<?> targetEntity, List<String> projections, Sort sort) {
+		this( query, targetEntityName, targetEntity, projections, null, sort, null );
+	}
+
+	public LuceneQueryParsingResult(Query query, String targetEntityName, Class<?> targetEntity, List<String> projections, List<SortField.Type> projectionTypes, Sort sort) {
+		this( query, targetEntityName, targetEntity, projections, projectionTypes, sort, null );
+	}
+
+	private LuceneQueryParsingResult(Query query, String targetEntityName, Class<?> targetEntity, List<String> projections, List<SortField.Type> projectionTypes, Sort sort, SearchAfterCursor searchAfter) {
 		this.query = query;
 		this.targetEntityName = targetEntityName;
 		this.targetEntity = targetEntity;
 		this.projections = projections != null ? projections : Collections.<String>emptyList();
+		this.projectionTypes = projectionTypes != null ? projectionTypes : Collections.<SortField.Type>emptyList();
 		this.sort = sort;
+		this.searchAfter = searchAfter;
 	}
 
 	/**
@@ -87,6 +106,17 @@ public List<String> getProjections() {
 		return projections;
 	}
 
+	/**
+	 * Returns the types of the values of the projections, in the order of {@link #getProjections()}. Numeric fields
+	 * are represented by the {@link SortField.Type} matching their encoding, i.e. {@code INT}, {@code LONG},
+	 * {@code FLOAT} or {@code DOUBLE}; all other projections by {@code STRING}.
+	 *
+	 * @return a list with the types of the projections; an empty list will be returned if the types are not known
+	 */
+	public List<SortField.Type> getProjectionTypes() {
+		return projectionTypes;
+	}
+
 	/**
     * Returns the optional Lucene sort specification.
     *
@@ -96,9 +126,65 @@ public Sort getSort() {
 		return sort;
 	}
 
+	/**
+	 * Returns the cursor after which the search is to be continued, if this result represents a page following the
+	 * first one. The boundary for {@code IndexSearcher#searchAfter()} is obtained via
+	 * {@link SearchAfterCursor#toFieldDoc()}.
+	 *
+	 * @return the search-after cursor or {@code null} if the search is to start with the first hit
+	 */
+	public SearchAfterCursor getSearchAfter() {
+		return searchAfter;
+	}
+
+	/**
+	 * Returns a copy of this result which continues the search after the given cursor.
+	 *
+	 * @param cursor the cursor to continue the search after, e.g. decoded from a string handed out to a client; may be
+	 * {@code null} for starting with the first hit again
+	 * @return a copy of this result continuing the search after the given cursor
+	 * @throws IllegalArgumentException if this result has no sort or the number or types of the sort values of the
+	 * cursor don't match the sort
+	 */
+	public LuceneQueryParsingResult searchAfter(SearchAfterCursor cursor) {
+		if ( cursor != null ) {
+			if ( sort == null ) {
+				throw log.getSearchAfterRequiresSortException( targetEntityName );
+			}
+			if ( cursor.getSortValueCount() != sort.getSort().length ) {
+				throw log.getSearchAfterCursorDoesNotMatchSortException( cursor.getSortValueCount(), targetEntityName, sort.getSort().length );
+			}
+			for ( int i = 0; i < sort.getSort().length; i++ ) {
+				if ( !cursor.matches( i, sort.getSort()[i] ) ) {
+					throw log.getSearchAfterCursorValueDoesNotMatchSortFieldException( cursor.getSortValue( i ), i, String.valueOf( sort.getSort()[i] ), targetEntityName );
+				}
+			}
+		}
+
+		return new LuceneQueryParsingResult( query, targetEntityName, targetEntity, projections, projectionTypes, sort, cursor );
+	}
+
+	/**
+	 * Returns a copy of this result which continues the search after the last hit of the given page.
+	 *
+	 * @param page a page of hits, as returned by a sorted search for this result
+	 * @return a copy of this result continuing the search after the given page or {@code null} if the given page has
+	 * no hits, i.e. there is no next page
+	 * @throws IllegalArgumentException if this result has no sort or the hits of the page have no sort values
+	 */
+	public LuceneQueryParsingResult nextPage(TopDocs page) {
+		ScoreDoc[] hits = page.scoreDocs;
+
+		if ( hits.length == 0 ) {
+			return null;
+		}
+
+		return searchAfter( SearchAfterCursor.fromHit( hits[hits.length - 1] ) );
+	}
+
 	@Override
 	public String toString() {
 		return "LuceneQueryParsingResult [query=" + query + ", targetEntity=" + targetEntity
-				+ ", projections=" + projections + ", sort=" + sort + "]";
+				+ ", projections=" + projections + ", sort=" + sort + ", searchAfter=" + searchAfter + "]";
 	}
 }
@@ -0,0 +1,195 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+/**
+ * Caches the documents matching repeatedly executed queries, so executing them again only requires iterating over the
+ * cached document ids rather than evaluating the query.
+ * <p>
+ * The matching documents are cached per index segment, sparse sets as compressed (roaring) document id sets and dense
+ * ones as bit sets. The entries of a segment are dropped once the segment is closed, e.g. after it has been merged
+ * away, while the entries of the unchanged segments remain valid after re-opening a reader; deletions are applied when
+ * iterating over the cached sets. The cache is bounded by the number of cached queries and the memory used, evicting
+ * the least recently used entries.
+ * <p>
+ * Entries are keyed by the query only, as neither the sort nor the projections of a {@link LuceneQueryParsingResult}
+ * have an impact on the matching documents. The {@link ConstantScoreQuery} wrapping the queries created in filter-only
+ * mode is not cached itself, so the query created for the same HQL query with and without that mode share one entry.
+ * Whether a query is cached is decided by Lucene's {@link UsageTrackingQueryCachingPolicy} based on how often it has
+ * been executed recently, e.g. range or wildcard queries are cached after fewer executions than boolean queries;
+ * queries created by the Lucene query builder for the same HQL query are equal. Only the segments of indexes with the
+ * given minimum number of documents are cached. Term queries are never cached, as iterating their postings is as cheap
+ * as iterating a cached set.
+ * <p>
+ * Only queries executed without computing scores are cached, which is the case for the queries executed by
+ * {@link LuceneProjectionExecutor} unless they are sorted by relevance. The cache is thread-safe and is meant to be
+ * shared by all searchers of an index, see {@link #configure(IndexSearcher)}.
+ */
+public class LuceneQueryResultCache {
+
+	/**
+	 * The number of recently used queries whose use counts are tracked
+	 */
+	private static final int USE_COUNT_HISTORY_SIZE = 256;
+
+	/**
+	 * The minimum number of documents of an index whose segments are cached by default, same as Lucene's default
+	 */
+	private static final int DEFAULT_MIN_INDEX_SIZE = 10000;
+
+	/**
+	 * The minimum ratio of the documents of an index a segment must hold for being cached, same as Lucene's default
+	 */
+	private static final float MIN_SEGMENT_SIZE_RATIO = 0.03f;
+
+	private final LRUQueryCache queryCache;
+	private final QueryCachingPolicy cachingPolicy;
+
+	/**
+	 * Creates a cache for indexes with at least 10000 documents; the segments of smaller indexes are not cached.
+	 *
+	 * @param maxCachedQueries the maximum number of queries to cache
+	 * @param maxRamBytesUsed the maximum memory to be used for the cached document id sets
+	 */
+	public LuceneQueryResultCache(int maxCachedQueries, long maxRamBytesUsed) {
+		this( maxCachedQueries, maxRamBytesUsed, DEFAULT_MIN_INDEX_SIZE );
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param maxCachedQueries the maximum number of queries to cache
+	 * @param maxRamBytesUsed the maximum memory to be used for the cached document id sets
+	 * @param minIndexSize the minimum number of documents of an index for its segments to be cached
+	 */
+	public LuceneQueryResultCache(int maxCachedQueries, long maxRamBytesUsed, int minIndexSize) {
+		this.queryCache = new LRUQueryCache( maxCachedQueries, maxRamBytesUsed );
+		this.cachingPolicy = new CacheableQueriesPolicy(
+				new UsageTrackingQueryCachingPolicy( minIndexSize, MIN_SEGMENT_SIZE_RATIO, USE_COUNT_HISTORY_SIZE )
+		);
+	}
+
+	/**
+	 * Makes the given searcher use this cache.
+	 *
+	 * @param searcher the searcher to configure
+	 * @return the given searcher
+	 */
+	public IndexSearcher configure(IndexSearcher searcher) {
+		searcher.setQueryCache( queryCache );
+		searcher.setQueryCachingPolicy( cachingPolicy );
+		return searcher;
+	}
+
+	/**
+	 * Returns the number of times a segment's matching documents of a query have been taken from the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return queryCache.getHitCount();
+	}
+
+	/**
+	 * Returns the number of times a segment's matching documents of a query have been looked up in the cache but were
+	 * not found.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return queryCache.getMissCount();
+	}
+
+	/**
+	 * Returns the number of cached document id sets, i.e. the sum of the number of cached queries over all segments.
+	 *
+	 * @return the number of cached document id sets
+	 */
+	public long getCacheSize() {
+		return queryCache.getCacheSize();
+	}
+
+	/**
+	 * Returns the number of document id sets which have been evicted from the cache, either because the cache was full
+	 * or because their segment has been closed.
+	 *
+	 * @return the number of evicted document id sets
+	 */
+	public long getEvictionCount() {
+		return queryCache.getEvictionCount();
+	}
+
+	/**
+	 * Returns the memory used by the cache.
+	 *
+	 * @return the memory used by the cache in bytes
+	 */
+	public long ramBytesUsed() {
+		return queryCache.ramBytesUsed();
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public void clear() {
+		queryCache.clear();
+	}
+
+	/**
+	 * Applies the given policy to the queries worth caching, i.e. neither term queries nor the constant score wrappers
+	 * of filter-only queries, whose wrapped query is cached instead.
+	 */
+	private static class CacheableQueriesPolicy implements QueryCachingPolicy {
+
+		private final QueryCachingPolicy delegate;
+
+		private CacheableQueriesPolicy(QueryCachingPolicy delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void onUse(Query query) {
+			if ( isCacheable( query ) ) {
+				delegate.onUse( query );
+			}
+		}
+
+		@Override
+		public boolean shouldCache(Query query, LeafReaderContext context) throws IOException {
+			return isCacheable( query ) && delegate.shouldCache( query, context );
+		}
+
+		private boolean isCacheable(Query query) {
+			return !( query instanceof ConstantScoreQuery ) && !( query instanceof TermQuery );
+		}
+	}
+}
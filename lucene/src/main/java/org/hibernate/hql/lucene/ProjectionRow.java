@@ -0,0 +1,233 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene;
+
+import java.util.List;
+
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * A row of a projection query executed by a {@link LuceneProjectionExecutor}. The row is re-used for all rows of an
+ * execution and keeps numeric values in primitive slots, so reading numeric projections doesn't allocate.
+ * <p>
+ * Numeric values are exposed as {@code long} for integral fields and as {@code double} for {@code float} and
+ * {@code double} fields, no matter whether they have been read from doc values or from stored fields.
+ */
+public final class ProjectionRow {
+
+	private static final byte NULL = 0;
+	private static final byte LONG = 1;
+	private static final byte DOUBLE = 2;
+	private static final byte BYTES = 3;
+	private static final byte OBJECT = 4;
+
+	private final List<String> columnNames;
+	private final byte[] kinds;
+	private final long[] longs;
+	private final double[] doubles;
+	private final BytesRef[] bytes;
+	private final Object[] objects;
+	private int docId;
+
+	ProjectionRow(List<String> columnNames) {
+		int columnCount = columnNames.size();
+
+		this.columnNames = columnNames;
+		this.kinds = new byte[columnCount];
+		this.longs = new long[columnCount];
+		this.doubles = new double[columnCount];
+		this.bytes = new BytesRef[columnCount];
+		this.objects = new Object[columnCount];
+	}
+
+	public int getColumnCount() {
+		return kinds.length;
+	}
+
+	/**
+	 * Returns the projection represented by the given column.
+	 *
+	 * @param column the index of the column
+	 * @return the projection represented by the given column, e.g. {@code "author.name"}
+	 */
+	public String getColumnName(int column) {
+		return columnNames.get( column );
+	}
+
+	/**
+	 * Returns the id of the document this row has been read from.
+	 *
+	 * @return the id of the document this row has been read from, relative to the reader of the searcher
+	 */
+	public int getDocId() {
+		return docId;
+	}
+
+	public boolean isNull(int column) {
+		return kinds[column] == NULL;
+	}
+
+	/**
+	 * Returns the value of the given column as {@code long}.
+	 *
+	 * @param column the index of the column
+	 * @return the value of the given column
+	 * @throws IllegalStateException if the column is {@code null} or has no numeric value
+	 */
+	public long getLong(int column) {
+		switch ( kinds[column] ) {
+			case LONG:
+				return longs[column];
+			case DOUBLE:
+				return (long) doubles[column];
+			case OBJECT:
+				if ( objects[column] instanceof Number ) {
+					return ( (Number) objects[column] ).longValue();
+				}
+				break;
+			default:
+				break;
+		}
+
+		throw new IllegalStateException( "Column " + getColumnName( column ) + " has no numeric value: " + getValue( column ) );
+	}
+
+	/**
+	 * Returns the value of the given column as {@code double}.
+	 *
+	 * @param column the index of the column
+	 * @return the value of the given column
+	 * @throws IllegalStateException if the column is {@code null} or has no numeric value
+	 */
+	public double getDouble(int column) {
+		switch ( kinds[column] ) {
+			case LONG:
+				return longs[column];
+			case DOUBLE:
+				return doubles[column];
+			case OBJECT:
+				if ( objects[column] instanceof Number ) {
+					return ( (Number) objects[column] ).doubleValue();
+				}
+				break;
+			default:
+				break;
+		}
+
+		throw new IllegalStateException( "Column " + getColumnName( column ) + " has no numeric value: " + getValue( column ) );
+	}
+
+	/**
+	 * Returns the value of the given column as bytes if it has been read from binary or sorted doc values. The returned
+	 * object must not be modified and is only valid until the next row is read.
+	 *
+	 * @param column the index of the column
+	 * @return the value of the given column or {@code null} if the column is {@code null} or has not been read from
+	 * binary or sorted doc values
+	 */
+	public BytesRef getBytesRef(int column) {
+		return kinds[column] == BYTES ? bytes[column] : null;
+	}
+
+	/**
+	 * Returns the value of the given column as string.
+	 *
+	 * @param column the index of the column
+	 * @return the value of the given column or {@code null} if the column is {@code null}
+	 */
+	public String getString(int column) {
+		switch ( kinds[column] ) {
+			case NULL:
+				return null;
+			case BYTES:
+				return bytes[column].utf8ToString();
+			default:
+				return String.valueOf( getValue( column ) );
+		}
+	}
+
+	/**
+	 * Returns the value of the given column, boxing primitive values and converting bytes into strings.
+	 *
+	 * @param column the index of the column
+	 * @return the value of the given column or {@code null} if the column is {@code null}
+	 */
+	public Object getValue(int column) {
+		switch ( kinds[column] ) {
+			case LONG:
+				return longs[column];
+			case DOUBLE:
+				return doubles[column];
+			case BYTES:
+				return bytes[column].utf8ToString();
+			case OBJECT:
+				return objects[column];
+			default:
+				return null;
+		}
+	}
+
+	void startRow(int docId) {
+		this.docId = docId;
+	}
+
+	void setNull(int column) {
+		kinds[column] = NULL;
+		bytes[column] = null;
+		objects[column] = null;
+	}
+
+	void setLong(int column, long value) {
+		kinds[column] = LONG;
+		longs[column] = value;
+	}
+
+	void setDouble(int column, double value) {
+		kinds[column] = DOUBLE;
+		doubles[column] = value;
+	}
+
+	void setBytes(int column, BytesRef value) {
+		kinds[column] = BYTES;
+		bytes[column] = value;
+	}
+
+	void setObject(int column, Object value) {
+		if ( value == null ) {
+			setNull( column );
+		}
+		else {
+			kinds[column] = OBJECT;
+			objects[column] = value;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder row = new StringBuilder( "ProjectionRow [docId=" ).append( docId );
+
+		for ( int i = 0; i < kinds.length; i++ ) {
+			row.append( ", " ).append( getColumnName( i ) ).append( "=" ).append( getValue( i ) );
+		}
+
+		return row.append( "]" ).toString();
+	}
+}
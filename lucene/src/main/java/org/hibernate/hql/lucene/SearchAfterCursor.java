@@ -0,0 +1,363 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.hql.lucene.internal.logging.Log;
+import org.hibernate.hql.lucene.internal.logging.LoggerFactory;
+
+/**
+ * The position of a hit within the results of a sorted query, allowing to continue the search after that hit. Other
+ * than offset-based paging, continuing a search from a cursor doesn't require to collect and skip the hits of all the
+ * previous pages, so each page costs the same to fetch.
+ * <p>
+ * A cursor is made up of the sort values and the document id of the hit. It can be converted into an opaque, URL-safe
+ * string via {@link #encode()}, e.g. for handing it out to clients, and re-created from that via
+ * {@link #decode(String)}. As document ids change when segments are merged, the sort of the query should end with a
+ * field unique per document; otherwise hits with the same sort values may be skipped or repeated if the index has been
+ * changed between fetching two pages.
+ * <p>
+ * Instances are immutable.
+ */
+public final class SearchAfterCursor {
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final byte VERSION = 1;
+
+	private static final byte NULL = 0;
+	private static final byte INT = 1;
+	private static final byte LONG = 2;
+	private static final byte FLOAT = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte BYTES = 5;
+	private static final byte STRING = 6;
+
+	private final int doc;
+	private final Object[] sortValues;
+
+	private SearchAfterCursor(int doc, Object[] sortValues) {
+		this.doc = doc;
+		this.sortValues = sortValues;
+	}
+
+	/**
+	 * Creates a cursor for continuing a search after the given hit.
+	 *
+	 * @param hit a hit of a sorted search
+	 * @return a cursor pointing to the given hit
+	 * @throws IllegalArgumentException if the given hit has no sort values or a sort value of a type not supported by
+	 * cursors; values of the built-in sort field types are supported
+	 */
+	public static SearchAfterCursor fromHit(ScoreDoc hit) {
+		if ( !( hit instanceof FieldDoc ) || ( (FieldDoc) hit ).fields == null ) {
+			throw log.getHitWithoutSortValuesException( String.valueOf( hit ) );
+		}
+
+		Object[] fields = ( (FieldDoc) hit ).fields;
+		Object[] sortValues = new Object[fields.length];
+
+		for ( int i = 0; i < fields.length; i++ ) {
+			getType( fields[i] );
+			sortValues[i] = fields[i] instanceof BytesRef ? BytesRef.deepCopyOf( (BytesRef) fields[i] ) : fields[i];
+		}
+
+		return new SearchAfterCursor( hit.doc, sortValues );
+	}
+
+	/**
+	 * Re-creates a cursor from its encoded form.
+	 *
+	 * @param encodedCursor a cursor encoded via {@link #encode()}
+	 * @return the decoded cursor
+	 * @throws IllegalArgumentException if the given string is not a valid encoded cursor
+	 */
+	public static SearchAfterCursor decode(String encodedCursor) {
+		try {
+			DataInputStream input = new DataInputStream( new ByteArrayInputStream( Base64.getUrlDecoder().decode( encodedCursor ) ) );
+
+			byte version = input.readByte();
+			if ( version != VERSION ) {
+				throw new IOException( "Unsupported version: " + version );
+			}
+
+			int doc = input.readInt();
+			int sortValueCount = readVarInt( input );
+			// each value takes at least one byte
+			if ( sortValueCount < 0 || sortValueCount > input.available() ) {
+				throw new IOException( "Invalid number of sort values: " + sortValueCount );
+			}
+
+			Object[] sortValues = new Object[sortValueCount];
+
+			for ( int i = 0; i < sortValues.length; i++ ) {
+				sortValues[i] = readValue( input );
+			}
+
+			if ( input.available() > 0 ) {
+				throw new IOException( "Unexpected trailing bytes" );
+			}
+
+			return new SearchAfterCursor( doc, sortValues );
+		}
+		catch (IOException e) {
+			throw log.getInvalidSearchAfterCursorException( encodedCursor, e );
+		}
+		// raised by the Base64 decoder
+		catch (IllegalArgumentException e) {
+			throw log.getInvalidSearchAfterCursorException( encodedCursor, e );
+		}
+	}
+
+	/**
+	 * Encodes this cursor into an opaque string which only contains URL-safe characters.
+	 *
+	 * @return the encoded form of this cursor
+	 */
+	public String encode() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream( bytes );
+
+		try {
+			output.writeByte( VERSION );
+			output.writeInt( doc );
+			writeVarInt( output, sortValues.length );
+
+			for ( Object value : sortValues ) {
+				writeValue( output, value );
+			}
+		}
+		catch (IOException e) {
+			// can't happen when writing to a byte array
+			throw new IllegalStateException( e );
+		}
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString( bytes.toByteArray() );
+	}
+
+	/**
+	 * Returns the number of sort values of this cursor, which matches the number of fields of the sort of the query
+	 * the cursor has been created for.
+	 *
+	 * @return the number of sort values of this cursor
+	 */
+	public int getSortValueCount() {
+		return sortValues.length;
+	}
+
+	/**
+	 * Returns the document id of the hit this cursor points to.
+	 *
+	 * @return the document id of the hit this cursor points to
+	 */
+	public int getDoc() {
+		return doc;
+	}
+
+	/**
+	 * Returns the boundary for continuing a search after the hit this cursor points to, to be passed to
+	 * {@link org.apache.lucene.search.IndexSearcher#searchAfter(ScoreDoc, org.apache.lucene.search.Query, int, org.apache.lucene.search.Sort)}.
+	 *
+	 * @return the search-after boundary represented by this cursor
+	 */
+	public FieldDoc toFieldDoc() {
+		Object[] fields = new Object[sortValues.length];
+
+		for ( int i = 0; i < sortValues.length; i++ ) {
+			fields[i] = sortValues[i] instanceof BytesRef ? BytesRef.deepCopyOf( (BytesRef) sortValues[i] ) : sortValues[i];
+		}
+
+		return new FieldDoc( doc, Float.NaN, fields );
+	}
+
+	/**
+	 * Whether the given sort value can have been produced by the given sort field.
+	 */
+	boolean matches(int position, SortField sortField) {
+		Object value = sortValues[position];
+
+		switch ( sortField.getType() ) {
+			case STRING:
+			case STRING_VAL:
+				// null represents a missing value
+				return value == null || value instanceof BytesRef;
+			case INT:
+			case DOC:
+				return value instanceof Integer;
+			case LONG:
+				return value instanceof Long;
+			case FLOAT:
+			case SCORE:
+				return value instanceof Float;
+			case DOUBLE:
+				return value instanceof Double;
+			default:
+				// custom comparators may produce any values
+				return true;
+		}
+	}
+
+	Object getSortValue(int position) {
+		return sortValues[position];
+	}
+
+	private static byte getType(Object value) {
+		if ( value == null ) {
+			return NULL;
+		}
+		else if ( value instanceof Integer ) {
+			return INT;
+		}
+		else if ( value instanceof Long ) {
+			return LONG;
+		}
+		else if ( value instanceof Float ) {
+			return FLOAT;
+		}
+		else if ( value instanceof Double ) {
+			return DOUBLE;
+		}
+		else if ( value instanceof BytesRef ) {
+			return BYTES;
+		}
+		else if ( value instanceof String ) {
+			return STRING;
+		}
+		else {
+			throw log.getUnsupportedSortValueException( value, value.getClass().getName() );
+		}
+	}
+
+	private static void writeValue(DataOutputStream output, Object value) throws IOException {
+		byte type = getType( value );
+		output.writeByte( type );
+
+		switch ( type ) {
+			case INT:
+				output.writeInt( (Integer) value );
+				break;
+			case LONG:
+				output.writeLong( (Long) value );
+				break;
+			case FLOAT:
+				output.writeFloat( (Float) value );
+				break;
+			case DOUBLE:
+				output.writeDouble( (Double) value );
+				break;
+			case BYTES:
+				BytesRef bytes = (BytesRef) value;
+				output.writeInt( bytes.length );
+				output.write( bytes.bytes, bytes.offset, bytes.length );
+				break;
+			case STRING:
+				output.writeUTF( (String) value );
+				break;
+			default:
+				break;
+		}
+	}
+
+	private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+		while ( ( value & ~0x7F ) != 0 ) {
+			output.writeByte( ( value & 0x7F ) | 0x80 );
+			value >>>= 7;
+		}
+		output.writeByte( value );
+	}
+
+	private static int readVarInt(DataInputStream input) throws IOException {
+		int value = 0;
+
+		for ( int shift = 0; shift < 32; shift += 7 ) {
+			byte b = input.readByte();
+			value |= ( b & 0x7F ) << shift;
+			if ( b >= 0 ) {
+				return value;
+			}
+		}
+
+		throw new IOException( "Malformed variable-length integer" );
+	}
+
+	private static Object readValue(DataInputStream input) throws IOException {
+		byte type = input.readByte();
+
+		switch ( type ) {
+			case NULL:
+				return null;
+			case INT:
+				return input.readInt();
+			case LONG:
+				return input.readLong();
+			case FLOAT:
+				return input.readFloat();
+			case DOUBLE:
+				return input.readDouble();
+			case BYTES:
+				int length = input.readInt();
+				if ( length < 0 || length > input.available() ) {
+					throw new IOException( "Invalid length: " + length );
+				}
+				byte[] bytes = new byte[length];
+				input.readFully( bytes );
+				return new BytesRef( bytes );
+			case STRING:
+				return input.readUTF();
+			default:
+				throw new IOException( "Unknown sort value type: " + type );
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if ( this == obj ) {
+			return true;
+		}
+		if ( !( obj instanceof SearchAfterCursor ) ) {
+			return false;
+		}
+
+		SearchAfterCursor other = (SearchAfterCursor) obj;
+		return doc == other.doc && Arrays.equals( sortValues, other.sortValues );
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * doc + Arrays.hashCode( sortValues );
+	}
+
+	@Override
+	public String toString() {
+		return "SearchAfterCursor [doc=" + doc + ", sortValues=" + Arrays.toString( sortValues ) + "]";
+	}
+}
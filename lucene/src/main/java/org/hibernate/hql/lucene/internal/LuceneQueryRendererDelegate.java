@@ -20,6 +20,7 @@
  */
 package org.hibernate.hql.lucene.internal;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +48,8 @@ public class LuceneQueryRendererDelegate extends SingleEntityQueryRendererDelega
 
 	private List<SortField> sortFields;
 
+	private final ProjectionTypes projectionTypes = new ProjectionTypes();
+
 	public LuceneQueryRendererDelegate(EntityNamesResolver entityNames, SingleEntityQueryBuilder<Query> builder, Map<String, Object> namedParameters, LucenePropertyHelper propertyHelper) {
 		super( propertyHelper, entityNames, builder, namedParameters );
 		this.propertyHelper = propertyHelper;
@@ -59,12 +62,12 @@ protected void addSortField(PropertyPath propertyPath, String collateName, boole
 			sortFields = new ArrayList<SortField>( 5 );
 		}
 
-		SortField.Type sortType = sortType( propertyPath );
+		SortField.Type sortType = sortType( propertyPath.getNodeNamesWithoutAlias() );
 		sortFields.add( new SortField( propertyPath.asStringPathWithoutAlias(), sortType, !isAscending ) );
 	}
 
-	private SortField.Type sortType(PropertyPath propertyPath) {
-		NumericEncodingType numericEncodingType = propertyHelper.getNumericEncodingType( targetTypeName, propertyPath.getNodeNamesWithoutAlias() );
+	private SortField.Type sortType(List<String> propertyPath) {
+		NumericEncodingType numericEncodingType = propertyHelper.getNumericEncodingType( targetTypeName, propertyPath );
 		// Determine sort type based on FieldBridgeType. SortField.BYTE and SortField.SHORT are not covered!
 		if ( numericEncodingType != null ) {
 			switch ( numericEncodingType ) {
@@ -89,7 +92,7 @@ public LuceneQueryParsingResult getResult() {
 		if ( sortFields != null ) {
 			sort = new Sort( sortFields.toArray( new SortField[sortFields.size()] ) );
 		}
-		return new LuceneQueryParsingResult( builder.build(), targetTypeName, targetType, projections, sort );
+		return new LuceneQueryParsingResult( builder.build(), targetTypeName, targetType, projections, projectionTypes, sort );
 	}
 
 	@Override
@@ -97,10 +100,12 @@ public void setPropertyPath(PropertyPath propertyPath) {
 		if ( status == Status.DEFINING_SELECT ) {
 			if ( propertyPath.getNodes().size() == 1 && propertyPath.getNodes().get( 0 ).isAlias() ) {
 				projections.add( ProjectionConstants.THIS );
+				projectionTypes.paths.add( null );
 			}
 			else {
 				List<String> names = resolveAlias( propertyPath );
 				projections.add( join( names ) );
+				projectionTypes.paths.add( names );
 			}
 		}
 		else {
@@ -116,4 +121,35 @@ private String join(List<String> names) {
 		}
 		return projection.substring( 1 );
 	}
+
+	/**
+	 * The types of the projections, determined on first access only: the type of a projected property is only needed
+	 * when reading its values from the index, and looking it up must not fail the parsing of queries projecting
+	 * properties not known to the property helper, e.g. embedded ones of untyped entities.
+	 */
+	private class ProjectionTypes extends AbstractList<SortField.Type> {
+
+		/**
+		 * The property paths of the projections, {@code null} for the projection of the entity itself
+		 */
+		private final List<List<String>> paths = new ArrayList<List<String>>();
+		private SortField.Type[] types;
+
+		@Override
+		public SortField.Type get(int index) {
+			if ( types == null ) {
+				types = new SortField.Type[paths.size()];
+			}
+			if ( types[index] == null ) {
+				types[index] = paths.get( index ) == null ? SortField.Type.STRING : sortType( paths.get( index ) );
+			}
+
+			return types[index];
+		}
+
+		@Override
+		public int size() {
+			return paths.size();
+		}
+	}
 }
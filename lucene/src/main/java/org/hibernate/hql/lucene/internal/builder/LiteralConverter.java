@@ -0,0 +1,222 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.internal.builder;
+
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.lucene.document.DateTools;
+import org.hibernate.hql.ParsingException;
+import org.hibernate.search.bridge.TwoWayStringBridge;
+import org.hibernate.search.metadata.NumericFieldSettingsDescriptor.NumericEncodingType;
+
+/**
+ * Converts the string literals given for one property in queries into the type of that property. A converter is
+ * chosen once per property by {@link LucenePropertyHelper}, so converting a literal doesn't require to look up and
+ * inspect the field bridge or the index metadata of the property again.
+ * <p>
+ * Date literals in the format of {@link DateTools} are parsed without creating a {@code SimpleDateFormat} or
+ * {@code Calendar}; values outside the range handled that way (years before 1583, invalid or lenient dates) are passed
+ * on to {@link DateTools} or the field bridge, so the results are the same as when using them directly.
+ */
+abstract class LiteralConverter {
+
+	/**
+	 * Returns the literal as is.
+	 */
+	static final LiteralConverter IDENTITY = new LiteralConverter() {
+
+		@Override
+		Object convert(String value) {
+			return value;
+		}
+	};
+
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * Sentinel returned by {@link #parseDate(String)} for literals it can't handle
+	 */
+	private static final long NOT_PARSED = Long.MIN_VALUE;
+
+	/**
+	 * Converts the given literal.
+	 *
+	 * @param value the literal to convert
+	 * @return the converted value
+	 */
+	abstract Object convert(String value);
+
+	static LiteralConverter forBridge(final TwoWayStringBridge bridge) {
+		return new LiteralConverter() {
+
+			@Override
+			Object convert(String value) {
+				return bridge.stringToObject( value );
+			}
+		};
+	}
+
+	/**
+	 * Returns a converter for dates encoded as strings by the given bridge, which is used for all the literals not
+	 * handled by the allocation-light parser.
+	 */
+	static LiteralConverter forStringEncodedDates(final TwoWayStringBridge bridge) {
+		return new LiteralConverter() {
+
+			@Override
+			Object convert(String value) {
+				long time = parseDate( value );
+				return time != NOT_PARSED ? new Date( time ) : bridge.stringToObject( value );
+			}
+		};
+	}
+
+	static LiteralConverter forNumericEncoding(NumericEncodingType numericEncodingType) {
+		switch ( numericEncodingType ) {
+			case INTEGER:
+				return new LiteralConverter() {
+
+					@Override
+					Object convert(String value) {
+						return Integer.valueOf( value );
+					}
+				};
+			case LONG:
+				return new LiteralConverter() {
+
+					@Override
+					Object convert(String value) {
+						return Long.valueOf( value );
+					}
+				};
+			case FLOAT:
+				return new LiteralConverter() {
+
+					@Override
+					Object convert(String value) {
+						return Float.valueOf( value );
+					}
+				};
+			case DOUBLE:
+				return new LiteralConverter() {
+
+					@Override
+					Object convert(String value) {
+						return Double.valueOf( value );
+					}
+				};
+			default:
+				return IDENTITY;
+		}
+	}
+
+	static LiteralConverter forDates() {
+		return new LiteralConverter() {
+
+			@Override
+			Object convert(String value) {
+				return new Date( toTime( value ) );
+			}
+		};
+	}
+
+	static LiteralConverter forCalendars() {
+		return new LiteralConverter() {
+
+			@Override
+			Object convert(String value) {
+				Calendar calendar = Calendar.getInstance();
+				calendar.setTimeInMillis( toTime( value ) );
+				return calendar;
+			}
+		};
+	}
+
+	private static long toTime(String value) {
+		long time = parseDate( value );
+		if ( time != NOT_PARSED ) {
+			return time;
+		}
+
+		try {
+			return DateTools.stringToDate( value ).getTime();
+		}
+		catch (ParseException e) {
+			throw new ParsingException( e );
+		}
+	}
+
+	/**
+	 * Parses a date in the format of {@link DateTools}, i.e. {@code yyyyMMddHHmmssSSS} in GMT, truncated to the
+	 * resolution of the date.
+	 *
+	 * @return the date in milliseconds since the epoch or {@link #NOT_PARSED} if the value is not a valid date after the
+	 * introduction of the Gregorian calendar
+	 */
+	static long parseDate(String value) {
+		int length = value.length();
+		if ( length != 4 && length != 6 && length != 8 && length != 10 && length != 12 && length != 14 && length != 17 ) {
+			return NOT_PARSED;
+		}
+
+		for ( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			if ( c < '0' || c > '9' ) {
+				return NOT_PARSED;
+			}
+		}
+
+		int year = parseInt( value, 0, 4 );
+		int month = length >= 6 ? parseInt( value, 4, 6 ) : 1;
+		int day = length >= 8 ? parseInt( value, 6, 8 ) : 1;
+		int hour = length >= 10 ? parseInt( value, 8, 10 ) : 0;
+		int minute = length >= 12 ? parseInt( value, 10, 12 ) : 0;
+		int second = length >= 14 ? parseInt( value, 12, 14 ) : 0;
+		int millisecond = length == 17 ? parseInt( value, 14, 17 ) : 0;
+
+		if ( year < 1583 || hour > 23 || minute > 59 || second > 59 ) {
+			return NOT_PARSED;
+		}
+
+		long epochDay;
+		try {
+			epochDay = LocalDate.of( year, month, day ).toEpochDay();
+		}
+		catch (DateTimeException e) {
+			// invalid month or day of month, left to the lenient parsing of DateTools
+			return NOT_PARSED;
+		}
+
+		return epochDay * MILLIS_PER_DAY + ( ( hour * 60L + minute ) * 60L + second ) * 1000L + millisecond;
+	}
+
+	private static int parseInt(String value, int start, int end) {
+		int result = 0;
+		for ( int i = start; i < end; i++ ) {
+			result = result * 10 + ( value.charAt( i ) - '0' );
+		}
+		return result;
+	}
+}
@@ -20,13 +20,11 @@
  */
 package org.hibernate.hql.lucene.internal.builder;
 
-import java.text.ParseException;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.lucene.document.DateTools;
-import org.hibernate.hql.ParsingException;
 import org.hibernate.hql.ast.spi.PropertyHelper;
 import org.hibernate.hql.internal.util.Strings;
 import org.hibernate.search.bridge.FieldBridge;
@@ -46,17 +44,28 @@
  */
 public abstract class LucenePropertyHelper implements PropertyHelper {
 
+	/**
+	 * The literal converters by entity type and property path
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<List<String>, LiteralConverter>> literalConverters =
+			new ConcurrentHashMap<String, ConcurrentMap<List<String>, LiteralConverter>>();
+
 	@Override
 	public Object convertToBackendType(String entityType, List<String> propertyPath, Object value) {
 		return value;
 	}
 
+	@Override
+	public boolean isBackendTypeIdentity(String entityType, List<String> propertyPath) {
+		return true;
+	}
+
 	// TODO It does not really make sense to use the field bridge here as it'd e.g. apply encoding options geared
 	// towards storing the value in the index; Rather the value should be converted applying the JP-QL literal
 	// conversion rules
 	/**
 	 * Returns the given value converted into the type of the given property as determined via the field bridge of the
-	 * property.
+	 * property. The converter for a property is determined once and then cached.
 	 *
 	 * @param value the value to convert
 	 * @param entityType the type hosting the property
@@ -65,68 +74,62 @@ public Object convertToBackendType(String entityType, List<String> propertyPath,
 	 */
 	@Override
 	public Object convertToPropertyType(String entityType, List<String> propertyPath, String value) {
-		final FieldBridge bridge = getFieldBridge( entityType, propertyPath);
-		return convertToPropertyType( entityType, propertyPath, value, bridge );
+		return getLiteralConverter( entityType, propertyPath ).convert( value );
+	}
+
+	private LiteralConverter getLiteralConverter(String entityType, List<String> propertyPath) {
+		ConcurrentMap<List<String>, LiteralConverter> convertersOfType = literalConverters.get( entityType );
+		if ( convertersOfType == null ) {
+			convertersOfType = new ConcurrentHashMap<List<String>, LiteralConverter>();
+			ConcurrentMap<List<String>, LiteralConverter> existing = literalConverters.putIfAbsent( entityType, convertersOfType );
+			if ( existing != null ) {
+				convertersOfType = existing;
+			}
+		}
+
+		LiteralConverter converter = convertersOfType.get( propertyPath );
+		if ( converter == null ) {
+			converter = createLiteralConverter( entityType, propertyPath );
+			// copied, as the given path may be modified by the caller
+			convertersOfType.putIfAbsent( new ArrayList<String>( propertyPath ), converter );
+		}
+
+		return converter;
 	}
 
-	private Object convertToPropertyType(String entityType, List<String> propertyPath, String value, FieldBridge bridge) {
+	private LiteralConverter createLiteralConverter(String entityType, List<String> propertyPath) {
+		FieldBridge bridge = getFieldBridge( entityType, propertyPath );
+
 		//TODO expose something in Hibernate Search so that we can avoid this horrible code
+		TwoWayStringBridge twoWayBridge = null;
 		if ( bridge instanceof BridgeAdaptor ) {
-			TwoWayStringBridge twoWayBridge = ( (BridgeAdaptor) bridge ).unwrap( TwoWayStringBridge.class );
-			if ( twoWayBridge != null ) {
-				return twoWayBridge.stringToObject( value );
-			}
+			twoWayBridge = ( (BridgeAdaptor) bridge ).unwrap( TwoWayStringBridge.class );
+		}
+		if ( twoWayBridge == null && bridge instanceof TwoWayStringBridge ) {
+			twoWayBridge = (TwoWayStringBridge) bridge;
 		}
 
-		if ( bridge instanceof TwoWayStringBridge ) {
-			return ( (TwoWayStringBridge) bridge ).stringToObject( value );
+		if ( twoWayBridge instanceof StringEncodingDateBridge ) {
+			return LiteralConverter.forStringEncodedDates( twoWayBridge );
+		}
+		if ( twoWayBridge != null ) {
+			return LiteralConverter.forBridge( twoWayBridge );
 		}
 
 		NumericEncodingType numericEncodingType = getNumericEncodingType( entityType, propertyPath );
 		if ( numericEncodingType != null ) {
-			return convertNumericType( value, numericEncodingType );
+			return LiteralConverter.forNumericEncoding( numericEncodingType );
 		}
 
 		if ( bridge instanceof StringEncodingCalendarBridge || bridge instanceof NumericEncodingCalendarBridge ) {
-			return parseCalendar( value );
+			return LiteralConverter.forCalendars();
 		}
 
 		if ( bridge instanceof StringEncodingDateBridge || bridge instanceof NumericEncodingDateBridge ) {
-			return parseDate( value );
+			return LiteralConverter.forDates();
 		}
 
-		return value;
-	}
-
-	private Calendar parseCalendar(String value) {
-		Date date = parseDate( value );
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTime( date );
-		return calendar;
-	}
-
-	private Object convertNumericType(String value, NumericEncodingType numericEncodingType) {
-		switch ( numericEncodingType ) {
-			case INTEGER:
-				return Integer.valueOf( value );
-			case LONG:
-				return Long.valueOf( value );
-			case FLOAT:
-				return Float.valueOf( value );
-			case DOUBLE:
-				return Double.valueOf( value );
-			default:
-				return value;
-		}
-	}
-
-	private Date parseDate(String value) {
-		try {
-			return DateTools.stringToDate( value );
-		}
-		catch (ParseException e) {
-			throw new ParsingException( e );
-		}
+		return LiteralConverter.IDENTITY;
 	}
 
 	protected String fieldName(List<String> propertyPath) {
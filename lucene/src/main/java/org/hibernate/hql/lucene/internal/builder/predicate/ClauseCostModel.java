@@ -0,0 +1,183 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.internal.builder.predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.hibernate.hql.lucene.spi.IndexStatisticsProvider;
+
+/**
+ * Estimates the cost of the clauses of a Lucene conjunction, allowing to put cheap and selective clauses first and to
+ * add clauses which don't contribute to the score as {@code FILTER} clauses.
+ * <p>
+ * Clauses are ranked by their kind (single terms before numeric exact matches before ranges before compound queries
+ * before wildcard-like queries); the clauses of one kind are ranked by their document frequency if an
+ * {@link IndexStatisticsProvider} is given and knows about the term.
+ */
+public class ClauseCostModel {
+
+	/**
+	 * Term clauses matching not more than this fraction of all documents are considered selective.
+	 */
+	private static final double SELECTIVITY_THRESHOLD = 0.1d;
+
+	/**
+	 * The kinds of clauses, in the order of their cost.
+	 */
+	private enum ClauseKind {
+		TERM, NUMERIC_EXACT_MATCH, RANGE, COMPOUND, PATTERN
+	}
+
+	private final IndexStatisticsProvider statisticsProvider;
+
+	/**
+	 * Creates a new cost model.
+	 *
+	 * @param statisticsProvider provides index statistics for refining the estimates; may be {@code null}, in which
+	 * case heuristics only will be applied
+	 */
+	public ClauseCostModel(IndexStatisticsProvider statisticsProvider) {
+		this.statisticsProvider = statisticsProvider;
+	}
+
+	/**
+	 * Returns the estimates for the given clauses of a conjunction, cheapest first.
+	 *
+	 * @param entityType the queried entity type
+	 * @param clauses the clauses to estimate
+	 * @return the estimates for the given clauses, ordered by their cost
+	 */
+	List<ClauseEstimate> estimate(String entityType, List<Query> clauses) {
+		int documentCount = statisticsProvider != null ? statisticsProvider.getDocumentCount( entityType ) : -1;
+		List<ClauseEstimate> estimates = new ArrayList<ClauseEstimate>( clauses.size() );
+
+		for ( Query clause : clauses ) {
+			ClauseKind kind = getKind( clause );
+			int documentFrequency = kind == ClauseKind.TERM ? getDocumentFrequency( entityType, (TermQuery) clause ) : -1;
+
+			estimates.add( new ClauseEstimate( clause, kind, documentFrequency, isFilter( kind, documentFrequency, documentCount ) ) );
+		}
+
+		// stable, so clauses with the same estimate retain their original order
+		Collections.sort( estimates );
+
+		return estimates;
+	}
+
+	private int getDocumentFrequency(String entityType, TermQuery clause) {
+		return statisticsProvider != null ? statisticsProvider.getDocumentFrequency( entityType, clause.getTerm() ) : -1;
+	}
+
+	private ClauseKind getKind(Query clause) {
+		if ( clause instanceof TermQuery ) {
+			return ClauseKind.TERM;
+		}
+		else if ( clause instanceof NumericRangeQuery ) {
+			NumericRangeQuery<?> range = (NumericRangeQuery<?>) clause;
+			boolean isExactMatch = range.getMin() != null && range.getMin().equals( range.getMax() )
+					&& range.includesMin() && range.includesMax();
+
+			return isExactMatch ? ClauseKind.NUMERIC_EXACT_MATCH : ClauseKind.RANGE;
+		}
+		else if ( clause instanceof TermRangeQuery || clause instanceof NumericSetQuery ) {
+			// a set query seeks one term per value, comparable to a range
+			return ClauseKind.RANGE;
+		}
+		else if ( clause instanceof MultiTermQuery ) {
+			// wildcard, prefix, regexp etc.
+			return ClauseKind.PATTERN;
+		}
+		else {
+			return ClauseKind.COMPOUND;
+		}
+	}
+
+	/**
+	 * Multi-term queries are constant-scoring by default, so nothing is lost by adding them as filter; single term
+	 * queries are added as filter if they are selective (or if this can't be told due to missing statistics).
+	 * Compound queries may contain scoring clauses and thus are left as is.
+	 */
+	private boolean isFilter(ClauseKind kind, int documentFrequency, int documentCount) {
+		switch ( kind ) {
+			case TERM:
+				return documentFrequency < 0 || documentCount <= 0 || documentFrequency <= documentCount * SELECTIVITY_THRESHOLD;
+			case NUMERIC_EXACT_MATCH:
+			case RANGE:
+			case PATTERN:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * The estimated cost of one clause.
+	 */
+	static class ClauseEstimate implements Comparable<ClauseEstimate> {
+
+		private final Query clause;
+		private final ClauseKind kind;
+		private final int documentFrequency;
+		private final boolean isFilter;
+
+		ClauseEstimate(Query clause, ClauseKind kind, int documentFrequency, boolean isFilter) {
+			this.clause = clause;
+			this.kind = kind;
+			this.documentFrequency = documentFrequency;
+			this.isFilter = isFilter;
+		}
+
+		Query getClause() {
+			return clause;
+		}
+
+		boolean isFilter() {
+			return isFilter;
+		}
+
+		@Override
+		public int compareTo(ClauseEstimate other) {
+			int result = kind.compareTo( other.kind );
+			if ( result != 0 ) {
+				return result;
+			}
+
+			// unknown frequencies go last
+			long frequency = documentFrequency < 0 ? Long.MAX_VALUE : documentFrequency;
+			long otherFrequency = other.documentFrequency < 0 ? Long.MAX_VALUE : other.documentFrequency;
+
+			return frequency < otherFrequency ? -1 : ( frequency == otherFrequency ? 0 : 1 );
+		}
+
+		@Override
+		public String toString() {
+			return "ClauseEstimate [clause=" + clause + ", kind=" + kind + ", documentFrequency=" + documentFrequency
+					+ ", isFilter=" + isFilter + "]";
+		}
+	}
+}
@@ -20,6 +20,12 @@
  */
 package org.hibernate.hql.lucene.internal.builder.predicate;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.hibernate.hql.ast.spi.predicate.ConjunctionPredicate;
 import org.hibernate.hql.ast.spi.predicate.Predicate;
@@ -28,19 +34,37 @@
 
 /**
  * Lucene-based {@code AND} predicate.
+ * <p>
+ * If a {@link ClauseCostModel} is given, the clauses will be ordered by their estimated cost and non-scoring clauses
+ * will be added as {@code FILTER} rather than {@code MUST} clauses. In filter-only mode, all clauses will be added as
+ * {@code FILTER} clauses.
  *
  * @author Gunnar Morling
  */
 public class LuceneConjunctionPredicate extends ConjunctionPredicate<Query> {
 
 	private final QueryBuilder builder;
+	private final ClauseCostModel costModel;
+	private final String entityType;
+	private final boolean filterOnly;
 
 	public LuceneConjunctionPredicate(QueryBuilder builder) {
+		this( builder, null, null, false );
+	}
+
+	public LuceneConjunctionPredicate(QueryBuilder builder, ClauseCostModel costModel, String entityType, boolean filterOnly) {
 		this.builder = builder;
+		this.costModel = costModel;
+		this.entityType = entityType;
+		this.filterOnly = filterOnly;
 	}
 
 	@Override
 	public Query getQuery() {
+		return costModel != null || filterOnly ? getFilteringQuery() : getDefaultQuery();
+	}
+
+	private Query getDefaultQuery() {
 		BooleanJunction<BooleanJunction> booleanJunction = builder.bool();
 
 		for ( Predicate<Query> predicate : children ) {
@@ -56,4 +80,42 @@ public Query getQuery() {
 
 		return booleanJunction.createQuery();
 	}
+
+	private Query getFilteringQuery() {
+		List<Query> requiredClauses = new ArrayList<Query>( children.size() );
+		List<Query> prohibitedClauses = new ArrayList<Query>();
+
+		for ( Predicate<Query> predicate : children ) {
+			if ( predicate.getType() == Type.NEGATION ) {
+				prohibitedClauses.add( predicate.as( LuceneNegationPredicate.class ).getChild().getQuery() );
+			}
+			else {
+				requiredClauses.add( predicate.getQuery() );
+			}
+		}
+
+		BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
+
+		if ( costModel != null ) {
+			for ( ClauseCostModel.ClauseEstimate estimate : costModel.estimate( entityType, requiredClauses ) ) {
+				booleanQuery.add( estimate.getClause(), filterOnly || estimate.isFilter() ? Occur.FILTER : Occur.MUST );
+			}
+		}
+		else {
+			for ( Query requiredClause : requiredClauses ) {
+				booleanQuery.add( requiredClause, Occur.FILTER );
+			}
+		}
+
+		// purely negative queries match nothing, so match all documents and exclude from these
+		if ( requiredClauses.isEmpty() ) {
+			booleanQuery.add( new MatchAllDocsQuery(), Occur.FILTER );
+		}
+
+		for ( Query prohibitedClause : prohibitedClauses ) {
+			booleanQuery.add( prohibitedClause, Occur.MUST_NOT );
+		}
+
+		return booleanQuery.build();
+	}
 }
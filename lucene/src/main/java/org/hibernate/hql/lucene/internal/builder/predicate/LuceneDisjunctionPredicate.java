@@ -20,6 +20,8 @@
  */
 package org.hibernate.hql.lucene.internal.builder.predicate;
 
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Query;
 import org.hibernate.hql.ast.spi.predicate.DisjunctionPredicate;
 import org.hibernate.hql.ast.spi.predicate.Predicate;
@@ -28,19 +30,38 @@
 
 /**
  * Lucene-based {@code OR} predicate.
+ * <p>
+ * In filter-only mode, the coordination factor won't be computed; the scores of the clauses themselves are ignored by
+ * the constant-scoring root query.
  *
  * @author Gunnar Morling
  */
 public class LuceneDisjunctionPredicate extends DisjunctionPredicate<Query> {
 
 	private final QueryBuilder builder;
+	private final boolean filterOnly;
 
 	public LuceneDisjunctionPredicate(QueryBuilder builder) {
+		this( builder, false );
+	}
+
+	public LuceneDisjunctionPredicate(QueryBuilder builder, boolean filterOnly) {
 		this.builder = builder;
+		this.filterOnly = filterOnly;
 	}
 
 	@Override
 	public Query getQuery() {
+		if ( filterOnly ) {
+			BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder().setDisableCoord( true );
+
+			for ( Predicate<Query> predicate : children ) {
+				booleanQuery.add( predicate.getQuery(), Occur.SHOULD );
+			}
+
+			return booleanQuery.build();
+		}
+
 		BooleanJunction<BooleanJunction> booleanJunction = builder.bool();
 
 		for ( Predicate<Query> predicate : children ) {
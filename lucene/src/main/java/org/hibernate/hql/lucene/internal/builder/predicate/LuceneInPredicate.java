@@ -22,13 +22,18 @@
 
 import java.util.List;
 
+import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
 import org.hibernate.hql.ast.spi.predicate.InPredicate;
+import org.hibernate.hql.ast.spi.predicate.SortedNumberList;
 import org.hibernate.search.bridge.FieldBridge;
 import org.hibernate.search.query.dsl.QueryBuilder;
 
 /**
  * Lucene-based {@code IN} predicate in the form of disjoint {@code EQUALS} predicates for the given values.
+ * <p>
+ * Lists of {@code long} or {@code int} values on numerically encoded fields are represented as one
+ * {@link NumericSetQuery} instead, reading the values from the primitive array backing the list.
  *
  * @author Gunnar Morling
  */
@@ -45,18 +50,48 @@ public LuceneInPredicate(QueryBuilder builder, FieldBridge fieldBridge, String p
 
 	@Override
 	public Query getQuery() {
+		if ( values.size() > 1 && values instanceof SortedNumberList ) {
+			Query numericSetQuery = getNumericSetQuery();
+			if ( numericSetQuery != null ) {
+				return numericSetQuery;
+			}
+		}
+
 		LuceneDisjunctionPredicate predicate = new LuceneDisjunctionPredicate( builder );
 
 		for ( Object element : values ) {
-			LuceneComparisonPredicate equals = new LuceneComparisonPredicate(
-					builder,
-					fieldBridge,
-					propertyName,
-					org.hibernate.hql.ast.spi.predicate.ComparisonPredicate.Type.EQUALS, element );
-
-			predicate.add( equals );
+			predicate.add( createEqualsPredicate( element ) );
 		}
 
 		return predicate.getQuery();
 	}
+
+	private LuceneComparisonPredicate createEqualsPredicate(Object element) {
+		return new LuceneComparisonPredicate(
+				builder,
+				fieldBridge,
+				propertyName,
+				org.hibernate.hql.ast.spi.predicate.ComparisonPredicate.Type.EQUALS, element );
+	}
+
+	/**
+	 * Returns a numeric set query for the values of this predicate if the field is numerically encoded, as determined
+	 * by the query created for matching one value.
+	 */
+	private Query getNumericSetQuery() {
+		Query exactMatchQuery = createEqualsPredicate( values.get( 0 ) ).getQuery();
+		if ( !( exactMatchQuery instanceof NumericRangeQuery ) ) {
+			return null;
+		}
+
+		NumericRangeQuery<?> exactMatch = (NumericRangeQuery<?>) exactMatchQuery;
+		SortedNumberList numbers = (SortedNumberList) values;
+		Class<?> encodedType = numbers.isIntValues() ? Integer.class : Long.class;
+
+		if ( !encodedType.isInstance( exactMatch.getMin() ) ) {
+			return null;
+		}
+
+		return new NumericSetQuery( exactMatch.getField(), numbers.toLongArray(), numbers.isIntValues() );
+	}
 }
@@ -47,6 +47,9 @@
  * Depending on whether the factory is created with or without a {@link FieldBridgeProvider}, the generated predicates
  * will either make use of the default field bridges configured for the addressed fields or obtain field bridges from
  * that provider.
+ * <p>
+ * If the factory is created with a {@link ClauseCostModel}, the clauses of conjunctions will be ordered by their
+ * estimated cost. If the factory is created in filter-only mode, the generated queries won't compute any scores.
  *
  * @author Gunnar Morling
  */
@@ -55,16 +58,25 @@ public class LucenePredicateFactory implements PredicateFactory<Query> {
 	private final QueryContextBuilder queryContextBuilder;
 	private final EntityNamesResolver entityNames;
 	private final FieldBridgeProvider fieldBridgeProvider;
+	private final ClauseCostModel clauseCostModel;
+	private final boolean filterOnly;
 	private QueryBuilder queryBuilder;
+	private String entityType;
 
 	public LucenePredicateFactory(QueryContextBuilder queryContextBuilder, EntityNamesResolver entityNames) {
 		this( queryContextBuilder, entityNames, null );
 	}
 
 	public LucenePredicateFactory(QueryContextBuilder queryContextBuilder, EntityNamesResolver entityNames, FieldBridgeProvider fieldBridgeProvider) {
+		this( queryContextBuilder, entityNames, fieldBridgeProvider, null, false );
+	}
+
+	public LucenePredicateFactory(QueryContextBuilder queryContextBuilder, EntityNamesResolver entityNames, FieldBridgeProvider fieldBridgeProvider, ClauseCostModel clauseCostModel, boolean filterOnly) {
 		this.queryContextBuilder = queryContextBuilder;
 		this.entityNames = entityNames;
 		this.fieldBridgeProvider = fieldBridgeProvider;
+		this.clauseCostModel = clauseCostModel;
+		this.filterOnly = filterOnly;
 	}
 
 	@Override
@@ -75,7 +87,8 @@ public RootPredicate<Query> getRootPredicate(String entityType) {
 		}
 
 		queryBuilder = queryContextBuilder.forEntity( targetedType ).get();
-		return new LuceneRootPredicate( queryBuilder );
+		this.entityType = entityType;
+		return new LuceneRootPredicate( queryBuilder, filterOnly );
 	}
 
 	@Override
@@ -109,12 +122,12 @@ public NegationPredicate<Query> getNegationPredicate() {
 
 	@Override
 	public DisjunctionPredicate<Query> getDisjunctionPredicate() {
-		return new LuceneDisjunctionPredicate( queryBuilder );
+		return new LuceneDisjunctionPredicate( queryBuilder, filterOnly );
 	}
 
 	@Override
 	public ConjunctionPredicate<Query> getConjunctionPredicate() {
-		return new LuceneConjunctionPredicate( queryBuilder );
+		return new LuceneConjunctionPredicate( queryBuilder, clauseCostModel, entityType, filterOnly );
 	}
 
 	@Override
@@ -20,25 +20,44 @@
  */
 package org.hibernate.hql.lucene.internal.builder.predicate;
 
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.hibernate.hql.ast.spi.predicate.RootPredicate;
 import org.hibernate.search.query.dsl.QueryBuilder;
 
 /**
  * Lucene-based root predicate.
+ * <p>
+ * In filter-only mode, the query is wrapped into a {@link ConstantScoreQuery}, so no scores are computed for matching
+ * documents and the query is eligible for Lucene's query cache.
  *
  * @author Gunnar Morling
  */
 public class LuceneRootPredicate extends RootPredicate<Query> {
 
 	private final QueryBuilder builder;
+	private final boolean filterOnly;
 
 	public LuceneRootPredicate(QueryBuilder builder) {
+		this( builder, false );
+	}
+
+	public LuceneRootPredicate(QueryBuilder builder, boolean filterOnly) {
 		this.builder = builder;
+		this.filterOnly = filterOnly;
 	}
 
 	@Override
 	public Query getQuery() {
-		return child == null ? builder.all().createQuery() : child.getQuery();
+		if ( unsatisfiable ) {
+			return new MatchNoDocsQuery();
+		}
+
+		if ( child == null ) {
+			return builder.all().createQuery();
+		}
+
+		return filterOnly ? new ConstantScoreQuery( child.getQuery() ) : child.getQuery();
 	}
 }
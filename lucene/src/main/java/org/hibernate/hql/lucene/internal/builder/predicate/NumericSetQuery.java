@@ -0,0 +1,159 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.internal.builder.predicate;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.index.FilteredTermsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.util.AttributeSource;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.ToStringUtils;
+
+/**
+ * Matches the documents whose numeric ({@code int} or {@code long} encoded) field has one of a given set of values.
+ * <p>
+ * The values are kept as a sorted array of primitives. When executed, the full-precision terms of the values are
+ * looked up by seeking forward through the terms dictionary, so the cost grows with the number of values rather than
+ * with the number of terms of the field, and no clause is created per value as for a disjunction of exact matches.
+ * Being a {@link MultiTermQuery}, the query is constant-scoring by default.
+ */
+public final class NumericSetQuery extends MultiTermQuery {
+
+	private final long[] values;
+	private final boolean intEncoded;
+
+	/**
+	 * Creates a new query.
+	 *
+	 * @param field the numeric field to match
+	 * @param values the values to match, distinct and in ascending order; not copied
+	 * @param intEncoded whether the field is {@code int} rather than {@code long} encoded
+	 */
+	public NumericSetQuery(String field, long[] values, boolean intEncoded) {
+		super( field );
+		this.values = values;
+		this.intEncoded = intEncoded;
+	}
+
+	public int getValueCount() {
+		return values.length;
+	}
+
+	@Override
+	protected TermsEnum getTermsEnum(Terms terms, AttributeSource atts) throws IOException {
+		return new SeekingTermsEnum( terms.iterator() );
+	}
+
+	@Override
+	public String toString(String field) {
+		StringBuilder sb = new StringBuilder();
+		if ( !getField().equals( field ) ) {
+			sb.append( getField() ).append( ':' );
+		}
+		sb.append( Arrays.toString( values ) );
+		sb.append( ToStringUtils.boost( getBoost() ) );
+		return sb.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if ( !super.equals( obj ) ) {
+			return false;
+		}
+
+		NumericSetQuery other = (NumericSetQuery) obj;
+		return intEncoded == other.intEncoded && Arrays.equals( values, other.values );
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * super.hashCode() + Arrays.hashCode( values );
+	}
+
+	/**
+	 * Seeks to the full-precision term of one value after the other. As a seek may land on the term of a later value
+	 * when a value is absent, {@link #accept(BytesRef)} first moves the value cursor up to the term the enum is
+	 * positioned on.
+	 */
+	private class SeekingTermsEnum extends FilteredTermsEnum {
+
+		private final BytesRefBuilder seekTerm = new BytesRefBuilder();
+
+		/**
+		 * The index of the value whose term is held in {@link #seekTerm}; {@code values.length} once all values have
+		 * been consumed
+		 */
+		private int currentValue;
+
+		private SeekingTermsEnum(TermsEnum tenum) {
+			super( tenum, true );
+			if ( values.length > 0 ) {
+				encode( values[0] );
+			}
+		}
+
+		@Override
+		protected BytesRef nextSeekTerm(BytesRef currentTerm) {
+			return currentValue < values.length ? seekTerm.get() : null;
+		}
+
+		@Override
+		protected AcceptStatus accept(BytesRef term) {
+			while ( currentValue < values.length ) {
+				int comparison = seekTerm.get().compareTo( term );
+
+				if ( comparison > 0 ) {
+					return AcceptStatus.NO_AND_SEEK;
+				}
+
+				advance();
+
+				if ( comparison == 0 ) {
+					return AcceptStatus.YES_AND_SEEK;
+				}
+			}
+
+			return AcceptStatus.END;
+		}
+
+		private void advance() {
+			currentValue++;
+			if ( currentValue < values.length ) {
+				encode( values[currentValue] );
+			}
+		}
+
+		private void encode(long value) {
+			if ( intEncoded ) {
+				NumericUtils.intToPrefixCoded( (int) value, 0, seekTerm );
+			}
+			else {
+				NumericUtils.longToPrefixCoded( value, 0, seekTerm );
+			}
+		}
+	}
+}
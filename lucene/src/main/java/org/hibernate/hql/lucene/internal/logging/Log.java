@@ -22,6 +22,7 @@
 
 import org.hibernate.hql.ParsingException;
 import org.jboss.logging.BasicLogger;
+import org.jboss.logging.Cause;
 import org.jboss.logging.Message;
 import org.jboss.logging.MessageLogger;
 
@@ -50,4 +51,25 @@ public interface Log extends BasicLogger {
 
 	@Message(id = HQL_LUCENE__START_ID + 5, value = "Property %2$s can not be selected from type %1$s since it is an embedded entity.")
 	ParsingException getProjectionOfCompleteEmbeddedEntitiesNotSupportedException(String typeName, String propertyPath);
+
+	@Message(id = HQL_LUCENE__START_ID + 6, value = "The query on type %s has no projections.")
+	IllegalArgumentException getNoProjectionsException(String typeName);
+
+	@Message(id = HQL_LUCENE__START_ID + 7, value = "The query on type %s has no sort; search-after cursors can only be applied to sorted queries.")
+	IllegalArgumentException getSearchAfterRequiresSortException(String typeName);
+
+	@Message(id = HQL_LUCENE__START_ID + 8, value = "The search-after cursor has %d sort values, but the sort of the query on type %s has %d fields.")
+	IllegalArgumentException getSearchAfterCursorDoesNotMatchSortException(int cursorValues, String typeName, int sortFields);
+
+	@Message(id = HQL_LUCENE__START_ID + 9, value = "Invalid search-after cursor: %s")
+	IllegalArgumentException getInvalidSearchAfterCursorException(String cursor, @Cause Exception cause);
+
+	@Message(id = HQL_LUCENE__START_ID + 10, value = "The hit %s has no sort values, a search-after cursor can only be created from the hits of a sorted search.")
+	IllegalArgumentException getHitWithoutSortValuesException(String hit);
+
+	@Message(id = HQL_LUCENE__START_ID + 11, value = "The sort value %s of type %s can not be stored in a search-after cursor.")
+	IllegalArgumentException getUnsupportedSortValueException(Object value, String type);
+
+	@Message(id = HQL_LUCENE__START_ID + 12, value = "The search-after cursor has the sort value %s at position %d, which doesn't match the sort field %s of the query on type %s.")
+	IllegalArgumentException getSearchAfterCursorValueDoesNotMatchSortFieldException(Object value, int position, String sortField, String typeName);
 }
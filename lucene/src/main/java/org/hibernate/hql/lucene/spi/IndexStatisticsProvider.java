@@ -0,0 +1,48 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.spi;
+
+import org.apache.lucene.index.Term;
+
+/**
+ * Implementations provide statistics about the index of an entity type, allowing to estimate the selectivity of query
+ * clauses. Implementations will typically delegate to an {@code IndexReader} of the entity's index; as statistics are
+ * only used for ordering clauses, they may be approximate or stale.
+ */
+public interface IndexStatisticsProvider {
+
+	/**
+	 * Returns the number of documents in the index of the given entity type which contain the given term.
+	 *
+	 * @param entityType the queried entity type; never {@code null}
+	 * @param term the term of interest; never {@code null}
+	 * @return the number of documents containing the given term or a negative value if not known
+	 */
+	int getDocumentFrequency(String entityType, Term term);
+
+	/**
+	 * Returns the total number of documents in the index of the given entity type.
+	 *
+	 * @param entityType the queried entity type; never {@code null}
+	 * @return the number of documents in the index of the given entity type or a negative value if not known
+	 */
+	int getDocumentCount(String entityType);
+}
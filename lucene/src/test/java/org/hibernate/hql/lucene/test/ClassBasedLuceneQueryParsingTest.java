@@ -22,18 +22,30 @@
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.hibernate.hql.ParsingException;
+import org.hibernate.hql.QueryParser;
 import org.hibernate.hql.ast.spi.EntityNamesResolver;
 import org.hibernate.hql.lucene.LuceneProcessingChain;
+import org.hibernate.hql.lucene.LuceneProcessingChainFactory;
 import org.hibernate.hql.lucene.LuceneQueryParsingResult;
 import org.hibernate.hql.lucene.internal.ClassBasedLuceneQueryResolverDelegate;
 import org.hibernate.hql.lucene.internal.LuceneQueryRendererDelegate;
 import org.hibernate.hql.lucene.test.model.IndexedEntity;
 import org.hibernate.hql.lucene.testutil.MapBasedEntityNamesResolver;
+import org.hibernate.hql.testing.junit.AllocationBudgets;
 import org.hibernate.search.spi.SearchIntegrator;
 import org.hibernate.search.testsupport.junit.SearchFactoryHolder;
 import org.junit.Rule;
@@ -245,4 +257,101 @@ public void shouldRaiseExceptionDueToUnrecognizedSortDirection() {
 
 		parseQuery( "select e from IndexedEntity e where e.name = 'same' order by e.title DESblah, e.name ASC" );
 	}
+
+	@Test
+	public void shouldCreateMatchNoDocsQueryForContradictoryPredicates() {
+		LuceneQueryParsingResult parsingResult = parseQuery( "from IndexedEntity e where e.position = 1 and e.position = 2" );
+		assertThat( parsingResult.getQuery() ).isInstanceOf( MatchNoDocsQuery.class );
+
+		parsingResult = parseQuery( "from IndexedEntity e where e.name = 'Bob' and e.position between 5 and 1" );
+		assertThat( parsingResult.getQuery() ).isInstanceOf( MatchNoDocsQuery.class );
+	}
+
+	@Test
+	public void shouldRemoveUnsatisfiableBranchOfDisjunction() {
+		LuceneQueryParsingResult parsingResult = parseQuery( "from IndexedEntity e where e.name = 'Bob' or e.position between 5 and 1" );
+		assertThat( parsingResult.getQuery().toString() ).isEqualTo( "name:Bob" );
+	}
+
+	@Test
+	public void shouldCreateQueriesConcurrentlyUsingSharedProcessingChainFactory() throws Exception {
+		final LuceneProcessingChainFactory chainFactory = new LuceneProcessingChain.Builder(
+				factoryHolder.getSearchFactory(),
+				MapBasedEntityNamesResolver.forClasses( IndexedEntity.class )
+			)
+			.buildProcessingChainFactoryForClassBasedEntities();
+
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		List<Future<String>> results = new ArrayList<Future<String>>();
+
+		try {
+			for ( int i = 0; i < 100; i++ ) {
+				final String name = "name" + i;
+
+				results.add( executor.submit( new Callable<String>() {
+
+					@Override
+					public String call() {
+						Map<String, Object> namedParameters = Collections.<String, Object>singletonMap( "name", name );
+
+						return new QueryParser().parseQuery(
+								"from IndexedEntity e where e.name = :name and e.position > 1",
+								chainFactory.createProcessingChain( namedParameters )
+						)
+						.getQuery()
+						.toString();
+					}
+				} ) );
+			}
+
+			for ( int i = 0; i < 100; i++ ) {
+				assertThat( results.get( i ).get() ).isEqualTo( "+name:name" + i + " +position:{1 TO *]" );
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldStayWithinAllocationBudgets() throws Exception {
+		LuceneProcessingChainFactory chainFactory = new LuceneProcessingChain.Builder(
+				factoryHolder.getSearchFactory(),
+				MapBasedEntityNamesResolver.forClasses( IndexedEntity.class )
+			)
+			.buildProcessingChainFactoryForClassBasedEntities();
+		QueryParser queryParser = new QueryParser();
+		AllocationBudgets budgets = new AllocationBudgets( ClassBasedLuceneQueryParsingTest.class, "allocation-budgets.properties" );
+
+		Map<String, Object> namedParameters = new HashMap<String, Object>();
+		namedParameters.put( "name", "Bob" );
+
+		budgets.assertWithinBudget(
+				"simpleQuery",
+				parsing( queryParser, chainFactory, "from IndexedEntity e where e.name = 'same'", null )
+		);
+		budgets.assertWithinBudget(
+				"projectionQuery",
+				parsing( queryParser, chainFactory, "select e.id, e.name from IndexedEntity e", null )
+		);
+		budgets.assertWithinBudget(
+				"booleanQueryWithNamedParameter",
+				parsing( queryParser, chainFactory, "from IndexedEntity e where e.name = :name or ( e.id = 4 and e.position between 1 and 3 )", namedParameters )
+		);
+	}
+
+	private Callable<LuceneQueryParsingResult> parsing(
+			final QueryParser queryParser,
+			final LuceneProcessingChainFactory chainFactory,
+			final String queryString,
+			final Map<String, Object> namedParameters) {
+
+		return new Callable<LuceneQueryParsingResult>() {
+
+			@Override
+			public LuceneQueryParsingResult call() {
+				return queryParser.parseQuery( queryString, chainFactory.createProcessingChain( namedParameters ) );
+			}
+		};
+	}
 }
@@ -0,0 +1,342 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoubleField;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.hibernate.hql.lucene.LuceneProjectionExecutor;
+import org.hibernate.hql.lucene.LuceneQueryParsingResult;
+import org.hibernate.hql.lucene.ProjectionRow;
+import org.hibernate.hql.lucene.ProjectionRowHandler;
+import org.hibernate.hql.lucene.SearchAfterCursor;
+import org.hibernate.hql.lucene.test.model.IndexedEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link LuceneProjectionExecutor}.
+ */
+public class LuceneProjectionExecutorTest {
+
+	private RAMDirectory directory;
+	private DirectoryReader reader;
+	private IndexSearcher searcher;
+
+	@Before
+	public void setupIndex() throws IOException {
+		directory = new RAMDirectory();
+		IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new KeywordAnalyzer() ) );
+
+		writer.addDocument( document( "1", "Bob", 42L, "bob's description" ) );
+		writer.addDocument( document( "2", "Alice", 23L, "alice's description" ) );
+		// flushes a segment, so the remaining documents end up in another one
+		writer.commit();
+		writer.addDocument( document( "3", "Carl", null, null ) );
+		writer.close();
+
+		reader = DirectoryReader.open( directory );
+		searcher = new IndexSearcher( reader );
+	}
+
+	@After
+	public void closeIndex() throws IOException {
+		reader.close();
+		directory.close();
+	}
+
+	@Test
+	public void shouldReadProjectionsFromDocValues() throws IOException {
+		List<String> rows = execute( Integer.MAX_VALUE, new MatchAllDocsQuery(), null, "name", "position" );
+
+		assertThat( rows ).containsExactly( "Bob, 42", "Alice, 23", "Carl, null" );
+	}
+
+	@Test
+	public void shouldReadProjectionsWithoutDocValuesFromStoredFields() throws IOException {
+		List<String> rows = execute( Integer.MAX_VALUE, new MatchAllDocsQuery(), null, "description", "name" );
+
+		assertThat( rows ).containsExactly( "bob's description, Bob", "alice's description, Alice", "null, Carl" );
+	}
+
+	@Test
+	public void shouldReturnNullForUnknownField() throws IOException {
+		List<String> rows = execute( Integer.MAX_VALUE, new TermQuery( new Term( "id", "2" ) ), null, "name", "unknown" );
+
+		assertThat( rows ).containsExactly( "Alice, null" );
+	}
+
+	@Test
+	public void shouldApplySort() throws IOException {
+		Sort sort = new Sort( new SortField( "name", SortField.Type.STRING ) );
+		List<String> rows = execute( Integer.MAX_VALUE, new MatchAllDocsQuery(), sort, "name" );
+
+		assertThat( rows ).containsExactly( "Alice", "Bob", "Carl" );
+	}
+
+	@Test
+	public void shouldApplyMaxRows() throws IOException {
+		assertThat( execute( 2, new MatchAllDocsQuery(), null, "name" ) ).containsExactly( "Bob", "Alice" );
+
+		Sort sort = new Sort( new SortField( "name", SortField.Type.STRING, true ) );
+		assertThat( execute( 1, new MatchAllDocsQuery(), sort, "name" ) ).containsExactly( "Carl" );
+	}
+
+	@Test
+	public void shouldReadPagesAfterCursor() throws IOException {
+		Sort sort = new Sort( new SortField( "name", SortField.Type.STRING ) );
+		LuceneQueryParsingResult parsingResult = parsingResult( new MatchAllDocsQuery(), sort, "name" );
+
+		LuceneProjectionExecutor executor = new LuceneProjectionExecutor( searcher, parsingResult );
+		List<String> names = new ArrayList<String>();
+		assertThat( executor.execute( 2, collectNames( names ) ) ).isEqualTo( 2 );
+		assertThat( names ).containsExactly( "Alice", "Bob" );
+
+		// the cursor survives a round trip through its encoded form
+		String cursor = executor.getLastCursor().encode();
+		executor = new LuceneProjectionExecutor( searcher, parsingResult.searchAfter( SearchAfterCursor.decode( cursor ) ) );
+		names.clear();
+		assertThat( executor.execute( 2, collectNames( names ) ) ).isEqualTo( 1 );
+		assertThat( names ).containsExactly( "Carl" );
+
+		executor = new LuceneProjectionExecutor( searcher, parsingResult.searchAfter( executor.getLastCursor() ) );
+		names.clear();
+		assertThat( executor.execute( 2, collectNames( names ) ) ).isEqualTo( 0 );
+		assertThat( executor.getLastCursor() ).isNull();
+	}
+
+	@Test
+	public void shouldStopWhenHandlerReturnsFalse() throws IOException {
+		final List<String> names = new ArrayList<String>();
+
+		int rowCount = new LuceneProjectionExecutor( searcher, parsingResult( new MatchAllDocsQuery(), null, "name" ) ).execute(
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						names.add( row.getString( 0 ) );
+						return false;
+					}
+				}
+		);
+
+		assertThat( rowCount ).isEqualTo( 1 );
+		assertThat( names ).containsExactly( "Bob" );
+	}
+
+	@Test
+	public void shouldExposeRawValues() throws IOException {
+		final List<ProjectionRow> rows = new ArrayList<ProjectionRow>();
+
+		new LuceneProjectionExecutor( searcher, parsingResult( new TermQuery( new Term( "id", "1" ) ), null, "position", "name" ) ).execute(
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						assertThat( row.getColumnCount() ).isEqualTo( 2 );
+						assertThat( row.getColumnName( 1 ) ).isEqualTo( "name" );
+						assertThat( row.getDocId() ).isEqualTo( 0 );
+						assertThat( row.getLong( 0 ) ).isEqualTo( 42L );
+						assertThat( row.getBytesRef( 1 ) ).isEqualTo( new BytesRef( "Bob" ) );
+						rows.add( row );
+						return true;
+					}
+				}
+		);
+
+		assertThat( rows ).hasSize( 1 );
+	}
+
+	@Test
+	public void shouldDecodeFloatingPointValues() throws IOException {
+		Document document = new Document();
+		document.add( new StringField( "id", "4", Store.NO ) );
+		document.add( new DoubleDocValuesField( "weight", 1.5d ) );
+		document.add( new SortedNumericDocValuesField( "height", NumericUtils.doubleToSortableLong( -2.25d ) ) );
+		document.add( new DoubleField( "length", 3.75d, Store.YES ) );
+		addDocument( document );
+
+		List<SortField.Type> types = Arrays.asList( SortField.Type.DOUBLE, SortField.Type.DOUBLE, SortField.Type.DOUBLE );
+		LuceneQueryParsingResult parsingResult = new LuceneQueryParsingResult(
+				new TermQuery( new Term( "id", "4" ) ),
+				IndexedEntity.class.getName(),
+				IndexedEntity.class,
+				Arrays.asList( "weight", "height", "length" ),
+				types,
+				null
+		);
+
+		final List<ProjectionRow> rows = new ArrayList<ProjectionRow>();
+		new LuceneProjectionExecutor( searcher, parsingResult ).execute(
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						// doc values and stored fields yield the same types
+						assertThat( row.getValue( 0 ) ).isEqualTo( 1.5d );
+						assertThat( row.getValue( 1 ) ).isEqualTo( -2.25d );
+						assertThat( row.getValue( 2 ) ).isEqualTo( 3.75d );
+						rows.add( row );
+						return true;
+					}
+				}
+		);
+
+		assertThat( rows ).hasSize( 1 );
+	}
+
+	@Test
+	public void shouldReadSortedQueryBeyondOneBatch() throws IOException {
+		IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new KeywordAnalyzer() ) );
+		for ( int i = 0; i < 2500; i++ ) {
+			writer.addDocument( document( "n" + i, String.format( "Name%04d", i ), (long) i, null ) );
+		}
+		writer.close();
+		reopen();
+
+		Sort sort = new Sort( new SortField( "position", SortField.Type.LONG ) );
+		final List<Long> positions = new ArrayList<Long>();
+		int rowCount = new LuceneProjectionExecutor( searcher, parsingResult( new MatchAllDocsQuery(), sort, "position" ) ).execute(
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						if ( !row.isNull( 0 ) ) {
+							positions.add( row.getLong( 0 ) );
+						}
+						return true;
+					}
+				}
+		);
+
+		assertThat( rowCount ).isEqualTo( 2503 );
+		assertThat( positions ).hasSize( 2502 );
+		for ( int i = 1; i < positions.size(); i++ ) {
+			assertThat( positions.get( i ) ).isGreaterThanOrEqualTo( positions.get( i - 1 ) );
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForQueryWithoutProjections() {
+		new LuceneProjectionExecutor( searcher, parsingResult( new MatchAllDocsQuery(), null ) );
+	}
+
+	private List<String> execute(int maxRows, Query query, Sort sort, String... projections) throws IOException {
+		final List<String> rows = new ArrayList<String>();
+
+		new LuceneProjectionExecutor( searcher, parsingResult( query, sort, projections ) ).execute(
+				maxRows,
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						StringBuilder values = new StringBuilder();
+						for ( int i = 0; i < row.getColumnCount(); i++ ) {
+							if ( i > 0 ) {
+								values.append( ", " );
+							}
+							values.append( row.getValue( i ) );
+						}
+						rows.add( values.toString() );
+						return true;
+					}
+				}
+		);
+
+		return rows;
+	}
+
+	private ProjectionRowHandler collectNames(final List<String> names) {
+		return new ProjectionRowHandler() {
+
+			@Override
+			public boolean handleRow(ProjectionRow row) {
+				names.add( row.getString( 0 ) );
+				return true;
+			}
+		};
+	}
+
+	private LuceneQueryParsingResult parsingResult(Query query, Sort sort, String... projections) {
+		return new LuceneQueryParsingResult(
+				query,
+				IndexedEntity.class.getName(),
+				IndexedEntity.class,
+				projections.length > 0 ? Arrays.asList( projections ) : Collections.<String>emptyList(),
+				sort
+		);
+	}
+
+	private void addDocument(Document document) throws IOException {
+		IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new KeywordAnalyzer() ) );
+		writer.addDocument( document );
+		writer.close();
+		reopen();
+	}
+
+	private void reopen() throws IOException {
+		reader.close();
+		reader = DirectoryReader.open( directory );
+		searcher = new IndexSearcher( reader );
+	}
+
+	private Document document(String id, String name, Long position, String description) {
+		Document document = new Document();
+		document.add( new StringField( "id", id, Store.NO ) );
+		document.add( new SortedDocValuesField( "name", new BytesRef( name ) ) );
+		if ( position != null ) {
+			document.add( new NumericDocValuesField( "position", position ) );
+		}
+		if ( description != null ) {
+			document.add( new StoredField( "description", description ) );
+		}
+		return document;
+	}
+}
@@ -22,9 +22,13 @@
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.hibernate.hql.ParsingException;
 import org.hibernate.hql.QueryParser;
 import org.hibernate.hql.lucene.LuceneProcessingChain;
@@ -249,7 +253,7 @@ public void shouldCreateInQuery() {
 
 		assertLuceneQuery(
 				"select e from IndexedEntity e where e.position in (10, 20, 30, 40)",
-				"position:[10 TO 10] position:[20 TO 20] position:[30 TO 30] position:[40 TO 40]" );
+				"position:[10, 20, 30, 40]" );
 	}
 
 	@Test
@@ -272,7 +276,59 @@ public void shouldCreateInQueryWithNamedParameters() {
 		assertLuceneQuery(
 				"select e from IndexedEntity e where e.position in (:pos1, :pos2, :pos3, :pos4)",
 				namedParameters,
-				"position:[10 TO 10] position:[20 TO 20] position:[30 TO 30] position:[40 TO 40]" );
+				"position:[10, 20, 30, 40]" );
+	}
+
+	@Test
+	public void shouldCreateInQueryWithCollectionValuedNamedParameter() {
+		Map<String, Object> namedParameters = new HashMap<String, Object>();
+		namedParameters.put( "names", Arrays.asList( "Bob", "Alice" ) );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.name in (:names)",
+				namedParameters,
+				"name:Bob name:Alice" );
+
+		namedParameters.put( "names", new String[] { "Bob", "Alice", "Carl" } );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.name in (:names)",
+				namedParameters,
+				"name:Bob name:Alice name:Carl" );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.name in (:names, 'Dora')",
+				namedParameters,
+				"name:Bob name:Alice name:Carl name:Dora" );
+
+		namedParameters = new HashMap<String, Object>();
+		namedParameters.put( "positions", new long[] { 40, 10, 30, 10 } );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.position in (:positions)",
+				namedParameters,
+				"position:[10, 30, 40]" );
+
+		namedParameters.put( "positions", new HashSet<Long>( Arrays.asList( 20L, 10L ) ) );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.position in (:positions)",
+				namedParameters,
+				"position:[10, 20]" );
+	}
+
+	@Test
+	public void shouldCreateMatchNoDocsQueryForEmptyCollectionValuedNamedParameter() {
+		Map<String, Object> namedParameters = new HashMap<String, Object>();
+		namedParameters.put( "names", Collections.emptyList() );
+
+		LuceneQueryParsingResult parsingResult = parseQuery( "select e from IndexedEntity e where e.name in (:names)", namedParameters );
+		assertThat( parsingResult.getQuery() ).isInstanceOf( MatchNoDocsQuery.class );
+
+		assertLuceneQuery(
+				"select e from IndexedEntity e where e.name not in (:names)",
+				namedParameters,
+				"*:*" );
 	}
 
 	@Test
@@ -283,7 +339,7 @@ public void shouldCreateNotInQuery() {
 
 		assertLuceneQuery(
 				"select e from IndexedEntity e where e.position not in (10, 20, 30, 40)",
-				"-(position:[10 TO 10] position:[20 TO 20] position:[30 TO 30] position:[40 TO 40]) #*:*" );
+				"-position:[10, 20, 30, 40] #*:*" );
 	}
 
 	@Test
@@ -0,0 +1,241 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.hql.lucene.LuceneProjectionExecutor;
+import org.hibernate.hql.lucene.LuceneQueryParsingResult;
+import org.hibernate.hql.lucene.LuceneQueryResultCache;
+import org.hibernate.hql.lucene.ProjectionRow;
+import org.hibernate.hql.lucene.ProjectionRowHandler;
+import org.hibernate.hql.lucene.test.model.IndexedEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link LuceneQueryResultCache}.
+ */
+public class LuceneQueryResultCacheTest {
+
+	/**
+	 * More than the number of executions after which any cacheable query is cached
+	 */
+	private static final int MAX_EXECUTIONS = 25;
+
+	private RAMDirectory directory;
+	private IndexWriter writer;
+	private DirectoryReader reader;
+	private LuceneQueryResultCache cache;
+
+	@Before
+	public void setupIndex() throws IOException {
+		directory = new RAMDirectory();
+		writer = new IndexWriter( directory, new IndexWriterConfig( new KeywordAnalyzer() ) );
+
+		writer.addDocument( document( "Bob", "red" ) );
+		writer.addDocument( document( "Alice", "blue" ) );
+		writer.addDocument( document( "Carl", "green" ) );
+		writer.commit();
+
+		reader = DirectoryReader.open( directory );
+		cache = new LuceneQueryResultCache( 100, 1024 * 1024, 0 );
+	}
+
+	@After
+	public void closeIndex() throws IOException {
+		reader.close();
+		writer.close();
+		directory.close();
+	}
+
+	@Test
+	public void shouldCacheRepeatedlyExecutedQuery() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+
+		assertThat( execute( query ) ).containsExactly( "Bob", "Alice" );
+		assertThat( cache.getCacheSize() ).isEqualTo( 0 );
+
+		executeUntilCached( query );
+		assertThat( cache.getCacheSize() ).isEqualTo( 1 );
+		assertThat( cache.getHitCount() ).isEqualTo( 0 );
+		assertThat( cache.ramBytesUsed() ).isGreaterThan( 0 );
+
+		assertThat( execute( colorQuery( "red", "blue" ) ) ).containsExactly( "Bob", "Alice" );
+		assertThat( cache.getHitCount() ).isEqualTo( 1 );
+	}
+
+	@Test
+	public void shouldShareEntryBetweenScoringAndFilterOnlyQuery() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+		ConstantScoreQuery filterOnlyQuery = new ConstantScoreQuery( colorQuery( "red", "blue" ) );
+
+		executeUntilCached( query );
+		assertThat( execute( filterOnlyQuery ) ).containsExactly( "Bob", "Alice" );
+
+		assertThat( cache.getCacheSize() ).isEqualTo( 1 );
+		assertThat( cache.getHitCount() ).isEqualTo( 1 );
+	}
+
+	@Test
+	public void shouldNotCacheTermQuery() throws IOException {
+		Query query = new TermQuery( new Term( "color", "red" ) );
+
+		for ( int i = 0; i < MAX_EXECUTIONS; i++ ) {
+			execute( query );
+		}
+
+		assertThat( cache.getCacheSize() ).isEqualTo( 0 );
+	}
+
+	@Test
+	public void shouldKeepEntriesOfUnchangedSegments() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+		executeUntilCached( query );
+
+		writer.addDocument( document( "Dora", "red" ) );
+		writer.commit();
+		reopen();
+
+		assertThat( execute( query ) ).containsExactly( "Bob", "Alice", "Dora" );
+		// hit for the first segment, the new one is looked up for the first time
+		assertThat( cache.getHitCount() ).isEqualTo( 1 );
+		assertThat( cache.getCacheSize() ).isEqualTo( 2 );
+	}
+
+	@Test
+	public void shouldApplyDeletionsToCachedEntries() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+		executeUntilCached( query );
+
+		writer.deleteDocuments( new Term( "name", "Bob" ) );
+		writer.commit();
+		reopen();
+
+		assertThat( execute( query ) ).containsExactly( "Alice" );
+		assertThat( cache.getHitCount() ).isEqualTo( 1 );
+	}
+
+	@Test
+	public void shouldEvictEntriesOfClosedSegments() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+		executeUntilCached( query );
+
+		writer.addDocument( document( "Dora", "red" ) );
+		writer.forceMerge( 1 );
+		writer.commit();
+		reopen();
+
+		assertThat( cache.getCacheSize() ).isEqualTo( 0 );
+		assertThat( cache.getEvictionCount() ).isEqualTo( 1 );
+		assertThat( execute( query ) ).containsExactly( "Bob", "Alice", "Dora" );
+	}
+
+	@Test
+	public void shouldClearCache() throws IOException {
+		Query query = colorQuery( "red", "blue" );
+		executeUntilCached( query );
+
+		cache.clear();
+		assertThat( cache.getCacheSize() ).isEqualTo( 0 );
+	}
+
+	/**
+	 * Executes the given query until its matching documents have been cached; the number of executions required depends
+	 * on the type of the query.
+	 */
+	private void executeUntilCached(Query query) throws IOException {
+		long cacheSize = cache.getCacheSize();
+
+		for ( int i = 0; i < MAX_EXECUTIONS && cache.getCacheSize() == cacheSize; i++ ) {
+			execute( query );
+		}
+
+		assertThat( cache.getCacheSize() ).isGreaterThan( cacheSize );
+	}
+
+	private void reopen() throws IOException {
+		DirectoryReader newReader = DirectoryReader.openIfChanged( reader );
+		reader.close();
+		reader = newReader;
+	}
+
+	private List<String> execute(Query query) throws IOException {
+		final List<String> names = new ArrayList<String>();
+		IndexSearcher searcher = cache.configure( new IndexSearcher( reader ) );
+
+		new LuceneProjectionExecutor( searcher, parsingResult( query ) ).execute(
+				new ProjectionRowHandler() {
+
+					@Override
+					public boolean handleRow(ProjectionRow row) {
+						names.add( row.getString( 0 ) );
+						return true;
+					}
+				}
+		);
+
+		return names;
+	}
+
+	private LuceneQueryParsingResult parsingResult(Query query) {
+		return new LuceneQueryParsingResult( query, IndexedEntity.class.getName(), IndexedEntity.class, Arrays.asList( "name" ), null );
+	}
+
+	private Query colorQuery(String... colors) {
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		for ( String color : colors ) {
+			builder.add( new TermQuery( new Term( "color", color ) ), Occur.SHOULD );
+		}
+		return builder.build();
+	}
+
+	private Document document(String name, String color) {
+		Document document = new Document();
+		document.add( new StringField( "name", name, Store.NO ) );
+		document.add( new SortedDocValuesField( "name", new BytesRef( name ) ) );
+		document.add( new StringField( "color", color, Store.NO ) );
+		return document;
+	}
+}
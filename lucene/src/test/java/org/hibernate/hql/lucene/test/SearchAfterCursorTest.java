@@ -0,0 +1,166 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.hql.lucene.LuceneQueryParsingResult;
+import org.hibernate.hql.lucene.SearchAfterCursor;
+import org.hibernate.hql.lucene.test.model.IndexedEntity;
+import org.junit.Test;
+
+/**
+ * Test for {@link SearchAfterCursor} and its application to {@link LuceneQueryParsingResult}.
+ */
+public class SearchAfterCursorTest {
+
+	@Test
+	public void shouldEncodeAndDecodeCursor() {
+		SearchAfterCursor cursor = SearchAfterCursor.fromHit(
+				new FieldDoc( 42, 1.0f, new Object[] { new BytesRef( "Bob" ), 7, 8L, 1.5f, 2.5d, null, "custom" } )
+		);
+
+		String encoded = cursor.encode();
+		assertThat( encoded.matches( "[A-Za-z0-9_-]+" ) ).isTrue();
+
+		SearchAfterCursor decoded = SearchAfterCursor.decode( encoded );
+		assertThat( decoded ).isEqualTo( cursor );
+		assertThat( decoded.getDoc() ).isEqualTo( 42 );
+		assertThat( decoded.getSortValueCount() ).isEqualTo( 7 );
+		assertThat( Arrays.asList( decoded.toFieldDoc().fields ) ).containsExactly(
+				new BytesRef( "Bob" ), 7, 8L, 1.5f, 2.5d, null, "custom"
+		);
+	}
+
+	@Test
+	public void shouldCopySortValuesOfHit() {
+		BytesRef name = new BytesRef( "Bob" );
+		SearchAfterCursor cursor = SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { name } ) );
+
+		name.bytes[name.offset] = 'R';
+
+		assertThat( cursor.toFieldDoc().fields[0] ).isEqualTo( new BytesRef( "Bob" ) );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForHitWithoutSortValues() {
+		SearchAfterCursor.fromHit( new ScoreDoc( 1, 1.0f ) );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForUnsupportedSortValue() {
+		SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { new Object() } ) );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForInvalidCursor() {
+		SearchAfterCursor.decode( "not a cursor" );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForTruncatedCursor() {
+		String encoded = SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { 1L } ) ).encode();
+		SearchAfterCursor.decode( encoded.substring( 0, encoded.length() - 2 ) );
+	}
+
+	@Test
+	public void shouldApplyCursorToParsingResult() {
+		LuceneQueryParsingResult result = parsingResult( new Sort( new SortField( "name", SortField.Type.STRING ) ) );
+		SearchAfterCursor cursor = SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { new BytesRef( "Bob" ) } ) );
+
+		LuceneQueryParsingResult nextPage = result.searchAfter( cursor );
+
+		assertThat( result.getSearchAfter() ).isNull();
+		assertThat( nextPage.getSearchAfter() ).isEqualTo( cursor );
+		assertThat( nextPage.getQuery() ).isSameAs( result.getQuery() );
+		assertThat( nextPage.getSort() ).isSameAs( result.getSort() );
+	}
+
+	@Test
+	public void shouldCreateNextPageFromLastHit() {
+		LuceneQueryParsingResult result = parsingResult( new Sort( new SortField( "name", SortField.Type.STRING ) ) );
+		TopDocs page = new TopDocs( 2, new ScoreDoc[] {
+				new FieldDoc( 3, 1.0f, new Object[] { new BytesRef( "Alice" ) } ),
+				new FieldDoc( 1, 1.0f, new Object[] { new BytesRef( "Bob" ) } )
+		}, 1.0f );
+
+		assertThat( result.nextPage( page ).getSearchAfter().getDoc() ).isEqualTo( 1 );
+		assertThat( result.nextPage( new TopDocs( 0, new ScoreDoc[0], Float.NaN ) ) ).isNull();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForCursorOnUnsortedQuery() {
+		parsingResult( null ).searchAfter( SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { 1L } ) ) );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForCursorNotMatchingSort() {
+		parsingResult( new Sort( new SortField( "name", SortField.Type.STRING ) ) )
+				.searchAfter( SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { 1L, 2L } ) ) );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForCursorValueNotMatchingSortFieldType() {
+		Sort sort = new Sort( new SortField( "name", SortField.Type.STRING ), new SortField( "position", SortField.Type.LONG ) );
+		parsingResult( sort ).searchAfter( SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { new BytesRef( "Bob" ), 2 } ) ) );
+	}
+
+	@Test
+	public void shouldAcceptNullCursorValueForStringSortField() {
+		Sort sort = new Sort( new SortField( "name", SortField.Type.STRING ), new SortField( "position", SortField.Type.LONG ) );
+		SearchAfterCursor cursor = SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, new Object[] { null, 2L } ) );
+
+		assertThat( parsingResult( sort ).searchAfter( cursor ).getSearchAfter() ).isEqualTo( cursor );
+	}
+
+	@Test
+	public void shouldEncodeMoreThan255SortValues() {
+		Object[] sortValues = new Object[300];
+		for ( int i = 0; i < sortValues.length; i++ ) {
+			sortValues[i] = (long) i;
+		}
+		SearchAfterCursor cursor = SearchAfterCursor.fromHit( new FieldDoc( 1, 1.0f, sortValues ) );
+
+		SearchAfterCursor decoded = SearchAfterCursor.decode( cursor.encode() );
+
+		assertThat( decoded.getSortValueCount() ).isEqualTo( 300 );
+		assertThat( decoded ).isEqualTo( cursor );
+	}
+
+	private LuceneQueryParsingResult parsingResult(Sort sort) {
+		return new LuceneQueryParsingResult(
+				new MatchAllDocsQuery(),
+				IndexedEntity.class.getName(),
+				IndexedEntity.class,
+				null,
+				sort
+		);
+	}
+}
@@ -22,12 +22,16 @@
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.apache.lucene.document.DateTools;
 import org.hibernate.hql.ast.spi.EntityNamesResolver;
 import org.hibernate.hql.lucene.internal.builder.ClassBasedLucenePropertyHelper;
 import org.hibernate.hql.lucene.test.internal.builder.model.IndexedEntity;
 import org.hibernate.hql.lucene.testutil.MapBasedEntityNamesResolver;
+import org.hibernate.search.bridge.FieldBridge;
 import org.hibernate.search.testsupport.junit.SearchFactoryHolder;
 import org.junit.Before;
 import org.junit.Rule;
@@ -82,6 +86,52 @@ public void shouldConvertDoubleProperty() {
 		assertThat( convertToPropertyType( IndexedEntity.class, "d", "42.0" ) ).isEqualTo( 42.0D );
 	}
 
+	@Test
+	public void shouldConvertDateProperty() throws Exception {
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "20120925" ) ).isEqualTo( DateTools.stringToDate( "20120925" ) );
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "20120925134512345" ) ).isEqualTo( DateTools.stringToDate( "20120925134512345" ) );
+		// handled by the bridge rather than the built-in parser
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "15000101" ) ).isEqualTo( DateTools.stringToDate( "15000101" ) );
+	}
+
+	@Test
+	public void shouldConvertLenientDatesLikeDateTools() throws Exception {
+		// invalid days of month and times are rolled over into the next month or day by DateTools
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "20120230" ) ).isEqualTo( DateTools.stringToDate( "20120230" ) );
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "20130229" ) ).isEqualTo( DateTools.stringToDate( "20130229" ) );
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "20121131" ) ).isEqualTo( DateTools.stringToDate( "20121131" ) );
+		assertThat( convertToPropertyType( IndexedEntity.class, "date", "2012092524" ) ).isEqualTo( DateTools.stringToDate( "2012092524" ) );
+	}
+
+	@Test
+	public void shouldConvertRepeatedlyUsingCachedConverter() {
+		final List<String> requestedBridges = new ArrayList<String>();
+		propertyHelper = new ClassBasedLucenePropertyHelper( factoryHolder.getSearchFactory(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) ) {
+
+			@Override
+			public FieldBridge getFieldBridge(String entityType, List<String> propertyPath) {
+				requestedBridges.add( fieldName( propertyPath ) );
+				return super.getFieldBridge( entityType, propertyPath );
+			}
+		};
+
+		for ( int i = 0; i < 3; i++ ) {
+			assertThat( convertToPropertyType( IndexedEntity.class, "l", String.valueOf( i ) ) ).isEqualTo( (long) i );
+			assertThat( convertToPropertyType( IndexedEntity.class, "name", String.valueOf( i ) ) ).isEqualTo( String.valueOf( i ) );
+		}
+
+		assertThat( requestedBridges ).containsOnly( "l", "name" ).hasSize( 2 );
+	}
+
+	@Test
+	public void shouldNotCacheConverterUnderModifiedPath() {
+		List<String> path = new ArrayList<String>( Arrays.asList( "i" ) );
+		assertThat( propertyHelper.convertToPropertyType( IndexedEntity.class.getSimpleName(), path, "42" ) ).isEqualTo( 42 );
+
+		path.set( 0, "name" );
+		assertThat( propertyHelper.convertToPropertyType( IndexedEntity.class.getSimpleName(), path, "42" ) ).isEqualTo( "42" );
+	}
+
 	@Test
 	public void shouldRecognizeAnalyzedField() {
 		assertThat( propertyHelper.isAnalyzed( IndexedEntity.class, "description" ) ).isTrue();
@@ -25,15 +25,27 @@
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Random;
 import java.util.TimeZone;
 
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.hibernate.hql.QueryLimitExceededException;
+import org.hibernate.hql.QueryLimits;
 import org.hibernate.hql.ast.spi.EntityNamesResolver;
 import org.hibernate.hql.ast.spi.PropertyHelper;
 import org.hibernate.hql.ast.spi.SingleEntityQueryBuilder;
 import org.hibernate.hql.ast.spi.predicate.ComparisonPredicate.Type;
+import org.hibernate.hql.ast.spi.predicate.PredicateCodec;
+import org.hibernate.hql.ast.spi.predicate.RootPredicate;
+import org.hibernate.hql.ast.spi.predicate.SortedNumberList;
 import org.hibernate.hql.lucene.internal.builder.ClassBasedLucenePropertyHelper;
+import org.hibernate.hql.lucene.internal.builder.predicate.ClauseCostModel;
 import org.hibernate.hql.lucene.internal.builder.predicate.LucenePredicateFactory;
+import org.hibernate.hql.lucene.internal.builder.predicate.NumericSetQuery;
+import org.hibernate.hql.lucene.spi.IndexStatisticsProvider;
 import org.hibernate.hql.lucene.test.internal.builder.model.IndexedEntity;
 import org.hibernate.hql.lucene.testutil.MapBasedEntityNamesResolver;
 import org.hibernate.search.query.dsl.QueryContextBuilder;
@@ -58,14 +70,23 @@ public class LuceneQueryBuilderTest {
 
 	@Before
 	public void setupQueryBuilder() {
+		queryBuilder = createQueryBuilder( null, false );
+	}
+
+	private SingleEntityQueryBuilder<Query> createQueryBuilder(ClauseCostModel clauseCostModel, boolean filterOnly) {
+		return createQueryBuilder( clauseCostModel, filterOnly, QueryLimits.NONE );
+	}
+
+	private SingleEntityQueryBuilder<Query> createQueryBuilder(ClauseCostModel clauseCostModel, boolean filterOnly, QueryLimits limits) {
 		SearchIntegrator searchFactory = factoryHolder.getSearchFactory();
 		QueryContextBuilder queryContextBuilder = searchFactory.buildQueryBuilder();
 		EntityNamesResolver nameResolver = MapBasedEntityNamesResolver.forClasses( IndexedEntity.class );
 		PropertyHelper propertyHelper = new ClassBasedLucenePropertyHelper( searchFactory, nameResolver );
 
-		queryBuilder = SingleEntityQueryBuilder.getInstance(
-				new LucenePredicateFactory( queryContextBuilder, nameResolver ),
-				propertyHelper
+		return SingleEntityQueryBuilder.getInstance(
+				new LucenePredicateFactory( queryContextBuilder, nameResolver, null, clauseCostModel, filterOnly ),
+				propertyHelper,
+				limits
 		);
 	}
 
@@ -190,4 +211,356 @@ public void shouldBuildNestedLogicalPredicatesQuery() {
 
 		assertThat( query.toString() ).isEqualTo( "+(name:foobar i:[1 TO 1]) +l:[10 TO 10]" );
 	}
+
+	@Test
+	public void shouldFoldContradictoryEqualsPredicates() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 )
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 2 )
+			.build();
+
+		assertThat( query ).isInstanceOf( MatchNoDocsQuery.class );
+	}
+
+	@Test
+	public void shouldFoldContradictoryComparisonPredicates() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "l" ), Type.GREATER, 5L )
+				.addComparisonPredicate( Arrays.asList( "l" ), Type.LESS_OR_EQUAL, 5L )
+			.build();
+
+		assertThat( query ).isInstanceOf( MatchNoDocsQuery.class );
+	}
+
+	@Test
+	public void shouldFoldEmptyRangeQuery() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.addRangePredicate( "i", 5, 1 )
+			.build();
+
+		assertThat( query ).isInstanceOf( MatchNoDocsQuery.class );
+	}
+
+	@Test
+	public void shouldRemoveUnsatisfiableBranchFromDisjunction() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushOrPredicate()
+				.addRangePredicate( "i", 5, 1 )
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "name:foobar" );
+	}
+
+	@Test
+	public void shouldRemoveTautologicalBranchFromConjunction() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.pushNotPredicate()
+					.addRangePredicate( "i", 5, 1 )
+					.popBooleanPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "+name:foobar" );
+	}
+
+	@Test
+	public void shouldNotFoldSatisfiableComparisonPredicates() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.GREATER, 1 )
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.LESS, 10 )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "+i:{1 TO *] +i:[* TO 10}" );
+	}
+
+	@Test
+	public void shouldOrderConjunctionClausesByHeuristics() {
+		Query query = createQueryBuilder( new ClauseCostModel( null ), false )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addLikePredicate( Arrays.asList( "name" ), "foo%", null )
+				.addRangePredicate( "i", 1, 10 )
+				.addComparisonPredicate( Arrays.asList( "l" ), Type.EQUALS, 10 )
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "#name:foobar #l:[10 TO 10] #i:[1 TO 10] #name:foo*" );
+	}
+
+	@Test
+	public void shouldOrderConjunctionClausesByDocumentFrequency() {
+		IndexStatisticsProvider statisticsProvider = new IndexStatisticsProvider() {
+
+			@Override
+			public int getDocumentFrequency(String entityType, Term term) {
+				return term.field().equals( "name" ) ? 50 : 2;
+			}
+
+			@Override
+			public int getDocumentCount(String entityType) {
+				return 100;
+			}
+		};
+
+		Calendar calendar = Calendar.getInstance( TimeZone.getTimeZone( "GMT" ) );
+		calendar.set( 2012, 8, 25 );
+
+		Query query = createQueryBuilder( new ClauseCostModel( statisticsProvider ), false )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+				.addComparisonPredicate( Arrays.asList( "date" ), Type.EQUALS, calendar.getTime() )
+			.build();
+
+		// the non-selective term clause is retained as scoring clause
+		assertThat( query.toString() ).isEqualTo( "#date:20120925 +name:foobar" );
+	}
+
+	@Test
+	public void shouldMatchAllDocumentsForNegatedClausesWhenOrderingClauses() {
+		Query query = createQueryBuilder( new ClauseCostModel( null ), false )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.pushNotPredicate()
+					.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+					.popBooleanPredicate()
+				.pushNotPredicate()
+					.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 )
+					.popBooleanPredicate()
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "#*:* -name:foobar -i:[1 TO 1]" );
+	}
+
+	@Test
+	public void shouldBuildConstantScoreConjunctionQueryInFilterOnlyMode() {
+		Query query = createQueryBuilder( null, true )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+				.pushNotPredicate()
+					.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "ConstantScore(#name:foobar -i:[1 TO 1])" );
+	}
+
+	@Test
+	public void shouldBuildConstantScoreDisjunctionQueryInFilterOnlyMode() {
+		Query query = createQueryBuilder( null, true )
+			.setEntityType( "IndexedEntity" )
+			.pushOrPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+				.pushAndPredicate()
+					.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 )
+					.addComparisonPredicate( Arrays.asList( "l" ), Type.EQUALS, 10 )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "ConstantScore(name:foobar (#i:[1 TO 1] #l:[10 TO 10]))" );
+	}
+
+	@Test
+	public void shouldFilterAllClausesWhenOrderingClausesInFilterOnlyMode() {
+		IndexStatisticsProvider statisticsProvider = new IndexStatisticsProvider() {
+
+			@Override
+			public int getDocumentFrequency(String entityType, Term term) {
+				return 50;
+			}
+
+			@Override
+			public int getDocumentCount(String entityType) {
+				return 100;
+			}
+		};
+
+		Query query = createQueryBuilder( new ClauseCostModel( statisticsProvider ), true )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addRangePredicate( "i", 1, 10 )
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "ConstantScore(#name:foobar #i:[1 TO 10])" );
+	}
+
+	@Test(expected = QueryLimitExceededException.class)
+	public void shouldRejectQueryExceedingPredicateLimit() {
+		createQueryBuilder( null, false, new QueryLimits.Builder().maxPredicates( 2 ).build() )
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 );
+	}
+
+	@Test
+	public void shouldBuildNumericSetQueryForLongInPredicate() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.addInPredicate( Arrays.asList( "l" ), Arrays.<Object>asList( 3L, 1L, 2L, 1L ) )
+			.build();
+
+		assertThat( query ).isInstanceOf( NumericSetQuery.class );
+		assertThat( query.toString() ).isEqualTo( "l:[1, 2, 3]" );
+	}
+
+	@Test
+	public void shouldBuildNumericSetQueryForIntInPredicate() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.addInPredicate( Arrays.asList( "i" ), Arrays.<Object>asList( 2, 1 ) )
+			.build();
+
+		assertThat( query ).isInstanceOf( NumericSetQuery.class );
+		assertThat( query.toString() ).isEqualTo( "i:[1, 2]" );
+	}
+
+	@Test
+	public void shouldTakeSortedNumberListWithoutConvertingElements() {
+		SearchIntegrator searchFactory = factoryHolder.getSearchFactory();
+		EntityNamesResolver nameResolver = MapBasedEntityNamesResolver.forClasses( IndexedEntity.class );
+		PropertyHelper propertyHelper = new ClassBasedLucenePropertyHelper( searchFactory, nameResolver ) {
+
+			@Override
+			public Object convertToBackendType(String entityType, List<String> propertyPath, Object value) {
+				throw new AssertionError( "Unexpected conversion of IN value " + value );
+			}
+		};
+
+		Query query = SingleEntityQueryBuilder.getInstance(
+				new LucenePredicateFactory( searchFactory.buildQueryBuilder(), nameResolver, null, null, false ),
+				propertyHelper
+		)
+			.setEntityType( "IndexedEntity" )
+			.addInPredicate( Arrays.asList( "l" ), SortedNumberList.ofLongs( new long[] { 3L, 1L, 2L }, 3 ) )
+			.build();
+
+		assertThat( query ).isInstanceOf( NumericSetQuery.class );
+		assertThat( query.toString() ).isEqualTo( "l:[1, 2, 3]" );
+	}
+
+	@Test
+	public void shouldBuildDisjunctionForStringInPredicate() {
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.addInPredicate( Arrays.asList( "name" ), Arrays.<Object>asList( "foo", "bar" ) )
+			.build();
+
+		assertThat( query.toString() ).isEqualTo( "name:foo name:bar" );
+	}
+
+	@Test(expected = QueryLimitExceededException.class)
+	public void shouldRejectInPredicateExceedingListSizeLimit() {
+		createQueryBuilder( null, false, new QueryLimits.Builder().maxListSize( 2 ).build() )
+			.setEntityType( "IndexedEntity" )
+			.addInPredicate( Arrays.asList( "name" ), Arrays.<Object>asList( "a", "b", "c" ) );
+	}
+
+	@Test
+	public void shouldRoundTripEncodedPredicates() {
+		Calendar calendar = Calendar.getInstance( TimeZone.getTimeZone( "GMT" ) );
+		calendar.set( 2012, 8, 25 );
+
+		Query query = queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushOrPredicate()
+				.pushAndPredicate()
+					.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+					.addRangePredicate( "i", 1, 10 )
+					.addComparisonPredicate( Arrays.asList( "d" ), Type.GREATER, 10.5 )
+				.popBooleanPredicate()
+				.pushNotPredicate()
+					.addInPredicate( Arrays.asList( "l" ), Arrays.<Object>asList( 1L, 2L, 3L ) )
+				.popBooleanPredicate()
+				.addLikePredicate( Arrays.asList( "description" ), "foo%", null )
+				.addComparisonPredicate( Arrays.asList( "date" ), Type.LESS_OR_EQUAL, calendar.getTime() )
+			.popBooleanPredicate()
+			.build();
+
+		byte[] encoded = PredicateCodec.encode( queryBuilder.getEntityType(), queryBuilder.getRootPredicate() );
+		RootPredicate<Query> decoded = PredicateCodec.decode( encoded, createPredicateFactory(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) );
+
+		assertThat( decoded.toString() ).isEqualTo( queryBuilder.getRootPredicate().toString() );
+		assertThat( decoded.getQuery().toString() ).isEqualTo( query.toString() );
+	}
+
+	@Test
+	public void shouldRoundTripEncodedIsNullPredicate() {
+		// no null token is configured for the properties of the test entity, so no query can be created
+		queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushNotPredicate()
+				.addIsNullPredicate( Arrays.asList( "name" ) )
+			.popBooleanPredicate();
+
+		byte[] encoded = PredicateCodec.encode( queryBuilder.getEntityType(), queryBuilder.getRootPredicate() );
+		RootPredicate<Query> decoded = PredicateCodec.decode( encoded, createPredicateFactory(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) );
+
+		assertThat( decoded.toString() ).isEqualTo( queryBuilder.getRootPredicate().toString() );
+	}
+
+	@Test
+	public void shouldRetainUnsatisfiableClauseWhenEncodingPredicates() {
+		queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 1 )
+				.addComparisonPredicate( Arrays.asList( "i" ), Type.EQUALS, 2 )
+			.popBooleanPredicate()
+			.build();
+
+		byte[] encoded = PredicateCodec.encode( queryBuilder.getEntityType(), queryBuilder.getRootPredicate() );
+		RootPredicate<Query> decoded = PredicateCodec.decode( encoded, createPredicateFactory(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) );
+
+		assertThat( decoded.isUnsatisfiable() ).isTrue();
+		assertThat( decoded.getQuery() ).isInstanceOf( MatchNoDocsQuery.class );
+	}
+
+	@Test
+	public void shouldRejectCorruptEncodedPredicatesGracefully() {
+		queryBuilder
+			.setEntityType( "IndexedEntity" )
+			.pushAndPredicate()
+				.addComparisonPredicate( Arrays.asList( "name" ), Type.EQUALS, "foobar" )
+				.addInPredicate( Arrays.asList( "i" ), Arrays.<Object>asList( 1, 2, 3 ) )
+				.addRangePredicate( "d", 1.0, 10.0 )
+			.popBooleanPredicate()
+			.build();
+
+		byte[] encoded = PredicateCodec.encode( queryBuilder.getEntityType(), queryBuilder.getRootPredicate() );
+		Random random = new Random( 42 );
+
+		for ( int i = 0; i < 1000; i++ ) {
+			byte[] corrupt = encoded.clone();
+			corrupt[random.nextInt( corrupt.length )] ^= (byte) ( 1 << random.nextInt( 8 ) );
+			assertDecodesOrRejects( corrupt );
+
+			assertDecodesOrRejects( Arrays.copyOf( encoded, random.nextInt( encoded.length ) ) );
+		}
+	}
+
+	private void assertDecodesOrRejects(byte[] data) {
+		try {
+			PredicateCodec.decode( data, createPredicateFactory(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) );
+		}
+		catch (IllegalArgumentException e) {
+			// expected for invalid data
+		}
+	}
+
+	private LucenePredicateFactory createPredicateFactory() {
+		SearchIntegrator searchFactory = factoryHolder.getSearchFactory();
+		return new LucenePredicateFactory( searchFactory.buildQueryBuilder(), MapBasedEntityNamesResolver.forClasses( IndexedEntity.class ) );
+	}
 }
@@ -0,0 +1,131 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.lucene.test.internal.builder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.hql.lucene.internal.builder.predicate.NumericSetQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link NumericSetQuery}.
+ */
+public class NumericSetQueryTest {
+
+	private RAMDirectory directory;
+	private DirectoryReader reader;
+	private IndexSearcher searcher;
+
+	@Before
+	public void setupIndex() throws IOException {
+		directory = new RAMDirectory();
+		IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new KeywordAnalyzer() ) );
+
+		for ( int i = 0; i < 100; i++ ) {
+			Document document = new Document();
+			document.add( new LongField( "l", i * 1000L - 20000L, Store.YES ) );
+			document.add( new IntField( "i", i * 3 - 50, Store.YES ) );
+			writer.addDocument( document );
+		}
+
+		writer.close();
+
+		reader = DirectoryReader.open( directory );
+		searcher = new IndexSearcher( reader );
+	}
+
+	@After
+	public void closeIndex() throws IOException {
+		reader.close();
+		directory.close();
+	}
+
+	@Test
+	public void shouldMatchLongValues() throws IOException {
+		Query query = new NumericSetQuery( "l", new long[] { -20000L, -19999L, 0L, 500L, 42000L, 79000L, 1000000L }, false );
+
+		assertThat( search( query, "l" ) ).containsExactly( -20000L, 0L, 42000L, 79000L );
+	}
+
+	@Test
+	public void shouldMatchIntValues() throws IOException {
+		Query query = new NumericSetQuery( "i", new long[] { -50, -49, -47, 0, 1, 247, 250 }, true );
+
+		assertThat( search( query, "i" ) ).containsExactly( -50, -47, 1, 247 );
+	}
+
+	@Test
+	public void shouldMatchValueFollowingAbsentValue() throws IOException {
+		// the seek for -19500 lands on the term of -19000, which must be accepted rather than skipped
+		Query query = new NumericSetQuery( "l", new long[] { -19500L, -19000L, 41500L, 42000L, 98500L }, false );
+
+		assertThat( search( query, "l" ) ).containsExactly( -19000L, 42000L );
+	}
+
+	@Test
+	public void shouldMatchNothingIfNoValueIsIndexed() throws IOException {
+		Query query = new NumericSetQuery( "l", new long[] { 1L, 2L, 3L }, false );
+
+		assertThat( searcher.search( query, 10 ).totalHits ).isEqualTo( 0 );
+	}
+
+	@Test
+	public void shouldBeEqualForSameValues() {
+		Query query = new NumericSetQuery( "l", new long[] { 1L, 2L }, false );
+
+		assertThat( query ).isEqualTo( new NumericSetQuery( "l", new long[] { 1L, 2L }, false ) );
+		assertThat( query.hashCode() ).isEqualTo( new NumericSetQuery( "l", new long[] { 1L, 2L }, false ).hashCode() );
+		assertThat( query ).isNotEqualTo( new NumericSetQuery( "l", new long[] { 1L, 3L }, false ) );
+		assertThat( query ).isNotEqualTo( new NumericSetQuery( "i", new long[] { 1L, 2L }, true ) );
+	}
+
+	/**
+	 * Returns the values of the matching documents; as the query is constant-scoring, they are in index order, which
+	 * is the order of the values.
+	 */
+	private List<Number> search(Query query, String field) throws IOException {
+		List<Number> values = new ArrayList<Number>();
+
+		for ( ScoreDoc hit : searcher.search( query, 100 ).scoreDocs ) {
+			values.add( searcher.doc( hit.doc ).getField( field ).numericValue() );
+		}
+
+		return values;
+	}
+}
@@ -184,6 +184,41 @@ tokens {
  * entirety.
  */
 package org.hibernate.hql.ast.origin.hql.parse;
+
+import org.hibernate.hql.ast.common.CharSequenceStream;
+import org.hibernate.hql.ast.common.HibernateToken;
+import org.hibernate.hql.ast.common.SoftKeyword;
+}
+
+@members {
+	/**
+	 * Emits {@link HibernateToken}s; identifiers are classified as soft keyword or not right away, so the parser
+	 * doesn't have to compare their text again and again.
+	 */
+	@Override
+	public Token emit() {
+		HibernateToken token = new HibernateToken( input, state.type, state.channel, state.tokenStartCharIndex, getCharIndex() - 1 );
+		token.setLine( state.tokenStartLine );
+		token.setText( state.text );
+		token.setCharPositionInLine( state.tokenStartCharPositionInLine );
+
+		if ( state.type == IDENTIFIER ) {
+			token.setSoftKeyword( getSoftKeyword( token ) );
+		}
+
+		emit( token );
+		return token;
+	}
+
+	private SoftKeyword getSoftKeyword(HibernateToken token) {
+		// classify the token without materializing its text if possible
+		if ( state.text == null && input instanceof CharSequenceStream ) {
+			CharSequence query = ( (CharSequenceStream) input ).getCharSequence();
+			return SoftKeyword.forText( query, token.getStartIndex(), token.getStopIndex() + 1 );
+		}
+
+		return SoftKeyword.forText( token.getText() );
+	}
 }
 
 WS	:	(	' '
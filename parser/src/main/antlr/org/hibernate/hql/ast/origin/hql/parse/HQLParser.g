@@ -39,34 +39,53 @@ package org.hibernate.hql.ast.origin.hql.parse;
 
 import java.util.LinkedList;
 import java.util.Iterator;
+import org.hibernate.hql.ast.common.HibernateToken;
 import org.hibernate.hql.ast.common.ParserContext;
+import org.hibernate.hql.ast.common.SoftKeyword;
 import org.hibernate.hql.ast.tree.EntityNameTree;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
 }
 
 @parser::members {
+	private static final Log log = LoggerFactory.make();
+
 	private Stack enableParameterUsage = new Stack();
 	private ParserContext context = new org.hibernate.hql.ast.DefaultParsingContext();
 	private List errorMessages = new LinkedList();
+	private boolean failFast = false;
 
 	public void setParserContext(ParserContext context){
 		this.context = context;
 	}
 
-	private boolean validateSoftKeyword(String text) {
-		return validateLT( 1, text );
+	/**
+	 * Sets whether to stop parsing upon the first syntax error. If enabled, a {@code ParsingException} describing the
+	 * position of the error and the expected token is raised right away, without attempting to recover and without
+	 * determining the rule invocation stack. Otherwise (the default), the parser recovers from errors and collects
+	 * verbose messages for all of them, to be obtained via {@link #getErrorMessages()}.
+	 *
+	 * @param failFast whether to stop parsing upon the first syntax error or not
+	 */
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
 	}
 
-	private boolean validateLT(int offset, String text) {
-		String text2Validate = retrieveLT( offset );
-		return text2Validate == null ? false : text2Validate.equalsIgnoreCase( text );
+	private boolean validateSoftKeyword(SoftKeyword keyword) {
+		return validateLT( 1, keyword );
 	}
 
-	private String retrieveLT(int offset) {
+	private boolean validateLT(int offset, SoftKeyword keyword) {
 		if ( null == input ) {
-			return null;
+			return false;
 		}
 		Token token = input.LT( offset );
-		return token == null ? null : token.getText();
+		return token == null ? false : retrieveSoftKeyword( token ) == keyword;
+	}
+
+	private SoftKeyword retrieveSoftKeyword(Token token) {
+		// tokens created by HQLLexer have been classified already
+		return token instanceof HibernateToken ? ( (HibernateToken) token ).getSoftKeyword() : SoftKeyword.forText( token.getText() );
 	}
 
 	public boolean hasErrors() {
@@ -78,6 +97,10 @@ import org.hibernate.hql.ast.tree.EntityNameTree;
 	}
 
 	public void reportError(RecognitionException e) {
+		if ( failFast ) {
+			throw log.getSyntaxErrorException( e.line, e.charPositionInLine, generateError( "", this.getTokenNames(), e ) );
+		}
+
 		errorMessages.add(
 			generateError(
 				getRuleInvocationStack( e, this.getClass().getName() ),
@@ -607,7 +630,7 @@ likeEscape
 inList
 	:	collectionExpression
 		-> ^(IN_LIST collectionExpression)
-	|	LEFT_PAREN ( {((validateSoftKeyword("select")|validateSoftKeyword("from")))}?=> subQuery | concatenation (COMMA concatenation)* ) RIGHT_PAREN
+	|	LEFT_PAREN ( {((validateSoftKeyword(SoftKeyword.SELECT)|validateSoftKeyword(SoftKeyword.FROM)))}?=> subQuery | concatenation (COMMA concatenation)* ) RIGHT_PAREN
 		-> ^(IN_LIST concatenation* subQuery?)
 	;
 
@@ -883,7 +906,7 @@ atom
 	|	constant
 	|	parameterSpecification { if (enableParameterUsage.peek().equals(Boolean.FALSE)) throw new RecognitionException( ); }
 	//validate using Scopes if it is enabled or not to use parameterSpecification.. if not generate an exception
-	|	LEFT_PAREN! ({((validateSoftKeyword("select")|validateSoftKeyword("from")))}?=> subQuery|expressionOrVector) RIGHT_PAREN!
+	|	LEFT_PAREN! ({((validateSoftKeyword(SoftKeyword.SELECT)|validateSoftKeyword(SoftKeyword.FROM)))}?=> subQuery|expressionOrVector) RIGHT_PAREN!
 	;
 
 parameterSpecification
@@ -976,488 +999,488 @@ path
 	;
 
 class_key
-	:	{(validateSoftKeyword("class"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CLASS))}?=>  id=IDENTIFIER
 		->	CLASS[$id]
 	;
 
 new_key
-	:	{(validateSoftKeyword("new"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.NEW))}?=>  id=IDENTIFIER
 		->	NEW[$id]
 	;
 
 else_key
-	:	{(validateSoftKeyword("else"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ELSE))}?=>  id=IDENTIFIER
 		->	ELSE[$id]
 	;
 
 object_key
-	:	{(validateSoftKeyword("object"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.OBJECT))}?=>  id=IDENTIFIER
 	;
 
 case_key
-	:	{(validateSoftKeyword("case"))}?=>  IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CASE))}?=>  IDENTIFIER
 	;
 
 current_date_key
-	:	{(validateSoftKeyword("current_date"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CURRENT_DATE))}?=>  id=IDENTIFIER
 		->	CURRENT_DATE[$id]
 	;
 
 current_time_key
-	:	{(validateSoftKeyword("current_time"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CURRENT_TIME))}?=>  id=IDENTIFIER
 		->	CURRENT_TIME[$id]
 	;
 
 current_timestamp_key
-	:	{(validateSoftKeyword("current_timestamp"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CURRENT_TIMESTAMP))}?=>  id=IDENTIFIER
 		->	CURRENT_TIMESTAMP[$id]
 	;
 
 timezone_hour_key
-	:	{(validateSoftKeyword("timezone_hour"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.TIMEZONE_HOUR))}?=>  id=IDENTIFIER
 		->	TIMEZONE_HOUR[$id]
 	;
 
 timezone_minute_key
-	:	{(validateSoftKeyword("timezone_minute"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.TIMEZONE_MINUTE))}?=>  id=IDENTIFIER
 		->	TIMEZONE_MINUTE[$id]
 	;
 
 character_length_key
-	:	{(validateSoftKeyword("character_length") || validateSoftKeyword("char_length"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CHARACTER_LENGTH) || validateSoftKeyword(SoftKeyword.CHAR_LENGTH))}?=>  id=IDENTIFIER
 		->	CHARACTER_LENGTH[$id]
 	;
 
 octet_length_key
-	:	{(validateSoftKeyword("octet_length"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.OCTET_LENGTH))}?=>  id=IDENTIFIER
 		->	OCTET_LENGTH[$id]
 	;
 
 bit_length_key
-	:	{(validateSoftKeyword("bit_length"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.BIT_LENGTH))}?=>  id=IDENTIFIER
 		->	BIT_LENGTH[$id]
 	;
 
 extract_key
-	:	{(validateSoftKeyword("extract"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.EXTRACT))}?=>  id=IDENTIFIER
 		->	EXTRACT[$id]
 	;
 
 second_key
-	:	{(validateSoftKeyword("second"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SECOND))}?=>  id=IDENTIFIER
 		->	SECOND[$id]
 	;
 
 year_key
-	:	{(validateSoftKeyword("year"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.YEAR))}?=>  id=IDENTIFIER
 		->	YEAR[$id]
 	;
 
 month_key
-	:	{(validateSoftKeyword("month"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MONTH))}?=>  id=IDENTIFIER
 		->	MONTH[$id]
 	;
 
 day_key
-	:	{(validateSoftKeyword("day"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.DAY))}?=>  id=IDENTIFIER
 		->	DAY[$id]
 	;
 
 hour_key
-	:	{(validateSoftKeyword("hour"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.HOUR))}?=>  id=IDENTIFIER
 		->	HOUR[$id]
 	;
 
 minute_key
-	:	{(validateSoftKeyword("minute"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MINUTE))}?=>  id=IDENTIFIER
 		->	MINUTE[$id]
 	;
 
 position_key
-	:	{(validateSoftKeyword("position"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.POSITION))}?=>  id=IDENTIFIER
 		->	POSITION[$id]
 	;
 
 sum_key
-	:	{(validateSoftKeyword("sum"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SUM))}?=>  id=IDENTIFIER
 		->	SUM[$id]
 	;
 
 avg_key
-	:	{(validateSoftKeyword("avg"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.AVG))}?=>  id=IDENTIFIER
 		->	AVG[$id]
 	;
 
 max_key
-	:	{(validateSoftKeyword("max"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MAX))}?=>  id=IDENTIFIER
 		->	MAX[$id]
 	;
 
 min_key
-	:	{(validateSoftKeyword("min"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MIN))}?=>  id=IDENTIFIER
 		->	MIN[$id]
 	;
 
 count_key
-	:	{(validateSoftKeyword("count"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.COUNT))}?=>  id=IDENTIFIER
 		->	COUNT[$id]
 	;
 
 maxelement_key
-	:	{(validateSoftKeyword("maxelement"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MAXELEMENT))}?=>  id=IDENTIFIER
 		->	MAXELEMENT[$id]
 	;
 
 maxindex_key
-	:	{(validateSoftKeyword("maxindex"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MAXINDEX))}?=>  id=IDENTIFIER
 		->	MAXINDEX[$id]
 	;
 
 minelement_key
-	:	{(validateSoftKeyword("minelement"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MINELEMENT))}?=>  id=IDENTIFIER
 		->	MINELEMENT[$id]
 	;
 
 minindex_key
-	:	{(validateSoftKeyword("minindex"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MININDEX))}?=>  id=IDENTIFIER
 		->	MININDEX[$id]
 	;
 
 locate_key
-	:	{(validateSoftKeyword("locate"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LOCATE))}?=>  id=IDENTIFIER
 		->	LOCATE[$id]
 	;
 
 abs_key
-	:	{(validateSoftKeyword("abs"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ABS))}?=>  id=IDENTIFIER
 		->	ABS[$id]
 	;
 
 sqrt_key
-	:	{(validateSoftKeyword("sqrt"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SQRT))}?=>  id=IDENTIFIER
 		->	SQRT[$id]
 	;
 
 mod_key
-	:	{(validateSoftKeyword("mod"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.MOD))}?=>  id=IDENTIFIER
 		->	MOD[$id]
 	;
 
 size_key
-	:	{(validateSoftKeyword("size"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SIZE))}?=>  id=IDENTIFIER
 		->	SIZE[$id]
 	;
 
 index_key
-	:	{(validateSoftKeyword("index"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INDEX))}?=>  id=IDENTIFIER
 		->	INDEX[$id]
 	;
 
 leading_key
-	:	{(validateSoftKeyword("leading"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LEADING))}?=>  id=IDENTIFIER
 		->	LEADING[$id]
 	;
 
 trailing_key
-	:	{(validateSoftKeyword("trailing"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.TRAILING))}?=>  id=IDENTIFIER
 		->	TRAILING[$id]
 	;
 
 upper_key
-	:	{(validateSoftKeyword("upper"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.UPPER))}?=>  id=IDENTIFIER
 		->	UPPER[$id]
 	;
 
 lower_key
-	:	{(validateSoftKeyword("lower"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LOWER))}?=>  id=IDENTIFIER
 		->	LOWER[$id]
 	;
 
 length_key
-	:	{(validateSoftKeyword("length"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LENGTH))}?=>  id=IDENTIFIER
 		->	LENGTH[$id]
 	;
 
 both_key
-	:	{(validateSoftKeyword("both"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.BOTH))}?=>  id=IDENTIFIER
 		->	BOTH[$id]
 	;
 
 trim_key
-	:	{(validateSoftKeyword("trim"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.TRIM))}?=>  id=IDENTIFIER
 		->	TRIM[$id]
 	;
 
 substring_key
-	:	{(validateSoftKeyword("substring"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SUBSTRING))}?=>  id=IDENTIFIER
 		->	SUBSTRING[$id]
 	;
 
 concat_key
-	:	{(validateSoftKeyword("concat"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CONCAT))}?=>  id=IDENTIFIER
 		->	CONCAT[$id]
 	;
 
 cast_key
-	:	{(validateSoftKeyword("cast"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CAST))}?=>  id=IDENTIFIER
 		->	CAST[$id]
 	;
 
 any_key
-	:	{(validateSoftKeyword("any"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ANY))}?=>  id=IDENTIFIER
 		->	ANY[$id]
 	;
 
 exists_key
-	:	{(validateSoftKeyword("exists"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.EXISTS))}?=>  id=IDENTIFIER
 		->	EXISTS[$id]
 	;
 
 some_key
-	:	{(validateSoftKeyword("some"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SOME))}?=>  id=IDENTIFIER
 		->	SOME[$id]
 	;
 
 then_key
-	:	{(validateSoftKeyword("then"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.THEN))}?=>  id=IDENTIFIER
 		->	THEN[$id]
 	;
 
 end_key
-	:	{(validateSoftKeyword("end"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.END))}?=>  id=IDENTIFIER
 		->	END[$id]
 	;
 
 
 when_key
-	:	{(validateSoftKeyword("when"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.WHEN))}?=>  id=IDENTIFIER
 		->	WHEN[$id]
 	;
 
 nullif_key
-	:	{(validateSoftKeyword("nullif"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.NULLIF))}?=>  id=IDENTIFIER
 		->	NULLIF[$id]
 	;
 
 coalesce_key
-	:	{(validateSoftKeyword("coalesce"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.COALESCE))}?=>  id=IDENTIFIER
 		->	COALESCE[$id]
 	;
 
 escape_key
-	:	{(validateSoftKeyword("escape"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ESCAPE))}?=>  id=IDENTIFIER
 		->	ESCAPE[$id]
 	;
 
 like_key
-	:	{(validateSoftKeyword("like"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LIKE))}?=>  id=IDENTIFIER
 		->	LIKE[$id]
 	;
 
 between_key
-	:	{(validateSoftKeyword("between"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.BETWEEN))}?=>  id=IDENTIFIER
 		->	BETWEEN[$id]
 	;
 
 member_of_key
 @init{
 	String text = "";
-}	:	{(validateSoftKeyword("member") && validateLT(2, "of"))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
+}	:	{(validateSoftKeyword(SoftKeyword.MEMBER) && validateLT(2, SoftKeyword.OF))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
 		->	MEMBER_OF[$id]
 	;
 
 empty_key
-	:	{(validateSoftKeyword("empty"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.EMPTY))}?=>  id=IDENTIFIER
 	;
 
-is_key	:	{(validateSoftKeyword("is"))}?=>  id=IDENTIFIER
+is_key	:	{(validateSoftKeyword(SoftKeyword.IS))}?=>  id=IDENTIFIER
 		->	IS[$id]
 	;
 
-or_key	:	{(validateSoftKeyword("or"))}?=>  id=IDENTIFIER
+or_key	:	{(validateSoftKeyword(SoftKeyword.OR))}?=>  id=IDENTIFIER
 		->	OR[$id]
 	;
 
-and_key	:	{(validateSoftKeyword("and"))}?=>  id=IDENTIFIER
+and_key	:	{(validateSoftKeyword(SoftKeyword.AND))}?=>  id=IDENTIFIER
 		->	AND[$id]
 	;
 
-not_key	:	{(validateSoftKeyword("not"))}?=>  id=IDENTIFIER
+not_key	:	{(validateSoftKeyword(SoftKeyword.NOT))}?=>  id=IDENTIFIER
 		->	NOT[$id]
 	;
 
 set_key
-	:	{(validateSoftKeyword("set"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SET))}?=>  id=IDENTIFIER
 		->	SET[$id]
 	;
 
 versioned_key
-	:	{(validateSoftKeyword("versioned"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.VERSIONED))}?=>  id=IDENTIFIER
 		->	VERSIONED[$id]
 	;
 
 update_key
-	:	{(validateSoftKeyword("update"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.UPDATE))}?=>  id=IDENTIFIER
 		->	UPDATE[$id]
 	;
 
 delete_key
-	:	{(validateSoftKeyword("delete"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.DELETE))}?=>  id=IDENTIFIER
 		->	DELETE[$id]
 	;
 
 insert_key
-	:	{(validateSoftKeyword("insert"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INSERT))}?=>  id=IDENTIFIER
 		->	INSERT[$id]
 	;
 
 into_key
-	:	{(validateSoftKeyword("into"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INTO))}?=>  id=IDENTIFIER
 		->	INTO[$id]
 	;
 
 having_key
-	:	{(validateSoftKeyword("having"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.HAVING))}?=>  id=IDENTIFIER
 		->	HAVING[$id]
 	;
 
 with_key
-	:	{(validateSoftKeyword("with"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.WITH))}?=>  id=IDENTIFIER
 		->	WITH[$id]
 	;
 
 on_key
-	:	{(validateSoftKeyword("on"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ON))}?=>  id=IDENTIFIER
 		->	ON[$id]
 	;
 
 indices_key
-	:	{(validateSoftKeyword("indices"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INDICES))}?=>  id=IDENTIFIER
 		->	INDICES[$id]
 	;
 
 cross_key
-	:	{(validateSoftKeyword("cross"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.CROSS))}?=>  id=IDENTIFIER
 		->	CROSS[$id]
 	;
 
 join_key
-	:	{(validateSoftKeyword("join"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.JOIN))}?=>  id=IDENTIFIER
 		->	JOIN[$id]
 	;
 
 inner_key
-	:	{(validateSoftKeyword("inner"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INNER))}?=>  id=IDENTIFIER
 		->	INNER[$id]
 	;
 
 outer_key
-	:	{(validateSoftKeyword("outer"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.OUTER))}?=>  id=IDENTIFIER
 		->	OUTER[$id]
 	;
 
 left_key
-	:	{(validateSoftKeyword("left"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.LEFT))}?=>  id=IDENTIFIER
 		->	LEFT[$id]
 	;
 
 right_key
-	:	{(validateSoftKeyword("right"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.RIGHT))}?=>  id=IDENTIFIER
 		->	RIGHT[$id]
 	;
 
 full_key
-	:	{(validateSoftKeyword("full"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.FULL))}?=>  id=IDENTIFIER
 		->	FULL[$id]
 	;
 
 elements_key
-	:	{(validateSoftKeyword("elements"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ELEMENTS))}?=>  id=IDENTIFIER
 		->	ELEMENTS[$id]
 	;
 
 properties_key
-	:	{(validateSoftKeyword("properties"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.PROPERTIES))}?=>  id=IDENTIFIER
 		->	PROPERTIES[$id]
 	;
 
 fetch_key
-	:	{(validateSoftKeyword("fetch"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.FETCH))}?=>  id=IDENTIFIER
 		->	FETCH[$id]
 	;
 
 in_key
-	:	{(validateSoftKeyword("in"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.IN))}?=>  id=IDENTIFIER
 		->	IN[$id]
 	;
 
 as_key
-	:	{(validateSoftKeyword("as"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.AS))}?=>  id=IDENTIFIER
 		->	AS[$id]
 	;
 
 where_key
-	:	{(validateSoftKeyword("where"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.WHERE))}?=>  id=IDENTIFIER
 		->	WHERE[$id]
 	;
 
 select_key
-	:	{(validateSoftKeyword("select"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.SELECT))}?=>  id=IDENTIFIER
 		->	SELECT[$id]
 	;
 
 distinct_key
-	:	{(validateSoftKeyword("distinct"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.DISTINCT))}?=>  id=IDENTIFIER
 		->	DISTINCT[$id]
 	;
 
 union_key
-	:	{(validateSoftKeyword("union"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.UNION))}?=>  id=IDENTIFIER
 		->	UNION[$id]
 	;
 
 intersect_key
-	:	{(validateSoftKeyword("intersect"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.INTERSECT))}?=>  id=IDENTIFIER
 		->	INTERSECT[$id]
 	;
 
 except_key
-	:	{(validateSoftKeyword("except"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.EXCEPT))}?=>  id=IDENTIFIER
 		->	EXCEPT[$id]
 	;
 
 all_key
-	:	{(validateSoftKeyword("all"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ALL))}?=>  id=IDENTIFIER
 		->	ALL[$id]
 	;
 
 ascending_key
-	:	{(validateSoftKeyword("ascending") || validateSoftKeyword("asc"))}?=>  IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.ASCENDING) || validateSoftKeyword(SoftKeyword.ASC))}?=>  IDENTIFIER
 	;
 
 descending_key
-	:	{(validateSoftKeyword("descending") || validateSoftKeyword("desc"))}?=>  IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.DESCENDING) || validateSoftKeyword(SoftKeyword.DESC))}?=>  IDENTIFIER
 	;
 
 collate_key
-	:	{(validateSoftKeyword("collate"))}?=>  IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.COLLATE))}?=>  IDENTIFIER
 	;
 
 order_by_key
 @init{
 	String text = "";
-}	:	{(validateSoftKeyword("order") && validateLT(2, "by"))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
+}	:	{(validateSoftKeyword(SoftKeyword.ORDER) && validateLT(2, SoftKeyword.BY))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
 		->	ORDER_BY[$id]
 	;
 
 group_by_key
 @init{
 	String text = "";
-}	:	{(validateSoftKeyword("group") && validateLT(2, "by"))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
+}	:	{(validateSoftKeyword(SoftKeyword.GROUP) && validateLT(2, SoftKeyword.BY))}?=>  id=IDENTIFIER IDENTIFIER {text = $text;}
 		->	GROUP_BY[$id]
 	;
 
 from_key
-	:	{(validateSoftKeyword("from"))}?=>  id=IDENTIFIER
+	:	{(validateSoftKeyword(SoftKeyword.FROM))}?=>  id=IDENTIFIER
 		->	FROM[$id]
 	;
\ No newline at end of file
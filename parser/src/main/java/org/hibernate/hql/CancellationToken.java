@@ -0,0 +1,102 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * Allows to stop the parsing of a query, either explicitly via {@link #cancel()} or implicitly once a deadline has
+ * passed. The token is checked periodically while the query is parsed and while the parse tree is processed, raising
+ * a {@link QueryCancelledException} respectively {@link QueryDeadlineExceededException} if parsing is to be stopped.
+ * So callers which have given up on a query, e.g. due to a request timeout, don't keep burning CPU time on it.
+ * <p>
+ * A token may be cancelled from any thread. It is meant to be used for parsing one query.
+ */
+public final class CancellationToken {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final boolean hasDeadline;
+	private final long timeoutMillis;
+	private final long deadlineNanos;
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a token without a deadline, which only stops parsing when being cancelled explicitly.
+	 */
+	public CancellationToken() {
+		this.hasDeadline = false;
+		this.timeoutMillis = 0;
+		this.deadlineNanos = 0;
+	}
+
+	private CancellationToken(long timeout, TimeUnit unit) {
+		this.hasDeadline = true;
+		this.timeoutMillis = unit.toMillis( timeout );
+		// negative timeouts are taken as zero, so they can't overflow the deadline into the future
+		this.deadlineNanos = System.nanoTime() + Math.max( unit.toNanos( timeout ), 0 );
+	}
+
+	/**
+	 * Creates a token whose deadline passes after the given timeout, starting from now. The deadline of a token with
+	 * a timeout of zero or less has passed already.
+	 *
+	 * @param timeout the timeout
+	 * @param unit the unit of the timeout
+	 * @return a new token
+	 */
+	public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken( timeout, unit );
+	}
+
+	/**
+	 * Requests parsing to be stopped. Parsing stops upon the next check of this token.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDeadlineExceeded() {
+		return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+	}
+
+	/**
+	 * Checks whether parsing is to be stopped.
+	 *
+	 * @throws QueryCancelledException in case this token has been cancelled
+	 * @throws QueryDeadlineExceededException in case the deadline of this token has passed
+	 */
+	public void checkNotCancelled() {
+		if ( cancelled ) {
+			throw log.getQueryCancelledException();
+		}
+		if ( isDeadlineExceeded() ) {
+			throw log.getQueryDeadlineExceededException( timeoutMillis );
+		}
+	}
+}
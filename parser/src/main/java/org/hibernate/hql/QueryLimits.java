@@ -0,0 +1,142 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql;
+
+/**
+ * Limits bounding the work caused by parsing and processing a single query. The limits are enforced incrementally, so
+ * pathological queries are rejected early, by raising a {@link QueryLimitExceededException}:
+ * <ul>
+ * <li>the number of tokens and the nesting depth of parentheses are checked while lexing the query</li>
+ * <li>the number of elements of parenthesized lists such as {@code IN} lists is checked while lexing the query and
+ * again when building {@code IN} predicates</li>
+ * <li>the number of predicates is checked while building the predicates of the query</li>
+ * </ul>
+ * Instances are immutable and are created via {@link Builder}; all limits are disabled by default.
+ */
+public final class QueryLimits {
+
+	/**
+	 * Limits which are all disabled.
+	 */
+	public static final QueryLimits NONE = new Builder().build();
+
+	private final int maxTokens;
+	private final int maxNestingDepth;
+	private final int maxListSize;
+	private final int maxPredicates;
+
+	/**
+	 * Builds {@link QueryLimits}.
+	 */
+	public static class Builder {
+
+		private int maxTokens = Integer.MAX_VALUE;
+		private int maxNestingDepth = Integer.MAX_VALUE;
+		private int maxListSize = Integer.MAX_VALUE;
+		private int maxPredicates = Integer.MAX_VALUE;
+
+		/**
+		 * Sets the maximum number of tokens of a query, not counting white space.
+		 *
+		 * @param maxTokens the maximum number of tokens
+		 * @return this builder
+		 */
+		public Builder maxTokens(int maxTokens) {
+			this.maxTokens = maxTokens;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum nesting depth of parentheses, e.g. for grouped predicates or sub-queries.
+		 *
+		 * @param maxNestingDepth the maximum nesting depth
+		 * @return this builder
+		 */
+		public Builder maxNestingDepth(int maxNestingDepth) {
+			this.maxNestingDepth = maxNestingDepth;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of elements of parenthesized lists, such as {@code IN} lists or function arguments.
+		 *
+		 * @param maxListSize the maximum number of list elements
+		 * @return this builder
+		 */
+		public Builder maxListSize(int maxListSize) {
+			this.maxListSize = maxListSize;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of predicates (comparisons, {@code AND}, {@code OR} etc.) of a query.
+		 *
+		 * @param maxPredicates the maximum number of predicates
+		 * @return this builder
+		 */
+		public Builder maxPredicates(int maxPredicates) {
+			this.maxPredicates = maxPredicates;
+			return this;
+		}
+
+		public QueryLimits build() {
+			return new QueryLimits( this );
+		}
+	}
+
+	private QueryLimits(Builder builder) {
+		this.maxTokens = builder.maxTokens;
+		this.maxNestingDepth = builder.maxNestingDepth;
+		this.maxListSize = builder.maxListSize;
+		this.maxPredicates = builder.maxPredicates;
+	}
+
+	public int getMaxTokens() {
+		return maxTokens;
+	}
+
+	public int getMaxNestingDepth() {
+		return maxNestingDepth;
+	}
+
+	public int getMaxListSize() {
+		return maxListSize;
+	}
+
+	public int getMaxPredicates() {
+		return maxPredicates;
+	}
+
+	/**
+	 * Whether any of the token-related limits is enabled, i.e. whether the tokens of a query need to be inspected.
+	 *
+	 * @return {@code true} if any of the token-related limits is enabled, {@code false} otherwise
+	 */
+	public boolean isTokenLimitEnabled() {
+		return maxTokens != Integer.MAX_VALUE || maxNestingDepth != Integer.MAX_VALUE || maxListSize != Integer.MAX_VALUE;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryLimits [maxTokens=" + maxTokens + ", maxNestingDepth=" + maxNestingDepth + ", maxListSize="
+				+ maxListSize + ", maxPredicates=" + maxPredicates + "]";
+	}
+}
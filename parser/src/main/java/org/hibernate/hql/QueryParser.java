@@ -20,17 +20,27 @@
  */
 package org.hibernate.hql;
 
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
-import org.antlr.runtime.ANTLRStringStream;
-import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
 import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.common.CharSequenceStream;
+import org.hibernate.hql.ast.common.CompactTokenStream;
+import org.hibernate.hql.ast.common.HibernateTreeAdaptor;
+import org.hibernate.hql.ast.common.QueryLimitsTokenSource;
 import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
 import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
 import org.hibernate.hql.ast.spi.AstProcessingChain;
 import org.hibernate.hql.ast.spi.AstProcessor;
+import org.hibernate.hql.cache.SharedParseCache;
+import org.hibernate.hql.catalog.PrecompiledQuery;
+import org.hibernate.hql.catalog.QueryCatalog;
 import org.hibernate.hql.internal.logging.Log;
 import org.hibernate.hql.internal.logging.LoggerFactory;
 
@@ -41,6 +51,8 @@
  * <li>parsing the query, building up an AST while doing so</li>
  * <li>transforming the resulting parse tree using an {@link AstProcessingChain}</li>
  * </ul>
+ * Parsers are immutable and thus can be used concurrently; parsing itself doesn't block or hold any monitors, so it can
+ * be offloaded to an executor via {@link #parseQueryAsync(String, AstProcessingChain, Executor)}.
  *
  * @author Gunnar Morling
  */
@@ -48,6 +60,76 @@ public class QueryParser {
 
 	private static final Log log = LoggerFactory.make();
 
+	private final boolean failFast;
+	private final QueryLimits limits;
+	private final SharedParseCache parseCache;
+
+	/**
+	 * Builds {@link QueryParser}s with a configuration differing from the defaults.
+	 */
+	public static class Builder {
+
+		private boolean failFast = false;
+		private QueryLimits limits = QueryLimits.NONE;
+		private SharedParseCache parseCache;
+
+		/**
+		 * Makes the parser stop upon the first syntax error, raising a {@link ParsingException} which describes the
+		 * error position and the expected token. This keeps the cost of handling malformed queries low, e.g. if they
+		 * originate from untrusted clients. By default, the parser tries to recover from errors and reports verbose
+		 * diagnostics for all of them.
+		 *
+		 * @return this builder
+		 */
+		public Builder failFast() {
+			this.failFast = true;
+			return this;
+		}
+
+		/**
+		 * Sets the limits bounding the work caused by a single query, e.g. the number of tokens or the nesting depth
+		 * of parentheses. Queries exceeding any of the limits are rejected by raising a
+		 * {@link QueryLimitExceededException}.
+		 *
+		 * @param limits the limits to enforce
+		 * @return this builder
+		 */
+		public Builder limits(QueryLimits limits) {
+			this.limits = limits;
+			return this;
+		}
+
+		/**
+		 * Sets a cache for parse trees, which is consulted before lexing a query. Trees of queries not found in the
+		 * cache are added to it after parsing them successfully. The cache is not used if token-related limits are
+		 * set via {@link #limits(QueryLimits)}, as these can only be enforced while lexing.
+		 *
+		 * @param parseCache the cache to use, possibly shared with other processes on the same host
+		 * @return this builder
+		 */
+		public Builder parseCache(SharedParseCache parseCache) {
+			this.parseCache = parseCache;
+			return this;
+		}
+
+		public QueryParser build() {
+			return new QueryParser( this );
+		}
+	}
+
+	/**
+	 * Creates a query parser with the default configuration.
+	 */
+	public QueryParser() {
+		this( new Builder() );
+	}
+
+	private QueryParser(Builder builder) {
+		this.failFast = builder.failFast;
+		this.limits = builder.limits;
+		this.parseCache = builder.limits.isTokenLimitEnabled() ? null : builder.parseCache;
+	}
+
 	/**
 	 * Parses the given query string.
 	 *
@@ -58,59 +140,173 @@ public class QueryParser {
 	 * @throws ParsingException in case any exception occurs during parsing
 	 */
 	public <T> T parseQuery(String queryString, AstProcessingChain<T> processingChain) throws ParsingException {
-		HQLLexer lexer = new HQLLexer( new ANTLRStringStream( queryString ) );
-		CommonTokenStream tokens = new CommonTokenStream( lexer );
+		return parseQuery( (CharSequence) queryString, processingChain );
+	}
+
+	/**
+	 * Parses the given query, e.g. given as {@code CharBuffer}. The query is read in place, without copying it; tokens
+	 * refer to it by their offsets and only materialize their text if required. The given sequence must not be altered
+	 * while parsing.
+	 *
+	 * @param queryString the query to parse
+	 * @param processingChain one or more {@link AstProcessor}s which traverse the query parse tree in order to
+	 * normalize/validate it and create the parsing result
+	 * @return the result of this parsing as created by the given processing chain
+	 * @throws ParsingException in case any exception occurs during parsing
+	 */
+	public <T> T parseQuery(CharSequence queryString, AstProcessingChain<T> processingChain) throws ParsingException {
+		return parseQuery( queryString, processingChain, null );
+	}
+
+	/**
+	 * Parses the given query, stopping as soon as the given cancellation token is cancelled or its deadline has passed.
+	 * The token is checked periodically while consuming the tokens of the query and while walking the parse tree with
+	 * the {@link AstProcessor}s of the given chain.
+	 *
+	 * @param queryString the query to parse
+	 * @param processingChain one or more {@link AstProcessor}s which traverse the query parse tree in order to
+	 * normalize/validate it and create the parsing result
+	 * @param cancellationToken the token allowing to stop parsing; may be {@code null}
+	 * @return the result of this parsing as created by the given processing chain
+	 * @throws QueryCancelledException in case the given token has been cancelled
+	 * @throws QueryDeadlineExceededException in case the deadline of the given token has passed
+	 * @throws ParsingException in case any other exception occurs during parsing
+	 */
+	public <T> T parseQuery(CharSequence queryString, AstProcessingChain<T> processingChain, CancellationToken cancellationToken) throws ParsingException {
+		CommonTree cachedParseTree = parseCache != null ? parseCache.get( queryString.toString() ) : null;
+		if ( cachedParseTree != null ) {
+			try {
+				return process( null, cachedParseTree, processingChain, cancellationToken );
+			}
+			catch (RecognitionException e) {
+				throw log.getInvalidQuerySyntaxException( queryString.toString(), e );
+			}
+		}
+
+		HQLLexer lexer = new HQLLexer( new CharSequenceStream( queryString ) );
+		TokenSource tokenSource = limits.isTokenLimitEnabled() ? new QueryLimitsTokenSource( lexer, limits ) : lexer;
+		CompactTokenStream tokens = new CompactTokenStream( tokenSource, cancellationToken );
+
+		if ( cancellationToken != null ) {
+			cancellationToken.checkNotCancelled();
+		}
+
 		HQLParser parser = new HQLParser( tokens );
+		parser.setTreeAdaptor( new HibernateTreeAdaptor() );
+		parser.setFailFast( failFast );
 
 		try {
 			// parser#statement() is the entry point for evaluation of any kind of statement
 			HQLParser.statement_return r = parser.statement();
 
 			if ( parser.hasErrors() ) {
-				throw log.getInvalidQuerySyntaxException( queryString, parser.getErrorMessages() );
+				throw log.getInvalidQuerySyntaxException( queryString.toString(), parser.getErrorMessages() );
 			}
 
-			String unconsumedTokens = getUnconsumedTokens( tokens );
-			if ( unconsumedTokens != null ) {
-				throw log.getInvalidQuerySyntaxDueToUnconsumedTokensException( queryString, unconsumedTokens );
+			if ( tokens.hasUnconsumedTokens() ) {
+				throw log.getInvalidQuerySyntaxDueToUnconsumedTokensException( queryString.toString(), getUnconsumedTokens( tokens ) );
 			}
 
-			CommonTree tree = (CommonTree) r.getTree();
-
-			final boolean debugEnabled = log.isDebugEnabled();
-			for ( AstProcessor processor : processingChain ) {
-				tree = processor.process( tokens, tree );
-
-				if ( debugEnabled ) {
-					log.debug( "Processed tree: " + tree.toStringTree() );
-				}
+			if ( parseCache != null ) {
+				parseCache.put( queryString.toString(), (CommonTree) r.getTree() );
 			}
 
-			return processingChain.getResult();
+			return process( tokens, (CommonTree) r.getTree(), processingChain, cancellationToken );
 		}
 		catch (RecognitionException e) {
-			throw log.getInvalidQuerySyntaxException( queryString, e );
+			throw log.getInvalidQuerySyntaxException( queryString.toString(), e );
 		}
 	}
 
-	private String getUnconsumedTokens(CommonTokenStream tokens) {
-		// ensure we've buffered all tokens from the underlying TokenSource
-		tokens.fill();
-		if ( tokens.index() == tokens.size() - 1 ) {
-			return null;
+	/**
+	 * Processes the given precompiled query with the given processing chain. Lexing and parsing are skipped, the
+	 * parse tree created at build time is passed to the processors directly.
+	 *
+	 * @param query the query to process, as obtained from a {@link QueryCatalog}
+	 * @param processingChain one or more {@link AstProcessor}s which traverse the query parse tree in order to
+	 * normalize/validate it and create the parsing result
+	 * @return the result of the processing as created by the given processing chain
+	 * @throws ParsingException in case any exception occurs during processing
+	 */
+	public <T> T processQuery(PrecompiledQuery query, AstProcessingChain<T> processingChain) throws ParsingException {
+		try {
+			return process( null, query.getParseTree(), processingChain, null );
+		}
+		catch (RecognitionException e) {
+			throw log.getInvalidQuerySyntaxException( query.getQueryString(), e );
 		}
+	}
 
-		StringBuilder nonEofEndingTokens = new StringBuilder();
+	/**
+	 * Parses the given query string asynchronously, using the given executor. A bounded executor can be used for
+	 * limiting the number of queries parsed concurrently; if it rejects the parsing task, the
+	 * {@link java.util.concurrent.RejectedExecutionException} is propagated to the caller. Cancelling the returned
+	 * future stops the parsing as described for {@link #parseQuery(CharSequence, AstProcessingChain, CancellationToken)}.
+	 *
+	 * @param queryString the query string to parse
+	 * @param processingChain one or more {@link AstProcessor}s which traverse the query parse tree in order to
+	 * normalize/validate it and create the parsing result; must not be shared with other parsing runs
+	 * @param executor the executor to parse the query with
+	 * @return a future completed with the result of this parsing as created by the given processing chain, or
+	 * completed exceptionally with a {@link ParsingException} in case any exception occurs during parsing
+	 */
+	public <T> CompletableFuture<T> parseQueryAsync(final String queryString, final AstProcessingChain<T> processingChain, Executor executor) {
+		final CancellationToken cancellationToken = new CancellationToken();
+
+		CompletableFuture<T> result = CompletableFuture.supplyAsync(
+				new Supplier<T>() {
+
+					@Override
+					public T get() {
+						return parseQuery( queryString, processingChain, cancellationToken );
+					}
+				},
+				executor
+		);
+
+		result.whenComplete(
+				new BiConsumer<T, Throwable>() {
+
+					@Override
+					public void accept(T value, Throwable throwable) {
+						if ( throwable instanceof CancellationException ) {
+							cancellationToken.cancel();
+						}
+					}
+				}
+		);
+
+		return result;
+	}
+
+	private <T> T process(TokenStream tokens, CommonTree parseTree, AstProcessingChain<T> processingChain, CancellationToken cancellationToken)
+			throws RecognitionException {
+		CommonTree tree = parseTree;
 
-		@SuppressWarnings("unchecked")
-		List<Token> unconsumed = (List<Token>) tokens.getTokens( tokens.index(), tokens.size() - 1 );
-		for ( Token endToken : unconsumed ) {
-			// Ignore <EOF> tokens as they might be inserted by the parser
-			if ( endToken.getType() != Token.EOF ) {
-				nonEofEndingTokens.append( endToken.getText() );
+		final boolean debugEnabled = log.isDebugEnabled();
+		for ( AstProcessor processor : processingChain ) {
+			if ( cancellationToken != null ) {
+				cancellationToken.checkNotCancelled();
 			}
+
+			tree = processor.process( tokens, tree );
+
+			if ( debugEnabled ) {
+				log.debug( "Processed tree: " + tree.toStringTree() );
+			}
+		}
+
+		return processingChain.getResult();
+	}
+
+	private String getUnconsumedTokens(CompactTokenStream tokens) {
+		StringBuilder nonEofEndingTokens = new StringBuilder();
+
+		// the stream ends with the one EOF token
+		for ( int i = tokens.index(); i < tokens.size() - 1; i++ ) {
+			nonEofEndingTokens.append( tokens.get( i ).getText() );
 		}
 
-		return nonEofEndingTokens.length() > 0 ? nonEofEndingTokens.toString() : null;
+		return nonEofEndingTokens.toString();
 	}
 }
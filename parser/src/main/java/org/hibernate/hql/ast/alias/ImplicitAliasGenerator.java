@@ -25,6 +25,8 @@
 
 /**
  * Handles generating implicit (or synthetic) aliases.
+ * <p>
+ * Not thread-safe; each parser uses its own generator, which thus is confined to the thread parsing a query.
  *
  * @author Steve Ebersole
  */
@@ -36,7 +38,7 @@ public class ImplicitAliasGenerator {
 	 *
 	 * @return The generated alias.
 	 */
-	public synchronized String buildUniqueImplicitAlias() {
+	public String buildUniqueImplicitAlias() {
 		return "<gen:" + unaliasedCount++ + ">";
 	}
 
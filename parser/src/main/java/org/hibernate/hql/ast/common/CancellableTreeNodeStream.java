@@ -0,0 +1,69 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import org.antlr.runtime.TokenStream;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.antlr.runtime.tree.TreeAdaptor;
+import org.hibernate.hql.CancellationToken;
+
+/**
+ * A {@link CommonTreeNodeStream} checking a {@link CancellationToken} while a tree walker consumes the nodes of the
+ * parse tree. Like {@link CompactTokenStream}, the token is checked at a fixed interval of consumed nodes only.
+ */
+public class CancellableTreeNodeStream extends CommonTreeNodeStream {
+
+	private final CancellationToken cancellationToken;
+	private int consumed = 0;
+
+	public CancellableTreeNodeStream(TreeAdaptor adaptor, CommonTree tree, CancellationToken cancellationToken) {
+		super( adaptor, tree );
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * Creates a node stream for walking the given tree, which is cancellable if the given token stream is.
+	 *
+	 * @param adaptor the tree adaptor
+	 * @param tree the tree to walk
+	 * @param tokens the token stream the tree has been created from
+	 * @return a node stream for the given tree
+	 */
+	public static CommonTreeNodeStream create(TreeAdaptor adaptor, CommonTree tree, TokenStream tokens) {
+		CancellationToken cancellationToken = CompactTokenStream.getCancellationToken( tokens );
+
+		CommonTreeNodeStream treeNodeStream = cancellationToken != null ?
+				new CancellableTreeNodeStream( adaptor, tree, cancellationToken ) :
+				new CommonTreeNodeStream( adaptor, tree );
+		treeNodeStream.setTokenStream( tokens );
+
+		return treeNodeStream;
+	}
+
+	@Override
+	public void consume() {
+		if ( ( ++consumed & ( CompactTokenStream.CHECK_INTERVAL - 1 ) ) == 0 ) {
+			cancellationToken.checkNotCancelled();
+		}
+		super.consume();
+	}
+}
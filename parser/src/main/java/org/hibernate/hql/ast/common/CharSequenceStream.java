@@ -0,0 +1,209 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.CharStream;
+
+/**
+ * A {@link CharStream} reading directly from a {@link CharSequence} such as a {@code String} or a {@code CharBuffer}.
+ * In contrast to {@code ANTLRStringStream} the input isn't copied; the sequence must not be altered while being lexed.
+ * <p>
+ * Tokens refer to this stream via their start and stop offsets, so their text is only materialized if requested. The
+ * underlying sequence can be obtained via {@link #getCharSequence()} for working with token offsets without
+ * materializing the text.
+ */
+public class CharSequenceStream implements CharStream {
+
+	private static final int INITIAL_MARKER_CAPACITY = 4;
+
+	private final CharSequence data;
+	private final int n;
+
+	/**
+	 * Index of the current char
+	 */
+	private int p = 0;
+
+	private int line = 1;
+	private int charPositionInLine = 0;
+
+	/**
+	 * Index, line and position in line per marker, stored at 3 * (marker - 1)
+	 */
+	private int[] markers;
+	private int markDepth = 0;
+	private int lastMarker;
+
+	public CharSequenceStream(CharSequence data) {
+		this.data = data;
+		this.n = data.length();
+	}
+
+	/**
+	 * Returns the underlying char sequence.
+	 *
+	 * @return the underlying char sequence
+	 */
+	public CharSequence getCharSequence() {
+		return data;
+	}
+
+	@Override
+	public void consume() {
+		if ( p < n ) {
+			charPositionInLine++;
+			if ( data.charAt( p ) == '\n' ) {
+				line++;
+				charPositionInLine = 0;
+			}
+			p++;
+		}
+	}
+
+	@Override
+	public int LA(int i) {
+		if ( i == 0 ) {
+			return 0;
+		}
+		if ( i < 0 ) {
+			// e.g., translate LA(-1) to use offset i=0; then data[p+0-1]
+			i++;
+			if ( ( p + i - 1 ) < 0 ) {
+				return CharStream.EOF;
+			}
+		}
+
+		if ( ( p + i - 1 ) >= n ) {
+			return CharStream.EOF;
+		}
+
+		return data.charAt( p + i - 1 );
+	}
+
+	@Override
+	public int LT(int i) {
+		return LA( i );
+	}
+
+	@Override
+	public int index() {
+		return p;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	@Override
+	public int mark() {
+		if ( markers == null ) {
+			markers = new int[3 * INITIAL_MARKER_CAPACITY];
+		}
+		else if ( markers.length < 3 * ( markDepth + 1 ) ) {
+			markers = Arrays.copyOf( markers, markers.length * 2 );
+		}
+
+		int offset = 3 * markDepth;
+		markers[offset] = p;
+		markers[offset + 1] = line;
+		markers[offset + 2] = charPositionInLine;
+
+		markDepth++;
+		lastMarker = markDepth;
+
+		return markDepth;
+	}
+
+	@Override
+	public void rewind(int marker) {
+		int offset = 3 * ( marker - 1 );
+
+		// don't use seek() as it would reset line and position
+		p = markers[offset];
+		line = markers[offset + 1];
+		charPositionInLine = markers[offset + 2];
+
+		release( marker );
+	}
+
+	@Override
+	public void rewind() {
+		rewind( lastMarker );
+	}
+
+	@Override
+	public void release(int marker) {
+		// unwind any other markers made after this one
+		markDepth = marker - 1;
+	}
+
+	@Override
+	public void seek(int index) {
+		if ( index <= p ) {
+			// just jump; don't update stream state (line, ...)
+			p = index;
+			return;
+		}
+
+		// seek forward, consume until p hits index
+		while ( p < index ) {
+			consume();
+		}
+	}
+
+	@Override
+	public String substring(int start, int stop) {
+		return data.subSequence( start, stop + 1 ).toString();
+	}
+
+	@Override
+	public int getLine() {
+		return line;
+	}
+
+	@Override
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	@Override
+	public int getCharPositionInLine() {
+		return charPositionInLine;
+	}
+
+	@Override
+	public void setCharPositionInLine(int pos) {
+		this.charPositionInLine = pos;
+	}
+
+	@Override
+	public String getSourceName() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return data.toString();
+	}
+}
@@ -0,0 +1,449 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
+import org.hibernate.hql.CancellationToken;
+
+/**
+ * A compact {@link TokenStream} for the parser. In contrast to {@code CommonTokenStream}, tokens not on the default
+ * channel (i.e. white space) are dropped when being fetched from the token source rather than being buffered, and the
+ * buffered tokens are not kept as objects. Instead type, offsets and position of each token are stored in parallel
+ * {@code int} arrays, and {@link Token} views are created on demand. The views of the most recently requested tokens
+ * are cached, so the parser's repeated look-ahead at the same position doesn't create new views.
+ * <p>
+ * Optionally a {@link CancellationToken} is checked every {@link #CHECK_INTERVAL} consumed tokens.
+ */
+public class CompactTokenStream implements TokenStream {
+
+	/**
+	 * The number of consumed tokens after which the cancellation token is checked; must be a power of two.
+	 */
+	static final int CHECK_INTERVAL = 32;
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	/**
+	 * Size of the view cache; must be a power of two.
+	 */
+	private static final int VIEW_CACHE_SIZE = 16;
+
+	/**
+	 * Marks a token whose soft keyword has not been resolved yet
+	 */
+	private static final short SOFT_KEYWORD_UNRESOLVED = -2;
+
+	/**
+	 * Marks a token which doesn't represent a soft keyword
+	 */
+	private static final short NO_SOFT_KEYWORD = -1;
+
+	private static final SoftKeyword[] SOFT_KEYWORDS = SoftKeyword.values();
+
+	private final TokenSource tokenSource;
+	private final CancellationToken cancellationToken;
+
+	/**
+	 * The char stream the buffered tokens refer to by their offsets
+	 */
+	private CharStream input;
+
+	private int[] types = new int[INITIAL_CAPACITY];
+	private int[] starts = new int[INITIAL_CAPACITY];
+	private int[] stops = new int[INITIAL_CAPACITY];
+	private int[] lines = new int[INITIAL_CAPACITY];
+	private int[] charPositions = new int[INITIAL_CAPACITY];
+	private short[] softKeywords = new short[INITIAL_CAPACITY];
+
+	/**
+	 * Texts of tokens whose text differs from the input they refer to, e.g. string literals without quotes; only
+	 * allocated when needed
+	 */
+	private String[] texts;
+
+	private final Token[] views = new Token[VIEW_CACHE_SIZE];
+
+	/**
+	 * The number of buffered tokens
+	 */
+	private int n = 0;
+
+	/**
+	 * Whether the EOF token has been buffered
+	 */
+	private boolean fetchedEof = false;
+
+	/**
+	 * Index of the current token
+	 */
+	private int p = -1;
+
+	private int lastMarker;
+	private int range = -1;
+	private int consumed = 0;
+
+	public CompactTokenStream(TokenSource tokenSource) {
+		this( tokenSource, null );
+	}
+
+	/**
+	 * Creates a new stream.
+	 *
+	 * @param tokenSource the token source to fetch tokens from
+	 * @param cancellationToken a token to check while consuming tokens; may be {@code null}
+	 */
+	public CompactTokenStream(TokenSource tokenSource, CancellationToken cancellationToken) {
+		this.tokenSource = tokenSource;
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * Returns the cancellation token of the given stream.
+	 *
+	 * @param tokens a token stream
+	 * @return the cancellation token of the given stream or {@code null} if it isn't cancellable
+	 */
+	public static CancellationToken getCancellationToken(TokenStream tokens) {
+		return tokens instanceof CompactTokenStream ? ( (CompactTokenStream) tokens ).cancellationToken : null;
+	}
+
+	/**
+	 * Whether there are tokens besides EOF which have not been consumed. As only tokens of the default channel are
+	 * buffered, this doesn't require to examine the remaining tokens.
+	 *
+	 * @return {@code true} if there are unconsumed tokens, {@code false} otherwise
+	 */
+	public boolean hasUnconsumedTokens() {
+		fill();
+		return index() < n - 1;
+	}
+
+	/**
+	 * Fetches all remaining tokens from the token source.
+	 */
+	public void fill() {
+		while ( !fetchedEof ) {
+			fetch();
+		}
+	}
+
+	@Override
+	public void consume() {
+		if ( p == -1 ) {
+			setup();
+		}
+		if ( cancellationToken != null && ( ++consumed & ( CHECK_INTERVAL - 1 ) ) == 0 ) {
+			cancellationToken.checkNotCancelled();
+		}
+
+		p++;
+		sync( p );
+	}
+
+	@Override
+	public int LA(int i) {
+		if ( i < 0 ) {
+			Token token = LT( i );
+			return token == null ? Token.INVALID_TOKEN_TYPE : token.getType();
+		}
+
+		return types[lookAheadIndex( i )];
+	}
+
+	@Override
+	public Token LT(int k) {
+		if ( k == 0 ) {
+			return null;
+		}
+		if ( k < 0 ) {
+			if ( p == -1 ) {
+				setup();
+			}
+			return p + k < 0 ? null : get( p + k );
+		}
+
+		return get( lookAheadIndex( k ) );
+	}
+
+	@Override
+	public Token get(int i) {
+		Token view = views[i & ( VIEW_CACHE_SIZE - 1 )];
+		if ( view == null || view.getTokenIndex() != i ) {
+			view = createView( i );
+			views[i & ( VIEW_CACHE_SIZE - 1 )] = view;
+		}
+
+		return view;
+	}
+
+	@Override
+	public int range() {
+		return range;
+	}
+
+	@Override
+	public TokenSource getTokenSource() {
+		return tokenSource;
+	}
+
+	@Override
+	public String getSourceName() {
+		return tokenSource.getSourceName();
+	}
+
+	@Override
+	public int mark() {
+		if ( p == -1 ) {
+			setup();
+		}
+		lastMarker = index();
+		return lastMarker;
+	}
+
+	@Override
+	public int index() {
+		return p;
+	}
+
+	@Override
+	public void rewind(int marker) {
+		seek( marker );
+	}
+
+	@Override
+	public void rewind() {
+		seek( lastMarker );
+	}
+
+	@Override
+	public void release(int marker) {
+		// nothing to do
+	}
+
+	@Override
+	public void seek(int index) {
+		p = index;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	@Override
+	public String toString(int start, int stop) {
+		if ( start < 0 || stop < 0 ) {
+			return null;
+		}
+
+		// only fetch up to the requested token, so the remainder of the query is still lexed on demand
+		sync( stop );
+		stop = Math.min( stop, n - 1 );
+
+		StringBuilder text = new StringBuilder();
+		for ( int i = start; i <= stop && types[i] != Token.EOF; i++ ) {
+			// re-add the text of the dropped off-channel tokens in between
+			if ( i > start && stops[i - 1] != -1 && starts[i] != -1 ) {
+				appendInput( text, stops[i - 1] + 1, starts[i] - 1 );
+			}
+			text.append( getText( i ) );
+		}
+
+		return text.toString();
+	}
+
+	@Override
+	public String toString(Token start, Token stop) {
+		if ( start == null || stop == null ) {
+			return null;
+		}
+
+		return toString( start.getTokenIndex(), stop.getTokenIndex() );
+	}
+
+	@Override
+	public String toString() {
+		fill();
+		return toString( 0, n - 1 );
+	}
+
+	private void setup() {
+		sync( 0 );
+		p = 0;
+	}
+
+	/**
+	 * Returns the buffer index of the k-th token ahead, making sure it has been fetched.
+	 */
+	private int lookAheadIndex(int k) {
+		if ( p == -1 ) {
+			setup();
+		}
+
+		int i = p + k - 1;
+		sync( i );
+		if ( i >= n ) {
+			// EOF
+			i = n - 1;
+		}
+
+		if ( i > range ) {
+			range = i;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Makes sure the token at the given index has been fetched, unless EOF has been fetched before.
+	 */
+	private void sync(int i) {
+		while ( i >= n && !fetchedEof ) {
+			fetch();
+		}
+	}
+
+	private void fetch() {
+		Token token = tokenSource.nextToken();
+		if ( token.getChannel() != Token.DEFAULT_CHANNEL ) {
+			return;
+		}
+
+		if ( n == types.length ) {
+			grow();
+		}
+
+		types[n] = token.getType();
+		lines[n] = token.getLine();
+		charPositions[n] = token.getCharPositionInLine();
+		softKeywords[n] = SOFT_KEYWORD_UNRESOLVED;
+
+		if ( token instanceof CommonToken && isFromInput( (CommonToken) token ) ) {
+			starts[n] = ( (CommonToken) token ).getStartIndex();
+			stops[n] = ( (CommonToken) token ).getStopIndex();
+
+			if ( token instanceof HibernateToken ) {
+				HibernateToken hibernateToken = (HibernateToken) token;
+				setText( n, hibernateToken.getOverriddenText() );
+				if ( hibernateToken.isSoftKeywordResolved() ) {
+					SoftKeyword softKeyword = hibernateToken.getSoftKeyword();
+					softKeywords[n] = softKeyword == null ? NO_SOFT_KEYWORD : (short) softKeyword.ordinal();
+				}
+			}
+			else if ( token.getType() != Token.EOF ) {
+				// not stored for EOF, whose text ("<EOF>") is derived by the view from its offsets
+				setText( n, token.getText() );
+			}
+		}
+		else {
+			starts[n] = -1;
+			stops[n] = -1;
+			setText( n, token.getText() );
+		}
+
+		if ( token.getType() == Token.EOF ) {
+			fetchedEof = true;
+		}
+
+		n++;
+	}
+
+	private boolean isFromInput(CommonToken token) {
+		if ( token.getInputStream() == null ) {
+			return false;
+		}
+		if ( input == null ) {
+			input = token.getInputStream();
+		}
+
+		return token.getInputStream() == input;
+	}
+
+	private void setText(int i, String text) {
+		if ( text == null ) {
+			return;
+		}
+		if ( texts == null ) {
+			texts = new String[types.length];
+		}
+
+		texts[i] = text;
+	}
+
+	private void grow() {
+		int capacity = types.length * 2;
+
+		types = Arrays.copyOf( types, capacity );
+		starts = Arrays.copyOf( starts, capacity );
+		stops = Arrays.copyOf( stops, capacity );
+		lines = Arrays.copyOf( lines, capacity );
+		charPositions = Arrays.copyOf( charPositions, capacity );
+		softKeywords = Arrays.copyOf( softKeywords, capacity );
+
+		if ( texts != null ) {
+			texts = Arrays.copyOf( texts, capacity );
+		}
+	}
+
+	private Token createView(int i) {
+		HibernateToken view;
+
+		if ( starts[i] != -1 ) {
+			view = new HibernateToken( input, types[i], Token.DEFAULT_CHANNEL, starts[i], stops[i] );
+		}
+		else {
+			view = new HibernateToken( types[i] );
+		}
+
+		if ( texts != null && texts[i] != null ) {
+			view.setText( texts[i] );
+		}
+		if ( softKeywords[i] != SOFT_KEYWORD_UNRESOLVED ) {
+			view.setSoftKeyword( softKeywords[i] == NO_SOFT_KEYWORD ? null : SOFT_KEYWORDS[softKeywords[i]] );
+		}
+
+		view.setLine( lines[i] );
+		view.setCharPositionInLine( charPositions[i] );
+		view.setTokenIndex( i );
+
+		return view;
+	}
+
+	private String getText(int i) {
+		if ( texts != null && texts[i] != null ) {
+			return texts[i];
+		}
+
+		return input.substring( starts[i], stops[i] );
+	}
+
+	private void appendInput(StringBuilder text, int start, int stop) {
+		if ( start <= stop ) {
+			text.append( input.substring( start, stop ) );
+		}
+	}
+}
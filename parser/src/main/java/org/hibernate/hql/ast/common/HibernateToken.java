@@ -31,6 +31,17 @@
  * @author Alexandre Porcelli
  */
 public class HibernateToken extends CommonToken {
+
+	/**
+	 * The soft keyword represented by this token, if any
+	 */
+	private SoftKeyword softKeyword;
+
+	/**
+	 * Whether this token has been classified as soft keyword or not yet
+	 */
+	private boolean softKeywordResolved;
+
 	public HibernateToken(int type) {
 		super( type );
 	}
@@ -69,4 +80,50 @@ public HibernateToken(Token oldToken, int type, String text) {
 		setType( type );
 		setText( text );
 	}
+
+	@Override
+	public void setText(String text) {
+		super.setText( text );
+		this.softKeywordResolved = false;
+	}
+
+	/**
+	 * Returns the soft keyword represented by this token. The token is classified upon first invocation unless this
+	 * has been done when creating it.
+	 *
+	 * @return the soft keyword represented by this token or {@code null} if this token doesn't represent a soft keyword
+	 */
+	public SoftKeyword getSoftKeyword() {
+		if ( !softKeywordResolved ) {
+			setSoftKeyword( SoftKeyword.forText( getText() ) );
+		}
+
+		return softKeyword;
+	}
+
+	/**
+	 * Whether this token has been classified as soft keyword or not yet.
+	 */
+	boolean isSoftKeywordResolved() {
+		return softKeywordResolved;
+	}
+
+	/**
+	 * Returns the text explicitly set for this token, if any.
+	 *
+	 * @return the text set for this token or {@code null} if its text is obtained from the input stream
+	 */
+	String getOverriddenText() {
+		return text;
+	}
+
+	/**
+	 * Sets the soft keyword represented by this token.
+	 *
+	 * @param softKeyword the soft keyword represented by this token; {@code null} if it doesn't represent a soft keyword
+	 */
+	public void setSoftKeyword(SoftKeyword softKeyword) {
+		this.softKeyword = softKeyword;
+		this.softKeywordResolved = true;
+	}
 }
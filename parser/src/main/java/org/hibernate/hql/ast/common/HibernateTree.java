@@ -20,17 +20,37 @@
  */
 package org.hibernate.hql.ast.common;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.Token;
 import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.Tree;
 
 /**
- * todo : javadocs
+ * The AST node type used throughout the parse, resolve and render phases.
+ * <p>
+ * In contrast to {@link CommonTree}, nodes can have a type and text differing from their token. That way nodes for
+ * re-typed tokens (e.g. soft keywords, {@code XXX[$token]} in the grammars) share the token created by the lexer
+ * instead of copying it. The text of a node is obtained lazily from the query string and then kept, and the start and
+ * end char offsets of the node within the query string are tracked. Nodes are created via {@link HibernateTreeAdaptor}.
  *
  * @author Steve Ebersole
  * @author Alexandre Porcelli
  */
 public class HibernateTree extends CommonTree {
+
+	/**
+	 * Marker for nodes which have the same type as their token
+	 */
+	private static final int TYPE_OF_TOKEN = Integer.MIN_VALUE;
+
+	/**
+	 * Most nodes have no more than two children
+	 */
+	private static final int INITIAL_CHILD_CAPACITY = 2;
+
 	/**
 	 * start char offset
 	 */
@@ -41,21 +61,52 @@ public class HibernateTree extends CommonTree {
 	 */
 	int endCharOffset = -1;
 
+	/**
+	 * type of this node, if different from the type of its token
+	 */
+	private int type = TYPE_OF_TOKEN;
+
+	/**
+	 * text of this node; either given explicitly or lazily retrieved from the token
+	 */
+	private String text;
+
 	public HibernateTree() {
 	}
 
 	public HibernateTree(HibernateTree node) {
-		super( node );
-		this.token = node.token;
+		this( (CommonTree) node );
 	}
 
 	public HibernateTree(CommonTree node) {
 		super( node );
 		this.token = node.token;
+
+		if ( node instanceof HibernateTree ) {
+			HibernateTree hibernateTree = (HibernateTree) node;
+			this.type = hibernateTree.type;
+			this.text = hibernateTree.text;
+			this.startCharOffset = hibernateTree.startCharOffset;
+			this.endCharOffset = hibernateTree.endCharOffset;
+		}
 	}
 
 	public HibernateTree(Token token) {
 		super( token );
+		setCharOffsets( token, token );
+	}
+
+	/**
+	 * Creates a node sharing the given token, but with another type and optionally another text.
+	 *
+	 * @param type the type of the node
+	 * @param token the token of the node; not copied
+	 * @param text the text of the node; if {@code null}, the text of the token will be used
+	 */
+	public HibernateTree(int type, Token token, String text) {
+		this( token );
+		this.type = type;
+		this.text = text;
 	}
 
 	public HibernateTree(int type, String text) {
@@ -71,6 +122,60 @@ public Tree dupNode() {
 		return new HibernateTree( this );
 	}
 
+	/**
+	 * Returns the token of this node. If the node has another type than its token, a token reflecting the type and
+	 * text of this node is created, so callers get the same view as with {@link CommonTree}.
+	 */
+	@Override
+	public Token getToken() {
+		if ( type != TYPE_OF_TOKEN ) {
+			token = new HibernateToken( token, type, getText() );
+			type = TYPE_OF_TOKEN;
+		}
+
+		return token;
+	}
+
+	@Override
+	public int getType() {
+		return type != TYPE_OF_TOKEN ? type : super.getType();
+	}
+
+	@Override
+	public String getText() {
+		if ( text == null && token != null ) {
+			text = token.getText();
+		}
+
+		return text;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	protected List createChildrenList() {
+		return new ArrayList( INITIAL_CHILD_CAPACITY );
+	}
+
+	/**
+	 * Sets the char offsets of this node to the start of the given start token and the end of the given stop token.
+	 * Tokens not originating from the query string (imaginary tokens) are ignored.
+	 *
+	 * @param startToken the first token spanned by this node
+	 * @param stopToken the last token spanned by this node
+	 */
+	void setCharOffsets(Token startToken, Token stopToken) {
+		if ( isFromInput( startToken ) ) {
+			startCharOffset = ( (CommonToken) startToken ).getStartIndex();
+		}
+		if ( isFromInput( stopToken ) ) {
+			endCharOffset = ( (CommonToken) stopToken ).getStopIndex();
+		}
+	}
+
+	private boolean isFromInput(Token token) {
+		return token instanceof CommonToken && token.getInputStream() != null;
+	}
+
 	/**
 	 * getter for start char offset
 	 *
@@ -108,4 +213,16 @@ public int getEndCharOffset() {
 	public void setEndCharOffset(int endCharOffset) {
 		this.endCharOffset = endCharOffset;
 	}
+
+	@Override
+	public String toString() {
+		if ( isNil() ) {
+			return "nil";
+		}
+		if ( getType() == Token.INVALID_TOKEN_TYPE ) {
+			return "<errornode>";
+		}
+
+		return getText();
+	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.tree.CommonTreeAdaptor;
+
+/**
+ * A {@link CommonTreeAdaptor} creating {@link HibernateTree}s.
+ * <p>
+ * Nodes created for re-typed tokens share the token instead of copying it and nodes keep track of their char offsets
+ * within the query string. Instances are not thread-safe.
+ */
+public class HibernateTreeAdaptor extends CommonTreeAdaptor {
+
+	@Override
+	public Object create(Token payload) {
+		return new HibernateTree( payload );
+	}
+
+	@Override
+	public Object create(int tokenType, Token fromToken) {
+		return new HibernateTree( tokenType, fromToken, null );
+	}
+
+	@Override
+	public Object create(int tokenType, Token fromToken, String text) {
+		if ( fromToken == null ) {
+			return create( tokenType, text );
+		}
+
+		return new HibernateTree( tokenType, fromToken, text );
+	}
+
+	@Override
+	public Object create(int tokenType, String text) {
+		return new HibernateTree( tokenType, text );
+	}
+
+	@Override
+	public void setTokenBoundaries(Object t, Token startToken, Token stopToken) {
+		super.setTokenBoundaries( t, startToken, stopToken );
+
+		if ( t instanceof HibernateTree ) {
+			( (HibernateTree) t ).setCharOffsets( startToken, stopToken );
+		}
+	}
+}
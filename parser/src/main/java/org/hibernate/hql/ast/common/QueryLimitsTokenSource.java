@@ -0,0 +1,119 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.hibernate.hql.QueryLimits;
+import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * A {@link TokenSource} enforcing the token-related {@link QueryLimits} while a query is being lexed. As the parser
+ * requests tokens on demand, pathological queries are rejected before the major part of them has been lexed and
+ * parsed.
+ */
+public class QueryLimitsTokenSource implements TokenSource {
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final int INITIAL_DEPTH_CAPACITY = 8;
+
+	private final TokenSource delegate;
+	private final QueryLimits limits;
+
+	private int tokenCount = 0;
+	private int depth = 0;
+
+	/**
+	 * The number of elements of the currently open parenthesized lists, indexed by nesting depth
+	 */
+	private int[] listSizes = new int[INITIAL_DEPTH_CAPACITY];
+
+	public QueryLimitsTokenSource(TokenSource delegate, QueryLimits limits) {
+		this.delegate = delegate;
+		this.limits = limits;
+	}
+
+	@Override
+	public Token nextToken() {
+		Token token = delegate.nextToken();
+
+		if ( token.getChannel() != Token.DEFAULT_CHANNEL || token.getType() == Token.EOF ) {
+			return token;
+		}
+
+		tokenCount++;
+		if ( tokenCount > limits.getMaxTokens() ) {
+			throw log.getTooManyTokensException( limits.getMaxTokens() );
+		}
+
+		switch ( token.getType() ) {
+			case HQLLexer.LEFT_PAREN:
+				openList();
+				break;
+			case HQLLexer.RIGHT_PAREN:
+				if ( depth > 0 ) {
+					depth--;
+				}
+				break;
+			case HQLLexer.COMMA:
+				addListElement();
+				break;
+			default:
+				break;
+		}
+
+		return token;
+	}
+
+	private void openList() {
+		depth++;
+		if ( depth > limits.getMaxNestingDepth() ) {
+			throw log.getNestingTooDeepException( limits.getMaxNestingDepth() );
+		}
+
+		if ( depth == listSizes.length ) {
+			listSizes = Arrays.copyOf( listSizes, listSizes.length * 2 );
+		}
+		listSizes[depth] = 1;
+	}
+
+	private void addListElement() {
+		// commas outside of parentheses, e.g. in the select clause, don't count
+		if ( depth == 0 ) {
+			return;
+		}
+
+		listSizes[depth]++;
+		if ( listSizes[depth] > limits.getMaxListSize() ) {
+			throw log.getListTooLargeException( limits.getMaxListSize() );
+		}
+	}
+
+	@Override
+	public String getSourceName() {
+		return delegate.getSourceName();
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.common;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The soft keywords of HQL, i.e. words which are lexed as identifiers and only act as keywords depending on their
+ * position within a query.
+ * <p>
+ * Identifier tokens are classified once via {@link #forText(CharSequence)} when they are created by the lexer, and the
+ * parser then compares keywords by identity rather than comparing strings. Classification uses a perfect hash table,
+ * i.e. each keyword has its own slot, so it takes one hash computation and at most one comparison.
+ */
+public enum SoftKeyword {
+
+	ABS,
+	ALL,
+	AND,
+	ANY,
+	AS,
+	ASC,
+	ASCENDING,
+	AVG,
+	BETWEEN,
+	BIT_LENGTH,
+	BOTH,
+	BY,
+	CASE,
+	CAST,
+	CHAR_LENGTH,
+	CHARACTER_LENGTH,
+	CLASS,
+	COALESCE,
+	COLLATE,
+	CONCAT,
+	COUNT,
+	CROSS,
+	CURRENT_DATE,
+	CURRENT_TIME,
+	CURRENT_TIMESTAMP,
+	DAY,
+	DELETE,
+	DESC,
+	DESCENDING,
+	DISTINCT,
+	ELEMENTS,
+	ELSE,
+	EMPTY,
+	END,
+	ESCAPE,
+	EXCEPT,
+	EXISTS,
+	EXTRACT,
+	FETCH,
+	FROM,
+	FULL,
+	GROUP,
+	HAVING,
+	HOUR,
+	IN,
+	INDEX,
+	INDICES,
+	INNER,
+	INSERT,
+	INTERSECT,
+	INTO,
+	IS,
+	JOIN,
+	LEADING,
+	LEFT,
+	LENGTH,
+	LIKE,
+	LOCATE,
+	LOWER,
+	MAX,
+	MAXELEMENT,
+	MAXINDEX,
+	MEMBER,
+	MIN,
+	MINELEMENT,
+	MININDEX,
+	MINUTE,
+	MOD,
+	MONTH,
+	NEW,
+	NOT,
+	NULLIF,
+	OBJECT,
+	OCTET_LENGTH,
+	OF,
+	ON,
+	OR,
+	ORDER,
+	OUTER,
+	POSITION,
+	PROPERTIES,
+	RIGHT,
+	SECOND,
+	SELECT,
+	SET,
+	SIZE,
+	SOME,
+	SQRT,
+	SUBSTRING,
+	SUM,
+	THEN,
+	TIMEZONE_HOUR,
+	TIMEZONE_MINUTE,
+	TRAILING,
+	TRIM,
+	UNION,
+	UPDATE,
+	UPPER,
+	VERSIONED,
+	WHEN,
+	WHERE,
+	WITH,
+	YEAR;
+
+	/**
+	 * Size of the hash table, must be a power of two.
+	 */
+	private static final int TABLE_SIZE = 512;
+
+	/**
+	 * A hash seed for which all keywords hash to distinct slots; another one is searched at class initialization if
+	 * keywords are added or removed
+	 */
+	private static final int PERFECT_HASH_SEED = 31109;
+
+	private static final int FNV_PRIME = 0x01000193;
+
+	private static final SoftKeyword[] TABLE = new SoftKeyword[TABLE_SIZE];
+
+	private static final int SEED = fillTable();
+
+	private final String text = name().toLowerCase( Locale.ENGLISH );
+
+	/**
+	 * Returns the text of this keyword.
+	 *
+	 * @return the text of this keyword, in lower case
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the keyword with the given text, ignoring case.
+	 *
+	 * @param text the text to classify
+	 * @return the keyword with the given text or {@code null} if the given text isn't a soft keyword
+	 */
+	public static SoftKeyword forText(CharSequence text) {
+		if ( text == null ) {
+			return null;
+		}
+
+		return forText( text, 0, text.length() );
+	}
+
+	/**
+	 * Returns the keyword with the text given by a region of a char sequence, ignoring case. Allows to classify tokens
+	 * without materializing their text.
+	 *
+	 * @param text the char sequence containing the text to classify
+	 * @param start the index of the first char of the text to classify, inclusive
+	 * @param end the index of the last char of the text to classify, exclusive
+	 * @return the keyword with the given text or {@code null} if the given text isn't a soft keyword
+	 */
+	public static SoftKeyword forText(CharSequence text, int start, int end) {
+		SoftKeyword candidate = TABLE[hash( text, start, end, SEED )];
+		return candidate != null && candidate.matches( text, start, end ) ? candidate : null;
+	}
+
+	private boolean matches(CharSequence other, int start, int end) {
+		if ( this.text.length() != end - start ) {
+			return false;
+		}
+
+		for ( int i = 0; i < this.text.length(); i++ ) {
+			if ( this.text.charAt( i ) != fold( other.charAt( start + i ) ) ) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static int fillTable() {
+		int seed = PERFECT_HASH_SEED;
+		while ( !fillTable( seed ) ) {
+			seed++;
+		}
+
+		return seed;
+	}
+
+	private static boolean fillTable(int seed) {
+		Arrays.fill( TABLE, null );
+
+		for ( SoftKeyword keyword : values() ) {
+			int slot = hash( keyword.text, 0, keyword.text.length(), seed );
+			if ( TABLE[slot] != null ) {
+				return false;
+			}
+			TABLE[slot] = keyword;
+		}
+
+		return true;
+	}
+
+	/**
+	 * FNV-1a over the case-folded chars, with the high bits mixed into the slot index.
+	 */
+	private static int hash(CharSequence text, int start, int end, int seed) {
+		int hash = seed;
+
+		for ( int i = start; i < end; i++ ) {
+			hash = ( hash ^ fold( text.charAt( i ) ) ) * FNV_PRIME;
+		}
+
+		return ( hash ^ ( hash >>> 15 ) ) & ( TABLE_SIZE - 1 );
+	}
+
+	/**
+	 * Folds the given char in the same way as {@link String#equalsIgnoreCase(String)}, with a fast path for ASCII.
+	 */
+	private static char fold(char c) {
+		if ( c < 128 ) {
+			return c >= 'A' && c <= 'Z' ? (char) ( c + ( 'a' - 'A' ) ) : c;
+		}
+
+		return Character.toLowerCase( Character.toUpperCase( c ) );
+	}
+}
@@ -35,7 +35,7 @@ public interface AstProcessor {
 	/**
 	 * Processes the given tree.
 	 *
-	 * @param tokens the token stream of the tree.
+	 * @param tokens the token stream of the tree; {@code null} when processing a precompiled query
 	 * @param tree the input tree
 	 * @return the processed tree
 	 * @throws RecognitionException in case of an illegal input tree
@@ -50,4 +50,17 @@ public interface PropertyHelper {
 	 * @return the property value, converted into the type expected by the query backend
 	 */
 	Object convertToBackendType(String entityType, List<String> propertyPath, Object value);
+
+	/**
+	 * Whether {@link #convertToBackendType(String, List, Object)} returns the given values as they are for the given
+	 * property. If so, lists of values (e.g. of {@code IN} predicates) can be passed to the query backend without being
+	 * converted element by element.
+	 *
+	 * @param entityType the entity type owning the property
+	 * @param propertyPath the path from the entity to the property (will only contain more than one element in case the
+	 * entity is hosted on an embedded entity).
+	 * @return {@code true} if the conversion into the backend type is the identity for the given property,
+	 * {@code false} otherwise
+	 */
+	boolean isBackendTypeIdentity(String entityType, List<String> propertyPath);
 }
@@ -24,6 +24,9 @@
 import org.antlr.runtime.TokenStream;
 import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.antlr.runtime.tree.TreeAdaptor;
+import org.hibernate.hql.ast.common.CancellableTreeNodeStream;
+import org.hibernate.hql.ast.common.HibernateTreeAdaptor;
 import org.hibernate.hql.ast.render.QueryRenderer;
 
 /**
@@ -45,9 +48,12 @@ public QueryRendererProcessor(QueryRendererDelegate<?> delegate) {
 
 	@Override
 	public CommonTree process(TokenStream tokens, CommonTree tree) throws RecognitionException {
-		CommonTreeNodeStream treeNodeStream = new CommonTreeNodeStream( tree );
-		treeNodeStream.setTokenStream( tokens );
+		TreeAdaptor treeAdaptor = new HibernateTreeAdaptor();
+		CommonTreeNodeStream treeNodeStream = CancellableTreeNodeStream.create( treeAdaptor, tree, tokens );
 
-		return (CommonTree) new QueryRenderer( treeNodeStream, delegate ).statement().getTree();
+		QueryRenderer renderer = new QueryRenderer( treeNodeStream, delegate );
+		renderer.setTreeAdaptor( treeAdaptor );
+
+		return (CommonTree) renderer.statement().getTree();
 	}
 }
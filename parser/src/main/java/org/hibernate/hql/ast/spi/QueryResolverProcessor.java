@@ -24,6 +24,9 @@
 import org.antlr.runtime.TokenStream;
 import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.antlr.runtime.tree.TreeAdaptor;
+import org.hibernate.hql.ast.common.CancellableTreeNodeStream;
+import org.hibernate.hql.ast.common.HibernateTreeAdaptor;
 import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
 import org.hibernate.hql.ast.origin.hql.resolve.GeneratedHQLResolver;
 
@@ -46,9 +49,12 @@ public QueryResolverProcessor(QueryResolverDelegate delegate) {
 
 	@Override
 	public CommonTree process(TokenStream tokens, CommonTree tree) throws RecognitionException {
-		CommonTreeNodeStream treeNodeStream = new CommonTreeNodeStream( tree );
-		treeNodeStream.setTokenStream( tokens );
+		TreeAdaptor treeAdaptor = new HibernateTreeAdaptor();
+		CommonTreeNodeStream treeNodeStream = CancellableTreeNodeStream.create( treeAdaptor, tree, tokens );
 
-		return (CommonTree) new GeneratedHQLResolver( treeNodeStream, delegate ).statement().getTree();
+		GeneratedHQLResolver resolver = new GeneratedHQLResolver( treeNodeStream, delegate );
+		resolver.setTreeAdaptor( treeAdaptor );
+
+		return (CommonTree) resolver.statement().getTree();
 	}
 }
@@ -25,25 +25,43 @@
 import java.util.List;
 import java.util.Stack;
 
+import org.hibernate.hql.QueryLimitExceededException;
+import org.hibernate.hql.QueryLimits;
 import org.hibernate.hql.ast.spi.predicate.ComparisonPredicate.Type;
+import org.hibernate.hql.ast.spi.predicate.InPredicate;
 import org.hibernate.hql.ast.spi.predicate.ParentPredicate;
 import org.hibernate.hql.ast.spi.predicate.Predicate;
 import org.hibernate.hql.ast.spi.predicate.PredicateFactory;
+import org.hibernate.hql.ast.spi.predicate.PredicateSimplifier;
 import org.hibernate.hql.ast.spi.predicate.RootPredicate;
+import org.hibernate.hql.ast.spi.predicate.SortedNumberList;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
 
 /**
  * Builder for the creation of queries targeting a single entity, based on HQL/JPQL queries.
  * <p>
  * Implemented as a stack of {@link Predicate}s which allows to add elements to the constructed query in a uniform
  * manner while traversing through the original HQL/JPQL query parse tree.
+ * <p>
+ * The number of predicates and the size of {@code IN} lists can be bounded by means of {@link QueryLimits}; a
+ * {@link QueryLimitExceededException} is raised as soon as a limit is exceeded.
  *
  * @param <Q> the type of query created by this builder
  * @author Gunnar Morling
  */
 public final class SingleEntityQueryBuilder<Q> {
 
+	private static final Log log = LoggerFactory.make();
+
 	private final PredicateFactory<Q> predicateFactory;
 	private final PropertyHelper propertyHelper;
+	private final QueryLimits limits;
+
+	/**
+	 * The number of predicates added so far.
+	 */
+	private int predicateCount = 0;
 
 	/**
 	 * The targeted entity type of the built query.
@@ -61,13 +79,18 @@
 	 */
 	private final Stack<ParentPredicate<Q>> predicates = new Stack<ParentPredicate<Q>>();
 
-	private SingleEntityQueryBuilder(PredicateFactory<Q> predicateFactory, PropertyHelper propertyHelper) {
+	private SingleEntityQueryBuilder(PredicateFactory<Q> predicateFactory, PropertyHelper propertyHelper, QueryLimits limits) {
 		this.predicateFactory = predicateFactory;
 		this.propertyHelper = propertyHelper;
+		this.limits = limits;
 	}
 
 	public static <Q> SingleEntityQueryBuilder<Q> getInstance(PredicateFactory<Q> predicateFactory, PropertyHelper propertyHelper) {
-		return new SingleEntityQueryBuilder<Q>( predicateFactory, propertyHelper );
+		return getInstance( predicateFactory, propertyHelper, QueryLimits.NONE );
+	}
+
+	public static <Q> SingleEntityQueryBuilder<Q> getInstance(PredicateFactory<Q> predicateFactory, PropertyHelper propertyHelper, QueryLimits limits) {
+		return new SingleEntityQueryBuilder<Q>( predicateFactory, propertyHelper, limits );
 	}
 
 	public SingleEntityQueryBuilder<Q> setEntityType(String entityType) {
@@ -100,10 +123,25 @@ public SingleEntityQueryBuilder<Q> addRangePredicate(List<String> propertyPath,
 	}
 
 	public SingleEntityQueryBuilder<Q> addInPredicate(List<String> propertyPath, List<Object> elements) {
-		List<Object> typedElements = new ArrayList<Object>( elements.size() );
+		if ( elements.size() > limits.getMaxListSize() ) {
+			throw log.getListTooLargeException( limits.getMaxListSize() );
+		}
+
+		List<Object> typedElements;
+
+		// primitive lists, e.g. bound to a parameter, are taken as they are if the backend doesn't convert them
+		if ( elements instanceof SortedNumberList && propertyHelper.isBackendTypeIdentity( entityType, propertyPath ) ) {
+			typedElements = elements;
+		}
+		else {
+			typedElements = new ArrayList<Object>( elements.size() );
+
+			for ( Object element : elements ) {
+				typedElements.add( propertyHelper.convertToBackendType( entityType, propertyPath, element ) );
+			}
 
-		for ( Object element : elements ) {
-			typedElements.add( propertyHelper.convertToBackendType( entityType, propertyPath, element ) );
+			// lists of longs and ints are kept as sorted primitive arrays
+			typedElements = InPredicate.compactValues( typedElements );
 		}
 
 		pushPredicate( predicateFactory.getInPredicate( entityType, propertyPath, typedElements ) );
@@ -137,6 +175,11 @@ public SingleEntityQueryBuilder<Q> pushNotPredicate() {
 	}
 
 	private void pushPredicate(Predicate<Q> predicate) {
+		predicateCount++;
+		if ( predicateCount > limits.getMaxPredicates() ) {
+			throw log.getTooManyPredicatesException( limits.getMaxPredicates() );
+		}
+
 		// Add as sub-predicate to the current top predicate
 		predicates.peek().add( predicate );
 
@@ -154,14 +197,35 @@ public SingleEntityQueryBuilder<Q> popBooleanPredicate() {
 	}
 
 	/**
-	 * Returns the query created by this builder.
+	 * Returns the query created by this builder. Constant parts of the predicate tree (e.g. contradicting restrictions
+	 * of one property) are folded beforehand, see {@link PredicateSimplifier}.
 	 *
 	 * @return the query created by this builder
 	 */
 	public Q build() {
+		PredicateSimplifier.simplify( rootPredicate );
 		return rootPredicate.getQuery();
 	}
 
+	/**
+	 * Returns the targeted entity type of the built query.
+	 *
+	 * @return the targeted entity type
+	 */
+	public String getEntityType() {
+		return entityType;
+	}
+
+	/**
+	 * Returns the root of the predicate tree built so far, e.g. for encoding it using
+	 * {@link org.hibernate.hql.ast.spi.predicate.PredicateCodec}.
+	 *
+	 * @return the root predicate of the {@code WHERE} clause of the built query
+	 */
+	public RootPredicate<Q> getRootPredicate() {
+		return rootPredicate;
+	}
+
 	@Override
 	public String toString() {
 		return "SingleEntityQueryBuilder [entityType=" + entityType + ", rootPredicate=" + rootPredicate + "]";
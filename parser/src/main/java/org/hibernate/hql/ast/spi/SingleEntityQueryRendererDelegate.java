@@ -21,6 +21,8 @@
 package org.hibernate.hql.ast.spi;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +33,7 @@
 import org.hibernate.hql.ast.origin.hql.resolve.path.AggregationPropertyPath;
 import org.hibernate.hql.ast.origin.hql.resolve.path.PropertyPath;
 import org.hibernate.hql.ast.spi.predicate.ComparisonPredicate.Type;
+import org.hibernate.hql.ast.spi.predicate.SortedNumberList;
 import org.hibernate.hql.internal.logging.Log;
 import org.hibernate.hql.internal.logging.LoggerFactory;
 
@@ -480,16 +483,65 @@ private Object parameterValue(String comparativePredicate) {
 		}
 	}
 
+	/**
+	 * Returns the values of the given {@code IN} list. Named parameters bound to a collection or an array are expanded
+	 * into their elements, so e.g. {@code IN (:ids)} can be rendered for lists of any size from the same parsed query.
+	 */
 	private List<Object> fromNamedQuery(List<String> list) {
+		// the common case of one parameter holding the complete list, taken without copying it a second time
+		if ( list.size() == 1 && list.get( 0 ).startsWith( ":" ) ) {
+			List<Object> values = asValueList( getObjectParameter( list.get( 0 ) ) );
+			if ( values != null ) {
+				return values;
+			}
+		}
+
 		List<Object> elements = new ArrayList<Object>( list.size() );
 
 		for ( String string : list ) {
-			elements.add( parameterValue( string ) );
+			Object value = parameterValue( string );
+			List<Object> values = string.startsWith( ":" ) ? asValueList( value ) : null;
+
+			if ( values != null ) {
+				elements.addAll( values );
+			}
+			else {
+				elements.add( value );
+			}
 		}
 
 		return elements;
 	}
 
+	/**
+	 * Returns the elements of the given collection or array valued parameter. The elements are copied, so the list can
+	 * neither be changed by the caller nor by the builders. {@code long} and {@code int} arrays are not boxed but taken
+	 * as sorted primitive lists. Other primitive arrays such as {@code byte[]} or {@code char[]} represent single values
+	 * and are not expanded.
+	 *
+	 * @return the elements of the given parameter value or {@code null} if it is neither a collection nor a
+	 * {@code long}, {@code int} or object array
+	 */
+	private static List<Object> asValueList(Object parameterValue) {
+		if ( parameterValue instanceof Collection ) {
+			return new ArrayList<Object>( (Collection<?>) parameterValue );
+		}
+		else if ( parameterValue instanceof long[] ) {
+			long[] values = (long[]) parameterValue;
+			return SortedNumberList.ofLongs( values, values.length );
+		}
+		else if ( parameterValue instanceof int[] ) {
+			int[] values = (int[]) parameterValue;
+			return SortedNumberList.ofInts( values, values.length );
+		}
+		else if ( parameterValue instanceof Object[] ) {
+			return new ArrayList<Object>( Arrays.asList( (Object[]) parameterValue ) );
+		}
+		else {
+			return null;
+		}
+	}
+
 	@Override
 	public void deactivateBoolean() {
 		if ( status == Status.DEFINING_WHERE ) {
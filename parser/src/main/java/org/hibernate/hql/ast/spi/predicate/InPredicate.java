@@ -38,6 +38,48 @@ public InPredicate(String propertyName, List<Object> values) {
 		this.values = values;
 	}
 
+	/**
+	 * Returns the given {@code IN} values in their most compact representation: lists of {@code Long} or
+	 * {@code Integer} values only are converted into a {@link SortedNumberList}, which also removes any duplicates.
+	 * Other lists are returned as is.
+	 *
+	 * @param values the values of an {@code IN} predicate
+	 * @return the given values, possibly as a list backed by a primitive array
+	 */
+	public static List<Object> compactValues(List<Object> values) {
+		if ( values instanceof SortedNumberList || values.isEmpty() ) {
+			return values;
+		}
+
+		Class<?> type = values.get( 0 ) != null ? values.get( 0 ).getClass() : null;
+		if ( type != Long.class && type != Integer.class ) {
+			return values;
+		}
+
+		for ( Object value : values ) {
+			if ( value == null || value.getClass() != type ) {
+				return values;
+			}
+		}
+
+		if ( type == Long.class ) {
+			long[] longs = new long[values.size()];
+			int i = 0;
+			for ( Object value : values ) {
+				longs[i++] = (Long) value;
+			}
+			return SortedNumberList.ofLongs( longs, longs.length );
+		}
+		else {
+			int[] ints = new int[values.size()];
+			int i = 0;
+			for ( Object value : values ) {
+				ints[i++] = (Integer) value;
+			}
+			return SortedNumberList.ofInts( ints, ints.length );
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "( IN " + propertyName + " " + values + " )";
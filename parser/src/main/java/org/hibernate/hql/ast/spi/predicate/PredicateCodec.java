@@ -0,0 +1,470 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.spi.predicate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.hibernate.hql.ast.spi.EntityNamesResolver;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+import org.hibernate.hql.internal.util.CompactDataInput;
+import org.hibernate.hql.internal.util.CompactDataOutput;
+
+/**
+ * Encodes predicate trees as created by {@link org.hibernate.hql.ast.spi.SingleEntityQueryBuilder} into a compact,
+ * versioned binary form and decodes them again, re-creating the predicates using a given {@link PredicateFactory}.
+ * This allows to store the backend-independent outcome of query building and to re-create the backend-specific
+ * predicates later on without parsing the query again.
+ * <p>
+ * Property names and string values go through an interned string table. Predicate values must be of one of the
+ * basic Java types (strings, numbers, booleans, characters, dates, calendars or enums), as produced by the property helpers.
+ */
+public final class PredicateCodec {
+
+	/**
+	 * The version of the encoding format; data of other versions is rejected.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Predicate trees deeper than this are rejected, protecting the recursive decoder from corrupt data.
+	 */
+	static final int MAX_DEPTH = 1000;
+
+	/**
+	 * "P", identifies encoded predicates
+	 */
+	private static final int FORMAT_ID = 0x50;
+
+	private static final int NULL_VALUE = 0;
+	private static final int STRING_VALUE = 1;
+	private static final int INTEGER_VALUE = 2;
+	private static final int LONG_VALUE = 3;
+	private static final int SHORT_VALUE = 4;
+	private static final int BYTE_VALUE = 5;
+	private static final int DOUBLE_VALUE = 6;
+	private static final int FLOAT_VALUE = 7;
+	private static final int TRUE_VALUE = 8;
+	private static final int FALSE_VALUE = 9;
+	private static final int CHARACTER_VALUE = 10;
+	private static final int DATE_VALUE = 11;
+	private static final int BIG_DECIMAL_VALUE = 12;
+	private static final int BIG_INTEGER_VALUE = 13;
+	private static final int ENUM_VALUE = 14;
+	private static final int CALENDAR_VALUE = 15;
+
+	private static final Predicate.Type[] PREDICATE_TYPES = Predicate.Type.values();
+	private static final ComparisonPredicate.Type[] COMPARISON_TYPES = ComparisonPredicate.Type.values();
+
+	private static final Log log = LoggerFactory.make();
+
+	private PredicateCodec() {
+	}
+
+	/**
+	 * Encodes the given predicate tree.
+	 *
+	 * @param entityType the entity type targeted by the predicates
+	 * @param rootPredicate the root of the predicate tree to encode
+	 * @return the encoded predicate tree
+	 * @throws IllegalArgumentException in case the tree contains a value of an unsupported type or is too deep
+	 */
+	public static byte[] encode(String entityType, RootPredicate<?> rootPredicate) {
+		CompactDataOutput output = new CompactDataOutput();
+		output.writeByte( FORMAT_ID );
+		output.writeVarInt( VERSION );
+
+		output.writeString( entityType );
+		output.writeBoolean( rootPredicate.isUnsatisfiable() );
+		output.writeBoolean( rootPredicate.child != null );
+		if ( rootPredicate.child != null ) {
+			encode( output, rootPredicate.child, 0 );
+		}
+
+		return output.toByteArray();
+	}
+
+	/**
+	 * Decodes the given predicate tree.
+	 *
+	 * @param data an encoded predicate tree as created by {@link #encode(String, RootPredicate)}
+	 * @param predicateFactory the factory for creating the predicates
+	 * @param entityNames resolves the entity type of the encoded predicate tree
+	 * @return the root of the decoded predicate tree
+	 * @throws IllegalArgumentException in case the given data is not a valid encoded predicate tree or targets an
+	 * unknown entity type
+	 */
+	public static <Q> RootPredicate<Q> decode(byte[] data, PredicateFactory<Q> predicateFactory, EntityNamesResolver entityNames) {
+		return decode( ByteBuffer.wrap( data ), predicateFactory, entityNames );
+	}
+
+	/**
+	 * Decodes the predicate tree from the remaining bytes of the given buffer.
+	 *
+	 * @param data an encoded predicate tree as created by {@link #encode(String, RootPredicate)}
+	 * @param predicateFactory the factory for creating the predicates
+	 * @param entityNames resolves the entity type of the encoded predicate tree
+	 * @return the root of the decoded predicate tree
+	 * @throws IllegalArgumentException in case the given data is not a valid encoded predicate tree or targets an
+	 * unknown entity type
+	 */
+	public static <Q> RootPredicate<Q> decode(ByteBuffer data, PredicateFactory<Q> predicateFactory, EntityNamesResolver entityNames) {
+		CompactDataInput input = new CompactDataInput( data );
+
+		if ( input.readByte() != FORMAT_ID ) {
+			throw log.getInvalidEncodedDataException( "not an encoded predicate" );
+		}
+		int version = input.readVarInt();
+		if ( version != VERSION ) {
+			throw log.getUnsupportedEncodingVersionException( version, VERSION );
+		}
+
+		String entityType = input.readString();
+		if ( entityType == null ) {
+			throw log.getInvalidEncodedDataException( "missing entity type" );
+		}
+		if ( entityNames.getClassFromName( entityType ) == null ) {
+			throw log.getInvalidEncodedDataException( "unknown entity type " + entityType );
+		}
+
+		boolean unsatisfiable = input.readBoolean();
+		RootPredicate<Q> rootPredicate = predicateFactory.getRootPredicate( entityType );
+		if ( input.readBoolean() ) {
+			rootPredicate.add( new Decoder<Q>( input, predicateFactory, entityType ).decode( 0 ) );
+		}
+		if ( unsatisfiable ) {
+			rootPredicate.markUnsatisfiable();
+		}
+
+		if ( input.hasRemaining() ) {
+			throw log.getInvalidEncodedDataException( "unexpected data after the end of the predicate" );
+		}
+
+		return rootPredicate;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void encode(CompactDataOutput output, Predicate<?> predicate, int depth) {
+		if ( depth > MAX_DEPTH ) {
+			throw log.getTooDeepToEncodeException( "predicate tree", MAX_DEPTH );
+		}
+
+		output.writeVarInt( predicate.getType().ordinal() );
+
+		switch ( predicate.getType() ) {
+			case CONJUNCTION:
+				encodeChildren( output, predicate.as( ConjunctionPredicate.class ).children, depth );
+				break;
+			case DISJUNCTION:
+				encodeChildren( output, predicate.as( DisjunctionPredicate.class ).children, depth );
+				break;
+			case NEGATION:
+				Predicate<?> child = predicate.as( NegationPredicate.class ).getChild();
+				output.writeBoolean( child != null );
+				if ( child != null ) {
+					encode( output, child, depth + 1 );
+				}
+				break;
+			case COMPARISON:
+				ComparisonPredicate<?> comparison = predicate.as( ComparisonPredicate.class );
+				output.writeString( comparison.propertyName );
+				output.writeVarInt( comparison.type.ordinal() );
+				writeValue( output, comparison.value );
+				break;
+			case RANGE:
+				RangePredicate<?> range = predicate.as( RangePredicate.class );
+				output.writeString( range.propertyName );
+				writeValue( output, range.lower );
+				writeValue( output, range.upper );
+				break;
+			case IN:
+				InPredicate<?> in = predicate.as( InPredicate.class );
+				output.writeString( in.propertyName );
+				output.writeVarInt( in.values.size() );
+				for ( Object value : in.values ) {
+					writeValue( output, value );
+				}
+				break;
+			case LIKE:
+				LikePredicate<?> like = predicate.as( LikePredicate.class );
+				output.writeString( like.propertyName );
+				output.writeString( like.patternValue );
+				writeValue( output, like.escapeCharacter );
+				break;
+			case IS_NULL:
+				output.writeString( predicate.as( IsNullPredicate.class ).propertyName );
+				break;
+			default:
+				throw log.getInvalidEncodedDataException( "unexpected predicate of type " + predicate.getType() );
+		}
+	}
+
+	private static void encodeChildren(CompactDataOutput output, List<? extends Predicate<?>> children, int depth) {
+		output.writeVarInt( children.size() );
+		for ( Predicate<?> child : children ) {
+			encode( output, child, depth + 1 );
+		}
+	}
+
+	private static void writeValue(CompactDataOutput output, Object value) {
+		if ( value == null ) {
+			output.writeVarInt( NULL_VALUE );
+		}
+		else if ( value instanceof String ) {
+			output.writeVarInt( STRING_VALUE );
+			output.writeString( (String) value );
+		}
+		else if ( value instanceof Integer ) {
+			output.writeVarInt( INTEGER_VALUE );
+			output.writeSignedVarInt( (Integer) value );
+		}
+		else if ( value instanceof Long ) {
+			output.writeVarInt( LONG_VALUE );
+			output.writeSignedVarLong( (Long) value );
+		}
+		else if ( value instanceof Short ) {
+			output.writeVarInt( SHORT_VALUE );
+			output.writeSignedVarInt( (Short) value );
+		}
+		else if ( value instanceof Byte ) {
+			output.writeVarInt( BYTE_VALUE );
+			output.writeSignedVarInt( (Byte) value );
+		}
+		else if ( value instanceof Double ) {
+			output.writeVarInt( DOUBLE_VALUE );
+			output.writeDouble( (Double) value );
+		}
+		else if ( value instanceof Float ) {
+			output.writeVarInt( FLOAT_VALUE );
+			output.writeDouble( (Float) value );
+		}
+		else if ( value instanceof Boolean ) {
+			output.writeVarInt( (Boolean) value ? TRUE_VALUE : FALSE_VALUE );
+		}
+		else if ( value instanceof Character ) {
+			output.writeVarInt( CHARACTER_VALUE );
+			output.writeVarInt( (Character) value );
+		}
+		else if ( value.getClass() == Date.class ) {
+			output.writeVarInt( DATE_VALUE );
+			output.writeSignedVarLong( ( (Date) value ).getTime() );
+		}
+		else if ( value instanceof Calendar ) {
+			output.writeVarInt( CALENDAR_VALUE );
+			output.writeString( ( (Calendar) value ).getTimeZone().getID() );
+			output.writeSignedVarLong( ( (Calendar) value ).getTimeInMillis() );
+		}
+		else if ( value instanceof BigDecimal ) {
+			output.writeVarInt( BIG_DECIMAL_VALUE );
+			output.writeString( value.toString() );
+		}
+		else if ( value instanceof BigInteger ) {
+			output.writeVarInt( BIG_INTEGER_VALUE );
+			output.writeString( value.toString() );
+		}
+		else if ( value instanceof Enum ) {
+			output.writeVarInt( ENUM_VALUE );
+			output.writeString( ( (Enum<?>) value ).getDeclaringClass().getName() );
+			output.writeString( ( (Enum<?>) value ).name() );
+		}
+		else {
+			throw log.getUnsupportedValueTypeForEncodingException( value.getClass().getName() );
+		}
+	}
+
+	private static class Decoder<Q> {
+
+		private final CompactDataInput input;
+		private final PredicateFactory<Q> predicateFactory;
+		private final String entityType;
+
+		private Decoder(CompactDataInput input, PredicateFactory<Q> predicateFactory, String entityType) {
+			this.input = input;
+			this.predicateFactory = predicateFactory;
+			this.entityType = entityType;
+		}
+
+		private Predicate<Q> decode(int depth) {
+			if ( depth > MAX_DEPTH ) {
+				throw log.getInvalidEncodedDataException( "predicate tree is deeper than " + MAX_DEPTH + " levels" );
+			}
+
+			int type = input.readVarInt();
+			if ( type >= PREDICATE_TYPES.length ) {
+				throw log.getInvalidEncodedDataException( "unknown predicate type " + type );
+			}
+
+			switch ( PREDICATE_TYPES[type] ) {
+				case CONJUNCTION:
+					return decodeChildren( predicateFactory.getConjunctionPredicate(), depth );
+				case DISJUNCTION:
+					return decodeChildren( predicateFactory.getDisjunctionPredicate(), depth );
+				case NEGATION:
+					NegationPredicate<Q> negation = predicateFactory.getNegationPredicate();
+					if ( input.readBoolean() ) {
+						negation.add( decode( depth + 1 ) );
+					}
+					return negation;
+				case COMPARISON:
+					List<String> comparisonPath = readPropertyPath();
+					int comparisonType = input.readVarInt();
+					if ( comparisonType >= COMPARISON_TYPES.length ) {
+						throw log.getInvalidEncodedDataException( "unknown comparison type " + comparisonType );
+					}
+					return predicateFactory.getComparisonPredicate( entityType, COMPARISON_TYPES[comparisonType], comparisonPath, readValue() );
+				case RANGE:
+					List<String> rangePath = readPropertyPath();
+					Object lower = readValue();
+					return predicateFactory.getRangePredicate( entityType, rangePath, lower, readValue() );
+				case IN:
+					List<String> inPath = readPropertyPath();
+					int valueCount = input.readCount();
+					List<Object> values = new ArrayList<Object>( valueCount );
+					for ( int i = 0; i < valueCount; i++ ) {
+						values.add( readValue() );
+					}
+					return predicateFactory.getInPredicate( entityType, inPath, InPredicate.compactValues( values ) );
+				case LIKE:
+					List<String> likePath = readPropertyPath();
+					String patternValue = input.readString();
+					Object escapeCharacter = readValue();
+					if ( escapeCharacter != null && !( escapeCharacter instanceof Character ) ) {
+						throw log.getInvalidEncodedDataException( "escape character expected" );
+					}
+					return predicateFactory.getLikePredicate( entityType, likePath, patternValue, (Character) escapeCharacter );
+				case IS_NULL:
+					return predicateFactory.getIsNullPredicate( entityType, readPropertyPath() );
+				default:
+					throw log.getInvalidEncodedDataException( "unexpected predicate of type " + PREDICATE_TYPES[type] );
+			}
+		}
+
+		private <P extends ParentPredicate<Q>> P decodeChildren(P parent, int depth) {
+			int childCount = input.readCount();
+			for ( int i = 0; i < childCount; i++ ) {
+				parent.add( decode( depth + 1 ) );
+			}
+			return parent;
+		}
+
+		private List<String> readPropertyPath() {
+			String propertyName = input.readString();
+			if ( propertyName == null ) {
+				throw log.getInvalidEncodedDataException( "missing property name" );
+			}
+			return Arrays.asList( propertyName.split( "\\." ) );
+		}
+
+		private Object readValue() {
+			int tag = input.readVarInt();
+
+			switch ( tag ) {
+				case NULL_VALUE:
+					return null;
+				case STRING_VALUE:
+					return input.readString();
+				case INTEGER_VALUE:
+					return input.readSignedVarInt();
+				case LONG_VALUE:
+					return input.readSignedVarLong();
+				case SHORT_VALUE:
+					return (short) input.readSignedVarInt();
+				case BYTE_VALUE:
+					return (byte) input.readSignedVarInt();
+				case DOUBLE_VALUE:
+					return input.readDouble();
+				case FLOAT_VALUE:
+					return (float) input.readDouble();
+				case TRUE_VALUE:
+					return Boolean.TRUE;
+				case FALSE_VALUE:
+					return Boolean.FALSE;
+				case CHARACTER_VALUE:
+					return (char) input.readVarInt();
+				case DATE_VALUE:
+					return new Date( input.readSignedVarLong() );
+				case BIG_DECIMAL_VALUE:
+					return new BigDecimal( readNumber() );
+				case BIG_INTEGER_VALUE:
+					return new BigInteger( readNumber() );
+				case ENUM_VALUE:
+					return readEnum();
+				case CALENDAR_VALUE:
+					return readCalendar();
+				default:
+					throw log.getInvalidEncodedDataException( "unknown value type " + tag );
+			}
+		}
+
+		private String readNumber() {
+			String number = input.readString();
+			if ( number == null || !number.matches( "[-+]?[0-9]+(\\.[0-9]*)?([eE][-+]?[0-9]+)?" ) ) {
+				throw log.getInvalidEncodedDataException( "invalid number " + number );
+			}
+			return number;
+		}
+
+		private Calendar readCalendar() {
+			String timeZone = input.readString();
+			if ( timeZone == null ) {
+				throw log.getInvalidEncodedDataException( "missing time zone" );
+			}
+
+			Calendar calendar = Calendar.getInstance( TimeZone.getTimeZone( timeZone ) );
+			calendar.setTimeInMillis( input.readSignedVarLong() );
+			return calendar;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Object readEnum() {
+			String className = input.readString();
+			String name = input.readString();
+
+			Class<?> enumType;
+			try {
+				ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+				enumType = className == null ? null : Class.forName( className, false, classLoader != null ? classLoader : PredicateCodec.class.getClassLoader() );
+			}
+			catch (ClassNotFoundException e) {
+				enumType = null;
+			}
+
+			if ( enumType == null || !enumType.isEnum() || name == null ) {
+				throw log.getInvalidEncodedDataException( "unknown enum type " + className );
+			}
+
+			try {
+				return Enum.valueOf( (Class) enumType, name );
+			}
+			catch (IllegalArgumentException e) {
+				throw log.getInvalidEncodedDataException( "unknown enum constant " + className + "." + name );
+			}
+		}
+	}
+}
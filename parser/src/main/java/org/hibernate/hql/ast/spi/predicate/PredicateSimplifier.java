@@ -0,0 +1,371 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.spi.predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the constant parts of a predicate tree, i.e. sub-predicates which are always or never satisfied regardless of
+ * the entity they are applied to. Such sub-predicates are removed from their parents; if the complete {@code WHERE}
+ * clause turns out to be unsatisfiable, the root predicate is marked accordingly, allowing backends to skip the query.
+ * <p>
+ * Contradictions are detected for comparison, {@code BETWEEN} and {@code IN} predicates on the same property within
+ * one conjunction, e.g. {@code x = 1 AND x = 2} or {@code x > 5 AND x < 3}, as well as for empty ranges such as
+ * {@code x BETWEEN 5 AND 1}. Only numeric values of the same type are compared; other values (e.g. strings or dates)
+ * may be normalized by the backend in a way which is not known at this level (analyzers, date resolution etc.) and
+ * thus never are considered as conflicting.
+ */
+public final class PredicateSimplifier {
+
+	/**
+	 * The outcome of evaluating a predicate without looking at any actual entity.
+	 */
+	enum Outcome {
+		ALWAYS_TRUE, ALWAYS_FALSE, UNKNOWN;
+
+		Outcome negate() {
+			switch ( this ) {
+				case ALWAYS_TRUE:
+					return ALWAYS_FALSE;
+				case ALWAYS_FALSE:
+					return ALWAYS_TRUE;
+				default:
+					return UNKNOWN;
+			}
+		}
+	}
+
+	private PredicateSimplifier() {
+	}
+
+	/**
+	 * Simplifies the predicate tree below the given root predicate. Constant sub-predicates are removed in place; if the
+	 * complete clause is always satisfied, the root predicate is left without child (i.e. it matches all entities), if
+	 * it never is satisfied, the root predicate is marked as {@link RootPredicate#isUnsatisfiable() unsatisfiable}.
+	 *
+	 * @param rootPredicate the root predicate of the {@code WHERE} clause to simplify
+	 */
+	public static <Q> void simplify(RootPredicate<Q> rootPredicate) {
+		if ( rootPredicate.child == null ) {
+			return;
+		}
+
+		Outcome outcome = evaluate( rootPredicate.child );
+
+		if ( outcome == Outcome.ALWAYS_TRUE ) {
+			rootPredicate.child = null;
+		}
+		else if ( outcome == Outcome.ALWAYS_FALSE ) {
+			rootPredicate.markUnsatisfiable();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <Q> Outcome evaluate(Predicate<Q> predicate) {
+		switch ( predicate.getType() ) {
+			case CONJUNCTION:
+				return evaluateConjunction( predicate.as( ConjunctionPredicate.class ) );
+			case DISJUNCTION:
+				return evaluateDisjunction( predicate.as( DisjunctionPredicate.class ) );
+			case NEGATION:
+				Predicate<Q> child = predicate.as( NegationPredicate.class ).getChild();
+				return child != null ? evaluate( child ).negate() : Outcome.UNKNOWN;
+			case RANGE:
+				RangePredicate<Q> range = predicate.as( RangePredicate.class );
+				return isEmptyRange( range.lower, range.upper ) ? Outcome.ALWAYS_FALSE : Outcome.UNKNOWN;
+			case IN:
+				return predicate.as( InPredicate.class ).values.isEmpty() ? Outcome.ALWAYS_FALSE : Outcome.UNKNOWN;
+			default:
+				return Outcome.UNKNOWN;
+		}
+	}
+
+	private static <Q> Outcome evaluateConjunction(ConjunctionPredicate<Q> conjunction) {
+		for ( Iterator<Predicate<Q>> children = conjunction.children.iterator(); children.hasNext(); ) {
+			Outcome outcome = evaluate( children.next() );
+
+			if ( outcome == Outcome.ALWAYS_FALSE ) {
+				return Outcome.ALWAYS_FALSE;
+			}
+			else if ( outcome == Outcome.ALWAYS_TRUE ) {
+				children.remove();
+			}
+		}
+
+		if ( conjunction.children.isEmpty() ) {
+			return Outcome.ALWAYS_TRUE;
+		}
+
+		return isContradictory( conjunction.children ) ? Outcome.ALWAYS_FALSE : Outcome.UNKNOWN;
+	}
+
+	private static <Q> Outcome evaluateDisjunction(DisjunctionPredicate<Q> disjunction) {
+		for ( Iterator<Predicate<Q>> children = disjunction.children.iterator(); children.hasNext(); ) {
+			Outcome outcome = evaluate( children.next() );
+
+			if ( outcome == Outcome.ALWAYS_TRUE ) {
+				return Outcome.ALWAYS_TRUE;
+			}
+			else if ( outcome == Outcome.ALWAYS_FALSE ) {
+				children.remove();
+			}
+		}
+
+		return disjunction.children.isEmpty() ? Outcome.ALWAYS_FALSE : Outcome.UNKNOWN;
+	}
+
+	/**
+	 * Whether the given conjoined predicates restrict one and the same property in a way no value can satisfy.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <Q> boolean isContradictory(List<Predicate<Q>> conjoinedPredicates) {
+		Map<String, ValueConstraint> constraints = new HashMap<String, ValueConstraint>();
+
+		for ( Predicate<Q> predicate : conjoinedPredicates ) {
+			switch ( predicate.getType() ) {
+				case COMPARISON:
+					ComparisonPredicate<Q> comparison = predicate.as( ComparisonPredicate.class );
+					getConstraint( constraints, comparison.propertyName ).restrict( comparison.type, comparison.value );
+					break;
+				case RANGE:
+					RangePredicate<Q> range = predicate.as( RangePredicate.class );
+					ValueConstraint constraint = getConstraint( constraints, range.propertyName );
+					constraint.restrictLower( range.lower, true );
+					constraint.restrictUpper( range.upper, true );
+					break;
+				case IN:
+					InPredicate<Q> in = predicate.as( InPredicate.class );
+					getConstraint( constraints, in.propertyName ).restrictTo( in.values );
+					break;
+				default:
+					break;
+			}
+		}
+
+		for ( ValueConstraint constraint : constraints.values() ) {
+			if ( constraint.isUnsatisfiable() ) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static ValueConstraint getConstraint(Map<String, ValueConstraint> constraints, String propertyName) {
+		ValueConstraint constraint = constraints.get( propertyName );
+
+		if ( constraint == null ) {
+			constraint = new ValueConstraint();
+			constraints.put( propertyName, constraint );
+		}
+
+		return constraint;
+	}
+
+	private static boolean isEmptyRange(Object lower, Object upper) {
+		Integer comparison = compare( lower, upper );
+		return comparison != null && comparison > 0;
+	}
+
+	/**
+	 * Compares the given values if they are of the same numeric type.
+	 *
+	 * @return the result of comparing the given values or {@code null} if they can not be compared reliably
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Integer compare(Object value1, Object value2) {
+		if ( !isComparable( value1 ) || !isComparable( value2 ) || value1.getClass() != value2.getClass() ) {
+			return null;
+		}
+
+		return ( (Comparable) value1 ).compareTo( value2 );
+	}
+
+	private static boolean isComparable(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double
+				|| value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * The set of values a property may take as implied by a number of conjoined predicates.
+	 */
+	private static class ValueConstraint {
+
+		private Object lower;
+		private boolean lowerInclusive;
+		private Object upper;
+		private boolean upperInclusive;
+
+		/**
+		 * The explicitly allowed values, {@code null} if not restricted by equality or {@code IN} predicates.
+		 */
+		private List<Object> candidates;
+
+		/**
+		 * Set if incomparable values are involved, in which case no statement about satisfiability can be made.
+		 */
+		private boolean indeterminate;
+
+		void restrict(ComparisonPredicate.Type comparisonType, Object value) {
+			switch ( comparisonType ) {
+				case LESS:
+					restrictUpper( value, false );
+					break;
+				case LESS_OR_EQUAL:
+					restrictUpper( value, true );
+					break;
+				case EQUALS:
+					restrictTo( Collections.singletonList( value ) );
+					break;
+				case GREATER_OR_EQUAL:
+					restrictLower( value, true );
+					break;
+				case GREATER:
+					restrictLower( value, false );
+					break;
+				default:
+					indeterminate = true;
+			}
+		}
+
+		void restrictLower(Object value, boolean inclusive) {
+			if ( lower == null ) {
+				lower = value;
+				lowerInclusive = inclusive;
+				indeterminate |= !isComparable( value );
+				return;
+			}
+
+			Integer comparison = compare( value, lower );
+			if ( comparison == null ) {
+				indeterminate = true;
+			}
+			else if ( comparison > 0 || ( comparison == 0 && !inclusive ) ) {
+				lower = value;
+				lowerInclusive = inclusive;
+			}
+		}
+
+		void restrictUpper(Object value, boolean inclusive) {
+			if ( upper == null ) {
+				upper = value;
+				upperInclusive = inclusive;
+				indeterminate |= !isComparable( value );
+				return;
+			}
+
+			Integer comparison = compare( value, upper );
+			if ( comparison == null ) {
+				indeterminate = true;
+			}
+			else if ( comparison < 0 || ( comparison == 0 && !inclusive ) ) {
+				upper = value;
+				upperInclusive = inclusive;
+			}
+		}
+
+		void restrictTo(List<?> values) {
+			List<Object> retained = new ArrayList<Object>( values.size() );
+
+			for ( Object value : values ) {
+				if ( !isComparable( value ) ) {
+					indeterminate = true;
+					return;
+				}
+
+				if ( candidates == null ) {
+					retained.add( value );
+					continue;
+				}
+
+				for ( Object candidate : candidates ) {
+					Integer comparison = compare( candidate, value );
+					if ( comparison == null ) {
+						indeterminate = true;
+						return;
+					}
+					if ( comparison == 0 ) {
+						retained.add( value );
+						break;
+					}
+				}
+			}
+
+			candidates = retained;
+		}
+
+		boolean isUnsatisfiable() {
+			if ( indeterminate ) {
+				return false;
+			}
+
+			if ( lower != null && upper != null ) {
+				Integer comparison = compare( lower, upper );
+				if ( comparison == null ) {
+					return false;
+				}
+				if ( comparison > 0 || ( comparison == 0 && !( lowerInclusive && upperInclusive ) ) ) {
+					return true;
+				}
+			}
+
+			if ( candidates != null ) {
+				for ( Object candidate : candidates ) {
+					if ( !isOutOfBounds( candidate ) ) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			return false;
+		}
+
+		private boolean isOutOfBounds(Object value) {
+			if ( lower != null ) {
+				Integer comparison = compare( value, lower );
+				if ( comparison == null ) {
+					return false;
+				}
+				if ( comparison < 0 || ( comparison == 0 && !lowerInclusive ) ) {
+					return true;
+				}
+			}
+
+			if ( upper != null ) {
+				Integer comparison = compare( value, upper );
+				if ( comparison == null ) {
+					return false;
+				}
+				if ( comparison > 0 || ( comparison == 0 && !upperInclusive ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
@@ -35,6 +35,12 @@
 
 	protected Predicate<Q> child;
 
+	/**
+	 * Whether this clause has been found to never be satisfied by any entity, in which case implementations should
+	 * return a query not matching anything.
+	 */
+	protected boolean unsatisfiable;
+
 	public RootPredicate() {
 		super( Type.ROOT );
 	}
@@ -48,8 +54,25 @@ public void add(Predicate<Q> predicate) {
 		child = predicate;
 	}
 
+	/**
+	 * Whether this clause has been determined by {@link PredicateSimplifier} to never be satisfied by any entity.
+	 *
+	 * @return {@code true} if no entity can ever match this clause, {@code false} otherwise
+	 */
+	public boolean isUnsatisfiable() {
+		return unsatisfiable;
+	}
+
+	void markUnsatisfiable() {
+		unsatisfiable = true;
+	}
+
 	@Override
 	public String toString() {
+		if ( unsatisfiable ) {
+			return "( FALSE " + child + " )";
+		}
+
 		return child == null ? "( * )" : child.toString();
 	}
 }
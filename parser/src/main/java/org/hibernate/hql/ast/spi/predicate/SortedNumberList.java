@@ -0,0 +1,142 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.spi.predicate;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of distinct {@code long} or {@code int} values in ascending order, backed by a primitive
+ * {@code long} array. Used for the values of {@code IN} predicates on {@code long} and {@code int} properties, so large
+ * lists (e.g. of ids) don't need to be kept as boxed values and can be consumed as primitives by query backends.
+ * Elements are boxed into {@link Long}s or {@link Integer}s, respectively, when accessed via the {@link java.util.List}
+ * interface.
+ *
+ * @see InPredicate#compactValues(java.util.List)
+ */
+public final class SortedNumberList extends AbstractList<Object> implements RandomAccess {
+
+	private final long[] values;
+	private final boolean intValues;
+
+	private SortedNumberList(long[] values, boolean intValues) {
+		this.values = values;
+		this.intValues = intValues;
+	}
+
+	/**
+	 * Creates a list of {@code long} values with the distinct values of the given array, sorted in ascending order.
+	 *
+	 * @param values the values of the list
+	 * @param length the number of elements of the given array to take
+	 * @return a list with the distinct given values
+	 */
+	public static SortedNumberList ofLongs(long[] values, int length) {
+		return new SortedNumberList( sortDistinct( Arrays.copyOf( values, length ) ), false );
+	}
+
+	/**
+	 * Creates a list of {@code int} values with the distinct values of the given array, sorted in ascending order.
+	 *
+	 * @param values the values of the list
+	 * @param length the number of elements of the given array to take
+	 * @return a list with the distinct given values
+	 */
+	public static SortedNumberList ofInts(int[] values, int length) {
+		long[] longs = new long[length];
+		for ( int i = 0; i < length; i++ ) {
+			longs[i] = values[i];
+		}
+
+		return new SortedNumberList( sortDistinct( longs ), true );
+	}
+
+	private static long[] sortDistinct(long[] values) {
+		Arrays.sort( values );
+
+		int distinct = 0;
+		for ( int i = 0; i < values.length; i++ ) {
+			if ( i == 0 || values[i] != values[distinct - 1] ) {
+				values[distinct++] = values[i];
+			}
+		}
+
+		return distinct == values.length ? values : Arrays.copyOf( values, distinct );
+	}
+
+	/**
+	 * Whether this list holds {@code int} rather than {@code long} values.
+	 *
+	 * @return {@code true} if the elements of this list are {@link Integer}s, {@code false} if they are {@link Long}s
+	 */
+	public boolean isIntValues() {
+		return intValues;
+	}
+
+	public long getLong(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Returns the values of this list, widened to {@code long} in case of {@code int} values.
+	 *
+	 * @return a new array with the values of this list, in ascending order
+	 */
+	public long[] toLongArray() {
+		return values.clone();
+	}
+
+	@Override
+	public Object get(int index) {
+		if ( intValues ) {
+			return (int) values[index];
+		}
+		else {
+			return values[index];
+		}
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if ( !( intValues ? o instanceof Integer : o instanceof Long ) ) {
+			return -1;
+		}
+
+		int index = Arrays.binarySearch( values, ( (Number) o ).longValue() );
+		return index >= 0 ? index : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf( o );
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf( o ) >= 0;
+	}
+}
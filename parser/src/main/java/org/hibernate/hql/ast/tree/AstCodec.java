@@ -0,0 +1,506 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.ast.tree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.common.HibernateToken;
+import org.hibernate.hql.ast.common.HibernateTree;
+import org.hibernate.hql.ast.origin.hql.resolve.path.AggregationPropertyPath;
+import org.hibernate.hql.ast.origin.hql.resolve.path.PathedPropertyReference;
+import org.hibernate.hql.ast.origin.hql.resolve.path.PathedPropertyReferenceSource;
+import org.hibernate.hql.ast.origin.hql.resolve.path.PropertyPath;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+import org.hibernate.hql.internal.util.CompactDataInput;
+import org.hibernate.hql.internal.util.CompactDataOutput;
+
+/**
+ * Encodes parse trees and resolved trees (including {@link EntityNameTree}s and {@link PropertyPathTree}s) into a
+ * compact, versioned binary form and decodes them again, e.g. for storing parsing results in a cache or a file.
+ * <p>
+ * Node types are written as variable-length integers and all texts go through an interned string table. Sub-trees
+ * equal to a sub-tree written before (e.g. a property path used several times) are written as a reference to the
+ * latter; upon decoding, a copy of the referenced sub-tree is created, as tree nodes can't have more than one parent.
+ * <p>
+ * The type descriptors of property path elements are not encoded, as they are bound to the entity model of the running
+ * application; the elements of decoded property paths have no type descriptor.
+ */
+public final class AstCodec {
+
+	/**
+	 * The version of the encoding format; data of other versions is rejected.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Trees deeper than this are rejected, protecting the recursive decoder from corrupt data.
+	 */
+	static final int MAX_DEPTH = 1000;
+
+	/**
+	 * Trees with more nodes than this are rejected, protecting the decoder from corrupt data referencing shared
+	 * sub-trees over and over again.
+	 */
+	static final int MAX_NODES = 1 << 20;
+
+	/**
+	 * "T", identifies encoded trees
+	 */
+	private static final int FORMAT_ID = 0x54;
+
+	private static final int NIL_NODE = 0;
+	private static final int NODE = 1;
+	private static final int ENTITY_NAME_NODE = 2;
+	private static final int PROPERTY_PATH_NODE = 3;
+	private static final int SHARED_NODE = 4;
+
+	private static final AggregationPropertyPath.Type[] AGGREGATION_TYPES = AggregationPropertyPath.Type.values();
+
+	private static final Log log = LoggerFactory.make();
+
+	private AstCodec() {
+	}
+
+	/**
+	 * Encodes the given tree.
+	 *
+	 * @param tree the tree to encode
+	 * @return the encoded tree
+	 * @throws IllegalArgumentException in case the tree is deeper than supported by the decoder
+	 */
+	public static byte[] encode(CommonTree tree) {
+		CompactDataOutput output = new CompactDataOutput();
+		output.writeByte( FORMAT_ID );
+		output.writeVarInt( VERSION );
+
+		new Encoder( output ).encode( tree, 0 );
+
+		return output.toByteArray();
+	}
+
+	/**
+	 * Decodes the given tree.
+	 *
+	 * @param data an encoded tree as created by {@link #encode(CommonTree)}
+	 * @return the decoded tree
+	 * @throws IllegalArgumentException in case the given data is not a valid encoded tree
+	 */
+	public static CommonTree decode(byte[] data) {
+		return decode( ByteBuffer.wrap( data ) );
+	}
+
+	/**
+	 * Decodes the tree from the remaining bytes of the given buffer, e.g. a memory-mapped file region.
+	 *
+	 * @param data an encoded tree as created by {@link #encode(CommonTree)}
+	 * @return the decoded tree
+	 * @throws IllegalArgumentException in case the given data is not a valid encoded tree
+	 */
+	public static CommonTree decode(ByteBuffer data) {
+		CompactDataInput input = new CompactDataInput( data );
+
+		if ( input.readByte() != FORMAT_ID ) {
+			throw log.getInvalidEncodedDataException( "not an encoded tree" );
+		}
+		int version = input.readVarInt();
+		if ( version != VERSION ) {
+			throw log.getUnsupportedEncodingVersionException( version, VERSION );
+		}
+
+		CommonTree tree = new Decoder( input ).decode( 0 );
+
+		if ( input.hasRemaining() ) {
+			throw log.getInvalidEncodedDataException( "unexpected data after the end of the tree" );
+		}
+
+		return tree;
+	}
+
+	private static int getKind(CommonTree tree) {
+		if ( tree.isNil() ) {
+			return NIL_NODE;
+		}
+		else if ( tree instanceof EntityNameTree ) {
+			return ENTITY_NAME_NODE;
+		}
+		else if ( tree instanceof PropertyPathTree ) {
+			return PROPERTY_PATH_NODE;
+		}
+		else {
+			return NODE;
+		}
+	}
+
+	private static class Encoder {
+
+		private final CompactDataOutput output;
+
+		/**
+		 * The numbers of the sub-trees written so far, keyed by their structure
+		 */
+		private final Map<SubTree, Integer> subTrees = new HashMap<SubTree, Integer>();
+
+		/**
+		 * Structural hash codes of all nodes, computed once per node
+		 */
+		private final Map<CommonTree, Integer> hashCodes = new IdentityHashMap<CommonTree, Integer>();
+
+		private int nodeCount = 0;
+
+		private Encoder(CompactDataOutput output) {
+			this.output = output;
+		}
+
+		private void encode(CommonTree tree, int depth) {
+			if ( depth > MAX_DEPTH ) {
+				throw log.getTooDeepToEncodeException( "tree", MAX_DEPTH );
+			}
+
+			int kind = getKind( tree );
+			SubTree subTree = new SubTree( tree, hashCode( tree ) );
+
+			Integer number = kind == NIL_NODE ? null : subTrees.get( subTree );
+			if ( number != null ) {
+				output.writeVarInt( SHARED_NODE );
+				output.writeVarInt( number );
+				return;
+			}
+
+			// nil nodes are never referenced, so they don't get a number (same as in the decoder)
+			if ( kind != NIL_NODE ) {
+				number = nodeCount++;
+			}
+			output.writeVarInt( kind );
+
+			if ( kind != NIL_NODE ) {
+				output.writeSignedVarInt( tree.getType() );
+				output.writeString( tree.getText() );
+			}
+
+			if ( kind == ENTITY_NAME_NODE ) {
+				EntityNameTree entityNameTree = (EntityNameTree) tree;
+				output.writeVarInt( entityNameTree.getEntityCount() );
+				for ( int i = 0; i < entityNameTree.getEntityCount(); i++ ) {
+					output.writeString( entityNameTree.getEntityName( i ) );
+				}
+				output.writeString( entityNameTree.toString() );
+			}
+			else if ( kind == PROPERTY_PATH_NODE ) {
+				encode( ( (PropertyPathTree) tree ).getPropertyPath() );
+			}
+
+			output.writeVarInt( tree.getChildCount() );
+			for ( int i = 0; i < tree.getChildCount(); i++ ) {
+				encode( (CommonTree) tree.getChild( i ), depth + 1 );
+			}
+
+			if ( kind != NIL_NODE ) {
+				subTrees.put( subTree, number );
+			}
+		}
+
+		private void encode(PropertyPath propertyPath) {
+			if ( propertyPath instanceof AggregationPropertyPath ) {
+				output.writeVarInt( ( (AggregationPropertyPath) propertyPath ).getType().ordinal() + 1 );
+			}
+			else {
+				output.writeVarInt( 0 );
+			}
+
+			List<PathedPropertyReferenceSource> nodes = propertyPath.getNodes();
+			output.writeVarInt( nodes.size() );
+			for ( PathedPropertyReferenceSource node : nodes ) {
+				output.writeString( node.getName() );
+				output.writeBoolean( node.isAlias() );
+			}
+		}
+
+		private int hashCode(CommonTree tree) {
+			Integer hashCode = hashCodes.get( tree );
+
+			if ( hashCode == null ) {
+				int hash = getKind( tree );
+				hash = 31 * hash + tree.getType();
+				hash = 31 * hash + ( tree.getText() == null ? 0 : tree.getText().hashCode() );
+				for ( int i = 0; i < tree.getChildCount(); i++ ) {
+					hash = 31 * hash + hashCode( (CommonTree) tree.getChild( i ) );
+				}
+
+				hashCode = hash;
+				hashCodes.put( tree, hashCode );
+			}
+
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Wraps a tree, comparing it structurally to other trees.
+	 */
+	private static class SubTree {
+
+		private final CommonTree tree;
+		private final int hashCode;
+
+		private SubTree(CommonTree tree, int hashCode) {
+			this.tree = tree;
+			this.hashCode = hashCode;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !( obj instanceof SubTree ) ) {
+				return false;
+			}
+
+			SubTree other = (SubTree) obj;
+			return hashCode == other.hashCode && isEqual( tree, other.tree );
+		}
+
+		private static boolean isEqual(CommonTree tree, CommonTree other) {
+			int kind = getKind( tree );
+
+			if ( kind != getKind( other ) || tree.getType() != other.getType() || !isEqual( tree.getText(), other.getText() )
+					|| tree.getChildCount() != other.getChildCount() ) {
+				return false;
+			}
+
+			if ( kind == ENTITY_NAME_NODE && !isEqual( (EntityNameTree) tree, (EntityNameTree) other ) ) {
+				return false;
+			}
+			if ( kind == PROPERTY_PATH_NODE
+					&& !isEqual( ( (PropertyPathTree) tree ).getPropertyPath(), ( (PropertyPathTree) other ).getPropertyPath() ) ) {
+				return false;
+			}
+
+			for ( int i = 0; i < tree.getChildCount(); i++ ) {
+				if ( !isEqual( (CommonTree) tree.getChild( i ), (CommonTree) other.getChild( i ) ) ) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean isEqual(EntityNameTree tree, EntityNameTree other) {
+			if ( tree.getEntityCount() != other.getEntityCount() || !tree.toString().equals( other.toString() ) ) {
+				return false;
+			}
+
+			for ( int i = 0; i < tree.getEntityCount(); i++ ) {
+				if ( !isEqual( tree.getEntityName( i ), other.getEntityName( i ) ) ) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean isEqual(PropertyPath path, PropertyPath other) {
+			if ( path.getClass() != other.getClass() ) {
+				return false;
+			}
+			if ( path instanceof AggregationPropertyPath
+					&& ( (AggregationPropertyPath) path ).getType() != ( (AggregationPropertyPath) other ).getType() ) {
+				return false;
+			}
+
+			List<PathedPropertyReferenceSource> nodes = path.getNodes();
+			List<PathedPropertyReferenceSource> otherNodes = other.getNodes();
+			if ( nodes.size() != otherNodes.size() ) {
+				return false;
+			}
+
+			for ( int i = 0; i < nodes.size(); i++ ) {
+				if ( !isEqual( nodes.get( i ).getName(), otherNodes.get( i ).getName() )
+						|| nodes.get( i ).isAlias() != otherNodes.get( i ).isAlias() ) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean isEqual(String text, String other) {
+			return text == null ? other == null : text.equals( other );
+		}
+	}
+
+	private static class Decoder {
+
+		private final CompactDataInput input;
+
+		/**
+		 * The decoded nodes by number; {@code null} for nodes whose decoding is not complete yet
+		 */
+		private final List<CommonTree> nodes = new ArrayList<CommonTree>();
+
+		/**
+		 * The sizes of the decoded sub-trees by number
+		 */
+		private final List<Integer> sizes = new ArrayList<Integer>();
+
+		private int decodedNodeCount = 0;
+
+		private Decoder(CompactDataInput input) {
+			this.input = input;
+		}
+
+		private CommonTree decode(int depth) {
+			if ( depth > MAX_DEPTH ) {
+				throw log.getInvalidEncodedDataException( "tree is deeper than " + MAX_DEPTH + " levels" );
+			}
+
+			int kind = input.readVarInt();
+			if ( kind == SHARED_NODE ) {
+				int number = input.readVarInt();
+				if ( number >= nodes.size() || nodes.get( number ) == null ) {
+					throw log.getInvalidEncodedDataException( "reference to unknown node " + number );
+				}
+				countNodes( sizes.get( number ) );
+				return copy( nodes.get( number ) );
+			}
+
+			countNodes( 1 );
+			int firstNode = decodedNodeCount;
+
+			CommonTree tree;
+			int number = nodes.size();
+
+			if ( kind == NIL_NODE ) {
+				tree = new HibernateTree();
+			}
+			else {
+				int type = input.readSignedVarInt();
+				String text = input.readString();
+
+				if ( kind == NODE ) {
+					tree = new HibernateTree( new HibernateToken( type, text ) );
+				}
+				else if ( kind == ENTITY_NAME_NODE ) {
+					tree = decodeEntityNameTree( type, text );
+				}
+				else if ( kind == PROPERTY_PATH_NODE ) {
+					tree = new PropertyPathTree( type, new HibernateTree( new HibernateToken( type, text ) ), decodePropertyPath() );
+				}
+				else {
+					throw log.getInvalidEncodedDataException( "unknown node kind " + kind );
+				}
+
+				// reserve the number; the node can be referenced once complete
+				nodes.add( null );
+				sizes.add( null );
+			}
+
+			int childCount = input.readCount();
+			for ( int i = 0; i < childCount; i++ ) {
+				tree.addChild( decode( depth + 1 ) );
+			}
+
+			if ( kind != NIL_NODE ) {
+				nodes.set( number, tree );
+				sizes.set( number, decodedNodeCount - firstNode + 1 );
+			}
+
+			return tree;
+		}
+
+		private void countNodes(int count) {
+			decodedNodeCount += count;
+			if ( decodedNodeCount > MAX_NODES ) {
+				throw log.getInvalidEncodedDataException( "tree has more than " + MAX_NODES + " nodes" );
+			}
+		}
+
+		private EntityNameTree decodeEntityNameTree(int type, String text) {
+			int entityCount = input.readCount();
+			List<String> entityNames = new ArrayList<String>( entityCount );
+			for ( int i = 0; i < entityCount; i++ ) {
+				entityNames.add( input.readString() );
+			}
+			String outputText = input.readString();
+			if ( outputText == null ) {
+				throw log.getInvalidEncodedDataException( "missing entity name" );
+			}
+
+			EntityNameTree tree = new EntityNameTree( type, new HibernateToken( type, text ), text, entityNames );
+			return new EntityNameTree( tree, outputText );
+		}
+
+		private PropertyPath decodePropertyPath() {
+			int aggregationType = input.readVarInt();
+			if ( aggregationType > AGGREGATION_TYPES.length ) {
+				throw log.getInvalidEncodedDataException( "unknown aggregation type " + aggregationType );
+			}
+
+			PropertyPath propertyPath = new PropertyPath();
+			int nodeCount = input.readCount();
+			for ( int i = 0; i < nodeCount; i++ ) {
+				String name = input.readString();
+				propertyPath.appendNode( new PathedPropertyReference( name, null, input.readBoolean() ) );
+			}
+
+			return aggregationType == 0 ? propertyPath : new AggregationPropertyPath( AGGREGATION_TYPES[aggregationType - 1], propertyPath );
+		}
+
+		/**
+		 * Creates a deep copy of the given decoded tree, retaining the node types.
+		 */
+		private CommonTree copy(CommonTree tree) {
+			CommonTree copy;
+
+			if ( tree instanceof EntityNameTree ) {
+				copy = new EntityNameTree( (EntityNameTree) tree, tree.toString() );
+			}
+			else if ( tree instanceof PropertyPathTree ) {
+				PropertyPath propertyPath = ( (PropertyPathTree) tree ).getPropertyPath();
+				PropertyPath propertyPathCopy = propertyPath instanceof AggregationPropertyPath ?
+						new AggregationPropertyPath( ( (AggregationPropertyPath) propertyPath ).getType(), propertyPath ) :
+						new PropertyPath( propertyPath );
+				copy = new PropertyPathTree( tree.getType(), tree, propertyPathCopy );
+			}
+			else {
+				copy = new HibernateTree( tree );
+			}
+
+			for ( int i = 0; i < tree.getChildCount(); i++ ) {
+				copy.addChild( copy( (CommonTree) tree.getChild( i ) ) );
+			}
+
+			return copy;
+		}
+	}
+}
@@ -22,7 +22,6 @@
 
 import java.util.List;
 
-import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.Token;
 import org.hibernate.hql.ast.common.HibernateTree;
 
@@ -32,24 +31,17 @@ public class EntityNameTree extends HibernateTree {
 	private String outputText = null;
 
 	public EntityNameTree(EntityNameTree entityNameTree, String outputText) {
-		super( entityNameTree.getToken() );
+		super( entityNameTree );
+		this.entityNames = entityNameTree.entityNames;
 		this.outputText = outputText;
 	}
 
 	public EntityNameTree(int tokenType, Token token, String tokenText,
 			List entityNames) {
-		super( token );
-		Token newToken = createToken( token );
-		newToken.setType( tokenType );
-		newToken.setText( tokenText );
-		this.token = newToken;
+		super( tokenType, token, tokenText );
 		this.entityNames = entityNames;
 	}
 
-	private Token createToken(Token fromToken) {
-		return new CommonToken(fromToken);
-	}
-
 	public int getEntityCount() {
 		return entityNames.size();
 	}
@@ -0,0 +1,332 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.tree.AstCodec;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * A cache of parse trees kept in a memory-mapped file, which can be shared by all the JVMs running on one host. Parse
+ * trees created by one process thus can be used by the others, without lexing and parsing the query again and without
+ * keeping the trees on the heap. Set the cache via {@link org.hibernate.hql.QueryParser.Builder#parseCache(SharedParseCache)}.
+ * <p>
+ * The file is an open-addressing hash table of fixed-size slots, keyed by a 64 bit fingerprint of the query string.
+ * Each slot holds the query string and its parse tree as encoded by {@link AstCodec}; entries not fitting into a slot
+ * are not cached. If all the slots a query may be stored in are occupied, one of them is evicted following the clock
+ * algorithm: slots which have been read since the hand of the clock passed them last get a second chance.
+ * <p>
+ * No locks are taken, neither within one process nor across processes. Writers invalidate a slot before updating it
+ * and publish the new fingerprint last, readers validate the entry via a checksum and the stored query string. Entries
+ * which are incomplete or have been garbled by concurrent writers thus are never returned but treated as cache misses.
+ * <p>
+ * Caches are thread-safe.
+ */
+public final class SharedParseCache {
+
+	/**
+	 * "HQLS"
+	 */
+	static final int MAGIC = 0x48514C53;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 64;
+
+	static final int SLOT_HEADER_SIZE = 24;
+
+	/**
+	 * The number of slots a query may be stored in, starting from the slot its fingerprint is mapped to
+	 */
+	static final int MAX_PROBES = 8;
+
+	private static final int MAGIC_POSITION = 0;
+	private static final int VERSION_POSITION = 4;
+	private static final int SLOT_COUNT_POSITION = 8;
+	private static final int SLOT_SIZE_POSITION = 12;
+	private static final int CLOCK_HAND_POSITION = 16;
+
+	private static final int FINGERPRINT_OFFSET = 0;
+	private static final int LENGTH_OFFSET = 8;
+	private static final int CHECKSUM_OFFSET = 12;
+	private static final int REFERENCED_OFFSET = 16;
+
+	private static final long EMPTY = 0L;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final Log log = LoggerFactory.make();
+
+	private final MappedByteBuffer data;
+	private final int slotCount;
+	private final int slotSize;
+
+	private SharedParseCache(MappedByteBuffer data, int slotCount, int slotSize) {
+		this.data = data;
+		this.slotCount = slotCount;
+		this.slotSize = slotSize;
+	}
+
+	/**
+	 * Opens the given cache file, creating it if it doesn't exist yet. All processes sharing a cache file must open it
+	 * with the same number and size of slots.
+	 *
+	 * @param cacheFile the cache file
+	 * @param slotCount the number of slots, i.e. the maximum number of cached queries
+	 * @param slotSize the size of the slots in bytes, bounding the size of cacheable queries and their parse trees
+	 * @return a cache backed by the given file
+	 * @throws IOException in case the file can't be opened or has been created with another slot count or size
+	 */
+	public static SharedParseCache open(Path cacheFile, int slotCount, int slotSize) throws IOException {
+		if ( slotCount <= 0 || slotSize <= SLOT_HEADER_SIZE || (long) slotCount * slotSize > Integer.MAX_VALUE - HEADER_SIZE ) {
+			throw log.getInvalidParseCacheSizeException( slotCount, slotSize, SLOT_HEADER_SIZE );
+		}
+
+		long fileSize = HEADER_SIZE + (long) slotCount * slotSize;
+		MappedByteBuffer data;
+
+		FileChannel channel = FileChannel.open( cacheFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		try {
+			long size = channel.size();
+			if ( size != 0 && size != fileSize ) {
+				throw log.getIncompatibleParseCacheFileException( cacheFile.toString(), slotCount, slotSize );
+			}
+
+			// extends a new file to the required size; the mapping remains valid after closing the channel
+			data = channel.map( MapMode.READ_WRITE, 0, fileSize );
+		}
+		finally {
+			channel.close();
+		}
+
+		// new file, possibly being initialized by another process concurrently, which writes the same header
+		if ( data.getInt( MAGIC_POSITION ) == 0 ) {
+			data.putInt( VERSION_POSITION, VERSION );
+			data.putInt( SLOT_COUNT_POSITION, slotCount );
+			data.putInt( SLOT_SIZE_POSITION, slotSize );
+			data.putInt( MAGIC_POSITION, MAGIC );
+		}
+
+		if ( data.getInt( MAGIC_POSITION ) != MAGIC || data.getInt( VERSION_POSITION ) != VERSION
+				|| data.getInt( SLOT_COUNT_POSITION ) != slotCount || data.getInt( SLOT_SIZE_POSITION ) != slotSize ) {
+			throw log.getIncompatibleParseCacheFileException( cacheFile.toString(), slotCount, slotSize );
+		}
+
+		return new SharedParseCache( data, slotCount, slotSize );
+	}
+
+	/**
+	 * Returns the cached parse tree of the given query.
+	 *
+	 * @param queryString the query string
+	 * @return a new instance of the parse tree of the given query or {@code null} if it is not cached
+	 */
+	public CommonTree get(String queryString) {
+		long fingerprint = getFingerprint( queryString );
+		int firstSlot = getFirstSlot( fingerprint );
+
+		for ( int i = 0; i < MAX_PROBES; i++ ) {
+			int slot = getSlotOffset( firstSlot, i );
+			long slotFingerprint = data.getLong( slot + FINGERPRINT_OFFSET );
+
+			if ( slotFingerprint == fingerprint ) {
+				CommonTree parseTree = read( slot, fingerprint, queryString );
+				if ( parseTree != null ) {
+					return parseTree;
+				}
+			}
+			else if ( slotFingerprint == EMPTY ) {
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Stores the given parse tree of the given query, evicting another entry if required. Nothing is stored if the
+	 * query and its encoded parse tree don't fit into one slot.
+	 *
+	 * @param queryString the query string
+	 * @param parseTree the parse tree of the given query
+	 */
+	public void put(String queryString, CommonTree parseTree) {
+		byte[] key = queryString.getBytes( StandardCharsets.UTF_8 );
+		byte[] encodedTree = AstCodec.encode( parseTree );
+
+		int length = 4 + key.length + encodedTree.length;
+		if ( length > slotSize - SLOT_HEADER_SIZE ) {
+			return;
+		}
+
+		ByteBuffer payload = ByteBuffer.allocate( length );
+		payload.putInt( key.length );
+		payload.put( key );
+		payload.put( encodedTree );
+
+		long fingerprint = getFingerprint( queryString );
+		int slot = getTargetSlot( fingerprint );
+
+		// invalidate the slot, so readers don't pick up the entry while it is being updated
+		data.putLong( slot + FINGERPRINT_OFFSET, EMPTY );
+
+		ByteBuffer slotData = data.duplicate();
+		slotData.position( slot + SLOT_HEADER_SIZE );
+		slotData.put( payload.array() );
+
+		data.putInt( slot + LENGTH_OFFSET, length );
+		data.putInt( slot + CHECKSUM_OFFSET, getChecksum( payload.array(), length ) );
+		// new entries earn their second chance by being read
+		data.put( slot + REFERENCED_OFFSET, (byte) 0 );
+
+		// publish the entry
+		data.putLong( slot + FINGERPRINT_OFFSET, fingerprint );
+	}
+
+	/**
+	 * Returns the number of slots of this cache.
+	 *
+	 * @return the number of slots of this cache
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	private CommonTree read(int slot, long fingerprint, String queryString) {
+		int length = data.getInt( slot + LENGTH_OFFSET );
+		int checksum = data.getInt( slot + CHECKSUM_OFFSET );
+		if ( length < 4 || length > slotSize - SLOT_HEADER_SIZE ) {
+			return null;
+		}
+
+		byte[] payload = new byte[length];
+		ByteBuffer slotData = data.duplicate();
+		slotData.position( slot + SLOT_HEADER_SIZE );
+		slotData.get( payload );
+
+		// the entry has been replaced or garbled while copying it
+		if ( data.getLong( slot + FINGERPRINT_OFFSET ) != fingerprint || getChecksum( payload, length ) != checksum ) {
+			return null;
+		}
+
+		ByteBuffer entry = ByteBuffer.wrap( payload );
+		int keyLength = entry.getInt();
+		if ( keyLength < 0 || keyLength > entry.remaining() ) {
+			return null;
+		}
+
+		// fingerprint collision
+		if ( !queryString.equals( new String( payload, 4, keyLength, StandardCharsets.UTF_8 ) ) ) {
+			return null;
+		}
+
+		entry.position( 4 + keyLength );
+		CommonTree parseTree;
+		try {
+			parseTree = AstCodec.decode( entry );
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+
+		// avoid dirtying the page if the slot is marked already
+		if ( data.get( slot + REFERENCED_OFFSET ) == 0 ) {
+			data.put( slot + REFERENCED_OFFSET, (byte) 1 );
+		}
+
+		return parseTree;
+	}
+
+	/**
+	 * Returns the slot to store the entry with the given fingerprint in: a free slot, the slot holding an entry with
+	 * the same fingerprint or the slot chosen for eviction by the clock.
+	 */
+	private int getTargetSlot(long fingerprint) {
+		int firstSlot = getFirstSlot( fingerprint );
+
+		for ( int i = 0; i < MAX_PROBES; i++ ) {
+			int slot = getSlotOffset( firstSlot, i );
+			long slotFingerprint = data.getLong( slot + FINGERPRINT_OFFSET );
+
+			if ( slotFingerprint == EMPTY || slotFingerprint == fingerprint ) {
+				return slot;
+			}
+		}
+
+		// advancing the hand is not atomic; processes racing here merely start from the same position
+		int hand = data.getInt( CLOCK_HAND_POSITION );
+		data.putInt( CLOCK_HAND_POSITION, hand + 1 );
+
+		// after one round, all the referenced slots have been cleared
+		for ( int i = 0; i < 2 * MAX_PROBES; i++ ) {
+			int slot = getSlotOffset( firstSlot, ( ( hand + i ) & Integer.MAX_VALUE ) % MAX_PROBES );
+
+			if ( data.get( slot + REFERENCED_OFFSET ) == 0 ) {
+				return slot;
+			}
+
+			data.put( slot + REFERENCED_OFFSET, (byte) 0 );
+		}
+
+		return getSlotOffset( firstSlot, 0 );
+	}
+
+	private int getFirstSlot(long fingerprint) {
+		return (int) Long.remainderUnsigned( fingerprint, slotCount );
+	}
+
+	private int getSlotOffset(int firstSlot, int probe) {
+		return HEADER_SIZE + ( ( firstSlot + probe ) % slotCount ) * slotSize;
+	}
+
+	/**
+	 * Returns the FNV-1a hash of the given string, which - unlike {@link String#hashCode()} - has 64 bits. Never
+	 * returns {@link #EMPTY}.
+	 */
+	private static long getFingerprint(String queryString) {
+		long hash = FNV_OFFSET_BASIS;
+
+		for ( int i = 0; i < queryString.length(); i++ ) {
+			hash ^= queryString.charAt( i );
+			hash *= FNV_PRIME;
+		}
+
+		return hash == EMPTY ? 1L : hash;
+	}
+
+	private static int getChecksum(byte[] payload, int length) {
+		CRC32 crc = new CRC32();
+		crc.update( payload, 0, length );
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.catalog;
+
+import org.antlr.runtime.tree.CommonTree;
+
+/**
+ * A query of a {@link QueryCatalog}, comprising the query string and its parse tree as created at build time. It is
+ * processed via {@link org.hibernate.hql.QueryParser#processQuery(PrecompiledQuery, org.hibernate.hql.ast.spi.AstProcessingChain)},
+ * skipping lexing and parsing.
+ */
+public final class PrecompiledQuery {
+
+	private final String name;
+	private final String queryString;
+	private final CommonTree parseTree;
+
+	PrecompiledQuery(String name, String queryString, CommonTree parseTree) {
+		this.name = name;
+		this.queryString = queryString;
+		this.parseTree = parseTree;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getQueryString() {
+		return queryString;
+	}
+
+	/**
+	 * Returns the parse tree of this query. Each query obtained from the catalog has its own tree.
+	 *
+	 * @return the parse tree of this query
+	 */
+	public CommonTree getParseTree() {
+		return parseTree;
+	}
+
+	@Override
+	public String toString() {
+		return "PrecompiledQuery [name=" + name + ", queryString=" + queryString + "]";
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * Provides access to the queries of a catalog file created at build time by {@link QueryCatalogCompiler}. The file is
+ * memory-mapped; only the index of query names is read upon opening, and queries are decoded when being requested.
+ * So no query needs to be parsed at runtime.
+ * <p>
+ * Catalogs are thread-safe.
+ */
+public final class QueryCatalog {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final ByteBuffer data;
+	private final Map<String, Integer> offsets;
+
+	private QueryCatalog(ByteBuffer data, Map<String, Integer> offsets) {
+		this.data = data;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Opens the given catalog file.
+	 *
+	 * @param catalogFile the catalog file to open
+	 * @return a catalog with the queries of the given file
+	 * @throws IOException in case the file can't be read or isn't a valid catalog file
+	 */
+	public static QueryCatalog open(Path catalogFile) throws IOException {
+		MappedByteBuffer data;
+
+		FileChannel channel = FileChannel.open( catalogFile, StandardOpenOption.READ );
+		try {
+			// the mapping remains valid after closing the channel
+			data = channel.map( MapMode.READ_ONLY, 0, channel.size() );
+		}
+		finally {
+			channel.close();
+		}
+
+		if ( data.limit() < QueryCatalogFormat.INDEX_OFFSET_POSITION + 4 || data.getInt( 0 ) != QueryCatalogFormat.MAGIC ) {
+			throw log.getInvalidQueryCatalogFileException( catalogFile.toString() );
+		}
+		if ( data.getInt( 4 ) != QueryCatalogFormat.VERSION ) {
+			throw log.getUnsupportedQueryCatalogVersionException( catalogFile.toString(), data.getInt( 4 ), QueryCatalogFormat.VERSION );
+		}
+
+		int queryCount = data.getInt( 8 );
+		Map<String, Integer> offsets = new HashMap<String, Integer>( queryCount * 4 / 3 + 1 );
+
+		ByteBuffer index = data.duplicate();
+		index.position( data.getInt( QueryCatalogFormat.INDEX_OFFSET_POSITION ) );
+		for ( int i = 0; i < queryCount; i++ ) {
+			String name = QueryCatalogFormat.readString( index );
+			offsets.put( name, index.getInt() );
+		}
+
+		return new QueryCatalog( data, offsets );
+	}
+
+	/**
+	 * Returns the names of all queries of this catalog.
+	 *
+	 * @return the names of all queries of this catalog
+	 */
+	public Set<String> getQueryNames() {
+		return Collections.unmodifiableSet( offsets.keySet() );
+	}
+
+	/**
+	 * Returns the query with the given name.
+	 *
+	 * @param name the name of the query
+	 * @return the query with the given name or {@code null} if this catalog doesn't contain such query
+	 */
+	public PrecompiledQuery getQuery(String name) {
+		Integer offset = offsets.get( name );
+		if ( offset == null ) {
+			return null;
+		}
+
+		// each reader uses its own buffer position
+		ByteBuffer query = data.duplicate();
+		query.position( offset );
+
+		String queryString = QueryCatalogFormat.readString( query );
+		return new PrecompiledQuery( name, queryString, QueryCatalogFormat.readTree( query ) );
+	}
+}
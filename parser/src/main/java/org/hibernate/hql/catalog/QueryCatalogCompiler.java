@@ -0,0 +1,201 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.antlr.runtime.TokenStream;
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ParsingException;
+import org.hibernate.hql.QueryParser;
+import org.hibernate.hql.ast.spi.AstProcessingChain;
+import org.hibernate.hql.ast.spi.AstProcessor;
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * Compiles catalogs of named queries into a binary file to be loaded via {@link QueryCatalog}. Catalogs are given as
+ * properties files, mapping query names to query strings. All queries are parsed, and if any of them is invalid, a
+ * {@link ParsingException} listing all the errors is raised, so broken queries are detected at build time.
+ * <p>
+ * Meant to be invoked from the build, e.g. via {@code QueryCatalogTask} in Gradle, with the path of the file to create
+ * as first argument, followed by the paths of the catalog files.
+ */
+public final class QueryCatalogCompiler {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final QueryParser queryParser = new QueryParser();
+
+	public static void main(String... args) throws IOException {
+		if ( args.length < 2 ) {
+			throw new IllegalArgumentException( "Usage: QueryCatalogCompiler <output file> <catalog file>..." );
+		}
+
+		List<Path> catalogFiles = new ArrayList<Path>();
+		for ( int i = 1; i < args.length; i++ ) {
+			catalogFiles.add( Paths.get( args[i] ) );
+		}
+
+		new QueryCatalogCompiler().compile( catalogFiles, Paths.get( args[0] ) );
+	}
+
+	/**
+	 * Compiles the given catalog files into one binary catalog file.
+	 *
+	 * @param catalogFiles properties files mapping query names to query strings
+	 * @param outputFile the binary catalog file to create
+	 * @throws IOException in case a file can't be read or written
+	 * @throws ParsingException in case any of the queries is invalid or a query name is used more than once
+	 */
+	public void compile(List<Path> catalogFiles, Path outputFile) throws IOException {
+		Map<String, String> queries = new LinkedHashMap<String, String>();
+		List<String> errors = new ArrayList<String>();
+
+		for ( Path catalogFile : catalogFiles ) {
+			Properties properties = new Properties();
+			InputStream input = Files.newInputStream( catalogFile );
+			try {
+				properties.load( input );
+			}
+			finally {
+				input.close();
+			}
+
+			for ( String name : properties.stringPropertyNames() ) {
+				if ( queries.put( name, properties.getProperty( name ) ) != null ) {
+					errors.add( name + " (" + catalogFile + "): Query is defined more than once" );
+				}
+			}
+		}
+
+		compile( queries, outputFile, errors );
+	}
+
+	/**
+	 * Compiles the given queries into a binary catalog file.
+	 *
+	 * @param queries the queries to compile, keyed by name
+	 * @param outputFile the binary catalog file to create
+	 * @throws IOException in case the file can't be written
+	 * @throws ParsingException in case any of the queries is invalid
+	 */
+	public void compile(Map<String, String> queries, Path outputFile) throws IOException {
+		compile( queries, outputFile, new ArrayList<String>() );
+	}
+
+	private void compile(Map<String, String> queries, Path outputFile, List<String> errors) throws IOException {
+		// sorted by name, for a reproducible output
+		Map<String, CommonTree> parseTrees = new TreeMap<String, CommonTree>();
+
+		for ( Entry<String, String> query : queries.entrySet() ) {
+			try {
+				parseTrees.put( query.getKey(), queryParser.parseQuery( query.getValue(), new ParseTreeCapturingChain() ) );
+			}
+			catch (ParsingException e) {
+				errors.add( query.getKey() + ": " + e.getMessage() );
+			}
+		}
+
+		if ( !errors.isEmpty() ) {
+			StringBuilder message = new StringBuilder();
+			for ( String error : errors ) {
+				message.append( System.lineSeparator() ).append( "  " ).append( error );
+			}
+			throw log.getInvalidQueryCatalogException( message.toString() );
+		}
+
+		write( queries, parseTrees, outputFile );
+	}
+
+	private void write(Map<String, String> queries, Map<String, CommonTree> parseTrees, Path outputFile) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream( bytes );
+
+		output.writeInt( QueryCatalogFormat.MAGIC );
+		output.writeInt( QueryCatalogFormat.VERSION );
+		output.writeInt( parseTrees.size() );
+		// index offset, set below
+		output.writeInt( 0 );
+
+		Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+		for ( Entry<String, CommonTree> parseTree : parseTrees.entrySet() ) {
+			offsets.put( parseTree.getKey(), output.size() );
+			QueryCatalogFormat.writeString( output, queries.get( parseTree.getKey() ) );
+			QueryCatalogFormat.writeTree( output, parseTree.getValue() );
+		}
+
+		int indexOffset = output.size();
+		for ( Entry<String, Integer> offset : offsets.entrySet() ) {
+			QueryCatalogFormat.writeString( output, offset.getKey() );
+			output.writeInt( offset.getValue() );
+		}
+		output.flush();
+
+		ByteBuffer catalog = ByteBuffer.wrap( bytes.toByteArray() );
+		catalog.putInt( QueryCatalogFormat.INDEX_OFFSET_POSITION, indexOffset );
+
+		if ( outputFile.getParent() != null ) {
+			Files.createDirectories( outputFile.getParent() );
+		}
+		Files.write( outputFile, catalog.array() );
+	}
+
+	/**
+	 * Returns the tree created by the parser as result.
+	 */
+	private static class ParseTreeCapturingChain implements AstProcessingChain<CommonTree>, AstProcessor {
+
+		private CommonTree tree;
+
+		@Override
+		public Iterator<AstProcessor> iterator() {
+			return Collections.<AstProcessor>singletonList( this ).iterator();
+		}
+
+		@Override
+		public CommonTree process(TokenStream tokens, CommonTree tree) {
+			this.tree = tree;
+			return tree;
+		}
+
+		@Override
+		public CommonTree getResult() {
+			return tree;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.catalog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.tree.AstCodec;
+
+/**
+ * The binary format of query catalog files:
+ *
+ * <pre>
+ * catalog := MAGIC VERSION queryCount:int indexOffset:int query* index
+ * query   := queryString:string tree
+ * tree    := length:int encodedTree (see AstCodec)
+ * index   := (name:string queryOffset:int)*
+ * string  := length:int utf8Bytes | -1 (null)
+ * </pre>
+ */
+final class QueryCatalogFormat {
+
+	/**
+	 * "HQLC"
+	 */
+	static final int MAGIC = 0x48514C43;
+
+	static final int VERSION = 2;
+
+	/**
+	 * Offset of the index offset within the file
+	 */
+	static final int INDEX_OFFSET_POSITION = 12;
+
+	private QueryCatalogFormat() {
+	}
+
+	static void writeTree(DataOutputStream output, CommonTree tree) throws IOException {
+		byte[] encodedTree = AstCodec.encode( tree );
+		output.writeInt( encodedTree.length );
+		output.write( encodedTree );
+	}
+
+	static CommonTree readTree(ByteBuffer input) {
+		int length = input.getInt();
+
+		ByteBuffer encodedTree = input.slice();
+		encodedTree.limit( length );
+		input.position( input.position() + length );
+
+		return AstCodec.decode( encodedTree );
+	}
+
+	static void writeString(DataOutputStream output, String string) throws IOException {
+		if ( string == null ) {
+			output.writeInt( -1 );
+		}
+		else {
+			byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+			output.writeInt( bytes.length );
+			output.write( bytes );
+		}
+	}
+
+	static String readString(ByteBuffer input) {
+		int length = input.getInt();
+		if ( length == -1 ) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		input.get( bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+}
@@ -20,10 +20,14 @@
  */
 package org.hibernate.hql.internal.logging;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.antlr.runtime.RecognitionException;
 import org.hibernate.hql.ParsingException;
+import org.hibernate.hql.QueryCancelledException;
+import org.hibernate.hql.QueryDeadlineExceededException;
+import org.hibernate.hql.QueryLimitExceededException;
 import org.hibernate.hql.ast.spi.predicate.Predicate;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Cause;
@@ -67,4 +71,52 @@ public interface Log extends BasicLogger {
 
 	@Message(id = 10, value = "%s aggregation can only be applied to property references.")
 	ParsingException getAggregationCanOnlyBeAppliedToPropertyReferencesException(String aggregationType);
+
+	@Message(id = 11, value = "The query is not valid; Syntax error at line %d:%d: %s.")
+	ParsingException getSyntaxErrorException(int line, int charPositionInLine, String description);
+
+	@Message(id = 12, value = "The query exceeds the maximum number of %d tokens.")
+	QueryLimitExceededException getTooManyTokensException(int maxTokens);
+
+	@Message(id = 13, value = "The query exceeds the maximum nesting depth of %d.")
+	QueryLimitExceededException getNestingTooDeepException(int maxNestingDepth);
+
+	@Message(id = 14, value = "The query contains a list with more than %d elements.")
+	QueryLimitExceededException getListTooLargeException(int maxListSize);
+
+	@Message(id = 15, value = "The query exceeds the maximum number of %d predicates.")
+	QueryLimitExceededException getTooManyPredicatesException(int maxPredicates);
+
+	@Message(id = 16, value = "Parsing of the query has been cancelled.")
+	QueryCancelledException getQueryCancelledException();
+
+	@Message(id = 17, value = "Parsing of the query has exceeded its deadline of %d ms.")
+	QueryDeadlineExceededException getQueryDeadlineExceededException(long timeoutMillis);
+
+	@Message(id = 18, value = "The query catalog contains invalid queries:%s")
+	ParsingException getInvalidQueryCatalogException(String errors);
+
+	@Message(id = 19, value = "%s is not a valid query catalog file.")
+	IOException getInvalidQueryCatalogFileException(String file);
+
+	@Message(id = 20, value = "The query catalog file %s has format version %d, but only version %d is supported.")
+	IOException getUnsupportedQueryCatalogVersionException(String file, int version, int supportedVersion);
+
+	@Message(id = 21, value = "The encoded data is invalid: %s.")
+	IllegalArgumentException getInvalidEncodedDataException(String description);
+
+	@Message(id = 22, value = "The encoded data has format version %d, but only version %d is supported.")
+	IllegalArgumentException getUnsupportedEncodingVersionException(int version, int supportedVersion);
+
+	@Message(id = 23, value = "Values of type %s can not be encoded.")
+	IllegalArgumentException getUnsupportedValueTypeForEncodingException(String type);
+
+	@Message(id = 24, value = "%s is not a parse cache file with %d slots of %d bytes.")
+	IOException getIncompatibleParseCacheFileException(String file, int slotCount, int slotSize);
+
+	@Message(id = 25, value = "A parse cache with %d slots of %d bytes can't be created; at least one slot with more than %d bytes and a total size of at most 2 GB are required.")
+	IllegalArgumentException getInvalidParseCacheSizeException(int slotCount, int slotSize, int slotHeaderSize);
+
+	@Message(id = 26, value = "The %s is deeper than %d levels and can't be encoded.")
+	IllegalArgumentException getTooDeepToEncodeException(String structure, int maxDepth);
 }
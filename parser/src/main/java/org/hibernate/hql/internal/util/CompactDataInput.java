@@ -0,0 +1,175 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.internal.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.hql.internal.logging.Log;
+import org.hibernate.hql.internal.logging.LoggerFactory;
+
+/**
+ * Reads data written by {@link CompactDataOutput}. The data is validated while reading, so corrupt data results in an
+ * {@link IllegalArgumentException} rather than in arbitrary errors or excessive allocations.
+ */
+public final class CompactDataInput {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final ByteBuffer data;
+	private final List<String> strings = new ArrayList<String>();
+
+	/**
+	 * Creates an input reading the remaining bytes of the given buffer. The position of the buffer is advanced while
+	 * reading.
+	 *
+	 * @param data the buffer to read from
+	 */
+	public CompactDataInput(ByteBuffer data) {
+		this.data = data;
+	}
+
+	public CompactDataInput(byte[] data) {
+		this( ByteBuffer.wrap( data ) );
+	}
+
+	public int readByte() {
+		if ( !data.hasRemaining() ) {
+			throw log.getInvalidEncodedDataException( "unexpected end of data" );
+		}
+
+		return data.get() & 0xFF;
+	}
+
+	public boolean readBoolean() {
+		int value = readByte();
+		if ( value > 1 ) {
+			throw log.getInvalidEncodedDataException( "invalid boolean value " + value );
+		}
+
+		return value == 1;
+	}
+
+	public int readVarInt() {
+		int value = 0;
+
+		for ( int shift = 0; shift < 35; shift += 7 ) {
+			int b = readByte();
+			value |= ( b & 0x7F ) << shift;
+
+			if ( ( b & 0x80 ) == 0 ) {
+				if ( value < 0 ) {
+					throw log.getInvalidEncodedDataException( "invalid unsigned integer value" );
+				}
+				return value;
+			}
+		}
+
+		throw log.getInvalidEncodedDataException( "integer value exceeds 32 bits" );
+	}
+
+	public int readSignedVarInt() {
+		int zigZag = 0;
+
+		for ( int shift = 0; shift < 35; shift += 7 ) {
+			int b = readByte();
+			zigZag |= ( b & 0x7F ) << shift;
+
+			if ( ( b & 0x80 ) == 0 ) {
+				return ( zigZag >>> 1 ) ^ -( zigZag & 1 );
+			}
+		}
+
+		throw log.getInvalidEncodedDataException( "integer value exceeds 32 bits" );
+	}
+
+	public long readSignedVarLong() {
+		long zigZag = 0;
+
+		for ( int shift = 0; shift < 70; shift += 7 ) {
+			long b = readByte();
+			zigZag |= ( b & 0x7F ) << shift;
+
+			if ( ( b & 0x80 ) == 0 ) {
+				return ( zigZag >>> 1 ) ^ -( zigZag & 1 );
+			}
+		}
+
+		throw log.getInvalidEncodedDataException( "long value exceeds 64 bits" );
+	}
+
+	public double readDouble() {
+		if ( data.remaining() < 8 ) {
+			throw log.getInvalidEncodedDataException( "unexpected end of data" );
+		}
+
+		return data.getDouble();
+	}
+
+	public String readString() {
+		int marker = readVarInt();
+
+		if ( marker == CompactDataOutput.NULL_STRING ) {
+			return null;
+		}
+		else if ( marker == CompactDataOutput.NEW_STRING ) {
+			int length = readVarInt();
+			if ( length > data.remaining() ) {
+				throw log.getInvalidEncodedDataException( "string length " + length + " exceeds the remaining data" );
+			}
+
+			byte[] bytes = new byte[length];
+			data.get( bytes );
+
+			String value = new String( bytes, StandardCharsets.UTF_8 );
+			strings.add( value );
+			return value;
+		}
+		else {
+			int number = marker - CompactDataOutput.NEW_STRING - 1;
+			if ( number >= strings.size() ) {
+				throw log.getInvalidEncodedDataException( "reference to unknown string " + number );
+			}
+
+			return strings.get( number );
+		}
+	}
+
+	/**
+	 * Reads a count of elements each taking at least one byte, making sure it doesn't exceed the remaining data.
+	 *
+	 * @return the count
+	 */
+	public int readCount() {
+		int count = readVarInt();
+		if ( count > data.remaining() ) {
+			throw log.getInvalidEncodedDataException( "element count " + count + " exceeds the remaining data" );
+		}
+
+		return count;
+	}
+
+	public boolean hasRemaining() {
+		return data.hasRemaining();
+	}
+}
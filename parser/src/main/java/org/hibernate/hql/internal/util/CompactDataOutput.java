@@ -0,0 +1,139 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.internal.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes data in a compact binary form: integers are written as variable-length quantities (7 bits per byte), signed
+ * ones zig-zag encoded, so small values take one byte. Strings are interned, i.e. a string occurring repeatedly is
+ * written once and then referenced by its number. Read via {@link CompactDataInput}.
+ */
+public final class CompactDataOutput {
+
+	/**
+	 * Marks a {@code null} string
+	 */
+	static final int NULL_STRING = 0;
+
+	/**
+	 * Marks a string written for the first time; references to previously written strings are represented by their
+	 * number plus this value plus one
+	 */
+	static final int NEW_STRING = 1;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+	private byte[] buffer = new byte[INITIAL_CAPACITY];
+	private int size = 0;
+
+	public void writeByte(int value) {
+		ensureCapacity( 1 );
+		buffer[size++] = (byte) value;
+	}
+
+	public void writeBoolean(boolean value) {
+		writeByte( value ? 1 : 0 );
+	}
+
+	/**
+	 * Writes the given non-negative value.
+	 *
+	 * @param value the value to write; must not be negative
+	 */
+	public void writeVarInt(int value) {
+		ensureCapacity( 5 );
+		while ( ( value & ~0x7F ) != 0 ) {
+			buffer[size++] = (byte) ( ( value & 0x7F ) | 0x80 );
+			value >>>= 7;
+		}
+		buffer[size++] = (byte) value;
+	}
+
+	public void writeSignedVarInt(int value) {
+		writeVarInt( ( value << 1 ) ^ ( value >> 31 ) );
+	}
+
+	public void writeSignedVarLong(long value) {
+		long zigZag = ( value << 1 ) ^ ( value >> 63 );
+
+		ensureCapacity( 10 );
+		while ( ( zigZag & ~0x7FL ) != 0 ) {
+			buffer[size++] = (byte) ( ( zigZag & 0x7F ) | 0x80 );
+			zigZag >>>= 7;
+		}
+		buffer[size++] = (byte) zigZag;
+	}
+
+	public void writeDouble(double value) {
+		long bits = Double.doubleToLongBits( value );
+
+		ensureCapacity( 8 );
+		for ( int i = 56; i >= 0; i -= 8 ) {
+			buffer[size++] = (byte) ( bits >>> i );
+		}
+	}
+
+	/**
+	 * Writes the given string, or a reference to it if it has been written before.
+	 *
+	 * @param value the string to write; may be {@code null}
+	 */
+	public void writeString(String value) {
+		if ( value == null ) {
+			writeVarInt( NULL_STRING );
+			return;
+		}
+
+		Integer number = strings.get( value );
+		if ( number != null ) {
+			writeVarInt( number + NEW_STRING + 1 );
+			return;
+		}
+
+		strings.put( value, strings.size() );
+
+		byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+		writeVarInt( NEW_STRING );
+		writeVarInt( bytes.length );
+		ensureCapacity( bytes.length );
+		System.arraycopy( bytes, 0, buffer, size, bytes.length );
+		size += bytes.length;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf( buffer, size );
+	}
+
+	private void ensureCapacity(int additionalBytes) {
+		if ( size + additionalBytes > buffer.length ) {
+			buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, size + additionalBytes ) );
+		}
+	}
+}
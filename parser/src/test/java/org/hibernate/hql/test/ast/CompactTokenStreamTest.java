@@ -0,0 +1,133 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.test.ast;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.antlr.runtime.Token;
+import org.hibernate.hql.ast.common.CharSequenceStream;
+import org.hibernate.hql.ast.common.CompactTokenStream;
+import org.hibernate.hql.ast.common.HibernateToken;
+import org.hibernate.hql.ast.common.SoftKeyword;
+import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CompactTokenStream}.
+ */
+public class CompactTokenStreamTest {
+
+	@Test
+	public void shouldDropOffChannelTokens() {
+		CompactTokenStream tokens = tokenStream( "from   Foo f\n where f.name = 'bar'" );
+		tokens.fill();
+
+		// from, Foo, f, where, f, ., name, =, 'bar', EOF
+		assertThat( tokens.size() ).isEqualTo( 10 );
+		for ( int i = 0; i < tokens.size(); i++ ) {
+			assertThat( tokens.get( i ).getChannel() ).isEqualTo( Token.DEFAULT_CHANNEL );
+			assertThat( tokens.get( i ).getTokenIndex() ).isEqualTo( i );
+		}
+		assertThat( tokens.get( tokens.size() - 1 ).getType() ).isEqualTo( Token.EOF );
+	}
+
+	@Test
+	public void shouldProvideTokenViews() {
+		CompactTokenStream tokens = tokenStream( "from Foo f\nwhere f.name = 'bar'" );
+
+		assertThat( tokens.LT( 2 ).getText() ).isEqualTo( "Foo" );
+		assertThat( tokens.LT( 2 ) ).isSameAs( tokens.LT( 2 ) );
+
+		Token where = tokens.LT( 4 );
+		assertThat( where.getText() ).isEqualTo( "where" );
+		assertThat( where.getLine() ).isEqualTo( 2 );
+		assertThat( where.getCharPositionInLine() ).isEqualTo( 0 );
+
+		// text set by the lexer is retained
+		assertThat( tokens.LT( 9 ).getText() ).isEqualTo( "bar" );
+	}
+
+	@Test
+	public void shouldProvideTextOfEofToken() {
+		CompactTokenStream tokens = tokenStream( "from Foo f" );
+		tokens.fill();
+
+		Token eof = tokens.get( tokens.size() - 1 );
+		assertThat( eof.getType() ).isEqualTo( Token.EOF );
+		assertThat( eof.getText() ).isEqualTo( "<EOF>" );
+	}
+
+	@Test
+	public void shouldNotFetchTokensBeyondRequestedRange() {
+		CompactTokenStream tokens = tokenStream( "from Foo f where f.name = 'bar' and f.weight > 10" );
+
+		assertThat( tokens.toString( 0, 1 ) ).isEqualTo( "from Foo" );
+		assertThat( tokens.size() ).isEqualTo( 2 );
+	}
+
+	@Test
+	public void shouldRetainSoftKeywordClassification() {
+		CompactTokenStream tokens = tokenStream( "from Foo f order by f.name" );
+
+		assertThat( ( (HibernateToken) tokens.LT( 4 ) ).getSoftKeyword() ).isEqualTo( SoftKeyword.ORDER );
+		assertThat( ( (HibernateToken) tokens.LT( 5 ) ).getSoftKeyword() ).isEqualTo( SoftKeyword.BY );
+		assertThat( ( (HibernateToken) tokens.LT( 2 ) ).getSoftKeyword() ).isNull();
+	}
+
+	@Test
+	public void shouldRestoreOffChannelTextInRanges() {
+		CompactTokenStream tokens = tokenStream( "from Foo f order   by f.name" );
+
+		assertThat( tokens.toString( 3, 4 ) ).isEqualTo( "order   by" );
+		assertThat( tokens.toString( tokens.LT( 1 ), tokens.LT( 3 ) ) ).isEqualTo( "from Foo f" );
+	}
+
+	@Test
+	public void shouldDetectUnconsumedTokens() {
+		CompactTokenStream tokens = tokenStream( "from Foo" );
+
+		tokens.consume();
+		assertThat( tokens.hasUnconsumedTokens() ).isTrue();
+
+		tokens.consume();
+		assertThat( tokens.hasUnconsumedTokens() ).isFalse();
+		assertThat( tokens.LA( 1 ) ).isEqualTo( Token.EOF );
+	}
+
+	@Test
+	public void shouldSupportMarkAndRewind() {
+		CompactTokenStream tokens = tokenStream( "from Foo f" );
+
+		int marker = tokens.mark();
+		tokens.consume();
+		tokens.consume();
+		assertThat( tokens.LT( 1 ).getText() ).isEqualTo( "f" );
+		assertThat( tokens.LT( -1 ).getText() ).isEqualTo( "Foo" );
+
+		tokens.rewind( marker );
+		assertThat( tokens.LT( 1 ).getText() ).isEqualTo( "from" );
+		assertThat( tokens.LT( -1 ) ).isNull();
+	}
+
+	private CompactTokenStream tokenStream(String query) {
+		return new CompactTokenStream( new HQLLexer( new CharSequenceStream( query ) ) );
+	}
+}
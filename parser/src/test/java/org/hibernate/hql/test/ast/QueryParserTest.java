@@ -20,13 +20,45 @@
  */
 package org.hibernate.hql.test.ast;
 
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeAdaptor;
+import org.antlr.runtime.tree.TreeNodeStream;
+import org.hibernate.hql.CancellationToken;
 import org.hibernate.hql.ParsingException;
+import org.hibernate.hql.QueryCancelledException;
+import org.hibernate.hql.QueryDeadlineExceededException;
+import org.hibernate.hql.QueryLimitExceededException;
+import org.hibernate.hql.QueryLimits;
 import org.hibernate.hql.QueryParser;
+import org.hibernate.hql.ast.common.CancellableTreeNodeStream;
+import org.hibernate.hql.ast.common.CharSequenceStream;
+import org.hibernate.hql.ast.common.CompactTokenStream;
+import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
+import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
 import org.hibernate.hql.ast.spi.AstProcessingChain;
 import org.hibernate.hql.ast.spi.AstProcessor;
+import org.hibernate.hql.testutil.ParserTestUtil.TreeCapturingProcessingChain;
 import org.hibernate.hql.testutil.TestForIssue;
 import org.junit.Rule;
 import org.junit.Test;
@@ -52,6 +84,362 @@ public void shouldRaiseExceptionDueToUnconsumedTokens() {
 		queryParser.parseQuery( "FROM IndexedEntity u WHERE u.name = 'John' blah blah blah", new NoOpProcessingChain() );
 	}
 
+	@Test
+	public void shouldParseQueryGivenAsCharBuffer() {
+		String query = "select e from IndexedEntity e where e.name = 'John' and e.age > 30";
+		CharBuffer queryBuffer = CharBuffer.wrap( "prefix " + query + " suffix", 7, 7 + query.length() );
+
+		QueryParser queryParser = new QueryParser();
+		String treeFromString = queryParser.parseQuery( query, new TreeCapturingProcessingChain() );
+		String treeFromBuffer = queryParser.parseQuery( queryBuffer, new TreeCapturingProcessingChain() );
+
+		assertThat( treeFromBuffer ).isEqualTo( treeFromString );
+	}
+
+	@Test
+	public void shouldRaiseExceptionForInvalidQueryGivenAsCharBuffer() {
+		expectedException.expect( ParsingException.class );
+		expectedException.expectMessage( "HQL000006" );
+
+		QueryParser queryParser = new QueryParser();
+		queryParser.parseQuery( CharBuffer.wrap( "FROM IndexedEntity u WHERE u.name = 'John' blah" ), new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldRaiseExceptionUponFirstSyntaxErrorInFailFastMode() {
+		expectedException.expect( ParsingException.class );
+		expectedException.expectMessage( "HQL000011" );
+		expectedException.expectMessage( "line 1:" );
+
+		QueryParser queryParser = new QueryParser.Builder().failFast().build();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE u.name = = 'John' AND AND", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldCollectAllSyntaxErrorsInVerboseMode() {
+		expectedException.expect( ParsingException.class );
+		expectedException.expectMessage( "HQL000002" );
+
+		QueryParser queryParser = new QueryParser();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE u.name = = 'John' AND AND", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldRejectQueryExceedingTokenLimit() {
+		expectedException.expect( QueryLimitExceededException.class );
+		expectedException.expectMessage( "HQL000012" );
+
+		QueryParser queryParser = new QueryParser.Builder()
+				.limits( new QueryLimits.Builder().maxTokens( 10 ).build() )
+				.build();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE u.name = 'John' AND u.age = 42 AND u.city = 'Paris'", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldRejectQueryExceedingNestingDepthLimit() {
+		expectedException.expect( QueryLimitExceededException.class );
+		expectedException.expectMessage( "HQL000013" );
+
+		QueryParser queryParser = new QueryParser.Builder()
+				.limits( new QueryLimits.Builder().maxNestingDepth( 2 ).build() )
+				.build();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE ((( u.name = 'John' )))", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldRejectQueryExceedingListSizeLimit() {
+		expectedException.expect( QueryLimitExceededException.class );
+		expectedException.expectMessage( "HQL000014" );
+
+		QueryParser queryParser = new QueryParser.Builder()
+				.limits( new QueryLimits.Builder().maxListSize( 3 ).build() )
+				.build();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE u.name IN ( 'a', 'b', 'c', 'd' )", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldAcceptQueryWithinLimits() {
+		QueryParser queryParser = new QueryParser.Builder()
+				.limits( new QueryLimits.Builder().maxTokens( 20 ).maxNestingDepth( 2 ).maxListSize( 3 ).build() )
+				.build();
+		queryParser.parseQuery( "FROM IndexedEntity u WHERE ( u.name IN ( 'a', 'b', 'c' ) )", new NoOpProcessingChain() );
+	}
+
+	@Test
+	public void shouldParseQueryWithCancellationToken() {
+		TreeCapturingProcessingChain processingChain = new TreeCapturingProcessingChain();
+
+		new QueryParser().parseQuery( "FROM IndexedEntity u WHERE u.name = 'John'", processingChain, new CancellationToken() );
+
+		assertThat( processingChain.getResult() ).isNotNull();
+	}
+
+	@Test
+	public void shouldStopParsingWhenCancelled() {
+		expectedException.expect( QueryCancelledException.class );
+		expectedException.expectMessage( "HQL000016" );
+
+		CancellationToken cancellationToken = new CancellationToken();
+		cancellationToken.cancel();
+
+		new QueryParser().parseQuery( "FROM IndexedEntity u WHERE u.name = 'John'", new NoOpProcessingChain(), cancellationToken );
+	}
+
+	@Test
+	public void shouldStopParsingWhenDeadlineExceeded() {
+		expectedException.expect( QueryDeadlineExceededException.class );
+		expectedException.expectMessage( "HQL000017" );
+
+		CancellationToken cancellationToken = CancellationToken.withTimeout( 0, TimeUnit.MILLISECONDS );
+
+		new QueryParser().parseQuery( "FROM IndexedEntity u WHERE u.name = 'John'", new NoOpProcessingChain(), cancellationToken );
+	}
+
+	@Test
+	public void shouldStopParsingWhenTimeoutIsNegative() {
+		expectedException.expect( QueryDeadlineExceededException.class );
+		expectedException.expectMessage( "HQL000017" );
+
+		CancellationToken cancellationToken = CancellationToken.withTimeout( -1, TimeUnit.MILLISECONDS );
+
+		new QueryParser().parseQuery( "FROM IndexedEntity u WHERE u.name = 'John'", new NoOpProcessingChain(), cancellationToken );
+	}
+
+	@Test
+	public void shouldTakeMinimumTimeoutAsExceededDeadline() {
+		assertThat( CancellationToken.withTimeout( Long.MIN_VALUE, TimeUnit.DAYS ).isDeadlineExceeded() ).isTrue();
+		assertThat( CancellationToken.withTimeout( Long.MAX_VALUE, TimeUnit.DAYS ).isDeadlineExceeded() ).isFalse();
+		assertThat( new CancellationToken().isDeadlineExceeded() ).isFalse();
+	}
+
+	@Test
+	public void shouldStopProcessingWhenCancelledByProcessor() {
+		expectedException.expect( QueryCancelledException.class );
+		expectedException.expectMessage( "HQL000016" );
+
+		final CancellationToken cancellationToken = new CancellationToken();
+		final AstProcessor cancellingProcessor = new AstProcessor() {
+
+			@Override
+			public CommonTree process(TokenStream tokens, CommonTree tree) {
+				cancellationToken.cancel();
+				return tree;
+			}
+		};
+		final AstProcessor failingProcessor = new AstProcessor() {
+
+			@Override
+			public CommonTree process(TokenStream tokens, CommonTree tree) {
+				throw new AssertionError( "Processor should not be invoked after cancellation" );
+			}
+		};
+
+		AstProcessingChain<Void> processingChain = new AstProcessingChain<Void>() {
+
+			@Override
+			public Iterator<AstProcessor> iterator() {
+				return Arrays.asList( cancellingProcessor, failingProcessor ).iterator();
+			}
+
+			@Override
+			public Void getResult() {
+				return null;
+			}
+		};
+
+		new QueryParser().parseQuery( "FROM IndexedEntity u WHERE u.name = 'John'", processingChain, cancellationToken );
+	}
+
+	@Test
+	public void shouldStopParsingWhenCancelledWhileConsumingTokens() throws Exception {
+		final CancellationToken cancellationToken = new CancellationToken();
+		final HQLLexer lexer = new HQLLexer( new CharSequenceStream( longQuery() ) );
+		final List<Token> fetchedTokens = new ArrayList<Token>();
+
+		TokenSource cancellingTokenSource = new TokenSource() {
+
+			@Override
+			public Token nextToken() {
+				if ( fetchedTokens.size() == 40 ) {
+					cancellationToken.cancel();
+				}
+				Token token = lexer.nextToken();
+				fetchedTokens.add( token );
+				return token;
+			}
+
+			@Override
+			public String getSourceName() {
+				return lexer.getSourceName();
+			}
+		};
+
+		HQLParser parser = new HQLParser( new CompactTokenStream( cancellingTokenSource, cancellationToken ) );
+
+		try {
+			parser.statement();
+			fail( "Expected exception wasn't raised" );
+		}
+		catch (QueryCancelledException e) {
+			// stopped by one of the periodic checks within the stream, before the end of the query has been reached
+			assertThat( fetchedTokens.get( fetchedTokens.size() - 1 ).getType() ).isNotEqualTo( Token.EOF );
+		}
+	}
+
+	@Test
+	public void shouldStopProcessingWhenCancelledWhileWalkingTree() {
+		final CancellationToken cancellationToken = new CancellationToken();
+		final int[] consumedNodes = new int[1];
+
+		AstProcessingChain<Void> processingChain = new AstProcessingChain<Void>() {
+
+			@Override
+			public Iterator<AstProcessor> iterator() {
+				return Collections.<AstProcessor>singletonList( new AstProcessor() {
+
+					@Override
+					public CommonTree process(TokenStream tokens, CommonTree tree) {
+						TreeNodeStream nodes = CancellableTreeNodeStream.create( new CommonTreeAdaptor(), tree, tokens );
+						cancellationToken.cancel();
+
+						while ( nodes.LA( 1 ) != Token.EOF ) {
+							nodes.consume();
+							consumedNodes[0]++;
+						}
+
+						return tree;
+					}
+				} ).iterator();
+			}
+
+			@Override
+			public Void getResult() {
+				return null;
+			}
+		};
+
+		try {
+			new QueryParser().parseQuery( longQuery(), processingChain, cancellationToken );
+			fail( "Expected exception wasn't raised" );
+		}
+		catch (QueryCancelledException e) {
+			// the token is checked every 32 consumed nodes
+			assertThat( consumedNodes[0] ).isEqualTo( 31 );
+		}
+	}
+
+	@Test
+	public void shouldParseQueryAsynchronously() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			String tree = new QueryParser()
+					.parseQueryAsync( "FROM IndexedEntity u WHERE u.name = 'John'", new TreeCapturingProcessingChain(), executor )
+					.get();
+
+			assertThat( tree ).isNotNull();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldCompleteFutureExceptionallyUponParsingError() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			new QueryParser()
+					.parseQueryAsync( "FROM IndexedEntity u WHERE u.name = 'John' blah", new NoOpProcessingChain(), executor )
+					.get();
+			fail( "Expected exception wasn't raised" );
+		}
+		catch (ExecutionException e) {
+			assertThat( e.getCause() ).isInstanceOf( ParsingException.class );
+			assertThat( e.getCause().getMessage() ).contains( "HQL000006" );
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldStopAsynchronousParsingWhenFutureIsCancelled() throws Exception {
+		final CountDownLatch processing = new CountDownLatch( 1 );
+		final CountDownLatch futureCancelled = new CountDownLatch( 1 );
+		final BlockingQueue<Object> outcome = new ArrayBlockingQueue<Object>( 1 );
+
+		final AstProcessor blockingProcessor = new AstProcessor() {
+
+			@Override
+			public CommonTree process(TokenStream tokens, CommonTree tree) {
+				processing.countDown();
+
+				try {
+					futureCancelled.await();
+					TreeNodeStream nodes = CancellableTreeNodeStream.create( new CommonTreeAdaptor(), tree, tokens );
+
+					while ( nodes.LA( 1 ) != Token.EOF ) {
+						nodes.consume();
+					}
+
+					outcome.add( "completed" );
+					return tree;
+				}
+				catch (InterruptedException e) {
+					throw new RuntimeException( e );
+				}
+				catch (QueryCancelledException e) {
+					outcome.add( e );
+					throw e;
+				}
+			}
+		};
+		final AstProcessor failingProcessor = new AstProcessor() {
+
+			@Override
+			public CommonTree process(TokenStream tokens, CommonTree tree) {
+				throw new AssertionError( "Processor should not be invoked after cancellation" );
+			}
+		};
+
+		AstProcessingChain<Void> processingChain = new AstProcessingChain<Void>() {
+
+			@Override
+			public Iterator<AstProcessor> iterator() {
+				return Arrays.asList( blockingProcessor, failingProcessor ).iterator();
+			}
+
+			@Override
+			public Void getResult() {
+				return null;
+			}
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			CompletableFuture<Void> future = new QueryParser().parseQueryAsync( longQuery(), processingChain, executor );
+			assertThat( processing.await( 10, TimeUnit.SECONDS ) ).isTrue();
+
+			assertThat( future.cancel( true ) ).isTrue();
+			futureCancelled.countDown();
+
+			assertThat( outcome.poll( 10, TimeUnit.SECONDS ) ).isInstanceOf( QueryCancelledException.class );
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private String longQuery() {
+		StringBuilder query = new StringBuilder( "FROM IndexedEntity u WHERE u.name IN ( 'n0'" );
+		for ( int i = 1; i < 100; i++ ) {
+			query.append( ", 'n" ).append( i ).append( "'" );
+		}
+		return query.append( " )" ).toString();
+	}
+
 	private static class NoOpProcessingChain implements AstProcessingChain<Void> {
 
 		@Override
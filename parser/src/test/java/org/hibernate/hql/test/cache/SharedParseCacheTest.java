@@ -0,0 +1,280 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.test.cache;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hibernate.hql.testutil.ParserTestUtil.parse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.QueryLimits;
+import org.hibernate.hql.QueryParser;
+import org.hibernate.hql.cache.SharedParseCache;
+import org.hibernate.hql.testutil.ParserTestUtil.TreeCapturingProcessingChain;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link SharedParseCache}.
+ */
+public class SharedParseCacheTest {
+
+	private static final String QUERY = "from Animal a where a.name = 'Bob' and a.weight > 10";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldReturnCachedParseTree() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 64, 1024 );
+		CommonTree tree = parse( QUERY );
+
+		assertThat( cache.get( QUERY ) ).isNull();
+
+		cache.put( QUERY, tree );
+
+		assertThat( cache.get( QUERY ).toStringTree() ).isEqualTo( tree.toStringTree() );
+		assertThat( cache.get( QUERY ) ).isNotSameAs( cache.get( QUERY ) );
+		assertThat( cache.get( QUERY + " " ) ).isNull();
+	}
+
+	@Test
+	public void shouldShareEntriesViaCacheFile() throws Exception {
+		Path cacheFile = cacheFile();
+		SharedParseCache.open( cacheFile, 64, 1024 ).put( QUERY, parse( QUERY ) );
+
+		// as opened by another process
+		SharedParseCache otherCache = SharedParseCache.open( cacheFile, 64, 1024 );
+
+		assertThat( otherCache.get( QUERY ).toStringTree() ).isEqualTo( parse( QUERY ).toStringTree() );
+	}
+
+	@Test
+	public void shouldBoundNumberOfEntries() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 16, 512 );
+
+		for ( int i = 0; i < 100; i++ ) {
+			String query = "from Animal a where a.weight = " + i;
+			cache.put( query, parse( query ) );
+			assertThat( cache.get( query ).toStringTree() ).isEqualTo( parse( query ).toStringTree() );
+		}
+
+		int cachedCount = 0;
+		for ( int i = 0; i < 100; i++ ) {
+			if ( cache.get( "from Animal a where a.weight = " + i ) != null ) {
+				cachedCount++;
+			}
+		}
+
+		assertThat( cachedCount ).isGreaterThan( 0 );
+		assertThat( cachedCount ).isLessThanOrEqualTo( 16 );
+	}
+
+	@Test
+	public void shouldRetainReferencedEntriesUponEviction() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 8, 512 );
+		String hotQuery = "from Animal a where a.name = 'hot'";
+		cache.put( hotQuery, parse( hotQuery ) );
+
+		for ( int i = 0; i < 100; i++ ) {
+			String query = "from Animal a where a.weight = " + i;
+			cache.put( query, parse( query ) );
+			assertThat( cache.get( hotQuery ) ).isNotNull();
+		}
+	}
+
+	@Test
+	public void shouldNotCacheEntriesExceedingSlotSize() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 16, 64 );
+
+		cache.put( QUERY, parse( QUERY ) );
+
+		assertThat( cache.get( QUERY ) ).isNull();
+	}
+
+	@Test
+	public void shouldTreatGarbledEntriesAsMisses() throws Exception {
+		Path cacheFile = cacheFile();
+		SharedParseCache cache = SharedParseCache.open( cacheFile, 1, 1024 );
+		cache.put( QUERY, parse( QUERY ) );
+
+		// garble the payload of the only slot
+		FileChannel channel = FileChannel.open( cacheFile, StandardOpenOption.WRITE );
+		try {
+			channel.write( ByteBuffer.wrap( new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 } ), 64 + 24 + 10 );
+		}
+		finally {
+			channel.close();
+		}
+
+		assertThat( cache.get( QUERY ) ).isNull();
+
+		cache.put( QUERY, parse( QUERY ) );
+		assertThat( cache.get( QUERY ) ).isNotNull();
+	}
+
+	@Test
+	public void shouldRejectCacheFileWithOtherSlotSize() throws Exception {
+		Path cacheFile = cacheFile();
+		SharedParseCache.open( cacheFile, 64, 1024 );
+
+		expectedException.expect( IOException.class );
+		expectedException.expectMessage( "HQL000024" );
+
+		SharedParseCache.open( cacheFile, 32, 2048 );
+	}
+
+	@Test
+	public void shouldUseCachedParseTreeInQueryParser() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 64, 1024 );
+		QueryParser queryParser = new QueryParser.Builder().parseCache( cache ).build();
+
+		TreeCapturingProcessingChain first = new TreeCapturingProcessingChain();
+		String parsedTree = queryParser.parseQuery( QUERY, first );
+
+		TreeCapturingProcessingChain second = new TreeCapturingProcessingChain();
+		String cachedTree = queryParser.parseQuery( QUERY, second );
+
+		assertThat( cachedTree ).isEqualTo( parsedTree );
+		assertThat( first.getTokens() ).isNotNull();
+		// lexing and parsing have been skipped
+		assertThat( second.getTokens() ).isNull();
+	}
+
+	@Test
+	public void shouldNotUseCacheIfTokenLimitsAreSet() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 64, 1024 );
+		QueryParser queryParser = new QueryParser.Builder()
+				.parseCache( cache )
+				.limits( new QueryLimits.Builder().maxTokens( 100 ).build() )
+				.build();
+
+		queryParser.parseQuery( QUERY, new TreeCapturingProcessingChain() );
+
+		assertThat( cache.get( QUERY ) ).isNull();
+	}
+
+	@Test
+	public void shouldReturnStoredTreesUponConcurrentAccess() throws Exception {
+		SharedParseCache cache = SharedParseCache.open( cacheFile(), 8, 512 );
+
+		assertConsistentUponConcurrentAccess( cache );
+	}
+
+	@Test
+	public void shouldReturnStoredTreesUponConcurrentAccessViaSeveralInstances() throws Exception {
+		Path cacheFile = cacheFile();
+
+		// as opened by two processes
+		assertConsistentUponConcurrentAccess(
+				SharedParseCache.open( cacheFile, 8, 512 ),
+				SharedParseCache.open( cacheFile, 8, 512 )
+		);
+	}
+
+	/**
+	 * Puts and gets entries for a set of queries exceeding the number of slots from several threads, using the given
+	 * caches alternately. Each get must either miss or return the tree stored for the requested query.
+	 */
+	private void assertConsistentUponConcurrentAccess(final SharedParseCache... caches) throws Exception {
+		final int queryCount = 24;
+		final String[] queries = new String[queryCount];
+		final String[] expectedTrees = new String[queryCount];
+
+		for ( int i = 0; i < queryCount; i++ ) {
+			queries[i] = "from Animal a where a.weight = " + i + " and a.name = 'Bob" + i + "'";
+			expectedTrees[i] = parse( queries[i] ).toStringTree();
+		}
+
+		final AtomicInteger hits = new AtomicInteger();
+		int threadCount = 8;
+		ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+		try {
+			for ( int t = 0; t < threadCount; t++ ) {
+				final int thread = t;
+
+				futures.add( executor.submit( new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						CommonTree[] trees = new CommonTree[queryCount];
+						for ( int i = 0; i < queryCount; i++ ) {
+							trees[i] = parse( queries[i] );
+						}
+
+						Random random = new Random( thread );
+
+						for ( int i = 0; i < 2000; i++ ) {
+							SharedParseCache cache = caches[i % caches.length];
+							int query = random.nextInt( queryCount );
+
+							if ( random.nextBoolean() ) {
+								cache.put( queries[query], trees[query] );
+							}
+							else {
+								CommonTree tree = cache.get( queries[query] );
+								if ( tree != null ) {
+									assertThat( tree.toStringTree() ).isEqualTo( expectedTrees[query] );
+									hits.incrementAndGet();
+								}
+							}
+						}
+
+						return null;
+					}
+				} ) );
+			}
+
+			for ( Future<Void> future : futures ) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertThat( hits.get() ).isGreaterThan( 0 );
+	}
+
+	private Path cacheFile() {
+		return temporaryFolder.getRoot().toPath().resolve( "parse.cache" );
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.test.catalog;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ParsingException;
+import org.hibernate.hql.QueryParser;
+import org.hibernate.hql.catalog.PrecompiledQuery;
+import org.hibernate.hql.catalog.QueryCatalog;
+import org.hibernate.hql.catalog.QueryCatalogCompiler;
+import org.hibernate.hql.testutil.ParserTestUtil.TreeCapturingProcessingChain;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link QueryCatalogCompiler} and {@link QueryCatalog}.
+ */
+public class QueryCatalogTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldLoadPrecompiledQueries() throws Exception {
+		Path catalogFile = compileTestCatalog();
+
+		QueryCatalog catalog = QueryCatalog.open( catalogFile );
+
+		assertThat( catalog.getQueryNames() ).containsOnly( "findAnimalByName", "findAnimalsOrderedByWeight", "countAnimalsByMother" );
+		assertThat( catalog.getQuery( "findAnimalByName" ).getQueryString() ).isEqualTo( "from Animal a where a.name = :name" );
+		assertThat( catalog.getQuery( "unknown" ) ).isNull();
+	}
+
+	@Test
+	public void shouldProcessPrecompiledQueriesLikeParsedQueries() throws Exception {
+		QueryCatalog catalog = QueryCatalog.open( compileTestCatalog() );
+		QueryParser queryParser = new QueryParser();
+
+		for ( String name : catalog.getQueryNames() ) {
+			PrecompiledQuery query = catalog.getQuery( name );
+
+			String precompiledTree = queryParser.processQuery( query, new TreeCapturingProcessingChain() );
+			String parsedTree = queryParser.parseQuery( query.getQueryString(), new TreeCapturingProcessingChain() );
+
+			assertThat( precompiledTree ).isEqualTo( parsedTree );
+		}
+	}
+
+	@Test
+	public void shouldReturnNewTreeForEachQueryRetrieval() throws Exception {
+		QueryCatalog catalog = QueryCatalog.open( compileTestCatalog() );
+
+		CommonTree first = catalog.getQuery( "findAnimalByName" ).getParseTree();
+		CommonTree second = catalog.getQuery( "findAnimalByName" ).getParseTree();
+
+		assertThat( first ).isNotSameAs( second );
+		assertThat( first.toStringTree() ).isEqualTo( second.toStringTree() );
+	}
+
+	@Test
+	public void shouldReportAllInvalidQueries() throws Exception {
+		expectedException.expect( ParsingException.class );
+		expectedException.expectMessage( "HQL000018" );
+		expectedException.expectMessage( "broken1" );
+		expectedException.expectMessage( "broken2" );
+
+		Map<String, String> queries = new HashMap<String, String>();
+		queries.put( "valid", "from Animal a" );
+		queries.put( "broken1", "from Animal a where a.name = = 'foo' blah" );
+		queries.put( "broken2", "from Animal a where blah blah blah" );
+
+		new QueryCatalogCompiler().compile( queries, temporaryFolder.getRoot().toPath().resolve( "catalog.hqlc" ) );
+	}
+
+	@Test
+	public void shouldRejectInvalidCatalogFile() throws Exception {
+		expectedException.expect( IOException.class );
+		expectedException.expectMessage( "HQL000019" );
+
+		File file = temporaryFolder.newFile( "invalid.hqlc" );
+		Files.write( file.toPath(), "not a catalog".getBytes( "UTF-8" ) );
+
+		QueryCatalog.open( file.toPath() );
+	}
+
+	private Path compileTestCatalog() throws Exception {
+		Path catalogFile = temporaryFolder.getRoot().toPath().resolve( "queries.hqlc" );
+		Path source = Paths.get( QueryCatalogTest.class.getResource( "queries.properties" ).toURI() );
+
+		new QueryCatalogCompiler().compile( Arrays.asList( source ), catalogFile );
+
+		return catalogFile;
+	}
+}
@@ -29,7 +29,7 @@
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2012 Red Hat Inc.
  */
 @RunWith(GrammarTestRunner.class)
-@ForGrammar("/org/hibernate/hql/ast/origin/hql/parse/gUnitGeneratedAST.testsuite")
+@ForGrammar(value = "/org/hibernate/hql/ast/origin/hql/parse/gUnitGeneratedAST.testsuite", parallel = true)
 public class GeneratedASTTest {
 
 }
@@ -28,7 +28,7 @@
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2012 Red Hat Inc.
  */
 @RunWith(GrammarTestRunner.class)
-@ForGrammar("/org/hibernate/hql/ast/origin/hql/parse/gUnitHQLGrammar.testsuite")
+@ForGrammar(value = "/org/hibernate/hql/ast/origin/hql/parse/gUnitHQLGrammar.testsuite", parallel = true)
 public class HQLGrammarTest {
 
 }
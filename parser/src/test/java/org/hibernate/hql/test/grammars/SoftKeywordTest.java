@@ -0,0 +1,74 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.test.grammars;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.Token;
+import org.hibernate.hql.ast.common.HibernateToken;
+import org.hibernate.hql.ast.common.SoftKeyword;
+import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
+import org.junit.Test;
+
+/**
+ * Test for {@link SoftKeyword}.
+ */
+public class SoftKeywordTest {
+
+	@Test
+	public void shouldClassifyAllKeywords() {
+		for ( SoftKeyword keyword : SoftKeyword.values() ) {
+			assertThat( SoftKeyword.forText( keyword.getText() ) ).isSameAs( keyword );
+			assertThat( SoftKeyword.forText( keyword.name() ) ).isSameAs( keyword );
+		}
+	}
+
+	@Test
+	public void shouldClassifyKeywordsIgnoringCase() {
+		assertThat( SoftKeyword.forText( "SeLeCt" ) ).isSameAs( SoftKeyword.SELECT );
+		assertThat( SoftKeyword.forText( new StringBuilder( "Where" ) ) ).isSameAs( SoftKeyword.WHERE );
+	}
+
+	@Test
+	public void shouldNotClassifyOtherWords() {
+		assertThat( SoftKeyword.forText( "selects" ) ).isNull();
+		assertThat( SoftKeyword.forText( "selec" ) ).isNull();
+		assertThat( SoftKeyword.forText( "name" ) ).isNull();
+		assertThat( SoftKeyword.forText( "" ) ).isNull();
+		assertThat( SoftKeyword.forText( null ) ).isNull();
+	}
+
+	@Test
+	public void shouldClassifyIdentifiersWhenLexing() {
+		HQLLexer lexer = new HQLLexer( new ANTLRStringStream( "FROM Animal a" ) );
+
+		Token from = lexer.nextToken();
+		assertThat( from ).isInstanceOf( HibernateToken.class );
+		assertThat( ( (HibernateToken) from ).getSoftKeyword() ).isSameAs( SoftKeyword.FROM );
+
+		// white space
+		lexer.nextToken();
+
+		Token animal = lexer.nextToken();
+		assertThat( ( (HibernateToken) animal ).getSoftKeyword() ).isNull();
+	}
+}
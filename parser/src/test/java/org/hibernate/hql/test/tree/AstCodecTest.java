@@ -0,0 +1,220 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.test.tree;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hibernate.hql.testutil.ParserTestUtil.parse;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.common.HibernateToken;
+import org.hibernate.hql.ast.common.HibernateTree;
+import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
+import org.hibernate.hql.ast.origin.hql.resolve.path.AggregationPropertyPath;
+import org.hibernate.hql.ast.origin.hql.resolve.path.PathedPropertyReference;
+import org.hibernate.hql.ast.origin.hql.resolve.path.PropertyPath;
+import org.hibernate.hql.ast.tree.AstCodec;
+import org.hibernate.hql.ast.tree.EntityNameTree;
+import org.hibernate.hql.ast.tree.PropertyPathTree;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Test for {@link AstCodec}.
+ */
+public class AstCodecTest {
+
+	private static final String[] QUERIES = {
+		"from com.acme.EntityName e",
+		"select e.name, e.author.name from IndexedEntity e join e.contactDetails d where d.address.postCode = 'EA123' and e.name like 'Jo%'",
+		"select count(e.id), sum(e.weight) from Animal e where e.weight between 10 and 20 or e.name in ('a', 'b', :c) group by e.mother having count(e.id) > 1",
+		"from Animal a where not a.name is null order by a.weight desc, a.name",
+		"from Animal a where a.name = 'Jack Daniel''s Old No. 7' and a.weight > -1.5e3"
+	};
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldRoundTripParseTrees() throws Exception {
+		for ( String query : QUERIES ) {
+			CommonTree tree = parse( query );
+
+			CommonTree decoded = AstCodec.decode( AstCodec.encode( tree ) );
+
+			assertThat( decoded.toStringTree() ).isEqualTo( tree.toStringTree() );
+			assertSameStructure( decoded, tree );
+		}
+	}
+
+	@Test
+	public void shouldRoundTripResolvedTrees() {
+		PropertyPath path = new PropertyPath();
+		path.appendNode( new PathedPropertyReference( "a", null, true ) );
+		path.appendNode( new PathedPropertyReference( "weight", null, false ) );
+
+		CommonTree root = new HibernateTree( HQLParser.QUERY, "QUERY" );
+		root.addChild( new EntityNameTree( HQLParser.ENTITY_NAME, new HibernateToken( HQLParser.ENTITY_NAME, "Animal" ), "Animal", Arrays.asList( "com.acme.Animal" ) ) );
+		root.addChild( new PropertyPathTree( HQLParser.PATH, new HibernateTree( HQLParser.PATH, "PATH" ), path ) );
+		root.addChild( new PropertyPathTree(
+				HQLParser.PATH,
+				new HibernateTree( HQLParser.PATH, "PATH" ),
+				new AggregationPropertyPath( AggregationPropertyPath.Type.MAX, path ) ) );
+
+		CommonTree decoded = AstCodec.decode( AstCodec.encode( root ) );
+
+		EntityNameTree entityName = (EntityNameTree) decoded.getChild( 0 );
+		assertThat( entityName.getEntityCount() ).isEqualTo( 1 );
+		assertThat( entityName.getEntityName( 0 ) ).isEqualTo( "com.acme.Animal" );
+		assertThat( entityName.toString() ).isEqualTo( "com.acme.Animal" );
+
+		PropertyPath decodedPath = ( (PropertyPathTree) decoded.getChild( 1 ) ).getPropertyPath();
+		assertThat( decodedPath.getNodeNamesWithoutAlias() ).containsExactly( "weight" );
+		assertThat( decodedPath.getFirstNode().isAlias() ).isTrue();
+		assertThat( decodedPath.getFirstNode().getType() ).isNull();
+
+		PropertyPath aggregationPath = ( (PropertyPathTree) decoded.getChild( 2 ) ).getPropertyPath();
+		assertThat( ( (AggregationPropertyPath) aggregationPath ).getType() ).isEqualTo( AggregationPropertyPath.Type.MAX );
+		assertThat( aggregationPath.asStringPathWithoutAlias() ).isEqualTo( "weight" );
+	}
+
+	@Test
+	public void shouldEncodeRepeatedSubTreesOnlyOnce() throws Exception {
+		String condition = "e.author.address.postCode = 'EA123'";
+		CommonTree once = parse( "from IndexedEntity e where " + condition + " and e.name = 'x'" );
+		CommonTree twice = parse( "from IndexedEntity e where " + condition + " and " + condition );
+
+		CommonTree decoded = AstCodec.decode( AstCodec.encode( twice ) );
+
+		assertThat( AstCodec.encode( twice ).length ).isLessThan( AstCodec.encode( once ).length );
+		assertThat( decoded.toStringTree() ).isEqualTo( twice.toStringTree() );
+
+		// the repeated sub-trees are decoded into distinct nodes
+		CommonTree and = (CommonTree) decoded.getChild( 0 ).getChild( 1 ).getChild( 0 );
+		assertThat( and.getChild( 0 ) ).isNotSameAs( and.getChild( 1 ) );
+		assertThat( and.getChild( 0 ).getParent() ).isSameAs( and );
+		assertThat( and.getChild( 1 ).getParent() ).isSameAs( and );
+	}
+
+	@Test
+	public void shouldRoundTripRepeatedSubTreesUnderNilRoot() {
+		CommonTree root = new HibernateTree();
+		root.addChild( equalsTree( "name", "'x'" ) );
+		root.addChild( equalsTree( "name", "'x'" ) );
+
+		byte[] data = AstCodec.encode( root );
+		CommonTree decoded = AstCodec.decode( data );
+
+		assertThat( decoded.isNil() ).isTrue();
+		assertThat( decoded.toStringTree() ).isEqualTo( root.toStringTree() );
+		assertSameStructure( decoded, root );
+		assertThat( data.length ).isLessThan( AstCodec.encode( equalsTree( "name", "'x'" ) ).length * 2 );
+	}
+
+	@Test
+	public void shouldRejectUnsupportedVersion() throws Exception {
+		byte[] data = AstCodec.encode( parse( QUERIES[0] ) );
+		data[1] = (byte) ( AstCodec.VERSION + 1 );
+
+		expectedException.expect( IllegalArgumentException.class );
+		expectedException.expectMessage( "HQL000022" );
+
+		AstCodec.decode( data );
+	}
+
+	@Test
+	public void shouldRejectTrailingData() throws Exception {
+		byte[] data = AstCodec.encode( parse( QUERIES[0] ) );
+
+		expectedException.expect( IllegalArgumentException.class );
+		expectedException.expectMessage( "HQL000021" );
+
+		AstCodec.decode( Arrays.copyOf( data, data.length + 1 ) );
+	}
+
+	@Test
+	public void shouldRejectTreeTooDeepToEncode() {
+		CommonTree root = new HibernateTree( HQLParser.NOT, "not" );
+		CommonTree parent = root;
+		for ( int i = 0; i < 1100; i++ ) {
+			CommonTree child = new HibernateTree( HQLParser.NOT, "not" );
+			parent.addChild( child );
+			parent = child;
+		}
+
+		expectedException.expect( IllegalArgumentException.class );
+		expectedException.expectMessage( "HQL000026" );
+
+		AstCodec.encode( root );
+	}
+
+	@Test
+	public void shouldRejectCorruptDataGracefully() throws Exception {
+		Random random = new Random( 42 );
+
+		for ( String query : QUERIES ) {
+			byte[] data = AstCodec.encode( parse( query ) );
+
+			for ( int i = 0; i < 500; i++ ) {
+				byte[] corrupt = data.clone();
+				corrupt[random.nextInt( corrupt.length )] ^= (byte) ( 1 << random.nextInt( 8 ) );
+				assertDecodesOrRejects( corrupt );
+
+				assertDecodesOrRejects( Arrays.copyOf( data, random.nextInt( data.length ) ) );
+
+				byte[] garbage = new byte[random.nextInt( 64 )];
+				random.nextBytes( garbage );
+				assertDecodesOrRejects( garbage );
+			}
+		}
+	}
+
+	private void assertDecodesOrRejects(byte[] data) {
+		try {
+			AstCodec.decode( data );
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private void assertSameStructure(CommonTree actual, CommonTree expected) {
+		// plain CommonTree nodes created by the grammar are decoded as HibernateTree, a sub-type
+		assertThat( actual ).isInstanceOf( expected.getClass() );
+		assertThat( actual.getType() ).isEqualTo( expected.getType() );
+		assertThat( actual.getText() ).isEqualTo( expected.getText() );
+		assertThat( actual.getChildCount() ).isEqualTo( expected.getChildCount() );
+
+		for ( int i = 0; i < expected.getChildCount(); i++ ) {
+			assertSameStructure( (CommonTree) actual.getChild( i ), (CommonTree) expected.getChild( i ) );
+		}
+	}
+
+	private CommonTree equalsTree(String property, String value) {
+		CommonTree equals = new HibernateTree( HQLParser.EQUALS, "=" );
+		equals.addChild( new HibernateTree( HQLParser.IDENTIFIER, property ) );
+		equals.addChild( new HibernateTree( HQLParser.CHARACTER_LITERAL, value ) );
+		return equals;
+	}
+}
@@ -25,6 +25,8 @@
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
 import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.common.HibernateTree;
+import org.hibernate.hql.ast.common.HibernateTreeAdaptor;
 import org.hibernate.hql.ast.common.ParserContext;
 import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
 import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
@@ -100,6 +102,30 @@ public void testProjectionOnEmbeddedAndUnquilifiedProperties() {
 			"(QUERY (QUERY_SPEC (SELECT_FROM (FROM (PERSISTER_SPACE (ENTITY_PERSISTER_REF IndexedEntity e) (property-join INNER d (PATH (. e contactDetails))))) (SELECT (SELECT_LIST (SELECT_ITEM (PATH name)) (SELECT_ITEM (PATH text)) (SELECT_ITEM (PATH (. (. e author) name))))))))");
 	}
 
+	@Test
+	public void testTreeCreatedByHibernateTreeAdaptor() throws RecognitionException {
+		String input = "from com.acme.EntityName e where e.name = 'same'";
+		HQLParser parser = new HQLParser( new CommonTokenStream( new HQLLexer( new ANTLRStringStream( input ) ) ) );
+		parser.setTreeAdaptor( new HibernateTreeAdaptor() );
+
+		CommonTree tree = (CommonTree) parser.statement().getTree();
+		Assert.assertEquals(
+				"(QUERY (QUERY_SPEC (SELECT_FROM (from (PERSISTER_SPACE (ENTITY_PERSISTER_REF com.acme.EntityName e))) (SELECT (SELECT_LIST (SELECT_ITEM e)))) (where (= (PATH (. e name)) (CONST_STRING_VALUE same)))))",
+				tree.toStringTree()
+		);
+
+		// soft keyword node sharing the IDENTIFIER token of the lexer
+		HibernateTree whereNode = (HibernateTree) tree.getChild( 0 ).getChild( 1 );
+		Assert.assertEquals( HQLParser.WHERE, whereNode.getType() );
+		Assert.assertEquals( "where", whereNode.getText() );
+		Assert.assertEquals( input.indexOf( "where" ), whereNode.getStartCharOffset() );
+		Assert.assertEquals( input.length() - 1, whereNode.getEndCharOffset() );
+
+		// the token is materialized with the node's type upon request
+		Assert.assertEquals( HQLParser.WHERE, whereNode.getToken().getType() );
+		Assert.assertEquals( "where", whereNode.getToken().getText() );
+	}
+
 	private void assertTreeParsed(ParserContext context, String input, String treeExpectation) {
 		HQLLexer lexed = new HQLLexer( new ANTLRStringStream( input ) );
 		CommonTokenStream tokens = new CommonTokenStream( lexed );
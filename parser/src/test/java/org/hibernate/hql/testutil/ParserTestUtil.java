@@ -0,0 +1,87 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testutil;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.TokenStream;
+import org.antlr.runtime.tree.CommonTree;
+import org.hibernate.hql.ast.common.HibernateTreeAdaptor;
+import org.hibernate.hql.ast.origin.hql.parse.HQLLexer;
+import org.hibernate.hql.ast.origin.hql.parse.HQLParser;
+import org.hibernate.hql.ast.spi.AstProcessingChain;
+import org.hibernate.hql.ast.spi.AstProcessor;
+
+/**
+ * Helpers for tests which need to parse queries directly or inspect what is passed to a processing chain.
+ */
+public final class ParserTestUtil {
+
+	private ParserTestUtil() {
+	}
+
+	/**
+	 * Parses the given query with the plain {@link HQLParser}, without any limits or caching applied.
+	 */
+	public static CommonTree parse(String query) throws RecognitionException {
+		HQLParser parser = new HQLParser( new CommonTokenStream( new HQLLexer( new ANTLRStringStream( query ) ) ) );
+		parser.setTreeAdaptor( new HibernateTreeAdaptor() );
+		return (CommonTree) parser.statement().getTree();
+	}
+
+	/**
+	 * A processing chain with a single processor which captures the token stream and the string representation of
+	 * the tree it is invoked with; the latter is returned as result.
+	 */
+	public static class TreeCapturingProcessingChain implements AstProcessingChain<String>, AstProcessor {
+
+		private TokenStream tokens;
+		private String tree;
+
+		@Override
+		public Iterator<AstProcessor> iterator() {
+			return Collections.<AstProcessor>singletonList( this ).iterator();
+		}
+
+		@Override
+		public CommonTree process(TokenStream tokens, CommonTree tree) {
+			this.tokens = tokens;
+			this.tree = tree.toStringTree();
+			return tree;
+		}
+
+		/**
+		 * Returns the token stream passed to the processor, or {@code null} if lexing and parsing were skipped.
+		 */
+		public TokenStream getTokens() {
+			return tokens;
+		}
+
+		@Override
+		public String getResult() {
+			return tree;
+		}
+	}
+}
@@ -36,9 +36,9 @@ package org.hibernate.hql.testing.internal;
 grammarTest : 'gunit' ID ';' header (testGroup)+ ;
 header : '@header' '{' pakkage '}' ;
 pakkage : 'package' PACKAGE_ID ';' ;
-testGroup : ID ':' (test)* (testSubGroup)* ;
-testSubGroup : TEST_GROUP_NAME (test)+ ;
-test : statement outcome ;
+testGroup : ID (budget)? ':' (test)* (testSubGroup)* ;
+testSubGroup : TEST_GROUP_NAME (budget)? (test)+ ;
+test : statement outcome (budget)? ;
 statement : (STRING_LITERAL|MULTI_LINE) ;
 
 outcome
@@ -46,11 +46,15 @@ outcome
 	| '->' AST    # expectedAst
 	;
 
+budget : '@budget' '{' budgetLimit (',' budgetLimit)* '}' ;
+budgetLimit : ID '=' INT ;
+
 /* Lexer rules */
 
 TEST_RESULT : ('OK'|'FAIL') ;
 ID : ('a'..'z'|'A'..'Z'|'_')+ ;
 PACKAGE_ID : ID('.'ID)* ;
+INT : [0-9]+ ;
 WS : [ \t\r\n]+ -> skip ; // skip spaces, tabs, newlines
 
 TEST_GROUP_NAME : '[' ~(']')* ']' ;
@@ -41,4 +41,13 @@
 	 * @return the path to the grammar file to be tested
 	 */
 	String value();
+
+	/**
+	 * Whether to run the tests of the different grammar rules concurrently, using one thread per available
+	 * processor. The tests of one rule are run sequentially. Any test rules of the test class must be thread-safe if
+	 * enabled.
+	 *
+	 * @return whether to run the tests of the different grammar rules concurrently
+	 */
+	boolean parallel() default false;
 }
@@ -0,0 +1,147 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.fuzz;
+
+import java.util.Arrays;
+
+/**
+ * An input for which the effort of the parser grows super-linearly with the input length. The input is made up of a
+ * prefix, a fragment pumped by repeating or nesting it and a suffix.
+ */
+public class FuzzFinding {
+
+	/**
+	 * The ways of pumping the fragment of an input.
+	 */
+	public enum Pump {
+
+		/**
+		 * The fragment is repeated, e.g. {@code a a a}.
+		 */
+		REPEAT,
+
+		/**
+		 * The fragment is nested within parentheses, e.g. {@code ( ( ( a ) ) )}.
+		 */
+		NEST;
+	}
+
+	private final String ruleName;
+	private final String prefix;
+	private final String fragment;
+	private final String suffix;
+	private final Pump pump;
+	private final int[] pumpFactors;
+	private final int[] tokenCounts;
+	private final int[] lookaheadCounts;
+	private final double growthExponent;
+
+	FuzzFinding(
+			String ruleName,
+			String prefix,
+			String fragment,
+			String suffix,
+			Pump pump,
+			int[] pumpFactors,
+			int[] tokenCounts,
+			int[] lookaheadCounts,
+			double growthExponent) {
+		this.ruleName = ruleName;
+		this.prefix = prefix;
+		this.fragment = fragment;
+		this.suffix = suffix;
+		this.pump = pump;
+		this.pumpFactors = pumpFactors;
+		this.tokenCounts = tokenCounts;
+		this.lookaheadCounts = lookaheadCounts;
+		this.growthExponent = growthExponent;
+	}
+
+	public String getRuleName() {
+		return ruleName;
+	}
+
+	public String getFragment() {
+		return fragment;
+	}
+
+	public Pump getPump() {
+		return pump;
+	}
+
+	/**
+	 * Returns the input with the fragment pumped by the given factor.
+	 *
+	 * @param factor how often to repeat or nest the fragment
+	 *
+	 * @return the input with the fragment pumped by the given factor
+	 */
+	public String getInput(int factor) {
+		return pump( prefix, fragment, suffix, pump, factor );
+	}
+
+	/**
+	 * Returns the exponent by which the number of tokens looked at by the parser grows with the number of tokens of the
+	 * input, e.g. 2 for quadratic growth.
+	 *
+	 * @return the growth exponent; {@link Double#POSITIVE_INFINITY} if the parser has been aborted for looking at too
+	 *         many tokens
+	 */
+	public double getGrowthExponent() {
+		return growthExponent;
+	}
+
+	static String pump(String prefix, String fragment, String suffix, Pump pump, int factor) {
+		StringBuilder input = new StringBuilder( prefix );
+
+		if ( pump == Pump.REPEAT ) {
+			for ( int i = 0; i < factor; i++ ) {
+				if ( i > 0 ) {
+					input.append( ' ' );
+				}
+				input.append( fragment );
+			}
+		}
+		else {
+			for ( int i = 0; i < factor; i++ ) {
+				input.append( "( " );
+			}
+			input.append( fragment );
+			for ( int i = 0; i < factor; i++ ) {
+				input.append( " )" );
+			}
+		}
+
+		return input.append( suffix ).toString();
+	}
+
+	@Override
+	public String toString() {
+		return "FuzzFinding [ruleName=" + ruleName
+				+ ", input=" + getInput( 1 )
+				+ ", fragment=" + fragment
+				+ ", pump=" + pump
+				+ ", growthExponent=" + growthExponent
+				+ ", pumpFactors=" + Arrays.toString( pumpFactors )
+				+ ", tokenCounts=" + Arrays.toString( tokenCounts )
+				+ ", lookaheadCounts=" + Arrays.toString( lookaheadCounts ) + "]";
+	}
+}
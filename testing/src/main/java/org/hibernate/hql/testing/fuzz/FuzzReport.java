@@ -0,0 +1,122 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.fuzz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.hql.testing.internal.model.ParseProfile;
+
+/**
+ * The outcome of a {@link GrammarFuzzer} run: the overall work done by the parser and the inputs for which that work
+ * grows super-linearly.
+ */
+public class FuzzReport {
+
+	private final List<FuzzFinding> findings = new ArrayList<FuzzFinding>();
+	private int parseCount;
+	private int abortedParseCount;
+	private long tokenCount;
+	private long lookaheadCount;
+	private long rewindCount;
+	private long nanos;
+
+	FuzzReport() {
+	}
+
+	void addProfile(ParseProfile profile) {
+		parseCount++;
+		if ( profile.isAborted() ) {
+			abortedParseCount++;
+		}
+		tokenCount += profile.getTokenCount();
+		lookaheadCount += profile.getLookaheadCount();
+		rewindCount += profile.getRewindCount();
+		nanos += profile.getNanos();
+	}
+
+	void addFinding(FuzzFinding finding) {
+		findings.add( finding );
+	}
+
+	public List<FuzzFinding> getFindings() {
+		return Collections.unmodifiableList( findings );
+	}
+
+	public int getParseCount() {
+		return parseCount;
+	}
+
+	/**
+	 * Returns the number of parses stopped as the parser looked at too many tokens.
+	 *
+	 * @return the number of aborted parses
+	 */
+	public int getAbortedParseCount() {
+		return abortedParseCount;
+	}
+
+	public long getTokenCount() {
+		return tokenCount;
+	}
+
+	public long getLookaheadCount() {
+		return lookaheadCount;
+	}
+
+	/**
+	 * Returns the number of times the parser rewound its input, i.e. the number of speculative parses done for
+	 * syntactic predicates and predictions.
+	 *
+	 * @return the number of times the parser rewound its input
+	 */
+	public long getRewindCount() {
+		return rewindCount;
+	}
+
+	/**
+	 * Returns the parser throughput over all parses.
+	 *
+	 * @return the number of tokens parsed per microsecond
+	 */
+	public double getTokensPerMicrosecond() {
+		return nanos > 0 ? tokenCount * 1000.0 / nanos : 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+
+		report.append( "Parses: " ).append( parseCount ).append( " (aborted: " ).append( abortedParseCount ).append( ")\n" );
+		report.append( "Tokens: " ).append( tokenCount ).append( " (" )
+				.append( String.format( "%.2f", getTokensPerMicrosecond() ) ).append( " per microsecond)\n" );
+		report.append( "Lookahead: " ).append( lookaheadCount ).append( "\n" );
+		report.append( "Rewinds: " ).append( rewindCount ).append( "\n" );
+		report.append( "Findings: " ).append( findings.size() );
+
+		for ( FuzzFinding finding : findings ) {
+			report.append( "\n  " ).append( finding );
+		}
+
+		return report.toString();
+	}
+}
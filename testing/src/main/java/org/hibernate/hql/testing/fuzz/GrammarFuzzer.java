@@ -0,0 +1,519 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.fuzz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.Parser;
+import org.hibernate.hql.testing.fuzz.FuzzFinding.Pump;
+import org.hibernate.hql.testing.internal.model.GrammarRuleTestDescriptor;
+import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
+import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
+import org.hibernate.hql.testing.internal.model.ParseProfile;
+import org.hibernate.hql.testing.internal.model.RuleType;
+import org.hibernate.hql.testing.internal.parser.GrammarRuleProfiler;
+import org.hibernate.hql.testing.internal.parser.GrammarTestParser;
+
+/**
+ * A fuzzer looking for inputs for which the effort of an Antlr 3 parser grows super-linearly with the length of the
+ * input, e.g. due to backtracking. Starting from the expressions of a grammar test file, near-valid inputs for the
+ * tested parser rules are created by deleting, duplicating, splicing and inserting tokens. A fragment of each input is
+ * then pumped by repeating or nesting it, and the growth of the number of tokens looked at by the parser is measured.
+ * Inputs with a growth above the configured exponent are minimized and reported.
+ * <p>
+ * The growth is measured in terms of lookahead rather than parse time, so a run is deterministic for a given random
+ * seed. The parse time is recorded for reporting the overall throughput though.
+ */
+public class GrammarFuzzer {
+
+	/**
+	 * The factors by which the fragment of an input is pumped; the growth is determined from the last three of them
+	 */
+	private static final int[] PUMP_FACTORS = { 1, 2, 4, 8, 16 };
+
+	private static final int MAX_FRAGMENT_LENGTH = 8;
+	private static final int MAX_MINIMIZATION_ATTEMPTS = 500;
+
+	private final Class<? extends Lexer> lexerClass;
+	private final Class<? extends Parser> parserClass;
+	private final Map<String, List<String>> seedsByRule;
+	private final long randomSeed;
+	private final int iterations;
+	private final double maxGrowthExponent;
+	private final int maxLookahead;
+
+	private GrammarFuzzer(Builder builder) {
+		this.lexerClass = builder.lexerClass;
+		this.parserClass = builder.parserClass;
+		this.seedsByRule = new LinkedHashMap<String, List<String>>( builder.seedsByRule );
+		this.randomSeed = builder.randomSeed;
+		this.iterations = builder.iterations;
+		this.maxGrowthExponent = builder.maxGrowthExponent;
+		this.maxLookahead = builder.maxLookahead;
+	}
+
+	/**
+	 * Fuzzes all the rules seeds have been given for.
+	 *
+	 * @return the report of this run
+	 */
+	public FuzzReport run() {
+		FuzzReport report = new FuzzReport();
+
+		for ( Entry<String, List<String>> seeds : seedsByRule.entrySet() ) {
+			fuzzRule( seeds.getKey(), seeds.getValue(), report );
+		}
+
+		return report;
+	}
+
+	private void fuzzRule(String ruleName, List<String> seeds, FuzzReport report) {
+		GrammarRuleProfiler profiler = getProfiler( ruleName );
+		// seeded per rule, so the inputs for one rule don't depend on the other rules fuzzed
+		Random random = new Random( randomSeed ^ ruleName.hashCode() );
+
+		List<List<String>> corpus = new ArrayList<List<String>>( seeds.size() );
+		for ( String seed : seeds ) {
+			List<String> tokens = tokenize( profiler, seed );
+			if ( !tokens.isEmpty() ) {
+				corpus.add( tokens );
+			}
+		}
+
+		if ( corpus.isEmpty() ) {
+			return;
+		}
+
+		List<String> vocabulary = getVocabulary( corpus );
+		Set<String> reportedInputs = new HashSet<String>();
+
+		for ( int i = 0; i < iterations; i++ ) {
+			List<String> candidate = mutate( corpus, vocabulary, random );
+			if ( candidate.isEmpty() ) {
+				continue;
+			}
+
+			report.addProfile( profile( profiler, join( candidate, 0, candidate.size() ) ) );
+
+			int start = random.nextInt( candidate.size() );
+			int end = start + 1 + random.nextInt( Math.min( MAX_FRAGMENT_LENGTH, candidate.size() - start ) );
+			Pump pump = Pump.values()[random.nextInt( Pump.values().length )];
+
+			if ( isBlank( candidate, start, end ) ) {
+				continue;
+			}
+
+			Growth growth = measureGrowth( profiler, candidate, start, end, pump, report );
+			if ( growth.exponent > maxGrowthExponent ) {
+				FuzzFinding finding = minimize( profiler, ruleName, candidate, start, end, pump, growth, report );
+
+				if ( reportedInputs.add( finding.getInput( 1 ) + " / " + finding.getFragment() ) ) {
+					report.addFinding( finding );
+				}
+			}
+		}
+	}
+
+	private List<String> mutate(List<List<String>> corpus, List<String> vocabulary, Random random) {
+		List<String> tokens = new ArrayList<String>( corpus.get( random.nextInt( corpus.size() ) ) );
+		int start = random.nextInt( tokens.size() );
+		int end = start + 1 + random.nextInt( Math.min( MAX_FRAGMENT_LENGTH, tokens.size() - start ) );
+
+		switch ( random.nextInt( 5 ) ) {
+			case 0:
+				// the seed as is
+				break;
+			case 1:
+				tokens.subList( start, end ).clear();
+				break;
+			case 2:
+				tokens.addAll( end, new ArrayList<String>( tokens.subList( start, end ) ) );
+				break;
+			case 3:
+				List<String> other = corpus.get( random.nextInt( corpus.size() ) );
+				int otherStart = random.nextInt( other.size() );
+				int otherEnd = otherStart + 1 + random.nextInt( Math.min( MAX_FRAGMENT_LENGTH, other.size() - otherStart ) );
+
+				tokens.subList( start, end ).clear();
+				tokens.addAll( start, other.subList( otherStart, otherEnd ) );
+				break;
+			default:
+				tokens.add( start, " " + vocabulary.get( random.nextInt( vocabulary.size() ) ) + " " );
+				break;
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Pumps the given fragment of the given input and measures the growth of the lookahead.
+	 */
+	private Growth measureGrowth(GrammarRuleProfiler profiler, List<String> tokens, int start, int end, Pump pump, FuzzReport report) {
+		String prefix = join( tokens, 0, start );
+		String fragment = join( tokens, start, end );
+		String suffix = join( tokens, end, tokens.size() );
+
+		int[] tokenCounts = new int[PUMP_FACTORS.length];
+		int[] lookaheadCounts = new int[PUMP_FACTORS.length];
+
+		for ( int i = 0; i < PUMP_FACTORS.length; i++ ) {
+			ParseProfile profile = profile( profiler, FuzzFinding.pump( prefix, fragment, suffix, pump, PUMP_FACTORS[i] ) );
+			report.addProfile( profile );
+
+			tokenCounts[i] = profile.getTokenCount();
+			lookaheadCounts[i] = profile.getLookaheadCount();
+
+			if ( profile.isAborted() ) {
+				return new Growth( prefix, fragment, suffix, tokenCounts, lookaheadCounts, Double.POSITIVE_INFINITY );
+			}
+		}
+
+		return new Growth( prefix, fragment, suffix, tokenCounts, lookaheadCounts, getGrowthExponent( tokenCounts, lookaheadCounts ) );
+	}
+
+	/**
+	 * Determines the growth exponent from the lookahead per additional token when doubling the pump factor. That
+	 * marginal cost is constant for linear growth, doubles for quadratic growth and so on. The cost of the unpumped
+	 * part of the input doesn't affect it.
+	 */
+	private static double getGrowthExponent(int[] tokenCounts, int[] lookaheadCounts) {
+		int last = PUMP_FACTORS.length - 1;
+		int previousTokens = tokenCounts[last - 1] - tokenCounts[last - 2];
+		int lastTokens = tokenCounts[last] - tokenCounts[last - 1];
+		int previousLookahead = lookaheadCounts[last - 1] - lookaheadCounts[last - 2];
+		int lastLookahead = lookaheadCounts[last] - lookaheadCounts[last - 1];
+
+		if ( previousTokens <= 0 || lastTokens <= 0 || previousLookahead <= 0 || lastLookahead <= 0 ) {
+			return 0;
+		}
+
+		double marginalCostRatio = ( (double) lastLookahead / lastTokens ) / ( (double) previousLookahead / previousTokens );
+		return 1 + Math.log( marginalCostRatio ) / Math.log( 2 );
+	}
+
+	/**
+	 * Removes chunks of decreasing size from the given input as long as its growth stays above the configured exponent.
+	 */
+	private FuzzFinding minimize(GrammarRuleProfiler profiler, String ruleName, List<String> tokens, int start, int end, Pump pump, Growth growth, FuzzReport report) {
+		List<String> current = tokens;
+		int currentStart = start;
+		int currentEnd = end;
+		Growth currentGrowth = growth;
+		int attempts = 0;
+		boolean progress = true;
+
+		while ( progress && attempts < MAX_MINIMIZATION_ATTEMPTS ) {
+			progress = false;
+
+			for ( int chunk = current.size() / 2; chunk >= 1 && attempts < MAX_MINIMIZATION_ATTEMPTS; chunk /= 2 ) {
+				int i = 0;
+
+				while ( i < current.size() && attempts < MAX_MINIMIZATION_ATTEMPTS ) {
+					int removedEnd = Math.min( i + chunk, current.size() );
+					int reducedStart = currentStart - getOverlap( i, removedEnd, 0, currentStart );
+					int reducedEnd = currentEnd - getOverlap( i, removedEnd, 0, currentEnd );
+
+					List<String> reduced = new ArrayList<String>( current );
+					reduced.subList( i, removedEnd ).clear();
+
+					if ( reducedEnd > reducedStart && !isBlank( reduced, reducedStart, reducedEnd ) ) {
+						attempts++;
+						Growth reducedGrowth = measureGrowth( profiler, reduced, reducedStart, reducedEnd, pump, report );
+
+						if ( reducedGrowth.exponent > maxGrowthExponent ) {
+							current = reduced;
+							currentStart = reducedStart;
+							currentEnd = reducedEnd;
+							currentGrowth = reducedGrowth;
+							progress = true;
+							continue;
+						}
+					}
+
+					i += chunk;
+				}
+			}
+		}
+
+		return new FuzzFinding(
+				ruleName,
+				currentGrowth.prefix,
+				currentGrowth.fragment,
+				currentGrowth.suffix,
+				pump,
+				PUMP_FACTORS.clone(),
+				currentGrowth.tokenCounts,
+				currentGrowth.lookaheadCounts,
+				currentGrowth.exponent
+		);
+	}
+
+	private static int getOverlap(int start1, int end1, int start2, int end2) {
+		return Math.max( 0, Math.min( end1, end2 ) - Math.max( start1, start2 ) );
+	}
+
+	private GrammarRuleProfiler getProfiler(String ruleName) {
+		try {
+			return new GrammarRuleProfiler( lexerClass, parserClass, ruleName, maxLookahead );
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException( "Rule " + ruleName + " not found on " + parserClass.getName(), e );
+		}
+	}
+
+	private static ParseProfile profile(GrammarRuleProfiler profiler, String input) {
+		try {
+			return profiler.profile( input );
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException( "Parsing the input \"" + input + "\" failed unexpectedly", e );
+		}
+	}
+
+	private static List<String> tokenize(GrammarRuleProfiler profiler, String input) {
+		try {
+			return profiler.tokenize( input );
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException( "Tokenizing the input \"" + input + "\" failed unexpectedly", e );
+		}
+	}
+
+	private static List<String> getVocabulary(List<List<String>> corpus) {
+		Set<String> vocabulary = new LinkedHashSet<String>();
+
+		for ( List<String> tokens : corpus ) {
+			for ( String token : tokens ) {
+				if ( !token.trim().isEmpty() ) {
+					vocabulary.add( token );
+				}
+			}
+		}
+
+		return new ArrayList<String>( vocabulary );
+	}
+
+	private static boolean isBlank(List<String> tokens, int start, int end) {
+		return join( tokens, start, end ).trim().isEmpty();
+	}
+
+	private static String join(List<String> tokens, int start, int end) {
+		StringBuilder joined = new StringBuilder();
+
+		for ( int i = start; i < end; i++ ) {
+			joined.append( tokens.get( i ) );
+		}
+
+		return joined.toString();
+	}
+
+	/**
+	 * Runs the fuzzer for the grammar test file given as first argument and prints the report. Exits with status 1
+	 * if any input with super-linear growth has been found.
+	 *
+	 * @param args the class path resource name of the grammar test file, optionally followed by the number of
+	 * iterations per rule and the random seed
+	 */
+	public static void main(String[] args) {
+		if ( args.length < 1 ) {
+			System.err.println( "Usage: GrammarFuzzer <grammar test file resource> [<iterations per rule> [<random seed>]]" );
+			System.exit( 2 );
+		}
+
+		Builder builder = Builder.forTestSuite( GrammarFuzzer.class, args[0] );
+		if ( args.length > 1 ) {
+			builder.iterations( Integer.parseInt( args[1] ) );
+		}
+		if ( args.length > 2 ) {
+			builder.randomSeed( Long.parseLong( args[2] ) );
+		}
+
+		FuzzReport report = builder.build().run();
+		System.out.println( report );
+
+		if ( !report.getFindings().isEmpty() ) {
+			System.exit( 1 );
+		}
+	}
+
+	private static class Growth {
+
+		private final String prefix;
+		private final String fragment;
+		private final String suffix;
+		private final int[] tokenCounts;
+		private final int[] lookaheadCounts;
+		private final double exponent;
+
+		private Growth(String prefix, String fragment, String suffix, int[] tokenCounts, int[] lookaheadCounts, double exponent) {
+			this.prefix = prefix;
+			this.fragment = fragment;
+			this.suffix = suffix;
+			this.tokenCounts = tokenCounts;
+			this.lookaheadCounts = lookaheadCounts;
+			this.exponent = exponent;
+		}
+	}
+
+	/**
+	 * Builds new {@link GrammarFuzzer}s.
+	 */
+	public static class Builder {
+
+		private final Class<? extends Lexer> lexerClass;
+		private final Class<? extends Parser> parserClass;
+		private final Map<String, List<String>> seedsByRule = new LinkedHashMap<String, List<String>>();
+		private long randomSeed;
+		private int iterations = 100;
+		private double maxGrowthExponent = 1.5;
+		private int maxLookahead = 1000000;
+
+		public Builder(Class<? extends Lexer> lexerClass, Class<? extends Parser> parserClass) {
+			this.lexerClass = lexerClass;
+			this.parserClass = parserClass;
+		}
+
+		/**
+		 * Creates a builder for the grammar of the given grammar test file, seeded with the expressions of all the
+		 * parser rule tests of that file.
+		 *
+		 * @param clazz the class via which to load the given file
+		 * @param testSuite the grammar test file
+		 *
+		 * @return a builder for a fuzzer of the tested grammar
+		 */
+		public static Builder forTestSuite(Class<?> clazz, String testSuite) {
+			GrammarTestDescriptor grammarTest = new GrammarTestParser().getGrammarTest( clazz, testSuite );
+			return new Builder( grammarTest.getLexerClass(), grammarTest.getParserClass() ).addSeeds( grammarTest );
+		}
+
+		/**
+		 * Adds the expressions of all the parser rule tests of the given grammar test file as seeds, no matter whether
+		 * they are expected to pass or to fail.
+		 *
+		 * @param clazz the class via which to load the given file
+		 * @param testSuite the grammar test file
+		 *
+		 * @return this builder
+		 */
+		public Builder addTestSuite(Class<?> clazz, String testSuite) {
+			return addSeeds( new GrammarTestParser().getGrammarTest( clazz, testSuite ) );
+		}
+
+		/**
+		 * Adds seeds for the given parser rule.
+		 *
+		 * @param ruleName the name of the parser rule to fuzz
+		 * @param seeds valid or near-valid inputs for the given rule
+		 *
+		 * @return this builder
+		 */
+		public Builder addSeeds(String ruleName, Collection<String> seeds) {
+			List<String> ruleSeeds = seedsByRule.get( ruleName );
+			if ( ruleSeeds == null ) {
+				ruleSeeds = new ArrayList<String>();
+				seedsByRule.put( ruleName, ruleSeeds );
+			}
+			ruleSeeds.addAll( seeds );
+
+			return this;
+		}
+
+		public Builder randomSeed(long randomSeed) {
+			this.randomSeed = randomSeed;
+			return this;
+		}
+
+		/**
+		 * Sets the number of inputs to create per rule.
+		 *
+		 * @param iterations the number of inputs to create per rule
+		 *
+		 * @return this builder
+		 */
+		public Builder iterations(int iterations) {
+			this.iterations = iterations;
+			return this;
+		}
+
+		/**
+		 * Sets the growth exponent above which an input gets reported, 1.5 by default.
+		 *
+		 * @param maxGrowthExponent the growth exponent above which an input gets reported
+		 *
+		 * @return this builder
+		 */
+		public Builder maxGrowthExponent(double maxGrowthExponent) {
+			this.maxGrowthExponent = maxGrowthExponent;
+			return this;
+		}
+
+		/**
+		 * Sets the number of tokens the parser may look at for one input before the parse gets aborted, one million by
+		 * default. Aborted inputs are reported as having an infinite growth exponent.
+		 *
+		 * @param maxLookahead the number of tokens the parser may look at for one input
+		 *
+		 * @return this builder
+		 */
+		public Builder maxLookahead(int maxLookahead) {
+			this.maxLookahead = maxLookahead;
+			return this;
+		}
+
+		public GrammarFuzzer build() {
+			return new GrammarFuzzer( this );
+		}
+
+		private Builder addSeeds(GrammarTestDescriptor grammarTest) {
+			for ( GrammarRuleTestGroupDescriptor testGroup : grammarTest.getTestGroups() ) {
+				if ( testGroup.getRuleType() == RuleType.PARSER ) {
+					addSeeds( testGroup.getName(), getExpressions( testGroup ) );
+				}
+			}
+
+			return this;
+		}
+
+		private List<String> getExpressions(GrammarRuleTestGroupDescriptor testGroup) {
+			List<String> expressions = new ArrayList<String>();
+
+			for ( GrammarRuleTestDescriptor test : testGroup.getTests() ) {
+				expressions.add( test.getExpression() );
+			}
+			for ( GrammarRuleTestGroupDescriptor subGroup : testGroup.getSubGroups() ) {
+				expressions.addAll( getExpressions( subGroup ) );
+			}
+
+			return expressions;
+		}
+	}
+}
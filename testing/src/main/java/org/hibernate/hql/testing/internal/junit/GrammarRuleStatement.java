@@ -41,6 +41,7 @@
 import org.junit.runners.model.TestClass;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * A JUnit {@link Statement} representing one test of a rule of the grammar
@@ -93,6 +94,10 @@ public Description getDescription() {
 	public void evaluate() throws Throwable {
 		ParsingResult parsingResult = grammarRuleTestRunner.run();
 
+		if ( parsingResult.getBudgetViolations() != null ) {
+			fail( "Performance budget exceeded: " + parsingResult.getBudgetViolations() );
+		}
+
 		if ( grammarRuleTest.getExpectedParsingResultStatus() == Status.OK ) {
 			assertEquals(
 					"Unexpected parsing result (parser output: " + parsingResult.getDescription() + ")",
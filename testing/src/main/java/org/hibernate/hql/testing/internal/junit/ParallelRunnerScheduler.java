@@ -0,0 +1,83 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A {@link RunnerScheduler} running the children of a runner concurrently, using a given number of threads. The
+ * children report their outcome via the run notifier, so any exceptions escaping them are unexpected and re-thrown
+ * once all children have finished.
+ */
+public class ParallelRunnerScheduler implements RunnerScheduler {
+
+	private final ExecutorService executor;
+	private final List<Future<?>> children = new ArrayList<Future<?>>();
+
+	public ParallelRunnerScheduler(int threadCount) {
+		this.executor = Executors.newFixedThreadPool( threadCount, new GrammarTestThreadFactory() );
+	}
+
+	@Override
+	public void schedule(Runnable childStatement) {
+		children.add( executor.submit( childStatement ) );
+	}
+
+	@Override
+	public void finished() {
+		try {
+			for ( Future<?> child : children ) {
+				child.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch (ExecutionException e) {
+			throw new RuntimeException( e.getCause() );
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class GrammarTestThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread( runnable, "grammar-test-" + threadNumber.incrementAndGet() );
+			thread.setDaemon( true );
+			return thread;
+		}
+	}
+}
@@ -25,6 +25,7 @@
 /**
  * Describes one test for a rule of a given grammar, comprising an expression
  * and the expected parsing result or the resulting AST, e.g. {@code "Pi" FAIL}.
+ * Optionally a {@link PerformanceBudget} for matching the expression is given.
  *
  * @author Gunnar Morling
  */
@@ -34,22 +35,26 @@ public class GrammarRuleTestDescriptor {
 	private final String expression;
 	private final Status expectedParsingResultStatus;
 	private final String expectedAst;
+	private final PerformanceBudget budget;
 
 	public GrammarRuleTestDescriptor(
 			int lineNumber,
 			String expression,
-			ParsingResult.Status expectedParsingResultStatus) {
+			ParsingResult.Status expectedParsingResultStatus,
+			PerformanceBudget budget) {
 		this.lineNumber = lineNumber;
 		this.expression = expression;
 		this.expectedParsingResultStatus = expectedParsingResultStatus;
 		this.expectedAst = null;
+		this.budget = budget;
 	}
 
-	public GrammarRuleTestDescriptor(int lineNumber, String expression, String expectedAst) {
+	public GrammarRuleTestDescriptor(int lineNumber, String expression, String expectedAst, PerformanceBudget budget) {
 		this.lineNumber = lineNumber;
 		this.expression = expression;
 		this.expectedParsingResultStatus = Status.OK;
 		this.expectedAst = expectedAst;
+		this.budget = budget;
 	}
 
 	public int getLineNumber() {
@@ -68,12 +73,21 @@ public String getExpectedAst() {
 		return expectedAst;
 	}
 
+	/**
+	 * Returns the budget of this test, with the limits of the enclosing group and sub-group applied.
+	 *
+	 * @return the budget of this test, never {@code null}
+	 */
+	public PerformanceBudget getBudget() {
+		return budget;
+	}
+
 	@Override
 	public String toString() {
 		return "GrammarRuleTestDescriptor [lineNumber=" + lineNumber
 				+ ", expression=" + expression
 				+ ", expectedParsingResultStatus="
 				+ expectedParsingResultStatus + ", expectedAst=" + expectedAst
-				+ "]";
+				+ ", budget=" + budget + "]";
 	}
 }
@@ -71,6 +71,7 @@ public static class Builder {
 		private final List<Builder> subGroupBuilders;
 		private final List<GrammarRuleTestDescriptor> tests;
 		private Builder currentSubGroup;
+		private PerformanceBudget budget = PerformanceBudget.NONE;
 
 		public Builder() {
 			this( false );
@@ -82,24 +83,33 @@ private Builder(boolean isSubGroup) {
 			this.tests = new ArrayList<GrammarRuleTestDescriptor>();
 		}
 
-		public void addTest(int lineNumber, String expression, ParsingResult.Status expectedTestStatus) {
+		public void addTest(int lineNumber, String expression, ParsingResult.Status expectedTestStatus, PerformanceBudget testBudget) {
 			if ( currentSubGroup != null ) {
-				currentSubGroup.addTest( lineNumber, expression, expectedTestStatus );
+				currentSubGroup.addTest( lineNumber, expression, expectedTestStatus, testBudget );
 			}
 			else {
-				tests.add( new GrammarRuleTestDescriptor( lineNumber, expression, expectedTestStatus ) );
+				tests.add( new GrammarRuleTestDescriptor( lineNumber, expression, expectedTestStatus, budget.overriddenBy( testBudget ) ) );
 			}
 		}
 
-		public void addAstTest(int lineNumber, String expression, String expectedAst) {
+		public void addAstTest(int lineNumber, String expression, String expectedAst, PerformanceBudget testBudget) {
 			if ( currentSubGroup != null ) {
-				currentSubGroup.addAstTest( lineNumber, expression, expectedAst );
+				currentSubGroup.addAstTest( lineNumber, expression, expectedAst, testBudget );
 			}
 			else {
-				tests.add( new GrammarRuleTestDescriptor( lineNumber, expression, expectedAst ) );
+				tests.add( new GrammarRuleTestDescriptor( lineNumber, expression, expectedAst, budget.overriddenBy( testBudget ) ) );
 			}
 		}
 
+		/**
+		 * Sets the budget of this group, applying to all tests and sub-groups added subsequently.
+		 *
+		 * @param budget the budget of this group
+		 */
+		public void setBudget(PerformanceBudget budget) {
+			this.budget = budget;
+		}
+
 		public void setName(String name) {
 			this.name = name;
 			if ( !isSubGroup ) {
@@ -113,6 +123,7 @@ public void setRuleType(RuleType ruleType) {
 
 		public void addSubGroup() {
 			currentSubGroup = new Builder( true );
+			currentSubGroup.setBudget( budget );
 			subGroupBuilders.add( currentSubGroup );
 		}
 
@@ -120,6 +131,10 @@ public void setSubGroupName(String name) {
 			currentSubGroup.setName( name );
 		}
 
+		public void setSubGroupBudget(PerformanceBudget subGroupBudget) {
+			currentSubGroup.setBudget( budget.overriddenBy( subGroupBudget ) );
+		}
+
 		public GrammarRuleTestGroupDescriptor build() {
 			return new GrammarRuleTestGroupDescriptor( name, ruleType, tests, buildSubGroups() );
 		}
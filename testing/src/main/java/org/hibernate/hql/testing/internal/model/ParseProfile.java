@@ -0,0 +1,102 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.model;
+
+/**
+ * The work done by a parser for matching a given input with one of its rules.
+ */
+public class ParseProfile {
+
+	private final int tokenCount;
+	private final int lookaheadCount;
+	private final int rewindCount;
+	private final long nanos;
+	private final boolean successful;
+	private final boolean aborted;
+
+	public ParseProfile(int tokenCount, int lookaheadCount, int rewindCount, long nanos, boolean successful, boolean aborted) {
+		this.tokenCount = tokenCount;
+		this.lookaheadCount = lookaheadCount;
+		this.rewindCount = rewindCount;
+		this.nanos = nanos;
+		this.successful = successful;
+		this.aborted = aborted;
+	}
+
+	/**
+	 * Returns the number of on-channel tokens of the input.
+	 *
+	 * @return the number of on-channel tokens of the input
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Returns the number of tokens looked at by the parser, counting repeated looks at the same token.
+	 *
+	 * @return the number of tokens looked at by the parser
+	 */
+	public int getLookaheadCount() {
+		return lookaheadCount;
+	}
+
+	/**
+	 * Returns the number of times the parser rewound its input after having matched it speculatively.
+	 *
+	 * @return the number of times the parser rewound its input
+	 */
+	public int getRewindCount() {
+		return rewindCount;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Whether the input has been matched without any errors.
+	 *
+	 * @return {@code true} if the input has been matched without any errors, {@code false} otherwise
+	 */
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	/**
+	 * Whether the parser has been stopped as it exceeded the allowed lookahead.
+	 *
+	 * @return {@code true} if the parser has been stopped, {@code false} otherwise
+	 */
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	@Override
+	public String toString() {
+		return "ParseProfile [tokenCount=" + tokenCount
+				+ ", lookaheadCount=" + lookaheadCount
+				+ ", rewindCount=" + rewindCount
+				+ ", nanos=" + nanos
+				+ ", successful=" + successful
+				+ ", aborted=" + aborted + "]";
+	}
+}
@@ -23,7 +23,9 @@
 /**
  * The result of invoking a parsing method on a lexer or parser. Has a status
  * and an description in case the status is {@link Status#FAIL}. May contain the
- * resulting AST if this result represents the outcome of a parser rule.
+ * resulting AST if this result represents the outcome of a parser rule. Any
+ * exceeded {@link PerformanceBudget} limits are described independently of the
+ * status, as a test expecting {@link Status#FAIL} must still keep its budget.
  *
  * @author Gunnar Morling
  */
@@ -36,27 +38,29 @@ public enum Status {
 	private final Status status;
 	private final String description;
 	private final String ast;
+	private final String budgetViolations;
 
-	private ParsingResult(Status status, String description, String ast) {
+	private ParsingResult(Status status, String description, String ast, String budgetViolations) {
 		this.status = status;
 		this.description = description;
 		this.ast = ast;
+		this.budgetViolations = budgetViolations;
 	}
 
 	public static ParsingResult ok() {
-		return new ParsingResult( Status.OK, null, null );
+		return new ParsingResult( Status.OK, null, null, null );
 	}
 
 	public static ParsingResult ok(String ast) {
-		return new ParsingResult( Status.OK, null, ast );
+		return new ParsingResult( Status.OK, null, ast, null );
 	}
 
 	public static ParsingResult fail(String description) {
-		return new ParsingResult( Status.FAIL, description, null );
+		return new ParsingResult( Status.FAIL, description, null, null );
 	}
 
 	public static ParsingResult fail(String description, String ast) {
-		return new ParsingResult( Status.FAIL, description, ast );
+		return new ParsingResult( Status.FAIL, description, ast, null );
 	}
 
 	public Status getStatus() {
@@ -70,4 +74,24 @@ public String getDescription() {
 	public String getAst() {
 		return ast;
 	}
+
+	/**
+	 * Returns a description of the exceeded budget limits.
+	 *
+	 * @return a description of the exceeded budget limits or {@code null} if the budget has been kept
+	 */
+	public String getBudgetViolations() {
+		return budgetViolations;
+	}
+
+	/**
+	 * Returns a copy of this result with the given budget violations.
+	 *
+	 * @param budgetViolations a description of the exceeded budget limits, may be {@code null}
+	 *
+	 * @return a copy of this result with the given budget violations
+	 */
+	public ParsingResult withBudgetViolations(String budgetViolations) {
+		return new ParsingResult( status, description, ast, budgetViolations );
+	}
 }
@@ -0,0 +1,163 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.model;
+
+/**
+ * The performance budget of a grammar rule test, e.g. {@code @budget{lookahead=100, nodes=7}}. Limits the work the
+ * recognizer may do for matching the expression under test; any limit not given is unbounded. Budgets can be given for
+ * a test group, a sub-group and a single test, the more specific one overriding the individual limits of the more
+ * general one.
+ * <p>
+ * Budgets are meant to catch grammar changes causing super-linear lookahead or backtracking rather than to pin the
+ * current numbers, so they should be set to about twice the values measured for the tests they apply to.
+ */
+public class PerformanceBudget {
+
+	/**
+	 * A budget without any limits.
+	 */
+	public static final PerformanceBudget NONE = new PerformanceBudget( null, null, null );
+
+	/**
+	 * The number of tokens (characters for lexer rules) the recognizer may look at, including repeated looks at the
+	 * same token
+	 */
+	private final Integer maxLookahead;
+
+	/**
+	 * The number of times the recognizer may rewind its input, i.e. after having matched it speculatively for a
+	 * syntactic predicate or a prediction
+	 */
+	private final Integer maxBacktracks;
+
+	/**
+	 * The number of nodes the AST created by a parser rule may have
+	 */
+	private final Integer maxAstNodes;
+
+	private PerformanceBudget(Integer maxLookahead, Integer maxBacktracks, Integer maxAstNodes) {
+		this.maxLookahead = maxLookahead;
+		this.maxBacktracks = maxBacktracks;
+		this.maxAstNodes = maxAstNodes;
+	}
+
+	public Integer getMaxLookahead() {
+		return maxLookahead;
+	}
+
+	public Integer getMaxBacktracks() {
+		return maxBacktracks;
+	}
+
+	public Integer getMaxAstNodes() {
+		return maxAstNodes;
+	}
+
+	/**
+	 * Returns a budget with the limits of the given budget, falling back to the limits of this budget for all limits
+	 * not given by the other one.
+	 *
+	 * @param other the more specific budget
+	 *
+	 * @return the merged budget
+	 */
+	public PerformanceBudget overriddenBy(PerformanceBudget other) {
+		if ( other == NONE ) {
+			return this;
+		}
+
+		return new PerformanceBudget(
+				other.maxLookahead != null ? other.maxLookahead : maxLookahead,
+				other.maxBacktracks != null ? other.maxBacktracks : maxBacktracks,
+				other.maxAstNodes != null ? other.maxAstNodes : maxAstNodes
+		);
+	}
+
+	/**
+	 * Checks the given measurements against this budget.
+	 *
+	 * @param lookahead the number of tokens looked at
+	 * @param backtracks the number of times the input has been rewound
+	 * @param astNodes the number of nodes of the created AST
+	 *
+	 * @return a description of all exceeded limits or {@code null} if this budget has been kept
+	 */
+	public String getViolations(int lookahead, int backtracks, int astNodes) {
+		StringBuilder violations = new StringBuilder();
+
+		appendViolation( violations, "lookahead", lookahead, maxLookahead );
+		appendViolation( violations, "backtracks", backtracks, maxBacktracks );
+		appendViolation( violations, "nodes", astNodes, maxAstNodes );
+
+		return violations.length() > 0 ? violations.toString() : null;
+	}
+
+	private void appendViolation(StringBuilder violations, String name, int actual, Integer limit) {
+		if ( limit != null && actual > limit ) {
+			if ( violations.length() > 0 ) {
+				violations.append( ", " );
+			}
+			violations.append( name ).append( "=" ).append( actual ).append( " (budget: " ).append( limit ).append( ")" );
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PerformanceBudget [maxLookahead=" + maxLookahead
+				+ ", maxBacktracks=" + maxBacktracks
+				+ ", maxAstNodes=" + maxAstNodes + "]";
+	}
+
+	public static class Builder {
+
+		private Integer maxLookahead;
+		private Integer maxBacktracks;
+		private Integer maxAstNodes;
+
+		public Builder() {
+		}
+
+		/**
+		 * Sets the limit with the given name as used in grammar test files.
+		 *
+		 * @param name the name of the limit, one of {@code lookahead}, {@code backtracks} and {@code nodes}
+		 * @param limit the limit
+		 */
+		public void setLimit(String name, int limit) {
+			if ( "lookahead".equals( name ) ) {
+				maxLookahead = limit;
+			}
+			else if ( "backtracks".equals( name ) ) {
+				maxBacktracks = limit;
+			}
+			else if ( "nodes".equals( name ) ) {
+				maxAstNodes = limit;
+			}
+			else {
+				throw new IllegalArgumentException( "Unknown budget limit: " + name + "; supported are lookahead, backtracks and nodes." );
+			}
+		}
+
+		public PerformanceBudget build() {
+			return new PerformanceBudget( maxLookahead, maxBacktracks, maxAstNodes );
+		}
+	}
+}
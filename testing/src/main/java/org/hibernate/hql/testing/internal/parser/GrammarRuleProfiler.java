@@ -0,0 +1,182 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.parser;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.Parser;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.hibernate.hql.testing.internal.model.ParseProfile;
+import org.hibernate.hql.testing.internal.parser.InstrumentedTokenStream.LookaheadLimitExceededException;
+
+/**
+ * Profiles the work done by a parser for matching inputs with a given rule. Error messages of lexer and parser are
+ * not written to {@link System#err} but are taken as indicator for an unsuccessful parse.
+ */
+public class GrammarRuleProfiler {
+
+	private final Class<? extends Lexer> lexerClass;
+	private final Class<? extends Parser> parserClass;
+	private final MethodHandle rule;
+	private final int maxLookahead;
+
+	/**
+	 * Creates a new profiler.
+	 *
+	 * @param lexerClass the lexer of the grammar
+	 * @param parserClass the parser of the grammar
+	 * @param ruleName the name of the parser rule to invoke
+	 * @param maxLookahead the number of tokens the parser may look at before a parse gets aborted
+	 *
+	 * @throws ReflectiveOperationException if the given rule doesn't exist
+	 */
+	public GrammarRuleProfiler(
+			Class<? extends Lexer> lexerClass,
+			Class<? extends Parser> parserClass,
+			String ruleName,
+			int maxLookahead) throws ReflectiveOperationException {
+
+		this.lexerClass = lexerClass;
+		this.parserClass = parserClass;
+		this.rule = GrammarRuleTestRunner.getRule( parserClass, ruleName );
+		this.maxLookahead = maxLookahead;
+	}
+
+	/**
+	 * Parses the given input and returns the work done by the parser.
+	 *
+	 * @param input the input to parse
+	 *
+	 * @return the work done by the parser
+	 *
+	 * @throws Throwable in case of any unexpected error raised by lexer or parser
+	 */
+	public ParseProfile profile(String input) throws Throwable {
+		InstrumentedTokenStream tokens = new InstrumentedTokenStream( newLexer( input ), maxLookahead );
+		Parser parser = GrammarRuleTestRunner.newParser( parserClass, tokens );
+		boolean successful = true;
+		boolean aborted = false;
+		long nanos;
+		String errors;
+
+		ThreadLocalErrorStream.startCapturing();
+		try {
+			long start = System.nanoTime();
+			try {
+				rule.invoke( parser );
+			}
+			catch (RecognitionException e) {
+				successful = false;
+			}
+			catch (LookaheadLimitExceededException e) {
+				successful = false;
+				aborted = true;
+			}
+			nanos = System.nanoTime() - start;
+
+			// ensure we've buffered all tokens from the underlying TokenSource
+			tokens.fill();
+		}
+		finally {
+			errors = ThreadLocalErrorStream.stopCapturing();
+		}
+
+		return new ParseProfile(
+				getOnChannelTokenCount( tokens ),
+				tokens.getLookaheadCount(),
+				tokens.getRewindCount(),
+				nanos,
+				successful && errors.isEmpty() && parser.getNumberOfSyntaxErrors() == 0,
+				aborted
+		);
+	}
+
+	/**
+	 * Splits the given input into tokens.
+	 *
+	 * @param input the input to split
+	 *
+	 * @return the texts of all tokens of the given input, including off-channel tokens and skipped characters such as
+	 *         whitespace, so the concatenation of the texts reproduces the input
+	 *
+	 * @throws Throwable in case of any unexpected error raised by the lexer
+	 */
+	public List<String> tokenize(String input) throws Throwable {
+		CommonTokenStream tokens = new CommonTokenStream( newLexer( input ) );
+
+		ThreadLocalErrorStream.startCapturing();
+		try {
+			tokens.fill();
+		}
+		finally {
+			ThreadLocalErrorStream.stopCapturing();
+		}
+
+		List<String> texts = new ArrayList<String>( tokens.size() );
+		int position = 0;
+
+		for ( Object token : tokens.getTokens() ) {
+			CommonToken commonToken = (CommonToken) token;
+			if ( commonToken.getType() == Token.EOF ) {
+				break;
+			}
+
+			// characters skipped by the lexer
+			if ( commonToken.getStartIndex() > position ) {
+				texts.add( input.substring( position, commonToken.getStartIndex() ) );
+			}
+
+			if ( commonToken.getStopIndex() >= commonToken.getStartIndex() ) {
+				texts.add( input.substring( commonToken.getStartIndex(), commonToken.getStopIndex() + 1 ) );
+				position = commonToken.getStopIndex() + 1;
+			}
+		}
+
+		if ( position < input.length() ) {
+			texts.add( input.substring( position ) );
+		}
+
+		return texts;
+	}
+
+	private Lexer newLexer(String input) throws Throwable {
+		return GrammarRuleTestRunner.newLexer( lexerClass, new ANTLRStringStream( input ) );
+	}
+
+	private int getOnChannelTokenCount(CommonTokenStream tokens) {
+		int count = 0;
+
+		for ( Object token : tokens.getTokens() ) {
+			if ( ( (Token) token ).getChannel() == Token.DEFAULT_CHANNEL && ( (Token) token ).getType() != Token.EOF ) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
@@ -20,14 +20,14 @@
  */
 package org.hibernate.hql.testing.internal.parser;
 
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.BaseRecognizer;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.Lexer;
@@ -36,7 +36,7 @@
 import org.antlr.runtime.RuleReturnScope;
 import org.antlr.runtime.Token;
 import org.antlr.runtime.TokenStream;
-import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.Tree;
 import org.hibernate.hql.testing.internal.model.GrammarRuleTestDescriptor;
 import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
 import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
@@ -44,12 +44,46 @@
 import org.hibernate.hql.testing.internal.model.RuleType;
 
 /**
- * Runs a single {@link GrammarRuleTestDescriptor grammar rule test}.
+ * Runs a single {@link GrammarRuleTestDescriptor grammar rule test}. Runners of different tests may be executed
+ * concurrently. The input of the recognizer is instrumented, so the work done for the test can be checked against the
+ * test's {@link org.hibernate.hql.testing.internal.model.PerformanceBudget}.
  *
  * @author Gunnar Morling
  */
 public class GrammarRuleTestRunner {
 
+	private static final MethodType LEXER_CONSTRUCTOR_TYPE = MethodType.methodType( void.class, CharStream.class );
+	private static final MethodType PARSER_CONSTRUCTOR_TYPE = MethodType.methodType( void.class, TokenStream.class );
+
+	/**
+	 * The constructors of the lexers and parsers under test, looked up once per class
+	 */
+	private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>() {
+
+		@Override
+		protected MethodHandle computeValue(Class<?> type) {
+			MethodType constructorType = Lexer.class.isAssignableFrom( type ) ? LEXER_CONSTRUCTOR_TYPE : PARSER_CONSTRUCTOR_TYPE;
+
+			try {
+				return MethodHandles.publicLookup().findConstructor( type, constructorType );
+			}
+			catch (ReflectiveOperationException e) {
+				throw new IllegalStateException( "No constructor " + constructorType + " found on " + type.getName(), e );
+			}
+		}
+	};
+
+	/**
+	 * The rule methods of the lexers and parsers under test by name, looked up once per class and rule
+	 */
+	private static final ClassValue<ConcurrentMap<String, MethodHandle>> RULES = new ClassValue<ConcurrentMap<String, MethodHandle>>() {
+
+		@Override
+		protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<String, MethodHandle>();
+		}
+	};
+
 	private final GrammarTestDescriptor grammarTest;
 	private final GrammarRuleTestGroupDescriptor grammarRuleTestGroup;
 	private final GrammarRuleTestDescriptor grammarRuleTest;
@@ -73,25 +107,27 @@ public GrammarRuleTestRunner(
 	 * @throws Throwable in case of any errors
 	 */
 	public ParsingResult run() throws Throwable {
-		Lexer lexer = getLexer();
+		InstrumentedCharStream characters = new InstrumentedCharStream( grammarRuleTest.getExpression() );
+		Lexer lexer = newLexer( grammarTest.getLexerClass(), characters );
 		ParsingResult parsingResult;
 
 		if ( grammarRuleTestGroup.getRuleType() == RuleType.LEXER ) {
-			Method rule = lexer.getClass().getMethod( "m" + grammarRuleTestGroup.getName() );
+			MethodHandle rule = getRule( lexer.getClass(), "m" + grammarRuleTestGroup.getName() );
 
-			parsingResult = invokeRule( lexer, rule );
+			parsingResult = invokeRule( lexer, rule, characters );
 		}
 		else {
-			CommonTokenStream tokens = new CommonTokenStream( lexer );
-			Parser parser = getParser( tokens );
-			Method rule = parser.getClass().getMethod( grammarRuleTestGroup.getName() );
+			InstrumentedTokenStream tokens = new InstrumentedTokenStream( lexer );
+			Parser parser = newParser( grammarTest.getParserClass(), tokens );
+			MethodHandle rule = getRule( parser.getClass(), grammarRuleTestGroup.getName() );
 
-			parsingResult = invokeRule( parser, rule );
+			parsingResult = invokeRule( parser, rule, tokens );
 
 			//consider unconsumed tokens as FAIL
 			String unconsumedTokens = getUnconsumedTokens( tokens );
 			if ( unconsumedTokens != null ) {
-				parsingResult = ParsingResult.fail( "Found unconsumed tokens: \"" + unconsumedTokens + "\"." );
+				parsingResult = ParsingResult.fail( "Found unconsumed tokens: \"" + unconsumedTokens + "\"." )
+						.withBudgetViolations( parsingResult.getBudgetViolations() );
 			}
 		}
 
@@ -99,78 +135,112 @@ public ParsingResult run() throws Throwable {
 	}
 
 	/**
-	 * Invokes the given lexer or parser rule on the given target object.
+	 * Invokes the given lexer or parser rule on the given recognizer.
 	 *
-	 * @param target the lexer or parser to invoke the given method on
+	 * @param recognizer the lexer or parser to invoke the given method on
 	 * @param rule the rule to invoke
+	 * @param input the input of the recognizer
 	 *
 	 * @return the outcome of the lexer or parser rule. The status will be
-	 *         {@link ParsingResult.Status#FAIL} in case anything is written to
-	 *         {@link System#err} during parsing or in case a
+	 *         {@link ParsingResult.Status#FAIL} in case the recognizer reports
+	 *         any errors (i.e. writes them to {@link System#err} from the
+	 *         current thread or counts syntax errors) or in case a
 	 *         {@link RecognitionException} is thrown, otherwise
-	 *         {@link ParsingResult.Status#OK}.
+	 *         {@link ParsingResult.Status#OK}. Any exceeded limits of the
+	 *         test's budget are described in either case.
 	 *
 	 * @throws Throwable In case of any unexpected error.
 	 */
-	private ParsingResult invokeRule(Object target, Method rule) throws Throwable {
-		PrintStream originalErrorStream = System.err;
+	private ParsingResult invokeRule(BaseRecognizer recognizer, MethodHandle rule, InstrumentedStream input) throws Throwable {
+		Object result = null;
+		RecognitionException recognitionException = null;
+		String errors;
 
+		ThreadLocalErrorStream.startCapturing();
 		try {
-			// have to catch any output written to System.err in Antlr3 since
-			// there is no way to register an error handler
-			ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
-			System.setErr( new PrintStream( errorStream ) );
+			result = rule.invoke( recognizer );
+		}
+		catch (RecognitionException re) {
+			recognitionException = re;
+		}
+		finally {
+			errors = ThreadLocalErrorStream.stopCapturing();
+		}
 
-			Object result = rule.invoke( target );
-			String ast = getAst( result );
+		Tree tree = getTree( result );
+		ParsingResult parsingResult;
 
-			return getParsingResult( errorStream, ast );
+		if ( recognitionException != null ) {
+			parsingResult = ParsingResult.fail( recognitionException.getMessage() );
 		}
-		catch (InvocationTargetException ite) {
-			try {
-				if ( ite.getCause() != null ) {
-					throw ite.getCause();
-				}
-				else {
-					throw ite;
-				}
-			}
-			catch (RecognitionException re) {
-				return ParsingResult.fail( re.getMessage() );
+		else {
+			if ( errors.isEmpty() && recognizer.getNumberOfSyntaxErrors() > 0 ) {
+				errors = recognizer.getNumberOfSyntaxErrors() + " syntax error(s) reported by the recognizer";
 			}
+
+			parsingResult = getParsingResult( errors, tree != null ? tree.toStringTree() : null );
 		}
-		finally {
-			System.setErr( originalErrorStream );
+
+		return parsingResult.withBudgetViolations(
+				grammarRuleTest.getBudget().getViolations(
+						input.getLookaheadCount(),
+						input.getRewindCount(),
+						getNodeCount( tree )
+				)
+		);
+	}
+
+	static MethodHandle getRule(Class<?> recognizerType, String name) throws ReflectiveOperationException {
+		ConcurrentMap<String, MethodHandle> rules = RULES.get( recognizerType );
+		MethodHandle rule = rules.get( name );
+
+		if ( rule == null ) {
+			rule = MethodHandles.publicLookup().unreflect( recognizerType.getMethod( name ) );
+			rules.putIfAbsent( name, rule );
 		}
+
+		return rule;
 	}
 
-	private ParsingResult getParsingResult(OutputStream errorStream, String ast) {
-		return errorStream.toString().isEmpty() ? ParsingResult.ok( ast ) : ParsingResult.fail(
-				errorStream.toString(),
+	private ParsingResult getParsingResult(String errors, String ast) {
+		return errors.isEmpty() ? ParsingResult.ok( ast ) : ParsingResult.fail(
+				errors,
 				ast
 		);
 	}
 
-	private String getAst(Object result) {
+	private Tree getTree(Object result) {
 		if ( result instanceof RuleReturnScope ) {
-			return ((CommonTree) ((RuleReturnScope) result).getTree()).toStringTree();
+			return (Tree) ((RuleReturnScope) result).getTree();
 		}
 
 		return null;
 	}
 
-	private Lexer getLexer() throws Exception {
-		return grammarTest
-				.getLexerClass()
-				.getConstructor( CharStream.class )
-				.newInstance( new ANTLRStringStream( grammarRuleTest.getExpression() ) );
+	// nil nodes used as root for a list of trees are not counted
+	private int getNodeCount(Tree tree) {
+		if ( tree == null ) {
+			return 0;
+		}
+
+		int count = tree.isNil() ? 0 : 1;
+		for ( int i = 0; i < tree.getChildCount(); i++ ) {
+			count += getNodeCount( tree.getChild( i ) );
+		}
+
+		return count;
+	}
+
+	static Lexer newLexer(Class<? extends Lexer> lexerClass, CharStream characters) throws Throwable {
+		return (Lexer) CONSTRUCTORS
+				.get( lexerClass )
+				.invoke( characters );
 	}
 
-	private Parser getParser(CommonTokenStream tokens) throws Exception {
-		return grammarTest
-				.getParserClass()
-				.getConstructor( TokenStream.class )
-				.newInstance( tokens );
+	static Parser newParser(Class<? extends Parser> parserClass, TokenStream tokens) throws Throwable {
+		return (Parser) CONSTRUCTORS
+				.get( parserClass )
+				.invoke( tokens );
 	}
 
 	private String getUnconsumedTokens(CommonTokenStream tokens) {
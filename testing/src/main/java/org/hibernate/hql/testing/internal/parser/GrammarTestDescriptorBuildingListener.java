@@ -22,16 +22,18 @@
 
 import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.hibernate.hql.testing.internal.GrammarTestBaseListener;
+import org.hibernate.hql.testing.internal.GrammarTestParser.BudgetContext;
+import org.hibernate.hql.testing.internal.GrammarTestParser.BudgetLimitContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.ExpectedAstContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.GrammarTestContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.PakkageContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.TestContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.TestGroupContext;
-import org.hibernate.hql.testing.internal.GrammarTestParser.TestResultContext;
 import org.hibernate.hql.testing.internal.GrammarTestParser.TestSubGroupContext;
 import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
 import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
 import org.hibernate.hql.testing.internal.model.ParsingResult;
+import org.hibernate.hql.testing.internal.model.PerformanceBudget;
 
 /**
  * A {@link ParseTreeListener} for grammar test trees which builds a
@@ -64,25 +66,41 @@ public void exitTestGroup(TestGroupContext ctx) {
 		testGroupBuilder.setName( ctx.ID().getText() );
 	}
 
+	// the test is added on exit of the complete test rather than its outcome, as the optional budget follows the outcome
 	@Override
-	public void exitTestResult(TestResultContext ctx) {
-		String statement = ((TestContext) ctx.getParent()).statement().getText();
-		testGroupBuilder.addTest(
-				ctx.getParent().getStart().getLine(),
-				withoutLiteralDelimiters( statement ),
-				ParsingResult.Status.valueOf( ctx.getText() )
-		);
+	public void exitTest(TestContext ctx) {
+		String statement = ctx.statement().getText();
+		PerformanceBudget budget = ctx.budget() != null ? getBudget( ctx.budget() ) : PerformanceBudget.NONE;
+
+		if ( ctx.outcome() instanceof ExpectedAstContext ) {
+			ExpectedAstContext expectedAst = (ExpectedAstContext) ctx.outcome();
+
+			testGroupBuilder.addAstTest(
+					expectedAst.getStart().getLine(),
+					withoutLiteralDelimiters( statement ),
+					expectedAst.AST().getText(),
+					budget
+			);
+		}
+		else {
+			testGroupBuilder.addTest(
+					ctx.getStart().getLine(),
+					withoutLiteralDelimiters( statement ),
+					ParsingResult.Status.valueOf( ctx.outcome().getText() ),
+					budget
+			);
+		}
 	}
 
+	// budgets of tests are handled in exitTest()
 	@Override
-	public void exitExpectedAst(ExpectedAstContext ctx) {
-		String statement = ((TestContext) ctx.getParent()).statement().getText();
-
-		testGroupBuilder.addAstTest(
-				ctx.getStart().getLine(),
-				withoutLiteralDelimiters( statement ),
-				ctx.AST().getText()
-		);
+	public void exitBudget(BudgetContext ctx) {
+		if ( ctx.getParent() instanceof TestGroupContext ) {
+			testGroupBuilder.setBudget( getBudget( ctx ) );
+		}
+		else if ( ctx.getParent() instanceof TestSubGroupContext ) {
+			testGroupBuilder.setSubGroupBudget( getBudget( ctx ) );
+		}
 	}
 
 	@Override
@@ -99,6 +117,21 @@ public GrammarTestDescriptor getGrammarTest() {
 		return testBuilder.build();
 	}
 
+	private PerformanceBudget getBudget(BudgetContext ctx) {
+		PerformanceBudget.Builder budgetBuilder = new PerformanceBudget.Builder();
+
+		for ( BudgetLimitContext limit : ctx.budgetLimit() ) {
+			try {
+				budgetBuilder.setLimit( limit.ID().getText(), Integer.parseInt( limit.INT().getText() ) );
+			}
+			catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException( "Invalid budget in line " + limit.getStart().getLine() + ": " + e.getMessage(), e );
+			}
+		}
+
+		return budgetBuilder.build();
+	}
+
 	private String withoutLiteralDelimiters(String statement) {
 		//"..."
 		if ( statement.startsWith( "\"" ) ) {
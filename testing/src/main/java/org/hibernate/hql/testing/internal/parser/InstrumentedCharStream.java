@@ -0,0 +1,61 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.parser;
+
+import org.antlr.runtime.ANTLRStringStream;
+
+/**
+ * A character stream counting the characters looked at and the rewinds done by the lexer.
+ */
+class InstrumentedCharStream extends ANTLRStringStream implements InstrumentedStream {
+
+	private int lookaheadCount;
+	private int rewindCount;
+
+	InstrumentedCharStream(String input) {
+		super( input );
+	}
+
+	@Override
+	public int LA(int i) {
+		if ( i > 0 ) {
+			lookaheadCount++;
+		}
+		return super.LA( i );
+	}
+
+	// rewind() delegates to this method, so it doesn't need to be overridden
+	@Override
+	public void rewind(int m) {
+		rewindCount++;
+		super.rewind( m );
+	}
+
+	@Override
+	public int getLookaheadCount() {
+		return lookaheadCount;
+	}
+
+	@Override
+	public int getRewindCount() {
+		return rewindCount;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.parser;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * A token stream counting the tokens looked at and the rewinds done by the parser. Exponential backtracking shows as
+ * a steep increase of these numbers with the length of the input. Optionally the lookahead can be limited, so inputs
+ * triggering excessive backtracking can be aborted instead of pinning the current thread.
+ */
+class InstrumentedTokenStream extends CommonTokenStream implements InstrumentedStream {
+
+	private final int maxLookahead;
+	private int lookaheadCount;
+	private int rewindCount;
+
+	InstrumentedTokenStream(TokenSource tokenSource) {
+		this( tokenSource, Integer.MAX_VALUE );
+	}
+
+	InstrumentedTokenStream(TokenSource tokenSource, int maxLookahead) {
+		super( tokenSource );
+		this.maxLookahead = maxLookahead;
+	}
+
+	@Override
+	public Token LT(int k) {
+		if ( k > 0 ) {
+			lookaheadCount++;
+
+			if ( lookaheadCount > maxLookahead ) {
+				throw new LookaheadLimitExceededException( maxLookahead );
+			}
+		}
+		return super.LT( k );
+	}
+
+	@Override
+	public void rewind(int marker) {
+		rewindCount++;
+		super.rewind( marker );
+	}
+
+	@Override
+	public void rewind() {
+		rewindCount++;
+		super.rewind();
+	}
+
+	@Override
+	public int getLookaheadCount() {
+		return lookaheadCount;
+	}
+
+	@Override
+	public int getRewindCount() {
+		return rewindCount;
+	}
+
+	/**
+	 * Raised when the parser looks at more tokens than allowed. Not a {@code RecognitionException}, so it isn't caught
+	 * by the error recovery of the parser and aborts the parse.
+	 */
+	static class LookaheadLimitExceededException extends RuntimeException {
+
+		LookaheadLimitExceededException(int maxLookahead) {
+			super( "The parser looked at more than " + maxLookahead + " tokens" );
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.internal.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Captures the error messages written by Antlr 3 recognizers per thread. Antlr 3 offers no error listener API, the
+ * recognizers write their messages to {@link System#err} via {@code BaseRecognizer#emitErrorMessage()}. Replacing
+ * {@code System.err} for each test would prevent running tests concurrently, so instead this stream is installed once
+ * and routes the output of threads currently capturing into a buffer of their own, while the output of all other
+ * threads is passed on to the original error stream.
+ */
+final class ThreadLocalErrorStream extends PrintStream {
+
+	private static final ThreadLocal<ByteArrayOutputStream> CAPTURED = new ThreadLocal<ByteArrayOutputStream>();
+
+	private ThreadLocalErrorStream(PrintStream original) {
+		super( new RoutingOutputStream( original ), true );
+	}
+
+	/**
+	 * Starts capturing the output written to {@link System#err} by the current thread.
+	 */
+	static void startCapturing() {
+		install();
+		CAPTURED.set( new ByteArrayOutputStream() );
+	}
+
+	/**
+	 * Stops capturing the output written to {@link System#err} by the current thread.
+	 *
+	 * @return the output captured since {@link #startCapturing()} has been invoked
+	 */
+	static String stopCapturing() {
+		ByteArrayOutputStream captured = CAPTURED.get();
+		CAPTURED.remove();
+
+		return captured != null ? captured.toString() : "";
+	}
+
+	private static synchronized void install() {
+		// installed only once, unless the error stream has been replaced by someone else meanwhile
+		if ( !( System.err instanceof ThreadLocalErrorStream ) ) {
+			System.setErr( new ThreadLocalErrorStream( System.err ) );
+		}
+	}
+
+	/**
+	 * Writes to the buffer of the current thread if it is capturing, or to the original stream otherwise. Invoked on
+	 * the writing thread, while it holds the lock of the enclosing print stream.
+	 */
+	private static class RoutingOutputStream extends OutputStream {
+
+		private final PrintStream original;
+
+		private RoutingOutputStream(PrintStream original) {
+			this.original = original;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ByteArrayOutputStream captured = CAPTURED.get();
+
+			if ( captured != null ) {
+				captured.write( b );
+			}
+			else {
+				original.write( b );
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ByteArrayOutputStream captured = CAPTURED.get();
+
+			if ( captured != null ) {
+				captured.write( b, off, len );
+			}
+			else {
+				original.write( b, off, len );
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if ( CAPTURED.get() == null ) {
+				original.flush();
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.junit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import org.junit.Assume;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Asserts that actions such as parsing a query don't allocate more memory than a given budget. The budgets are read
+ * from a properties file stored with the test, mapping budget names to numbers of bytes, e.g.:
+ *
+ * <pre>
+ * simpleQuery = 400000
+ * </pre>
+ *
+ * The bytes allocated by the current thread are determined using the allocation counters of the HotSpot
+ * {@code ThreadMXBean}; on JVMs not providing them, assertions are skipped via {@link Assume}. Each action is run
+ * repeatedly to warm up the JIT compiler and any caches, the budget is checked against the smallest allocation of the
+ * subsequent measured runs.
+ * <p>
+ * Set the system property {@value #REPORT_PROPERTY} to {@code true} for printing the allocation of all checked
+ * actions, e.g. for adjusting the budgets after an improvement.
+ */
+public class AllocationBudgets {
+
+	public static final String REPORT_PROPERTY = "org.hibernate.hql.testing.reportAllocations";
+
+	private static final int WARM_UP_RUNS = 50;
+	private static final int MEASURED_RUNS = 10;
+
+	/**
+	 * Keeps the results of measured actions reachable, so the JIT compiler can't eliminate their allocations
+	 */
+	private static volatile Object sink;
+
+	private final String resourceName;
+	private final Properties budgets;
+
+	/**
+	 * Loads the budgets from the given properties file.
+	 *
+	 * @param clazz the class via which to load the given file
+	 * @param resourceName the properties file with the budgets
+	 */
+	public AllocationBudgets(Class<?> clazz, String resourceName) {
+		this.resourceName = resourceName;
+		this.budgets = loadBudgets( clazz, resourceName );
+	}
+
+	/**
+	 * Asserts that the given action doesn't allocate more bytes than given by the budget with the given name.
+	 *
+	 * @param budgetName the name of the budget to check
+	 * @param action the action to measure
+	 *
+	 * @throws Exception in case the action raises an exception
+	 */
+	public void assertWithinBudget(String budgetName, Callable<?> action) throws Exception {
+		Assume.assumeTrue( "Thread allocation counters aren't supported by this JVM", isSupported() );
+
+		String budget = budgets.getProperty( budgetName );
+		if ( budget == null ) {
+			throw new IllegalArgumentException( "No allocation budget " + budgetName + " given in " + resourceName );
+		}
+
+		long allocatedBytes = measureAllocatedBytes( action );
+
+		if ( Boolean.getBoolean( REPORT_PROPERTY ) ) {
+			System.out.println( "Allocation of " + budgetName + ": " + allocatedBytes + " bytes (budget: " + budget + " bytes)" );
+		}
+
+		if ( allocatedBytes > Long.parseLong( budget.trim() ) ) {
+			fail( "Allocation budget " + budgetName + " exceeded: " + allocatedBytes + " bytes allocated, budget is " + budget.trim() + " bytes" );
+		}
+	}
+
+	/**
+	 * Whether the allocation of the current thread can be measured on this JVM.
+	 *
+	 * @return {@code true} if the allocation can be measured, {@code false} otherwise
+	 */
+	public static boolean isSupported() {
+		return getThreadMXBean() != null;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread when running the given action, after it has been
+	 * warmed up.
+	 *
+	 * @param action the action to measure
+	 *
+	 * @return the smallest number of bytes allocated by one measured run of the given action
+	 *
+	 * @throws Exception in case the action raises an exception
+	 * @throws UnsupportedOperationException in case the allocation can't be measured on this JVM
+	 */
+	public static long measureAllocatedBytes(Callable<?> action) throws Exception {
+		com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+		if ( threadMXBean == null ) {
+			throw new UnsupportedOperationException( "Thread allocation counters aren't supported by this JVM" );
+		}
+
+		long threadId = Thread.currentThread().getId();
+
+		for ( int i = 0; i < WARM_UP_RUNS; i++ ) {
+			sink = action.call();
+		}
+
+		// the counter itself may allocate, e.g. for boxing the thread id into an array
+		long overhead = Long.MAX_VALUE;
+		for ( int i = 0; i < MEASURED_RUNS; i++ ) {
+			long before = threadMXBean.getThreadAllocatedBytes( threadId );
+			overhead = Math.min( overhead, threadMXBean.getThreadAllocatedBytes( threadId ) - before );
+		}
+
+		long allocatedBytes = Long.MAX_VALUE;
+		for ( int i = 0; i < MEASURED_RUNS; i++ ) {
+			long before = threadMXBean.getThreadAllocatedBytes( threadId );
+			sink = action.call();
+			allocatedBytes = Math.min( allocatedBytes, threadMXBean.getThreadAllocatedBytes( threadId ) - before );
+		}
+
+		sink = null;
+		return Math.max( 0, allocatedBytes - overhead );
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+		if ( !( threadMXBean instanceof com.sun.management.ThreadMXBean ) ) {
+			return null;
+		}
+
+		com.sun.management.ThreadMXBean hotSpotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		if ( !hotSpotThreadMXBean.isThreadAllocatedMemorySupported() ) {
+			return null;
+		}
+
+		if ( !hotSpotThreadMXBean.isThreadAllocatedMemoryEnabled() ) {
+			hotSpotThreadMXBean.setThreadAllocatedMemoryEnabled( true );
+		}
+
+		return hotSpotThreadMXBean;
+	}
+
+	private static Properties loadBudgets(Class<?> clazz, String resourceName) {
+		InputStream inputStream = clazz.getResourceAsStream( resourceName );
+
+		if ( inputStream == null ) {
+			throw new IllegalArgumentException( "The allocation budget file " + resourceName + " couldn't be found." );
+		}
+
+		try {
+			Properties budgets = new Properties();
+			budgets.load( inputStream );
+			return budgets;
+		}
+		catch (IOException e) {
+			throw new RuntimeException( e );
+		}
+		finally {
+			try {
+				inputStream.close();
+			}
+			catch (IOException e) { /*ignore*/ }
+		}
+	}
+}
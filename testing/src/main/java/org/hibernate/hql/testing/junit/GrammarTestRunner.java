@@ -25,6 +25,7 @@
 
 import org.hibernate.hql.testing.ForGrammar;
 import org.hibernate.hql.testing.internal.junit.GrammarRuleStatements;
+import org.hibernate.hql.testing.internal.junit.ParallelRunnerScheduler;
 import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
 import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
 import org.hibernate.hql.testing.internal.parser.GrammarTestParser;
@@ -39,7 +40,8 @@
  * A JUnit test runner for executing Antlr grammar tests. The grammar test file
  * must be specified using the {@link ForGrammar} annotation. Note that this
  * runner supports {@code TestRule}s in the test classes but not the
- * {@code @Before} and {@code @After} hooks.
+ * {@code @Before} and {@code @After} hooks. The tests of the different grammar
+ * rules are run concurrently if enabled via {@link ForGrammar#parallel()}.
  *
  * @author Gunnar Morling
  */
@@ -50,18 +52,22 @@ public class GrammarTestRunner extends ParentRunner<Runner> {
 	public GrammarTestRunner(Class<?> testClass) throws InitializationError {
 		super( testClass );
 
-		String grammarFileName = getGrammarFileName( testClass );
-		GrammarTestDescriptor grammarTest = new GrammarTestParser().getGrammarTest( testClass, grammarFileName );
+		ForGrammar forGrammar = getForGrammar( testClass );
+		GrammarTestDescriptor grammarTest = new GrammarTestParser().getGrammarTest( testClass, forGrammar.value() );
 		runners = getRunners( testClass, grammarTest );
+
+		if ( forGrammar.parallel() ) {
+			setScheduler( new ParallelRunnerScheduler( Runtime.getRuntime().availableProcessors() ) );
+		}
 	}
 
-	private String getGrammarFileName(Class<?> testClass) throws InitializationError {
+	private ForGrammar getForGrammar(Class<?> testClass) throws InitializationError {
 		ForGrammar forGrammar = testClass.getAnnotation( ForGrammar.class );
 		if ( forGrammar == null ) {
 			throw new InitializationError( "A grammar test file must be specified via @" + ForGrammar.class.getSimpleName() + "." );
 		}
 
-		return forGrammar.value();
+		return forGrammar;
 	}
 
 	private List<Runner> getRunners(Class<?> testClass, GrammarTestDescriptor grammarTest) throws InitializationError {
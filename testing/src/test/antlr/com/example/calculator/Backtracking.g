@@ -0,0 +1,27 @@
+/**
+ * Test grammar whose parsing effort grows exponentially with the nesting depth
+ * of expressions, as each alternative of expr speculatively matches atom again.
+ */
+grammar Backtracking;
+
+options { backtrack=true; }
+
+@header {
+package com.example.calculator;
+}
+
+@lexer::header {package com.example.calculator;}
+
+expr
+    :   atom '+' expr
+    |   atom '-' expr
+    |   atom
+    ;
+
+atom
+    :   INT
+    |   '(' expr ')'
+    ;
+
+INT :   '0'..'9'+ ;
+WS  :   (' '|'\t'|'\r'|'\n')+ {skip();} ;
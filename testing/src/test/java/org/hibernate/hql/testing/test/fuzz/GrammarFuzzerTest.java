@@ -0,0 +1,87 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.test.fuzz;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.hibernate.hql.testing.fuzz.FuzzFinding;
+import org.hibernate.hql.testing.fuzz.FuzzReport;
+import org.hibernate.hql.testing.fuzz.GrammarFuzzer;
+import org.junit.Test;
+
+import com.example.calculator.BacktrackingLexer;
+import com.example.calculator.BacktrackingParser;
+
+/**
+ * Test for {@link GrammarFuzzer}.
+ */
+public class GrammarFuzzerTest {
+
+	@Test
+	public void shouldFindNoPathologiesInLinearGrammar() {
+		FuzzReport report = GrammarFuzzer.Builder.forTestSuite( GrammarFuzzerTest.class, "../exprAst.testsuite" )
+				.iterations( 50 )
+				.build()
+				.run();
+
+		assertThat( report.getFindings() ).isEmpty();
+		assertThat( report.getParseCount() ).isGreaterThan( 50 );
+		assertThat( report.getTokenCount() ).isGreaterThan( 0 );
+		assertThat( report.getAbortedParseCount() ).isEqualTo( 0 );
+	}
+
+	@Test
+	public void shouldFindAndMinimizeExponentialBacktracking() {
+		FuzzReport report = new GrammarFuzzer.Builder( BacktrackingLexer.class, BacktrackingParser.class )
+				.addSeeds( "expr", Arrays.asList( "1 + 2", "(3 - 4) + 5", "6" ) )
+				.iterations( 50 )
+				.maxLookahead( 100000 )
+				.build()
+				.run();
+
+		assertThat( report.getFindings() ).isNotEmpty();
+		assertThat( report.getRewindCount() ).isGreaterThan( 0 );
+
+		for ( FuzzFinding finding : report.getFindings() ) {
+			assertThat( finding.getRuleName() ).isEqualTo( "expr" );
+			assertThat( finding.getGrowthExponent() ).isGreaterThan( 1.5 );
+			// minimization removes all tokens not needed for the blow-up
+			assertThat( finding.getInput( 1 ).length() ).isLessThanOrEqualTo( "(3 - 4) + 5".length() + 4 );
+		}
+	}
+
+	@Test
+	public void shouldBeDeterministicForGivenRandomSeed() {
+		GrammarFuzzer.Builder builder = new GrammarFuzzer.Builder( BacktrackingLexer.class, BacktrackingParser.class )
+				.addSeeds( "expr", Arrays.asList( "1 + 2", "(3 - 4) + 5" ) )
+				.iterations( 20 )
+				.randomSeed( 1234L );
+
+		FuzzReport first = builder.build().run();
+		FuzzReport second = builder.build().run();
+
+		assertThat( second.getParseCount() ).isEqualTo( first.getParseCount() );
+		assertThat( second.getLookaheadCount() ).isEqualTo( first.getLookaheadCount() );
+		assertThat( second.getFindings().toString() ).isEqualTo( first.getFindings().toString() );
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.test.internal.parser;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
+import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
+import org.hibernate.hql.testing.internal.model.ParsingResult;
+import org.hibernate.hql.testing.internal.model.PerformanceBudget;
+import org.hibernate.hql.testing.internal.parser.GrammarRuleTestRunner;
+import org.junit.Test;
+
+/**
+ * Test for the budget checks of {@link GrammarRuleTestRunner}.
+ */
+public class GrammarRuleTestRunnerTest {
+
+	@Test
+	public void shouldKeepBudget() throws Throwable {
+		ParsingResult result = runAstTest( "expr", "2 * 3 + 4", "(+ (* 2 3) 4)", budget( "nodes", 5 ) );
+
+		assertThat( result.getStatus() ).isEqualTo( ParsingResult.Status.OK );
+		assertThat( result.getBudgetViolations() ).isNull();
+	}
+
+	@Test
+	public void shouldReportExceededNodeBudget() throws Throwable {
+		ParsingResult result = runAstTest( "expr", "2 * 3 + 4", "(+ (* 2 3) 4)", budget( "nodes", 4 ) );
+
+		assertThat( result.getStatus() ).isEqualTo( ParsingResult.Status.OK );
+		assertThat( result.getBudgetViolations() ).isEqualTo( "nodes=5 (budget: 4)" );
+	}
+
+	@Test
+	public void shouldReportExceededLookaheadBudgetOfParserRule() throws Throwable {
+		ParsingResult result = runAstTest( "expr", "2 * 3 + 4", "(+ (* 2 3) 4)", budget( "lookahead", 1 ) );
+
+		assertThat( result.getBudgetViolations() ).startsWith( "lookahead=" );
+	}
+
+	@Test
+	public void shouldReportExceededLookaheadBudgetOfLexerRule() throws Throwable {
+		GrammarTestDescriptor.Builder grammarTestBuilder = grammarTestBuilder();
+		GrammarRuleTestGroupDescriptor.Builder groupBuilder = grammarTestBuilder.addTestGroup();
+		groupBuilder.setName( "ID" );
+		groupBuilder.addTest( 1, "abcdefghij", ParsingResult.Status.OK, budget( "lookahead", 5 ) );
+
+		ParsingResult result = run( grammarTestBuilder.build() );
+
+		assertThat( result.getStatus() ).isEqualTo( ParsingResult.Status.OK );
+		assertThat( result.getBudgetViolations() ).startsWith( "lookahead=" );
+	}
+
+	@Test
+	public void shouldReportExceededBudgetOfFailingTest() throws Throwable {
+		GrammarTestDescriptor.Builder grammarTestBuilder = grammarTestBuilder();
+		GrammarRuleTestGroupDescriptor.Builder groupBuilder = grammarTestBuilder.addTestGroup();
+		groupBuilder.setName( "expr" );
+		groupBuilder.addTest( 1, "1 + 2 +", ParsingResult.Status.FAIL, budget( "lookahead", 1 ) );
+
+		ParsingResult result = run( grammarTestBuilder.build() );
+
+		assertThat( result.getStatus() ).isEqualTo( ParsingResult.Status.FAIL );
+		assertThat( result.getBudgetViolations() ).startsWith( "lookahead=" );
+	}
+
+	private ParsingResult runAstTest(String rule, String expression, String expectedAst, PerformanceBudget budget) throws Throwable {
+		GrammarTestDescriptor.Builder grammarTestBuilder = grammarTestBuilder();
+		GrammarRuleTestGroupDescriptor.Builder groupBuilder = grammarTestBuilder.addTestGroup();
+		groupBuilder.setName( rule );
+		groupBuilder.addAstTest( 1, expression, expectedAst, budget );
+
+		return run( grammarTestBuilder.build() );
+	}
+
+	private ParsingResult run(GrammarTestDescriptor grammarTest) throws Throwable {
+		GrammarRuleTestGroupDescriptor group = grammarTest.getTestGroups().get( 0 );
+		return new GrammarRuleTestRunner( grammarTest, group, group.getTests().get( 0 ) ).run();
+	}
+
+	private GrammarTestDescriptor.Builder grammarTestBuilder() {
+		GrammarTestDescriptor.Builder grammarTestBuilder = new GrammarTestDescriptor.Builder();
+		grammarTestBuilder.setName( "ExprAst" );
+		grammarTestBuilder.setPackageName( "com.example.calculator" );
+		return grammarTestBuilder;
+	}
+
+	private PerformanceBudget budget(String limit, int value) {
+		PerformanceBudget.Builder budgetBuilder = new PerformanceBudget.Builder();
+		budgetBuilder.setLimit( limit, value );
+		return budgetBuilder.build();
+	}
+}
@@ -26,6 +26,7 @@
 import org.hibernate.hql.testing.internal.model.GrammarRuleTestGroupDescriptor;
 import org.hibernate.hql.testing.internal.model.GrammarTestDescriptor;
 import org.hibernate.hql.testing.internal.model.ParsingResult;
+import org.hibernate.hql.testing.internal.model.PerformanceBudget;
 import org.hibernate.hql.testing.internal.parser.GrammarTestParser;
 import org.junit.Before;
 import org.junit.Test;
@@ -178,4 +179,47 @@ public void shouldRetrieveSubGroups() throws Exception {
 		assertThat( multiLineGroup.getTests().get( 0 ).getExpression() ).isEqualTo( "a = 1 + 1\n" );
 		assertThat( multiLineGroup.getTests().get( 1 ).getExpression() ).isEqualTo( "b = 2 * 2\n" );
 	}
+
+	@Test
+	public void shouldRetrieveBudgets() throws Exception {
+		GrammarTestDescriptor grammarTest = parser.getGrammarTest(
+				GrammarTestParserTest.class,
+				"../../exprBudgets.testsuite"
+		);
+
+		GrammarRuleTestGroupDescriptor idTests = grammarTest.getTestGroups().get( 0 );
+		assertBudget( idTests.getTests().get( 0 ).getBudget(), 100, null, null );
+		assertBudget( idTests.getTests().get( 1 ).getBudget(), 100, null, null );
+
+		// budget of a single test overrides the group budget
+		GrammarRuleTestGroupDescriptor exprTests = grammarTest.getTestGroups().get( 1 );
+		assertThat( exprTests.getTests() ).hasSize( 2 );
+		assertBudget( exprTests.getTests().get( 0 ).getBudget(), 500, null, 5 );
+		assertBudget( exprTests.getTests().get( 1 ).getBudget(), 500, null, 7 );
+		assertThat( exprTests.getTests().get( 1 ).getExpectedAst() ).isEqualTo( "(+ (+ (+ 1 2) 3) 4)" );
+
+		// budget of a sub-group overrides the group budget
+		GrammarRuleTestGroupDescriptor nestedTests = exprTests.getSubGroups().get( 0 );
+		assertThat( nestedTests.getName() ).isEqualTo( "[nested]" );
+		assertBudget( nestedTests.getTests().get( 0 ).getBudget(), 1000, 10, 9 );
+		assertBudget( nestedTests.getTests().get( 1 ).getBudget(), 100, 10, 9 );
+		assertThat( nestedTests.getTests().get( 1 ).getExpectedParsingResultStatus() ).isEqualTo( ParsingResult.Status.FAIL );
+	}
+
+	@Test
+	public void shouldApplyNoBudgetByDefault() throws Exception {
+		GrammarTestDescriptor grammarTest = parser.getGrammarTest(
+				GrammarTestParserTest.class,
+				"../../expr.testsuite"
+		);
+
+		GrammarRuleTestDescriptor test = grammarTest.getTestGroups().get( 0 ).getTests().get( 0 );
+		assertThat( test.getBudget() ).isSameAs( PerformanceBudget.NONE );
+	}
+
+	private void assertBudget(PerformanceBudget budget, Integer maxLookahead, Integer maxBacktracks, Integer maxAstNodes) {
+		assertThat( budget.getMaxLookahead() ).isEqualTo( maxLookahead );
+		assertThat( budget.getMaxBacktracks() ).isEqualTo( maxBacktracks );
+		assertThat( budget.getMaxAstNodes() ).isEqualTo( maxAstNodes );
+	}
 }
@@ -0,0 +1,74 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2015 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.hql.testing.test.junit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.hql.testing.junit.AllocationBudgets;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link AllocationBudgets}.
+ */
+public class AllocationBudgetsTest {
+
+	private static final Callable<byte[]> LARGE_ARRAY = new Callable<byte[]>() {
+
+		@Override
+		public byte[] call() {
+			return new byte[100000];
+		}
+	};
+
+	private final AllocationBudgets budgets = new AllocationBudgets( AllocationBudgetsTest.class, "allocation-budgets.properties" );
+
+	@Before
+	public void assumeAllocationCountersSupported() {
+		Assume.assumeTrue( AllocationBudgets.isSupported() );
+	}
+
+	@Test
+	public void shouldMeasureAllocatedBytes() throws Exception {
+		long allocatedBytes = AllocationBudgets.measureAllocatedBytes( LARGE_ARRAY );
+
+		assertThat( allocatedBytes ).isGreaterThanOrEqualTo( 100000 );
+		assertThat( allocatedBytes ).isLessThan( 120000 );
+	}
+
+	@Test
+	public void shouldPassActionWithinBudget() throws Exception {
+		budgets.assertWithinBudget( "largeArray", LARGE_ARRAY );
+	}
+
+	@Test(expected = AssertionError.class)
+	public void shouldFailActionExceedingBudget() throws Exception {
+		budgets.assertWithinBudget( "smallArray", LARGE_ARRAY );
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRaiseExceptionForUnknownBudget() throws Exception {
+		budgets.assertWithinBudget( "unknown", LARGE_ARRAY );
+	}
+}